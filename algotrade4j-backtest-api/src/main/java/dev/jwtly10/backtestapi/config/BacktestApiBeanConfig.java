@@ -2,13 +2,33 @@ package dev.jwtly10.backtestapi.config;
 
 import dev.jwtly10.core.event.AsyncEventPublisher;
 import dev.jwtly10.core.event.EventPublisher;
+import dev.jwtly10.core.event.RingBufferEventPublisher;
+import dev.jwtly10.core.event.StrategyRingEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class BacktestApiBeanConfig {
+
+    @Value("${event.publisher.type:async}")
+    private String eventPublisherType;
+
+    @Value("${event.publisher.ring.buffer.size:8192}")
+    private int ringBufferSize;
+
+    @Value("${event.publisher.ring.wait.strategy:BLOCKING}")
+    private RingBufferEventPublisher.WaitStrategy ringWaitStrategy;
+
+    @Value("${event.publisher.ring.overflow.policy:BLOCK}")
+    private RingBufferEventPublisher.OverflowPolicy ringOverflowPolicy;
+
     @Bean
     public EventPublisher eventPublisher() {
+        if ("ring".equalsIgnoreCase(eventPublisherType)) {
+            // A single producer ring per backtest, see BacktestStrategyManager for how each backtest publishes from one thread
+            return new StrategyRingEventPublisher(ringBufferSize, ringWaitStrategy, ringOverflowPolicy);
+        }
         return new AsyncEventPublisher();
     }
-}
\ No newline at end of file
+}
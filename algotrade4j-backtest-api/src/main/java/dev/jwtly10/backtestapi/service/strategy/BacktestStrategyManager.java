@@ -39,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -127,14 +129,24 @@ public class BacktestStrategyManager {
         StrategyNewsUtil strategyNewsUtil = new StrategyNewsUtil(forexFactoryClient, false);
 
         BacktestExecutor executor = new BacktestExecutor(strategy, tradeManager, tradeStateManager, accountManager, dataManager, barSeries, eventPublisher, backtestRiskManager, performanceAnalyser, strategyNewsUtil);
-        executor.initialise();
-        dataManager.addDataListener(executor);
 
         Strategy finalStrategy = strategy;
+        CompletableFuture<Void> initialised = new CompletableFuture<>();
         executorService.submit(() -> {
             Thread.currentThread().setName("BacktestExecutor-" + finalStrategy.getStrategyId());
             MDC.put("strategyId", finalStrategy.getStrategyId());
             MDC.put("instrument", executor.getDataManager().getInstrument().toString());
+            try {
+                // Initialised on the thread that runs the backtest, so (outside of stopping it) one thread publishes all of its events.
+                // With a ring buffer per strategy, that thread is the ring's single producer
+                executor.initialise();
+                dataManager.addDataListener(executor);
+            } catch (Exception e) {
+                initialised.completeExceptionally(e);
+                MDC.clear();
+                return;
+            }
+            initialised.complete(null);
             try {
                 dataManager.start();
             } catch (Exception e) {
@@ -146,6 +158,15 @@ public class BacktestStrategyManager {
             }
         });
 
+        try {
+            initialised.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
         runningStrategies.put(strategy.getStrategyId(), executor);
     }
 
@@ -2,7 +2,9 @@ package dev.jwtly10.backtestapi.service.websocket;
 
 import dev.jwtly10.backtestapi.service.strategy.BacktestStrategyManager;
 import dev.jwtly10.core.event.EventPublisher;
+import dev.jwtly10.core.event.OutboundEventQueue;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -12,16 +14,32 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 
 @Component
 @Slf4j
 public class StrategyWebSocketHandler extends TextWebSocketHandler {
+    // Sent by clients that can decode the binary protocol, before or after the STRATEGY message
+    private static final String BINARY_PROTOCOL_MESSAGE = "PROTOCOL:BINARY";
+    private static final String BINARY_PROTOCOL_ATTRIBUTE = "binaryProtocol";
     private final EventPublisher eventPublisher;
     private final BacktestStrategyManager backtestStrategyManager;
     private final Map<WebSocketSession, WebSocketEventListener> listeners = new ConcurrentHashMap<>();
     private final Map<String, WebSocketSession> strategySessions = new ConcurrentHashMap<>();
+    // Shared by all sessions to flush conflated bar/account/trade updates
+    private final ScheduledExecutorService conflationScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @Value("${websocket.conflation.frames.per.second:20}")
+    private int conflationFramesPerSecond;
+
+    @Value("${websocket.outbound.queue.capacity:1000}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.outbound.queue.overflow.policy:CONFLATE}")
+    private OutboundEventQueue.OverflowPolicy outboundQueueOverflowPolicy;
 
     public StrategyWebSocketHandler(EventPublisher eventPublisher, BacktestStrategyManager backtestStrategyManager) {
         this.eventPublisher = eventPublisher;
@@ -37,6 +55,14 @@ public class StrategyWebSocketHandler extends TextWebSocketHandler {
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         log.info("Received message: {} ", message.getPayload());
         String payload = message.getPayload();
+        if (BINARY_PROTOCOL_MESSAGE.equals(payload)) {
+            session.getAttributes().put(BINARY_PROTOCOL_ATTRIBUTE, true);
+            WebSocketEventListener listener = listeners.get(session);
+            if (listener != null) {
+                listener.setBinaryProtocol(true);
+            }
+            return;
+        }
         if (payload.startsWith("STRATEGY:")) {
             String strategyId = payload.substring(9);
             log.info("Strategy id: {} ", strategyId);
@@ -44,7 +70,9 @@ public class StrategyWebSocketHandler extends TextWebSocketHandler {
             log.info("Updated strategySessions map. Size: {}", strategySessions.size());
 
             // Setup the listener for this strategy
-            WebSocketEventListener listener = new WebSocketEventListener(session, strategyId);
+            WebSocketEventListener listener = new WebSocketEventListener(session, strategyId, conflationFramesPerSecond, conflationScheduler,
+                    outboundQueueCapacity, outboundQueueOverflowPolicy);
+            listener.setBinaryProtocol(Boolean.TRUE.equals(session.getAttributes().get(BINARY_PROTOCOL_ATTRIBUTE)));
             listeners.put(session, listener);
             eventPublisher.addListener(listener);
 
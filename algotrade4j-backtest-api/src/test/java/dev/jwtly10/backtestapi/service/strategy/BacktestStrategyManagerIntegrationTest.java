@@ -208,6 +208,11 @@ class BacktestStrategyManagerIntegrationTest {
 
         }
 
+        @Override
+        public boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+            return true;
+        }
+
         @Override
         public void shutdown() {
 
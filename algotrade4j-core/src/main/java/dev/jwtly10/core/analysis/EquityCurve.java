@@ -0,0 +1,156 @@
+package dev.jwtly10.core.analysis;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An equity curve stored as parallel primitive arrays (timestamp, equity, balance) rather than one object per point,
+ * so long runs (e.g. years of M1 bars) stay compact.
+ *
+ * <p>
+ * Charts can't display millions of points, so {@link #downsample(int)} reduces the curve to a point budget using
+ * Largest-Triangle-Three-Buckets, which keeps the peaks and troughs that make the curve (and its drawdowns) recognisable.
+ * </p>
+ *
+ * <p>
+ * Not thread safe, callers are responsible for synchronising access.
+ * </p>
+ */
+public class EquityCurve {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private double[] equity = new double[INITIAL_CAPACITY];
+    private double[] balance = new double[INITIAL_CAPACITY];
+    private int size = 0;
+    // Points are returned in the zone of the first point added
+    private ZoneId zone = ZoneOffset.UTC;
+
+    /**
+     * Adds a point to the end of the curve.
+     *
+     * @param timestamp the time of the point
+     * @param equity    the equity at that time
+     * @param balance   the balance at that time
+     */
+    public void add(ZonedDateTime timestamp, double equity, double balance) {
+        if (size == timestamps.length) {
+            int capacity = timestamps.length * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            this.equity = Arrays.copyOf(this.equity, capacity);
+            this.balance = Arrays.copyOf(this.balance, capacity);
+        }
+        if (size == 0) {
+            zone = timestamp.getZone();
+        }
+        timestamps[size] = timestamp.toInstant().toEpochMilli();
+        this.equity[size] = equity;
+        this.balance[size] = balance;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ZonedDateTime getTimestamp(int index) {
+        checkIndex(index);
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(timestamps[index]), zone);
+    }
+
+    public double getEquity(int index) {
+        checkIndex(index);
+        return equity[index];
+    }
+
+    public double getBalance(int index) {
+        checkIndex(index);
+        return balance[index];
+    }
+
+    /**
+     * @return every point of the curve
+     */
+    public List<PerformanceAnalyser.EquityPoint> toPoints() {
+        List<PerformanceAnalyser.EquityPoint> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(point(i));
+        }
+        return points;
+    }
+
+    /**
+     * Reduces the curve to at most {@code maxPoints} points with Largest-Triangle-Three-Buckets, on equity over time.
+     * The first and last points are always kept. The curve is returned in full if it is already within the budget.
+     *
+     * @param maxPoints the maximum number of points to return, at least 3 to downsample
+     * @return the downsampled curve, in time order
+     */
+    public List<PerformanceAnalyser.EquityPoint> downsample(int maxPoints) {
+        if (maxPoints >= size || size <= 2) {
+            return toPoints();
+        }
+        if (maxPoints < 3) {
+            return List.of(point(0), point(size - 1));
+        }
+
+        List<PerformanceAnalyser.EquityPoint> points = new ArrayList<>(maxPoints);
+        // The first and last points are buckets of their own, the rest is split evenly between the remaining buckets
+        double bucketSize = (double) (size - 2) / (maxPoints - 2);
+        int selected = 0;
+        points.add(point(selected));
+
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket, the third point of the triangle
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double avgTime = 0;
+            double avgEquity = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgTime += timestamps[i];
+                avgEquity += equity[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgTime /= nextCount;
+            avgEquity /= nextCount;
+
+            // Pick the point in this bucket making the largest triangle with the last selected point and the next bucket's average
+            double selectedTime = timestamps[selected];
+            double selectedEquity = equity[selected];
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((selectedTime - avgTime) * (equity[i] - selectedEquity)
+                        - (selectedTime - timestamps[i]) * (avgEquity - selectedEquity));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+
+            selected = maxIndex;
+            points.add(point(selected));
+        }
+
+        points.add(point(size - 1));
+        return points;
+    }
+
+    private PerformanceAnalyser.EquityPoint point(int index) {
+        return new PerformanceAnalyser.EquityPoint(equity[index], balance[index], getTimestamp(index));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for equity curve of size " + size);
+        }
+    }
+}
@@ -2,14 +2,13 @@ package dev.jwtly10.core.analysis;
 
 import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.model.Trade;
+import lombok.AccessLevel;
 import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
+import lombok.Getter;
+import lombok.Setter;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
@@ -42,12 +41,16 @@ import java.util.*;
  * <p>
  * Custom analysis fields:
  * Sharpe Ratio
+ * <p>
+ * Statistics are maintained incrementally: closed trades are added as they close ({@link #onTradeClosed(Trade)}) and drawdown
+ * is tracked on each equity update, so refreshing the statistics ({@link #updateStatistics(Collection, double)}) only looks at open trades.
  */
 @Data
-@Slf4j
 public class PerformanceAnalyser {
     // Equity History
-    private final List<EquityPoint> equityHistory = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final EquityCurve equityCurve = new EquityCurve();
     private double peakEquity = 0;
 
     // Stats
@@ -87,6 +90,24 @@ public class PerformanceAnalyser {
     private double averageConsecutiveWins = 0;
     private double averageConsecutiveLosses = 0;
 
+    // Running statistics of the closed trades
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private TradeStatistics tradeStatistics = new TradeStatistics();
+
+    // Risk-free rates for the Sharpe ratio, shared between analysers
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final RiskFreeRateTable riskFreeRates;
+
+    public PerformanceAnalyser() {
+        this(RiskFreeRateTable.getDefault());
+    }
+
+    public PerformanceAnalyser(RiskFreeRateTable riskFreeRates) {
+        this.riskFreeRates = riskFreeRates;
+    }
+
     /*
      * Update the equity history on each tick
      * @param equity The current equity
@@ -97,253 +118,125 @@ public class PerformanceAnalyser {
         updateMaxDrawdown(equity);
     }
 
-    public void updateOnBar(double equity, ZonedDateTime timestamp) {
-        equityHistory.add(new EquityPoint(equity, timestamp));
-    }
-
-    /*
-     * Calculate the performance statistics of the trading strategy
-     * WARNING: This method should only be called during backtests/optimisations
-     * @param trades The trades executed by the strategy
-     * @param initialBalance The initial balance of the strategy
-     */
-    public void calculateStatistics(Map<Integer, Trade> trades, double initialBalance) {
-        this.initialDeposit = initialBalance;
-        this.totalTradeInclOpen = trades.size();
-        List<Trade> closedTrades = new ArrayList<>(trades.values()).stream()
-                .filter(trade -> trade.getClosePrice() != Number.ZERO)
-                .toList();
-
-        List<Trade> openTrades = new ArrayList<>(trades.values()).stream()
-                .filter(trade -> trade.getClosePrice() == Number.ZERO)
-                .toList();
-
-        calculateBalanceStats(closedTrades);
-        calculateTradeStats(closedTrades);
-        calculateTradeReturnStats(closedTrades, openTrades);
-        calculateConsecutiveStats(closedTrades);
-        calculateSharpeRatio(closedTrades);
-    }
-
     /*
-     * Calculate the performance statistics of the trading strategy
-     * @param trades The trades executed by the strategy
+     * Record a point on the equity curve on each bar close
+     * @param equity The current equity
+     * @param balance The current balance
+     * @param timestamp The close time of the bar
      */
-    private void calculateBalanceStats(List<Trade> closedTrades) {
-        this.grossProfit = closedTrades.stream()
-                .map(Trade::getProfit)
-                .filter(profit -> profit > 0)
-                .reduce(0.0, Double::sum);
-
-        this.grossLoss = closedTrades.stream()
-                .map(Trade::getProfit)
-                .filter(profit -> profit < 0)
-                .reduce(0.0, Double::sum);
-
-        this.totalNetProfit = this.grossProfit + this.grossLoss;
-
-        this.profitFactor = this.grossLoss == 0 ? 0 :
-                this.grossProfit / Math.abs(this.grossLoss);
-
-        int totalTrades = closedTrades.size();
-        this.expectedPayoff = totalTrades == 0 ? 0 :
-                this.totalNetProfit / totalTrades;
+    public void updateOnBar(double equity, double balance, ZonedDateTime timestamp) {
+        equityCurve.add(timestamp, equity, balance);
     }
 
     /**
-     * Calculate the trade statistics of the trading strategy
+     * Add a closed trade to the running trade statistics. Trades should be added in the order they closed.
+     * The statistics are refreshed by {@link #updateStatistics(Collection, double)}.
      *
-     * @ param closedTrades The trades executed by the strategy
+     * @param trade The closed trade
      */
-    private void calculateTradeStats(List<Trade> closedTrades) {
-        for (Trade trade : closedTrades) {
-            if (trade.isLong()) {
-                this.totalClosedLongTrades++;
-                if (trade.getProfit() > 0) {
-                    this.totalLongWinningTrades++;
-                }
-            } else {
-                this.totalClosedShortTrades++;
-                if (trade.getProfit() > 0) {
-                    this.totalShortWinningTrades++;
-                }
-            }
-        }
-
-        this.longWinPercentage = this.totalClosedLongTrades == 0 ? 0 :
-                (this.totalLongWinningTrades / (double) this.totalClosedLongTrades) * 100;
-
-        this.shortWinPercentage = this.totalClosedShortTrades == 0 ? 0 :
-                (this.totalShortWinningTrades / (double) this.totalClosedShortTrades) * 100;
+    public void onTradeClosed(Trade trade) {
+        tradeStatistics.add(trade);
     }
 
     /**
-     * Calculate the trade return statistics of the trading strategy
+     * Refresh the performance statistics from the closed trades added so far and the current open trades.
+     * This doesn't revisit closed trades, so it is cheap enough to call whenever the statistics are needed.
      *
-     * @param closeTrades The closed trades executed by the strategy
-     * @param openTrades  The open trades executed by the strategy
+     * @param openTrades     The open trades of the strategy
+     * @param initialBalance The initial balance of the strategy
      */
-    private void calculateTradeReturnStats(List<Trade> closeTrades, List<Trade> openTrades) {
-        this.openTradeProfit = openTrades.stream()
-                .map(Trade::getProfit)
-                .reduce(0.0, Double::sum);
-
-        this.openTrades = openTrades.size();
-
-        this.largestProfitableTrade = closeTrades.stream()
-                .map(Trade::getProfit)
-                .max(Double::compare)
-                .orElse(0.0);
-
-        this.largestLosingTrade = closeTrades.stream()
-                .map(Trade::getProfit)
-                .min(Double::compare)
-                .orElse(0.0);
-
-        double totalProfitableTrades = closeTrades.stream()
-                .map(Trade::getProfit)
-                .filter(profit -> profit > 0)
-                .reduce(0.0, Double::sum);
+    public void updateStatistics(Collection<Trade> openTrades, double initialBalance) {
+        this.initialDeposit = initialBalance;
+        this.totalTradeInclOpen = tradeStatistics.getClosedTrades() + openTrades.size();
 
-        double totalLosingTrades = closeTrades.stream()
-                .map(Trade::getProfit)
-                .filter(profit -> profit < 0)
-                .reduce(0.0, Double::sum);
+        calculateBalanceStats();
+        calculateTradeStats();
+        calculateTradeReturnStats(openTrades);
+        calculateConsecutiveStats();
+        calculateSharpeRatio();
+    }
 
-        int profitableTradesCount = (int) closeTrades.stream()
-                .filter(t -> t.getProfit() > 0)
-                .count();
+    /*
+     * Calculate the performance statistics of the trading strategy from scratch
+     * Prefer adding trades as they close with onTradeClosed, and using updateStatistics
+     * @param trades The trades executed by the strategy
+     * @param initialBalance The initial balance of the strategy
+     */
+    public void calculateStatistics(Map<Integer, Trade> trades, double initialBalance) {
+        this.tradeStatistics = new TradeStatistics();
+        List<Trade> openTrades = new ArrayList<>();
+        for (Trade trade : trades.values()) {
+            if (trade.getClosePrice() != Number.ZERO) {
+                tradeStatistics.add(trade);
+            } else {
+                openTrades.add(trade);
+            }
+        }
 
-        int losingTradesCount = (int) closeTrades.stream()
-                .filter(t -> t.getProfit() < 0)
-                .count();
+        updateStatistics(openTrades, initialBalance);
+    }
 
-        this.averageProfitableTradeReturn = profitableTradesCount == 0 ? 0 :
-                totalProfitableTrades / profitableTradesCount;
+    private void calculateBalanceStats() {
+        this.grossProfit = tradeStatistics.getGrossProfit();
+        this.grossLoss = tradeStatistics.getGrossLoss();
+        this.totalNetProfit = tradeStatistics.getTotalNetProfit();
+        this.profitFactor = tradeStatistics.getProfitFactor();
+        this.expectedPayoff = tradeStatistics.getExpectedPayoff();
+    }
 
-        this.averageLosingTradeReturn = losingTradesCount == 0 ? 0 :
-                totalLosingTrades / losingTradesCount;
+    private void calculateTradeStats() {
+        this.totalClosedLongTrades = tradeStatistics.getClosedLongTrades();
+        this.totalLongWinningTrades = tradeStatistics.getLongWinningTrades();
+        this.longWinPercentage = tradeStatistics.getLongWinPercentage();
+        this.totalClosedShortTrades = tradeStatistics.getClosedShortTrades();
+        this.totalShortWinningTrades = tradeStatistics.getShortWinningTrades();
+        this.shortWinPercentage = tradeStatistics.getShortWinPercentage();
     }
 
     /**
-     * Calculate the consecutive statistics of the trading strategy
+     * Calculate the trade return statistics of the trading strategy
      *
-     * @param closedTrades The trades executed by the strategy
+     * @param openTrades The open trades executed by the strategy
      */
-    private void calculateConsecutiveStats(List<Trade> closedTrades) {
-        int consecutiveWins = 0;
-        int consecutiveLosses = 0;
-        double consecutiveProfit = 0;
-        double consecutiveLoss = 0;
-        int totalConsecutiveWins = 0;
-        int totalConsecutiveLosses = 0;
-        int winStreaks = 0;
-        int lossStreaks = 0;
-
-        for (Trade trade : closedTrades) {
-            if (trade.getProfit() > 0) {
-                consecutiveWins++;
-                consecutiveProfit = consecutiveProfit + trade.getProfit();
-
-                if (consecutiveLosses >= 1) {
-                    totalConsecutiveLosses += consecutiveLosses;
-                    lossStreaks++;
-                }
-                consecutiveLosses = 0;
-                consecutiveLoss = 0;
-
-                this.maxConsecutiveWins = Math.max(this.maxConsecutiveWins, consecutiveWins);
-                this.maxConsecutiveProfit = Math.max(
-                        this.maxConsecutiveProfit,
-                        consecutiveProfit
-                );
-            } else {
-                if (consecutiveWins >= 1) {
-                    totalConsecutiveWins += consecutiveWins;
-                    winStreaks++;
-                }
-                consecutiveLosses++;
-                consecutiveLoss = consecutiveLoss + trade.getProfit();
-                consecutiveWins = 0;
-                consecutiveProfit = 0;
-
-                this.maxConsecutiveLosses = Math.max(this.maxConsecutiveLosses, consecutiveLosses);
-                this.maxConsecutiveLoss = Math.min(
-                        this.maxConsecutiveLoss,
-                        consecutiveLoss
-                );
-            }
-        }
-
-        // Handle the case where the last trades were part of a streak
-        if (consecutiveWins >= 1) {
-            totalConsecutiveWins += consecutiveWins;
-            winStreaks++;
-        } else if (consecutiveLosses >= 1) {
-            totalConsecutiveLosses += consecutiveLosses;
-            lossStreaks++;
+    private void calculateTradeReturnStats(Collection<Trade> openTrades) {
+        double profit = 0;
+        for (Trade trade : openTrades) {
+            profit += trade.getProfit();
         }
+        this.openTradeProfit = profit;
+        this.openTrades = openTrades.size();
 
-        this.averageConsecutiveWins = winStreaks == 0 ? 0 :
-                (double) totalConsecutiveWins / winStreaks;
+        this.largestProfitableTrade = tradeStatistics.getLargestProfitableTrade();
+        this.largestLosingTrade = tradeStatistics.getLargestLosingTrade();
+        this.averageProfitableTradeReturn = tradeStatistics.getAverageProfitableTradeReturn();
+        this.averageLosingTradeReturn = tradeStatistics.getAverageLosingTradeReturn();
+    }
 
-        this.averageConsecutiveLosses = lossStreaks == 0 ? 0 :
-                (double) totalConsecutiveLosses / lossStreaks;
+    private void calculateConsecutiveStats() {
+        this.maxConsecutiveWins = tradeStatistics.getMaxConsecutiveWins();
+        this.maxConsecutiveLosses = tradeStatistics.getMaxConsecutiveLosses();
+        this.maxConsecutiveProfit = tradeStatistics.getMaxConsecutiveProfit();
+        this.maxConsecutiveLoss = tradeStatistics.getMaxConsecutiveLoss();
+        this.averageConsecutiveWins = tradeStatistics.getAverageConsecutiveWins();
+        this.averageConsecutiveLosses = tradeStatistics.getAverageConsecutiveLosses();
     }
 
     /*
      * Calculate the Sharpe ratio of the trading strategy
-     * @param trades The trades executed by the strategy
      */
-    private void calculateSharpeRatio(List<Trade> closedTrades) {
-        if (closedTrades.isEmpty()) {
+    private void calculateSharpeRatio() {
+        LocalDate earliestDate = tradeStatistics.getEarliestCloseDate();
+        LocalDate latestDate = tradeStatistics.getLatestCloseDate();
+        if (tradeStatistics.getClosedTrades() == 0 || earliestDate == null) {
             this.sharpeRatio = 0;
             return;
         }
 
-        LocalDate earliestDate = null;
-        LocalDate latestDate = null;
-        double totalReturn = 0;
-        int count = 0;
-
         // TODO: This calculation still seems wrong. Need to review
-        for (Trade trade : closedTrades) {
-            LocalDate closeDate = trade.getCloseTime().toLocalDate();
-
-            if (earliestDate == null || closeDate.isBefore(earliestDate)) {
-                earliestDate = closeDate;
-            }
-            if (latestDate == null || closeDate.isAfter(latestDate)) {
-                latestDate = closeDate;
-            }
-
-            totalReturn += trade.getProfit();
-            count++;
-        }
+        double averageReturn = tradeStatistics.getMeanProfit();
+        double standardDeviation = tradeStatistics.getProfitStandardDeviation();
 
-        double averageReturn = totalReturn / count;
-
-        double sumSquaredDeviations = closedTrades.stream()
-                .mapToDouble(trade -> {
-                    double deviation = trade.getProfit() - averageReturn;
-                    return deviation * deviation;
-                })
-                .sum();
-
-        double standardDeviation = Math.sqrt(sumSquaredDeviations / closedTrades.size());
-
-        double riskFreeRate = 0.0;
-        try {
-            riskFreeRate = getRiskFreeRate(earliestDate, latestDate);
-        } catch (Exception e) {
-            log.error("Failed to get risk free rate", e);
-        }
-
-        if (standardDeviation == 0) {
-            this.sharpeRatio = 0;
-        } else {
-            this.sharpeRatio = (averageReturn - riskFreeRate) / standardDeviation;
-        }
+        double riskFreeRate = getRiskFreeRate(earliestDate, latestDate);
 
         long tradingDays = ChronoUnit.DAYS.between(earliestDate, latestDate);
 
@@ -358,7 +251,23 @@ public class PerformanceAnalyser {
      * @return The equity history
      */
     public List<EquityPoint> getEquityHistory() {
-        return new ArrayList<>(equityHistory);
+        return equityCurve.toPoints();
+    }
+
+    /*
+     * Get the equity history of the trading strategy, downsampled for charting
+     * @param maxPoints The maximum number of points to return
+     * @return The equity history, with its overall shape kept
+     */
+    public List<EquityPoint> getEquityHistory(int maxPoints) {
+        return equityCurve.downsample(maxPoints);
+    }
+
+    /*
+     * @return The number of points in the equity history
+     */
+    public int getEquityHistorySize() {
+        return equityCurve.size();
     }
 
     /*
@@ -383,58 +292,17 @@ public class PerformanceAnalyser {
      * <a href="https://fred.stlouisfed.org/series/DTB3">(DRT3)</a>
      *
      * <p>
-     * This data is held locally in algotrade4j-core/src/main/resources/DTB3.csv
+     * The data is looked up in the analyser's {@link RiskFreeRateTable}
      * </p>
      *
      * @param from the start date to start calculating the risk-free ratio from
      * @param to   the end date to end calculating the risk-free ratio from
      * @return the risk-free ratio double
-     * @throws Exception if parsing file or external data source fails
      */
-    public Double getRiskFreeRate(LocalDate from, LocalDate to) throws Exception {
-        // TODO: Refactor this to get the data more efficiently. It should be cached daily at minimum even if its not a manual file that we are updating
-        Map<LocalDate, Double> rates = parseRatesFromFREDFile("DTB3.csv");
-        return rates.entrySet().stream()
-                .filter(entry -> entry.getKey().isAfter(from) && entry.getKey().isBefore(to))
-                .mapToDouble(Map.Entry::getValue)
-                .average()
-                .orElse(0.0);
-    }
-
-    private Map<LocalDate, Double> parseRatesFromFREDFile(String fileName) throws Exception {
-        var path = Paths.get(Objects.requireNonNull(PerformanceAnalyser.class.getResource("/" + fileName)).toURI());
-        var parsed = Files.readString(path);
-
-        Map<LocalDate, Double> rates = new HashMap<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        String[] lines = parsed.split("\n");
-
-        // i=1 as we skip the header line
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.isEmpty()) continue;
-
-            String[] split = line.split(",");
-            if (split.length != 2) continue;
-
-            String dateStr = split[0];
-            String rateStr = split[1];
-
-            if (!rateStr.equals(".")) {
-                try {
-                    LocalDate date = LocalDate.parse(dateStr, formatter);
-                    Double rate = Double.parseDouble(rateStr);
-                    rates.put(date, rate);
-                } catch (Exception e) {
-                    log.error("Failed to parse LocalDate/Rate in line {}", line, e);
-                }
-            }
-
-        }
-        return rates;
+    public Double getRiskFreeRate(LocalDate from, LocalDate to) {
+        return riskFreeRates.getAverageRate(from, to);
     }
 
-    public record EquityPoint(double equity, ZonedDateTime timestamp) {
+    public record EquityPoint(double equity, double balance, ZonedDateTime timestamp) {
     }
 }
\ No newline at end of file
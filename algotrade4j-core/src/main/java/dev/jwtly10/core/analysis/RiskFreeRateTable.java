@@ -0,0 +1,176 @@
+package dev.jwtly10.core.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The FRED 3-Month Treasury Bill Secondary Market Rate, Discount Basis
+ * <a href="https://fred.stlouisfed.org/series/DTB3">(DTB3)</a>, indexed by date for risk-free rate lookups.
+ *
+ * <p>
+ * The series is parsed once into a sorted array of dates and a prefix sum of rates, so the average rate over any
+ * date range is two binary searches. The bundled copy (algotrade4j-core/src/main/resources/DTB3.csv) is loaded on first use
+ * and shared by every {@link PerformanceAnalyser}. It can be replaced with an updated file at runtime with {@link #reload(Path)},
+ * which swaps the data in atomically, so lookups in progress are never affected.
+ * </p>
+ */
+@Slf4j
+public class RiskFreeRateTable {
+    private static final String BUNDLED_FILE = "/DTB3.csv";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private volatile Rates rates;
+
+    private RiskFreeRateTable(Rates rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * @return the shared table, loaded from the bundled file on first use
+     */
+    public static RiskFreeRateTable getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Loads a table from a FRED csv file, with a header line followed by {@code date,rate} lines. Days without a rate ('.') are skipped.
+     *
+     * @param in the csv data, closed once read
+     * @return the table
+     * @throws IOException if the data can't be read
+     */
+    public static RiskFreeRateTable load(InputStream in) throws IOException {
+        return new RiskFreeRateTable(parse(in));
+    }
+
+    /**
+     * Replaces this table's rates with those in an updated file.
+     *
+     * @param file the FRED csv file
+     * @throws IOException if the file can't be read. The current rates are kept
+     */
+    public void reload(Path file) throws IOException {
+        Rates updated = parse(Files.newInputStream(file));
+        this.rates = updated;
+        log.info("Reloaded {} risk-free rates from {}, up to {}", updated.size(), file, updated.lastDate());
+    }
+
+    /**
+     * Approximates the risk-free rate over a date range, as the average of the rates published strictly between the two dates.
+     *
+     * @param from the start date, exclusive
+     * @param to   the end date, exclusive
+     * @return the average rate, or 0 if no rates were published in the range
+     */
+    public double getAverageRate(LocalDate from, LocalDate to) {
+        Rates current = this.rates;
+        int start = current.firstIndexAfter(from.toEpochDay());
+        int end = current.firstIndexAfter(to.toEpochDay() - 1);
+        if (end <= start) {
+            return 0.0;
+        }
+        return (current.prefixSums[end] - current.prefixSums[start]) / (end - start);
+    }
+
+    /**
+     * @return the number of days with a published rate
+     */
+    public int size() {
+        return rates.size();
+    }
+
+    /**
+     * @return the date of the latest rate, or null if there are none
+     */
+    public LocalDate getLastDate() {
+        return rates.lastDate();
+    }
+
+    private static Rates parse(InputStream in) throws IOException {
+        // Sorted and de-duplicated by date, in case the file isn't
+        TreeMap<Long, Double> parsed = new TreeMap<>();
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+             BufferedReader lines = new BufferedReader(reader)) {
+            // Skip the header line
+            String line = lines.readLine();
+            while ((line = lines.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                String[] split = line.split(",");
+                if (split.length != 2 || split[1].equals(".")) continue;
+
+                try {
+                    parsed.put(LocalDate.parse(split[0], DATE_FORMAT).toEpochDay(), Double.parseDouble(split[1]));
+                } catch (Exception e) {
+                    log.error("Failed to parse LocalDate/Rate in line {}", line, e);
+                }
+            }
+        }
+
+        long[] days = new long[parsed.size()];
+        double[] prefixSums = new double[parsed.size() + 1];
+        int i = 0;
+        for (Map.Entry<Long, Double> entry : parsed.entrySet()) {
+            days[i] = entry.getKey();
+            prefixSums[i + 1] = prefixSums[i] + entry.getValue();
+            i++;
+        }
+        return new Rates(days, prefixSums);
+    }
+
+    /**
+     * Rate data, never modified once built.
+     *
+     * @param days       the epoch day of each rate, ascending
+     * @param prefixSums the sum of the first i rates at index i, one longer than days
+     */
+    private record Rates(long[] days, double[] prefixSums) {
+
+        int size() {
+            return days.length;
+        }
+
+        LocalDate lastDate() {
+            return days.length == 0 ? null : LocalDate.ofEpochDay(days[days.length - 1]);
+        }
+
+        /**
+         * @return the index of the first day after the given day, or the number of days if there is none
+         */
+        int firstIndexAfter(long epochDay) {
+            int index = Arrays.binarySearch(days, epochDay);
+            return index >= 0 ? index + 1 : -(index + 1);
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final RiskFreeRateTable INSTANCE = loadBundled();
+
+        private static RiskFreeRateTable loadBundled() {
+            try (InputStream in = RiskFreeRateTable.class.getResourceAsStream(BUNDLED_FILE)) {
+                if (in == null) {
+                    log.error("Bundled risk-free rate file {} not found, risk-free rates will be 0", BUNDLED_FILE);
+                    return new RiskFreeRateTable(new Rates(new long[0], new double[1]));
+                }
+                return load(in);
+            } catch (IOException e) {
+                log.error("Failed to load bundled risk-free rate file {}, risk-free rates will be 0", BUNDLED_FILE, e);
+                return new RiskFreeRateTable(new Rates(new long[0], new double[1]));
+            }
+        }
+    }
+}
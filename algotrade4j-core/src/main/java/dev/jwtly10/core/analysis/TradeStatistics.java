@@ -0,0 +1,258 @@
+package dev.jwtly10.core.analysis;
+
+import dev.jwtly10.core.model.Trade;
+
+import java.time.LocalDate;
+
+/**
+ * Running statistics over closed trades, updated one trade at a time so reading them doesn't require a pass over every trade.
+ *
+ * <p>
+ * Trades should be added in the order they closed, as the consecutive win/loss statistics depend on the order.
+ * Every other statistic is independent of the order. The values match what a batch calculation over the same trades gives,
+ * with the standard deviation (Welford's algorithm) matching to floating point precision.
+ * </p>
+ *
+ * <p>
+ * Not thread safe, callers are responsible for synchronising access.
+ * </p>
+ */
+public class TradeStatistics {
+    private int closedTrades = 0;
+    private double totalProfit = 0;
+
+    // Balance stats
+    private double grossProfit = 0;
+    private double grossLoss = 0;
+    private int profitableTrades = 0;
+    private int losingTrades = 0;
+    private double largestProfitableTrade = 0;
+    private double largestLosingTrade = 0;
+
+    // Direction stats
+    private int closedLongTrades = 0;
+    private int longWinningTrades = 0;
+    private int closedShortTrades = 0;
+    private int shortWinningTrades = 0;
+
+    // Consecutive stats. A trade that isn't profitable counts towards a losing streak
+    private int consecutiveWins = 0;
+    private int consecutiveLosses = 0;
+    private double consecutiveProfit = 0;
+    private double consecutiveLoss = 0;
+    private int completedWinStreakTrades = 0;
+    private int completedLossStreakTrades = 0;
+    private int completedWinStreaks = 0;
+    private int completedLossStreaks = 0;
+    private int maxConsecutiveWins = 0;
+    private int maxConsecutiveLosses = 0;
+    private double maxConsecutiveProfit = 0;
+    private double maxConsecutiveLoss = 0;
+
+    // Welford's running mean and sum of squared deviations of trade profit
+    private double runningMean = 0;
+    private double sumSquaredDeviations = 0;
+
+    private LocalDate earliestCloseDate = null;
+    private LocalDate latestCloseDate = null;
+
+    /**
+     * Adds a closed trade to the statistics.
+     *
+     * @param trade the closed trade
+     */
+    public void add(Trade trade) {
+        double profit = trade.getProfit();
+
+        largestProfitableTrade = closedTrades == 0 ? profit : Math.max(largestProfitableTrade, profit);
+        largestLosingTrade = closedTrades == 0 ? profit : Math.min(largestLosingTrade, profit);
+        closedTrades++;
+        totalProfit += profit;
+
+        if (profit > 0) {
+            grossProfit += profit;
+            profitableTrades++;
+        } else if (profit < 0) {
+            grossLoss += profit;
+            losingTrades++;
+        }
+
+        if (trade.isLong()) {
+            closedLongTrades++;
+            if (profit > 0) {
+                longWinningTrades++;
+            }
+        } else {
+            closedShortTrades++;
+            if (profit > 0) {
+                shortWinningTrades++;
+            }
+        }
+
+        updateStreaks(profit);
+
+        double delta = profit - runningMean;
+        runningMean += delta / closedTrades;
+        sumSquaredDeviations += delta * (profit - runningMean);
+
+        if (trade.getCloseTime() != null) {
+            LocalDate closeDate = trade.getCloseTime().toLocalDate();
+            if (earliestCloseDate == null || closeDate.isBefore(earliestCloseDate)) {
+                earliestCloseDate = closeDate;
+            }
+            if (latestCloseDate == null || closeDate.isAfter(latestCloseDate)) {
+                latestCloseDate = closeDate;
+            }
+        }
+    }
+
+    private void updateStreaks(double profit) {
+        if (profit > 0) {
+            if (consecutiveLosses >= 1) {
+                completedLossStreakTrades += consecutiveLosses;
+                completedLossStreaks++;
+            }
+            consecutiveLosses = 0;
+            consecutiveLoss = 0;
+            consecutiveWins++;
+            consecutiveProfit += profit;
+            maxConsecutiveWins = Math.max(maxConsecutiveWins, consecutiveWins);
+            maxConsecutiveProfit = Math.max(maxConsecutiveProfit, consecutiveProfit);
+        } else {
+            if (consecutiveWins >= 1) {
+                completedWinStreakTrades += consecutiveWins;
+                completedWinStreaks++;
+            }
+            consecutiveWins = 0;
+            consecutiveProfit = 0;
+            consecutiveLosses++;
+            consecutiveLoss += profit;
+            maxConsecutiveLosses = Math.max(maxConsecutiveLosses, consecutiveLosses);
+            maxConsecutiveLoss = Math.min(maxConsecutiveLoss, consecutiveLoss);
+        }
+    }
+
+    public int getClosedTrades() {
+        return closedTrades;
+    }
+
+    public double getGrossProfit() {
+        return grossProfit;
+    }
+
+    public double getGrossLoss() {
+        return grossLoss;
+    }
+
+    public double getTotalNetProfit() {
+        return grossProfit + grossLoss;
+    }
+
+    public double getProfitFactor() {
+        return grossLoss == 0 ? 0 : grossProfit / Math.abs(grossLoss);
+    }
+
+    public double getExpectedPayoff() {
+        return closedTrades == 0 ? 0 : getTotalNetProfit() / closedTrades;
+    }
+
+    public int getClosedLongTrades() {
+        return closedLongTrades;
+    }
+
+    public int getLongWinningTrades() {
+        return longWinningTrades;
+    }
+
+    public double getLongWinPercentage() {
+        return closedLongTrades == 0 ? 0 : (longWinningTrades / (double) closedLongTrades) * 100;
+    }
+
+    public int getClosedShortTrades() {
+        return closedShortTrades;
+    }
+
+    public int getShortWinningTrades() {
+        return shortWinningTrades;
+    }
+
+    public double getShortWinPercentage() {
+        return closedShortTrades == 0 ? 0 : (shortWinningTrades / (double) closedShortTrades) * 100;
+    }
+
+    public double getLargestProfitableTrade() {
+        return largestProfitableTrade;
+    }
+
+    public double getLargestLosingTrade() {
+        return largestLosingTrade;
+    }
+
+    public double getAverageProfitableTradeReturn() {
+        return profitableTrades == 0 ? 0 : grossProfit / profitableTrades;
+    }
+
+    public double getAverageLosingTradeReturn() {
+        return losingTrades == 0 ? 0 : grossLoss / losingTrades;
+    }
+
+    public int getMaxConsecutiveWins() {
+        return maxConsecutiveWins;
+    }
+
+    public int getMaxConsecutiveLosses() {
+        return maxConsecutiveLosses;
+    }
+
+    public double getMaxConsecutiveProfit() {
+        return maxConsecutiveProfit;
+    }
+
+    public double getMaxConsecutiveLoss() {
+        return maxConsecutiveLoss;
+    }
+
+    /**
+     * @return the average length of a winning streak, including the current streak
+     */
+    public double getAverageConsecutiveWins() {
+        int streaks = completedWinStreaks + (consecutiveWins >= 1 ? 1 : 0);
+        return streaks == 0 ? 0 : (double) (completedWinStreakTrades + consecutiveWins) / streaks;
+    }
+
+    /**
+     * @return the average length of a losing streak, including the current streak
+     */
+    public double getAverageConsecutiveLosses() {
+        int streaks = completedLossStreaks + (consecutiveLosses >= 1 ? 1 : 0);
+        return streaks == 0 ? 0 : (double) (completedLossStreakTrades + consecutiveLosses) / streaks;
+    }
+
+    /**
+     * @return the mean profit of a closed trade
+     */
+    public double getMeanProfit() {
+        return closedTrades == 0 ? 0 : totalProfit / closedTrades;
+    }
+
+    /**
+     * @return the population standard deviation of closed trade profit
+     */
+    public double getProfitStandardDeviation() {
+        return closedTrades == 0 ? 0 : Math.sqrt(sumSquaredDeviations / closedTrades);
+    }
+
+    /**
+     * @return the earliest close date of a closed trade, or null if there are none
+     */
+    public LocalDate getEarliestCloseDate() {
+        return earliestCloseDate;
+    }
+
+    /**
+     * @return the latest close date of a closed trade, or null if there are none
+     */
+    public LocalDate getLatestCloseDate() {
+        return latestCloseDate;
+    }
+}
@@ -0,0 +1,258 @@
+package dev.jwtly10.core.data;
+
+import dev.jwtly10.core.model.Bar;
+import dev.jwtly10.core.model.Tick;
+import dev.jwtly10.core.model.Trade;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decouples a data listener (e.g. a live strategy) from the thread producing its data, so a slow listener can't hold up the data feed.
+ *
+ * <p>
+ * Events are delivered in order on the mailbox's own thread. Ticks are conflated: while the listener is busy, a new tick replaces
+ * a tick that is still waiting, so the listener always processes the freshest price rather than working through a backlog.
+ * Every other event (bar closes, new days, trade closes) is always delivered, and a waiting tick is never moved past one.
+ * </p>
+ *
+ * <p>
+ * Events received before {@link #start} are queued, so the listener can be registered for trade closes while it is being initialised,
+ * and only sees them once it is ready.
+ * </p>
+ *
+ * <p>
+ * Conflation only skips {@link DataListener#onTick} calls. The data manager still builds bars from every tick,
+ * so the current bar's high, low and volume include the ticks the listener didn't see.
+ * </p>
+ */
+@Slf4j
+public class TickMailbox implements DataListener {
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final DataListener delegate;
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final Deque<Runnable> events = new ArrayDeque<>();
+    private boolean closed = false;
+    private volatile Thread worker;
+
+    private volatile long receivedTicks = 0;
+    private volatile long droppedTicks = 0;
+
+    public TickMailbox(DataListener delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Starts delivering events on the mailbox's thread, beginning with any received before this call.
+     * Does nothing if the mailbox is already started or closed.
+     */
+    public void start() {
+        synchronized (lock) {
+            if (worker != null || closed) {
+                return;
+            }
+            worker = Thread.ofVirtual()
+                    .name("tick-mailbox-" + delegate.getStrategyId())
+                    .start(this::run);
+        }
+    }
+
+    @Override
+    public void onTick(Tick tick, Bar currentBar) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            receivedTicks++;
+            if (events.peekLast() instanceof TickDelivery waiting) {
+                // The listener hasn't got to the last tick yet, it only needs the latest one
+                waiting.tick = tick;
+                waiting.currentBar = currentBar;
+                droppedTicks++;
+                return;
+            }
+            events.addLast(new TickDelivery(tick, currentBar));
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void onBarClose(Bar bar) {
+        enqueue(() -> delegate.onBarClose(bar));
+    }
+
+    @Override
+    public void onNewDay(ZonedDateTime newDay) {
+        enqueue(() -> delegate.onNewDay(newDay));
+    }
+
+    @Override
+    public void onTradeClose(Trade trade) {
+        enqueue(() -> delegate.onTradeClose(trade));
+    }
+
+    /**
+     * Stops the listener once the events ahead of the stop have been delivered. Waiting ticks are discarded, as they are stale by now.
+     * Blocks until the listener has stopped, so callers can rely on it being stopped when this returns.
+     *
+     * @param reason the reason for stopping the data listener
+     */
+    @Override
+    public void onStop(String reason) {
+        if (Thread.currentThread() == worker) {
+            // Stopped from inside a callback, e.g. the strategy stopping itself
+            close();
+            delegate.onStop(reason);
+            return;
+        }
+
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        boolean started;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            started = worker != null;
+            if (!started) {
+                // Nothing has been delivered, so there is no thread to stop the listener on
+                closed = true;
+                events.clear();
+            }
+        }
+        if (!started) {
+            delegate.onStop(reason);
+            return;
+        }
+
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            events.removeIf(event -> event instanceof TickDelivery);
+            events.addLast(() -> {
+                try {
+                    delegate.onStop(reason);
+                } finally {
+                    stopped.complete(null);
+                }
+            });
+            closed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            stopped.get(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for strategy {} to stop, it may still be processing an event", delegate.getStrategyId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error stopping strategy {}: {}", delegate.getStrategyId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops delivering events, discarding any that are waiting. The event being delivered, if any, is not interrupted.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            events.clear();
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void initialise() throws Exception {
+        delegate.initialise();
+    }
+
+    @Override
+    public DataManager getDataManager() {
+        return delegate.getDataManager();
+    }
+
+    @Override
+    public String getStrategyId() {
+        return delegate.getStrategyId();
+    }
+
+    /**
+     * @return the number of ticks received from the data feed
+     */
+    public long getReceivedTicks() {
+        return receivedTicks;
+    }
+
+    /**
+     * @return the number of ticks replaced by a newer tick before the listener got to them
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    private void enqueue(Runnable event) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            events.addLast(event);
+            lock.notifyAll();
+        }
+    }
+
+    private void run() {
+        MDC.put("strategyId", delegate.getStrategyId());
+        while (true) {
+            Runnable event;
+            synchronized (lock) {
+                while (events.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                event = events.pollFirst();
+                if (event == null) {
+                    log.debug("Tick mailbox for strategy {} closed. Ticks received: {}, dropped: {}", delegate.getStrategyId(), receivedTicks, droppedTicks);
+                    return;
+                }
+            }
+
+            try {
+                event.run();
+            } catch (Exception e) {
+                // The listener reports its own errors, this just keeps the mailbox running
+                log.error("Error delivering event to strategy {}: {}", delegate.getStrategyId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * A tick waiting to be delivered. Replaced in place (under the lock) until the worker takes it off the queue.
+     */
+    private class TickDelivery implements Runnable {
+        private Tick tick;
+        private Bar currentBar;
+
+        private TickDelivery(Tick tick, Bar currentBar) {
+            this.tick = tick;
+            this.currentBar = currentBar;
+        }
+
+        @Override
+        public void run() {
+            delegate.onTick(tick, currentBar);
+        }
+    }
+}
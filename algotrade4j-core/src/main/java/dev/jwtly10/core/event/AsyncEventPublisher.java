@@ -18,7 +18,7 @@ public class AsyncEventPublisher implements EventPublisher {
     protected static final int BATCH_SIZE = 300;
     private static final long MAX_BATCH_WAIT_MS = 100;
 
-    private final List<EventListener> listeners = new CopyOnWriteArrayList<>();
+    private final EventSubscriptionRegistry registry = new EventSubscriptionRegistry();
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
     private final AtomicInteger eventCount = new AtomicInteger(0);
@@ -37,7 +37,7 @@ public class AsyncEventPublisher implements EventPublisher {
      * @param listener The EventListener to be added.
      */
     public void addListener(EventListener listener) {
-        listeners.add(listener);
+        registry.add(listener);
     }
 
     /**
@@ -46,13 +46,11 @@ public class AsyncEventPublisher implements EventPublisher {
      * @param listener The EventListener to be removed.
      */
     public void removeListener(EventListener listener) {
-        listeners.remove(listener);
+        registry.remove(listener);
     }
 
     /**
-     * Publishes an event to all registered listeners.
-     * This method iterates through all registered listeners and calls their onEvent method,
-     * passing the event as an argument.
+     * Publishes an event to the listeners subscribed to it.
      * Does not block the calling thread.
      *
      * @param event The BaseEvent to be published to all listeners.
@@ -76,12 +74,8 @@ public class AsyncEventPublisher implements EventPublisher {
             processed++;
         }
 
-        if (!batch.isEmpty()) {
-            for (EventListener listener : listeners) {
-                for (BaseEvent e : batch) {
-                    listener.onEvent(e);
-                }
-            }
+        for (BaseEvent e : batch) {
+            registry.forEachSubscriber(e, listener -> listener.onEvent(e));
         }
 
         eventCount.addAndGet(-processed);
@@ -95,9 +89,19 @@ public class AsyncEventPublisher implements EventPublisher {
      */
     public void publishErrorEvent(String strategyId, Exception e) {
         log.info("Publishing error event for strategy: {}", strategyId);
-        for (EventListener listener : listeners) {
-            listener.onError(strategyId, e.getCause().getMessage());
-        }
+        String message = e.getCause().getMessage();
+        registry.forEachErrorListener(strategyId, listener -> listener.onError(strategyId, message));
+    }
+
+    /**
+     * Checks whether any registered listener is subscribed to the given event type for the given strategy.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the strategy the event would be published for
+     * @return true if at least one listener would consume the event
+     */
+    public boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+        return registry.hasSubscribers(eventType, strategyId);
     }
 
     public void shutdown() {
@@ -1,14 +1,17 @@
 package dev.jwtly10.core.event;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.jwtly10.core.event.wire.BinaryEventCodec;
 import dev.jwtly10.core.model.Instrument;
-import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
 
 /**
@@ -45,6 +48,33 @@ public abstract class BaseEvent {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ssXXX")
     private ZonedDateTime timestamp;
 
+    /**
+     * Position of the event in its strategy's {@link EventJournal}, 0 (and not serialised) if the event isn't journaled.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    @EqualsAndHashCode.Exclude
+    private volatile long sequence;
+
+    /**
+     * The encoded websocket payload, created on first use and shared by every session the event is sent to.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile ByteBuffer wirePayload;
+
+    /**
+     * The binary websocket payload, for events that support the binary protocol.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile ByteBuffer binaryWirePayload;
+
     /**
      * Constructs a BaseEvent with the specified strategy ID, type, and instrument.
      * Generates a unique event ID and sets the current timestamp.
@@ -90,4 +120,39 @@ public abstract class BaseEvent {
     public String toJson() throws JsonProcessingException {
         return objectMapper.writeValueAsString(this);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the event encoded for sending over websockets, see {@link EventPayloadEncoder}.
+     * The event is serialised and compressed once, no matter how many sessions it is sent to.
+     *
+     * @return a read only buffer positioned at the start of the payload, independent of buffers returned to other callers
+     * @throws JsonProcessingException if an error occurs during JSON processing
+     */
+    public ByteBuffer toWirePayload() throws JsonProcessingException {
+        ByteBuffer payload = wirePayload;
+        if (payload == null) {
+            // Two threads may race to encode the same event, which is harmless as they produce the same bytes
+            payload = EventPayloadEncoder.encode(objectMapper.writeValueAsBytes(this));
+            wirePayload = payload;
+        }
+        return payload.duplicate();
+    }
+
+    /**
+     * Returns the event in the compact binary encoding, see {@link BinaryEventCodec}.
+     * Like {@link #toWirePayload()}, the event is only encoded once.
+     *
+     * @return a read only buffer positioned at the start of the payload, or null if the event has no binary encoding
+     */
+    public ByteBuffer toBinaryWirePayload() {
+        if (!BinaryEventCodec.supports(this)) {
+            return null;
+        }
+        ByteBuffer payload = binaryWirePayload;
+        if (payload == null) {
+            payload = ByteBuffer.wrap(BinaryEventCodec.encode(this)).asReadOnlyBuffer();
+            binaryWirePayload = payload;
+        }
+        return payload.duplicate();
+    }
+}
@@ -0,0 +1,150 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.event.types.AccountEvent;
+import dev.jwtly10.core.event.types.BarEvent;
+import dev.jwtly10.core.event.types.TradeEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The EventConflator sits in front of a slow consumer (e.g. a websocket session) and collapses high frequency state updates.
+ *
+ * <p>
+ * At fast backtest speeds, or on busy live instruments, {@link BarEvent}s, {@link AccountEvent}s and {@link TradeEvent} UPDATEs are published at tick rate,
+ * far faster than a browser can render them. These events only carry the latest state of something, so only the latest value
+ * per (strategy, event class, key) is kept, and pending values are flushed downstream at a fixed frame rate.
+ * The key is the bar open time for bars (so the final state of a completed bar is never lost), and the trade id for trade updates.
+ * </p>
+ *
+ * <p>
+ * All other events are discrete (trade open/close, logs, errors, etc.) and are passed downstream immediately, in order.
+ * Any pending values are flushed before a discrete event, so the consumer never sees an update for a trade after it has been closed.
+ * </p>
+ */
+@Slf4j
+public class EventConflator {
+    private final Consumer<BaseEvent> downstream;
+    private final Object lock = new Object();
+    // Keeps the order each key was first seen, so bars are flushed oldest first
+    private final Map<ConflationKey, BaseEvent> pending = new LinkedHashMap<>();
+    private final ScheduledFuture<?> flushTask;
+    private volatile boolean closed = false;
+    private long conflatedEvents = 0;
+
+    /**
+     * Creates a conflator, flushing on the given scheduler
+     *
+     * @param downstream      where events are delivered to
+     * @param framesPerSecond how many times a second pending values are flushed
+     * @param scheduler       the scheduler used for flushing, can be shared between conflators
+     */
+    public EventConflator(Consumer<BaseEvent> downstream, int framesPerSecond, ScheduledExecutorService scheduler) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frames per second must be > 0, got: " + framesPerSecond);
+        }
+        this.downstream = downstream;
+        long intervalMicros = TimeUnit.SECONDS.toMicros(1) / framesPerSecond;
+        this.flushTask = scheduler.scheduleAtFixedRate(this::flush, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Offers an event to the conflator.
+     * State updates replace any pending value with the same key, discrete events are delivered straight away.
+     *
+     * @param event the event
+     */
+    public void offer(BaseEvent event) {
+        if (closed) {
+            return;
+        }
+
+        ConflationKey key = conflationKey(event);
+        synchronized (lock) {
+            if (key != null) {
+                if (pending.put(key, event) != null) {
+                    conflatedEvents++;
+                }
+                return;
+            }
+            // Discrete event, anything pending happened before it
+            flushPending();
+            deliver(event);
+        }
+    }
+
+    /**
+     * Delivers all pending values downstream.
+     */
+    public void flush() {
+        synchronized (lock) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Flushes any pending values and stops the scheduled flushing. Further events are ignored.
+     */
+    public void close() {
+        flush();
+        closed = true;
+        flushTask.cancel(false);
+    }
+
+    /**
+     * @return the number of events that were replaced by a newer value before being delivered
+     */
+    public long getConflatedEvents() {
+        synchronized (lock) {
+            return conflatedEvents;
+        }
+    }
+
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<BaseEvent> events = new ArrayList<>(pending.values());
+        pending.clear();
+        for (BaseEvent event : events) {
+            deliver(event);
+        }
+    }
+
+    private void deliver(BaseEvent event) {
+        try {
+            downstream.accept(event);
+        } catch (Exception e) {
+            log.error("Failed to deliver conflated event {}", event.getType(), e);
+        }
+    }
+
+    /**
+     * Returns the key a state update is conflated on.
+     *
+     * @param event the event
+     * @return the key, or null if the event is discrete and must always be delivered
+     */
+    static ConflationKey conflationKey(BaseEvent event) {
+        if (event instanceof BarEvent barEvent) {
+            return new ConflationKey(event.getStrategyId(), BarEvent.class, barEvent.getBar().getOpenTime());
+        }
+        if (event instanceof AccountEvent) {
+            return new ConflationKey(event.getStrategyId(), AccountEvent.class, null);
+        }
+        if (event instanceof TradeEvent tradeEvent && tradeEvent.getAction() == TradeEvent.Action.UPDATE) {
+            return new ConflationKey(event.getStrategyId(), TradeEvent.class, tradeEvent.getTrade().getId());
+        }
+        return null;
+    }
+
+    record ConflationKey(String strategyId, Class<? extends BaseEvent> eventType, Object key) {
+    }
+}
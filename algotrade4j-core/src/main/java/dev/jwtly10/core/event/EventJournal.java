@@ -0,0 +1,287 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.event.types.AnalysisEvent;
+import dev.jwtly10.core.event.types.LiveAnalysisEvent;
+import dev.jwtly10.core.event.types.async.AsyncAccountEvent;
+import dev.jwtly10.core.event.types.async.AsyncBarSeriesEvent;
+import dev.jwtly10.core.event.types.async.AsyncIndicatorsEvent;
+import dev.jwtly10.core.event.types.async.AsyncTradesEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Numbers and retains the recent events of a single strategy, so viewers can reconnect and resume rather than reload everything.
+ *
+ * <p>
+ * The journal is registered with the publisher once per strategy, and viewers (e.g. websocket sessions) attach to the journal instead of the publisher.
+ * Every event is given the next sequence number ({@link BaseEvent#getSequence()}) before it is fanned out to the attached viewers,
+ * so all viewers see the same numbering, and the serialise-once payload cache on the event stays valid.
+ * </p>
+ *
+ * <p>
+ * A viewer attaching either gets a snapshot, built by the caller at a known sequence, or (if it already has state up to some sequence
+ * and the journal still holds everything after it) only the events it missed. Both happen under the journal lock,
+ * so no event is missed or delivered twice between the snapshot/replay and live events.
+ * </p>
+ *
+ * <p>
+ * Retention is bounded. State updates ({@link EventConflator#conflationKey(BaseEvent)}) replace the previous update for the same key,
+ * and events carrying a full copy of some state (e.g. {@link LiveAnalysisEvent}, {@link AsyncTradesEvent}) replace the previous event of the same type,
+ * so periodic updates don't push discrete events (trade opens/closes, logs) out of the journal.
+ * Once an event is evicted, viewers behind it can no longer resume, and need a new snapshot.
+ * </p>
+ *
+ * <p>
+ * The journal only counts as a subscriber ({@link #isSubscribed(Class, String)}) while it has viewers, and for the resume window after
+ * the last one detaches, so producers can skip building events nobody is watching. Once the window passes, events may have been skipped,
+ * so the retained events are dropped and every viewer needs a new snapshot.
+ * </p>
+ */
+public class EventJournal extends TopicEventListener {
+    public static final Duration DEFAULT_RESUME_WINDOW = Duration.ofMinutes(1);
+    // Events carrying a full copy of some state, only the latest of each type is worth retaining
+    private static final Set<Class<? extends BaseEvent>> SNAPSHOT_EVENT_TYPES = Set.of(
+            LiveAnalysisEvent.class,
+            AnalysisEvent.class,
+            AsyncAccountEvent.class,
+            AsyncBarSeriesEvent.class,
+            AsyncIndicatorsEvent.class,
+            AsyncTradesEvent.class
+    );
+
+    private final String journalId = UUID.randomUUID().toString();
+    private final int capacity;
+    private final long resumeWindowNanos;
+    private final List<EventListener> viewers = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    // Retained events in sequence order, keyed by conflation key for state updates, or sequence for discrete events
+    private final Map<Object, BaseEvent> retained = new LinkedHashMap<>();
+    private long lastSequence = 0;
+    // Viewers that have seen up to at least this sequence can resume
+    private long evictedSequence = 0;
+    // When the last viewer detached, only meaningful while there are no viewers
+    private volatile long unobservedSince = System.nanoTime();
+    // Whether the resume window passed without a viewer, so events may have been skipped
+    private volatile boolean expired = false;
+
+    /**
+     * @param strategyId the strategy to journal
+     * @param capacity   the max number of events retained for resuming viewers
+     */
+    public EventJournal(String strategyId, int capacity) {
+        this(strategyId, capacity, DEFAULT_RESUME_WINDOW);
+    }
+
+    /**
+     * @param strategyId   the strategy to journal
+     * @param capacity     the max number of events retained for resuming viewers
+     * @param resumeWindow how long after the last viewer detaches the journal keeps recording, so the viewer can resume
+     */
+    public EventJournal(String strategyId, int capacity, Duration resumeWindow) {
+        super(strategyId);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be > 0, got: " + capacity);
+        }
+        this.capacity = capacity;
+        this.resumeWindowNanos = resumeWindow.toNanos();
+    }
+
+    /**
+     * Called when a viewer attaches, under the journal lock, to queue whatever the viewer needs before live events.
+     * Publishing waits on the lock, so implementations should only capture state, and do any expensive work after attaching.
+     */
+    public interface SyncHandler {
+        /**
+         * The viewer needs a full snapshot. Live events after {@code sequence} follow the snapshot.
+         *
+         * @param sequence the sequence the snapshot is taken at
+         */
+        void onSnapshot(long sequence);
+
+        /**
+         * The viewer is resuming. Events after {@code fromSequence} up to {@code toSequence} are replayed to the viewer straight after this.
+         *
+         * @param fromSequence the last sequence the viewer has
+         * @param toSequence   the current sequence
+         */
+        void onResume(long fromSequence, long toSequence);
+    }
+
+    /**
+     * @return an id unique to this journal. Sequences from one journal mean nothing to another (e.g. after a strategy restart)
+     */
+    public String getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * Whether the journal records the event type, which is only while it has viewers or within the resume window.
+     */
+    @Override
+    public boolean isSubscribed(Class<? extends BaseEvent> eventType, String strategyId) {
+        return super.isSubscribed(eventType, strategyId) && isObserved();
+    }
+
+    @Override
+    public void onEvent(BaseEvent event) {
+        if (!isSubscribed(event.getClass(), event.getStrategyId())) {
+            return;
+        }
+
+        synchronized (lock) {
+            event.setSequence(++lastSequence);
+            retain(event);
+            // Fanned out under the lock so attach can't interleave, viewers must only queue the event
+            for (EventListener viewer : viewers) {
+                viewer.onEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Attaches a viewer, resuming from the given sequence if possible, otherwise asking for a snapshot.
+     *
+     * @param viewer       the viewer, receives every event after the snapshot or resume point
+     * @param journalId    the id of the journal the viewer's sequence came from, or null if it has no state
+     * @param fromSequence the last sequence the viewer has seen
+     * @param syncHandler  queues the snapshot or resume marker for the viewer
+     * @return true if the viewer resumed, false if it was sent a snapshot
+     */
+    public boolean attach(EventListener viewer, String journalId, long fromSequence, SyncHandler syncHandler) {
+        synchronized (lock) {
+            boolean resumed = canResume(journalId, fromSequence);
+            if (resumed) {
+                syncHandler.onResume(fromSequence, lastSequence);
+                for (BaseEvent event : retained.values()) {
+                    if (event.getSequence() > fromSequence) {
+                        viewer.onEvent(event);
+                    }
+                }
+            } else {
+                syncHandler.onSnapshot(lastSequence);
+            }
+            viewers.add(viewer);
+            expired = false;
+            return resumed;
+        }
+    }
+
+    /**
+     * Attaches a viewer that has no existing state.
+     *
+     * @param viewer      the viewer
+     * @param syncHandler queues the snapshot for the viewer
+     */
+    public void attach(EventListener viewer, SyncHandler syncHandler) {
+        attach(viewer, null, 0, syncHandler);
+    }
+
+    public void detach(EventListener viewer) {
+        synchronized (lock) {
+            if (viewers.remove(viewer) && viewers.isEmpty()) {
+                unobservedSince = System.nanoTime();
+            }
+        }
+    }
+
+    public boolean hasViewers() {
+        return !viewers.isEmpty();
+    }
+
+    public long getLastSequence() {
+        synchronized (lock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * @return the number of events currently retained for resuming
+     */
+    public int size() {
+        synchronized (lock) {
+            return retained.size();
+        }
+    }
+
+    @Override
+    public void onError(String strategyId, Exception e) {
+        for (EventListener viewer : viewers) {
+            viewer.onError(strategyId, e);
+        }
+    }
+
+    @Override
+    public void onError(String strategyId, String message) {
+        for (EventListener viewer : viewers) {
+            viewer.onError(strategyId, message);
+        }
+    }
+
+    private boolean isObserved() {
+        if (!viewers.isEmpty()) {
+            return true;
+        }
+        if (expired) {
+            return false;
+        }
+        if (System.nanoTime() - unobservedSince < resumeWindowNanos) {
+            return true;
+        }
+        expire();
+        return false;
+    }
+
+    private void expire() {
+        synchronized (lock) {
+            if (!viewers.isEmpty() || expired) {
+                return;
+            }
+            expired = true;
+            retained.clear();
+            // Skip a sequence, so no viewer that left before now can resume over the events that were never published
+            evictedSequence = ++lastSequence;
+        }
+    }
+
+    private boolean canResume(String journalId, long fromSequence) {
+        return this.journalId.equals(journalId) && fromSequence >= evictedSequence && fromSequence <= lastSequence;
+    }
+
+    private void retain(BaseEvent event) {
+        Object key = EventConflator.conflationKey(event);
+        if (key == null && SNAPSHOT_EVENT_TYPES.contains(event.getClass())) {
+            // The journal is for a single strategy, so the type is enough
+            key = event.getClass();
+        }
+        if (key == null) {
+            key = event.getSequence();
+        } else {
+            // Remove first, so the update moves to the end and the map stays in sequence order
+            retained.remove(key);
+        }
+        retained.put(key, event);
+
+        if (retained.size() > capacity) {
+            Iterator<BaseEvent> eldest = retained.values().iterator();
+            evictedSequence = eldest.next().getSequence();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return a copy of the retained events, in sequence order. For testing
+     */
+    List<BaseEvent> retainedEvents() {
+        synchronized (lock) {
+            return new ArrayList<>(retained.values());
+        }
+    }
+}
@@ -27,4 +27,17 @@ public interface EventListener {
      * @param message    the error message
      */
     void onError(String strategyId, String message);
-}
\ No newline at end of file
+
+    /**
+     * Checks whether this listener wants events of the given type for the given strategy.
+     * Publishers use this to let producers skip building events nothing will consume.
+     * Listeners that don't override this receive everything.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the identifier of the strategy the event belongs to
+     * @return true if the listener would handle the event
+     */
+    default boolean isSubscribed(Class<? extends BaseEvent> eventType, String strategyId) {
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package dev.jwtly10.core.event;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes serialised events into the binary websocket wire format.
+ *
+ * <p>
+ * The first byte is a flag, 0 if the rest of the message is plain UTF-8 JSON, 1 if it is gzipped JSON,
+ * or 2 if it is the binary encoding, for clients that negotiated it.
+ * Messages are only compressed above {@link #COMPRESSION_THRESHOLD}, as gzip overhead outweighs the saving on small messages.
+ * </p>
+ *
+ * <p>
+ * Compression reuses pooled {@link Deflater}s and direct output buffers, rather than creating a new GZIPOutputStream
+ * (and its native zlib stream) for every message. The gzip framing is written by hand, so clients see exactly what GZIPOutputStream produced.
+ * </p>
+ */
+public final class EventPayloadEncoder {
+    public static final int COMPRESSION_THRESHOLD = 1024; // 1KB
+
+    public static final byte FLAG_UNCOMPRESSED = 0;
+    public static final byte FLAG_COMPRESSED = 1;
+    /**
+     * Opt in binary encoding, see {@link dev.jwtly10.core.event.wire.BinaryEventCodec}
+     */
+    public static final byte FLAG_BINARY = 2;
+
+    private static final int MAX_POOLED_COMPRESSORS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int INITIAL_SCRATCH_SIZE = 16 * 1024;
+    // Scratch buffers grown past this (e.g. by a full bar series) are released rather than kept in the pool
+    private static final int MAX_RETAINED_SCRATCH_SIZE = 1024 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private static final Queue<Compressor> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger(0);
+
+    private EventPayloadEncoder() {
+    }
+
+    /**
+     * Encodes serialised JSON into a websocket payload.
+     *
+     * @param json the UTF-8 JSON bytes
+     * @return a read only buffer containing the flag byte and the (possibly compressed) JSON
+     */
+    public static ByteBuffer encode(byte[] json) {
+        byte[] payload;
+        if (json.length > COMPRESSION_THRESHOLD) {
+            payload = compress(json);
+        } else {
+            payload = new byte[json.length + 1];
+            payload[0] = FLAG_UNCOMPRESSED;
+            System.arraycopy(json, 0, payload, 1, json.length);
+        }
+        return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+    }
+
+    private static byte[] compress(byte[] json) {
+        Compressor compressor = pool.poll();
+        if (compressor == null) {
+            compressor = new Compressor();
+        } else {
+            pooled.decrementAndGet();
+        }
+
+        try {
+            return compressor.compress(json);
+        } finally {
+            if (pooled.incrementAndGet() <= MAX_POOLED_COMPRESSORS) {
+                pool.offer(compressor);
+            } else {
+                pooled.decrementAndGet();
+                compressor.end();
+            }
+        }
+    }
+
+    /**
+     * A deflater with a reusable direct output buffer. Only used by one thread at a time.
+     */
+    private static final class Compressor {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer scratch = ByteBuffer.allocateDirect(INITIAL_SCRATCH_SIZE);
+
+        private byte[] compress(byte[] json) {
+            deflater.reset();
+            crc.reset();
+            crc.update(json);
+            deflater.setInput(json);
+            deflater.finish();
+
+            scratch.clear();
+            scratch.put(FLAG_COMPRESSED);
+            scratch.put(GZIP_HEADER);
+            while (!deflater.finished()) {
+                if (!scratch.hasRemaining()) {
+                    grow();
+                }
+                deflater.deflate(scratch);
+            }
+            if (scratch.remaining() < GZIP_TRAILER_SIZE) {
+                grow();
+            }
+            scratch.order(ByteOrder.LITTLE_ENDIAN);
+            scratch.putInt((int) crc.getValue());
+            scratch.putInt(json.length);
+            scratch.order(ByteOrder.BIG_ENDIAN);
+
+            scratch.flip();
+            byte[] payload = new byte[scratch.remaining()];
+            scratch.get(payload);
+            if (scratch.capacity() > MAX_RETAINED_SCRATCH_SIZE) {
+                scratch = ByteBuffer.allocateDirect(INITIAL_SCRATCH_SIZE);
+            }
+            return payload;
+        }
+
+        private void grow() {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(scratch.capacity() * 2);
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+
+        private void end() {
+            deflater.end();
+        }
+    }
+}
@@ -19,9 +19,8 @@ public interface EventPublisher {
     void removeListener(EventListener listener);
 
     /**
-     * Publishes an event to all registered listeners.
-     * This method iterates through all registered listeners and calls their onEvent method,
-     * passing the event as an argument.
+     * Publishes an event to all registered listeners subscribed to it.
+     * Broadcast listeners receive every event, {@link TopicEventListener}s only receive the events they subscribed to for their strategy.
      * Does not block the calling thread.
      *
      * @param event The BaseEvent to be published to all listeners.
@@ -29,12 +28,22 @@ public interface EventPublisher {
     void publishEvent(BaseEvent event);
 
     /**
-     * Publishes an error event to all registered listeners
+     * Publishes an error event to the broadcast listeners, and the listeners of the given strategy
      *
      * @param strategyId the strategy id where the error happened
      * @param e          the exception
      */
     void publishErrorEvent(String strategyId, Exception e);
 
+    /**
+     * Checks whether any registered listener is subscribed to the given event type for the given strategy.
+     * Producers should call this before building high frequency events, and skip them entirely if nothing would consume them.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the strategy the event would be published for
+     * @return true if at least one listener would consume the event
+     */
+    boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId);
+
     void shutdown();
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package dev.jwtly10.core.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The EventSubscriptionRegistry keeps track of the listeners registered with a publisher, and what they are interested in.
+ * Producers can query it (via {@link EventPublisher#hasSubscribers(Class, String)}) before building an event,
+ * so events nobody will consume (e.g. per tick UI updates during optimisation runs) are never created.
+ *
+ * <p>
+ * {@link TopicEventListener}s are indexed by (strategy id, event class), so an event is only offered to the listeners subscribed to it,
+ * rather than every listener checking (and mostly discarding) every event. Other listeners are broadcast listeners, and receive every event.
+ * Subscribing and unsubscribing is O(1) and safe to do while events are being dispatched.
+ * </p>
+ */
+public class EventSubscriptionRegistry {
+    private final List<EventListener> broadcastListeners = new CopyOnWriteArrayList<>();
+    // strategyId -> event class -> listeners
+    private final Map<String, Map<Class<? extends BaseEvent>, Set<TopicEventListener>>> topics = new ConcurrentHashMap<>();
+    // strategyId -> listeners, used to route errors
+    private final Map<String, Set<TopicEventListener>> strategyListeners = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener The EventListener to be added.
+     */
+    public void add(EventListener listener) {
+        if (listener instanceof TopicEventListener topicListener) {
+            strategyListeners.compute(topicListener.getStrategyId(), (k, listeners) -> {
+                if (listeners == null) {
+                    listeners = ConcurrentHashMap.newKeySet();
+                }
+                listeners.add(topicListener);
+                return listeners;
+            });
+            topicListener.attach(this);
+        } else {
+            broadcastListeners.add(listener);
+        }
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The EventListener to be removed.
+     */
+    public void remove(EventListener listener) {
+        if (listener instanceof TopicEventListener topicListener) {
+            topicListener.detach(this);
+            strategyListeners.computeIfPresent(topicListener.getStrategyId(), (k, listeners) -> {
+                listeners.remove(topicListener);
+                return listeners.isEmpty() ? null : listeners;
+            });
+        } else {
+            broadcastListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Returns a snapshot of all registered listeners.
+     *
+     * @return the registered listeners
+     */
+    public List<EventListener> getListeners() {
+        List<EventListener> listeners = new ArrayList<>(broadcastListeners);
+        strategyListeners.values().forEach(listeners::addAll);
+        return listeners;
+    }
+
+    /**
+     * Passes each listener that should receive the event to the given action.
+     * Broadcast listeners first, then the listeners subscribed to the event's strategy and class.
+     *
+     * @param event  the event being dispatched
+     * @param action what to do with each listener
+     */
+    public void forEachSubscriber(BaseEvent event, Consumer<EventListener> action) {
+        for (EventListener listener : broadcastListeners) {
+            action.accept(listener);
+        }
+        Set<TopicEventListener> subscribers = topicSubscribers(event.getClass(), event.getStrategyId());
+        if (subscribers != null) {
+            for (TopicEventListener listener : subscribers) {
+                action.accept(listener);
+            }
+        }
+    }
+
+    /**
+     * Passes each listener that should be told about an error in the given strategy to the given action.
+     *
+     * @param strategyId the strategy where the error happened
+     * @param action     what to do with each listener
+     */
+    public void forEachErrorListener(String strategyId, Consumer<EventListener> action) {
+        for (EventListener listener : broadcastListeners) {
+            action.accept(listener);
+        }
+        Set<TopicEventListener> listeners = strategyId == null ? null : strategyListeners.get(strategyId);
+        if (listeners != null) {
+            for (TopicEventListener listener : listeners) {
+                action.accept(listener);
+            }
+        }
+    }
+
+    /**
+     * Checks whether an event should be delivered to a specific listener.
+     * Used by publishers that hand every event to each listener's own consumer.
+     *
+     * @param listener the listener
+     * @param event    the event
+     * @return true if the listener is a broadcast listener, or is subscribed to the event
+     */
+    public boolean routes(EventListener listener, BaseEvent event) {
+        if (listener instanceof TopicEventListener topicListener) {
+            return topicListener.isSubscribed(event.getClass(), event.getStrategyId());
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any registered listener is subscribed to the given event type for the given strategy.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the strategy the event would be published for
+     * @return true if at least one listener would consume the event
+     */
+    public boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+        for (EventListener listener : broadcastListeners) {
+            if (listener.isSubscribed(eventType, strategyId)) {
+                return true;
+            }
+        }
+        Set<TopicEventListener> subscribers = topicSubscribers(eventType, strategyId);
+        if (subscribers != null) {
+            for (TopicEventListener listener : subscribers) {
+                // Not just isActive(), a listener may only want events some of the time (e.g. an EventJournal without viewers)
+                if (listener.isSubscribed(eventType, strategyId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Set<TopicEventListener> topicSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+        if (strategyId == null) {
+            return null;
+        }
+        Map<Class<? extends BaseEvent>, Set<TopicEventListener>> byType = topics.get(strategyId);
+        return byType == null ? null : byType.get(eventType);
+    }
+
+    void index(TopicEventListener listener, Class<? extends BaseEvent> eventType) {
+        // Mutate under the strategy's bin lock, so a concurrent unindex can't drop the map we are adding to
+        topics.compute(listener.getStrategyId(), (k, byType) -> {
+            if (byType == null) {
+                byType = new ConcurrentHashMap<>();
+            }
+            byType.computeIfAbsent(eventType, t -> ConcurrentHashMap.newKeySet()).add(listener);
+            return byType;
+        });
+    }
+
+    void unindex(TopicEventListener listener, Class<? extends BaseEvent> eventType) {
+        topics.computeIfPresent(listener.getStrategyId(), (k, byType) -> {
+            byType.computeIfPresent(eventType, (t, listeners) -> {
+                listeners.remove(listener);
+                return listeners.isEmpty() ? null : listeners;
+            });
+            return byType.isEmpty() ? null : byType;
+        });
+    }
+}
@@ -0,0 +1,294 @@
+package dev.jwtly10.core.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of events waiting to be sent to a single client (e.g. a websocket session), drained on its own virtual thread.
+ *
+ * <p>
+ * Sending is often blocking network IO. Queueing per client means the publisher's dispatch thread only ever enqueues,
+ * so a slow or stalled client can't hold up delivery to other clients, or the strategy producing the events.
+ * When a client can't keep up and the queue fills, the {@link OverflowPolicy} decides what to give up.
+ * </p>
+ */
+@Slf4j
+public class OutboundEventQueue {
+    private final String name;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Sender sender;
+    private final Runnable onDisconnect;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    // Queued state updates by conflation key, oldest first, used by the CONFLATE policy to replace them in place and to drop them when full
+    private final Map<EventConflator.ConflationKey, Entry> queuedUpdates = new LinkedHashMap<>();
+    private boolean closed = false;
+
+    private final AtomicLong sentEvents = new AtomicLong(0);
+    private final AtomicLong droppedEvents = new AtomicLong(0);
+    private final AtomicLong conflatedEvents = new AtomicLong(0);
+    private final AtomicLong totalSendNanos = new AtomicLong(0);
+    private volatile long maxSendNanos = 0;
+    private volatile int maxDepth = 0;
+
+    /**
+     * Creates the queue and starts draining it
+     *
+     * @param name           name used for the drain thread and logging, e.g. the session id
+     * @param capacity       the max number of events waiting to be sent
+     * @param overflowPolicy what to do when the queue is full
+     * @param sender         sends a single event to the client
+     * @param onDisconnect   called once if the client is disconnected by the {@link OverflowPolicy#DISCONNECT} or {@link OverflowPolicy#CONFLATE} policy
+     */
+    public OutboundEventQueue(String name, int capacity, OverflowPolicy overflowPolicy, Sender sender, Runnable onDisconnect) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be > 0, got: " + capacity);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sender = sender;
+        this.onDisconnect = onDisconnect;
+        Thread.ofVirtual().name("ws-send-" + name).start(this::drain);
+    }
+
+    /**
+     * Queues an event to be sent. Never blocks on the client.
+     *
+     * @param event the event
+     */
+    public void offer(BaseEvent event) {
+        boolean disconnect = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            EventConflator.ConflationKey key = overflowPolicy == OverflowPolicy.CONFLATE ? EventConflator.conflationKey(event) : null;
+            if (key != null) {
+                Entry queued = queuedUpdates.get(key);
+                if (queued != null) {
+                    // Newer state for something already waiting to be sent, replace it without losing its place
+                    queued.event = event;
+                    conflatedEvents.incrementAndGet();
+                    return;
+                }
+            }
+
+            if (queue.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    Entry oldest = queue.poll();
+                    if (oldest.key != null) {
+                        queuedUpdates.remove(oldest.key, oldest);
+                    }
+                    droppedEvents.incrementAndGet();
+                } else if (overflowPolicy == OverflowPolicy.CONFLATE && dropOldestUpdate()) {
+                    droppedEvents.incrementAndGet();
+                } else {
+                    // Nothing can be dropped without losing an event the client can't recover from a later update
+                    closed = true;
+                    queue.clear();
+                    queuedUpdates.clear();
+                    disconnect = true;
+                }
+            }
+
+            if (!disconnect) {
+                Entry entry = new Entry(key, event);
+                queue.add(entry);
+                if (key != null) {
+                    queuedUpdates.put(key, entry);
+                }
+                if (queue.size() > maxDepth) {
+                    maxDepth = queue.size();
+                }
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (disconnect) {
+            log.warn("Outbound queue {} is full ({} events), disconnecting client", name, capacity);
+            droppedEvents.incrementAndGet();
+            notifyClosed();
+            onDisconnect.run();
+        }
+    }
+
+    /**
+     * Drops the oldest queued state update, which a later update of the same thing supersedes.
+     * Must be called holding the lock.
+     *
+     * @return false if no state update is queued
+     */
+    private boolean dropOldestUpdate() {
+        Iterator<Entry> updates = queuedUpdates.values().iterator();
+        if (!updates.hasNext()) {
+            return false;
+        }
+        Entry oldest = updates.next();
+        updates.remove();
+        // Only on overflow, so the scan of a full queue doesn't cost anything while the client keeps up
+        queue.remove(oldest);
+        return true;
+    }
+
+    /**
+     * Stops sending. Any queued events are discarded.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            queuedUpdates.clear();
+        } finally {
+            lock.unlock();
+        }
+        notifyClosed();
+    }
+
+    private void notifyClosed() {
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Closed outbound queue {}. Sent: {}, dropped: {}, conflated: {}, max depth: {}, avg send latency: {}us, max send latency: {}us",
+                name, getSentEvents(), getDroppedEvents(), getConflatedEvents(), getMaxDepth(), getAverageSendLatencyMicros(), getMaxSendLatencyMicros());
+    }
+
+    private void drain() {
+        while (true) {
+            BaseEvent event;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.await();
+                }
+                if (closed) {
+                    return;
+                }
+                Entry entry = queue.poll();
+                if (entry.key != null) {
+                    queuedUpdates.remove(entry.key, entry);
+                }
+                event = entry.event;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            long start = System.nanoTime();
+            try {
+                sender.send(event);
+                sentEvents.incrementAndGet();
+            } catch (Exception e) {
+                log.error("Failed to send event {} on outbound queue {}", event.getType(), name, e);
+            }
+            long elapsed = System.nanoTime() - start;
+            totalSendNanos.addAndGet(elapsed);
+            if (elapsed > maxSendNanos) {
+                maxSendNanos = elapsed;
+            }
+        }
+    }
+
+    /**
+     * @return the number of events currently waiting to be sent
+     */
+    public int getDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the highest number of events that have been waiting at once
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getSentEvents() {
+        return sentEvents.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getConflatedEvents() {
+        return conflatedEvents.get();
+    }
+
+    public long getAverageSendLatencyMicros() {
+        long sent = sentEvents.get();
+        return sent == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalSendNanos.get() / sent);
+    }
+
+    public long getMaxSendLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxSendNanos);
+    }
+
+    /**
+     * What the queue gives up when the client can't keep up.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Newer state updates (bars, account, trade updates) replace the queued update with the same key.
+         * If the queue is still full, the oldest queued state update is dropped. Other events (trade opens and closes, logs, errors)
+         * are never dropped, if only they are queued the client is disconnected, so it can reconnect and resync.
+         */
+        CONFLATE,
+        /**
+         * The oldest queued event is dropped.
+         */
+        DROP_OLDEST,
+        /**
+         * The client is disconnected, so it can reconnect and resync from a clean state.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Sends a single event to the client.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        void send(BaseEvent event) throws Exception;
+    }
+
+    private static final class Entry {
+        private final EventConflator.ConflationKey key;
+        private BaseEvent event;
+
+        private Entry(EventConflator.ConflationKey key, BaseEvent event) {
+            this.key = key;
+            this.event = event;
+        }
+    }
+}
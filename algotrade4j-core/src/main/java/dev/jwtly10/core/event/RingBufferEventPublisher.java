@@ -0,0 +1,544 @@
+package dev.jwtly10.core.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The RingBufferEventPublisher is a lock free alternative to the {@link AsyncEventPublisher}, modelled on the LMAX Disruptor.
+ *
+ * <p>
+ * Events are written into a fixed size ring buffer. Every listener gets its own consumer thread and its own sequence into the ring,
+ * so a slow listener only holds back itself, not the other listeners. The producer is only held back by the slowest consumer once the ring is full,
+ * at which point the {@link OverflowPolicy} decides whether to wait for space or drop the event.
+ * Slots are cleared once every listener has processed them, so the ring doesn't keep old events reachable.
+ * Neither publishing, consuming nor clearing takes a lock, only the {@link WaitStrategy#BLOCKING} wait strategy parks consumers on one.
+ * </p>
+ *
+ * <p>
+ * With {@link ProducerType#SINGLE}, the first thread to publish owns the ring and claims slots without a CAS.
+ * Events published from any other thread (e.g. a strategy being stopped from a websocket thread) are handed to each consumer directly,
+ * and delivered once the consumer has processed every event the owner had published before them.
+ * {@link StrategyRingEventPublisher} gives each strategy its own SINGLE ring.
+ * </p>
+ */
+@Slf4j
+public class RingBufferEventPublisher implements EventPublisher {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    // Max events a consumer handles before updating its sequence
+    private static final int MAX_CONSUMER_BATCH = 256;
+
+    // Each slot holds the sequence it was published at, so a clearer can never null a slot the producer has since reused
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final int bufferSize;
+
+    private final ProducerType producerType;
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+
+    // The last claimed sequence
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+    // The last sequence whose slot has been (or is being) cleared
+    private final AtomicLong clearedSequence = new AtomicLong(-1);
+    // A lower bound of the slowest consumer's sequence, so the producer doesn't scan every consumer on every claim
+    private volatile long gatingSequenceCache = -1;
+    // The thread allowed to claim without a CAS, see ProducerType.SINGLE
+    private final AtomicReference<Thread> producerThread = new AtomicReference<>();
+    private final EventSubscriptionRegistry registry = new EventSubscriptionRegistry();
+    private final Map<EventListener, Consumer> consumers = new ConcurrentHashMap<>();
+    // Consumers gate the producer until their thread has stopped reading the ring, which may be after they are removed from consumers
+    private final List<Consumer> gatingConsumers = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedEvents = new AtomicLong(0);
+    private final AtomicInteger consumerCount = new AtomicInteger(0);
+
+    // Used by the BLOCKING wait strategy
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition eventsAvailable = lock.newCondition();
+    private final AtomicInteger blockedConsumers = new AtomicInteger(0);
+
+    private volatile boolean running = true;
+
+    public RingBufferEventPublisher() {
+        this(DEFAULT_BUFFER_SIZE, ProducerType.MULTI, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a ring buffer publisher
+     *
+     * @param bufferSize     the number of slots in the ring, must be a power of 2
+     * @param producerType   whether one or many threads will publish events
+     * @param waitStrategy   how consumers wait for new events
+     * @param overflowPolicy what happens when the ring is full
+     */
+    public RingBufferEventPublisher(int bufferSize, ProducerType producerType, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of 2, got: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.mask = bufferSize - 1;
+        this.slots = new AtomicReferenceArray<>(bufferSize);
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds an event listener, starting a consumer for it.
+     * The listener will receive events published after this call.
+     *
+     * @param listener The EventListener to be added.
+     */
+    @Override
+    public void addListener(EventListener listener) {
+        Consumer consumer = new Consumer(listener, claimSequence.get());
+        if (consumers.putIfAbsent(listener, consumer) != null) {
+            log.warn("Listener {} is already registered", listener);
+            return;
+        }
+        gatingConsumers.add(consumer);
+        // Now the consumer gates the producer and the clearers, start it from the current sequence.
+        // Slots up to the sequence read before may have been reused or cleared in the meantime
+        consumer.sequence.set(claimSequence.get());
+        registry.add(listener);
+        Thread.ofPlatform()
+                .daemon()
+                .name("event-consumer-" + consumerCount.incrementAndGet())
+                .start(consumer);
+    }
+
+    /**
+     * Removes an event listener, stopping its consumer.
+     * The listener receives no more events, although one already being delivered may still be in progress.
+     *
+     * @param listener The EventListener to be removed.
+     */
+    @Override
+    public void removeListener(EventListener listener) {
+        registry.remove(listener);
+        Consumer consumer = consumers.remove(listener);
+        if (consumer != null) {
+            consumer.halt();
+        }
+    }
+
+    /**
+     * Publishes an event into the ring buffer.
+     * Depending on the {@link OverflowPolicy}, this will either wait for space or drop the event if the ring is full.
+     *
+     * @param event The BaseEvent to be published to all listeners.
+     */
+    @Override
+    public void publishEvent(BaseEvent event) {
+        if (!running) {
+            log.warn("Event published after shutdown, dropping: {}", event.getType());
+            return;
+        }
+
+        if (producerType == ProducerType.SINGLE && !ownsRing()) {
+            publishFromOtherThread(event);
+            return;
+        }
+
+        long sequence = claim();
+        if (sequence < 0) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+
+        int index = (int) (sequence & mask);
+        Slot slot = new Slot(sequence, event);
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            // A volatile write, so the read of blockedConsumers can't be reordered before it and miss a consumer about to block
+            slots.set(index, slot);
+            if (blockedConsumers.get() > 0) {
+                signalConsumers();
+            }
+        } else {
+            slots.lazySet(index, slot);
+        }
+
+        if (gatingConsumers.isEmpty()) {
+            // Nobody will consume the event, so don't keep it reachable
+            clearConsumed();
+        }
+    }
+
+    private boolean ownsRing() {
+        Thread current = Thread.currentThread();
+        Thread owner = producerThread.get();
+        return owner == current || (owner == null && producerThread.compareAndSet(null, current));
+    }
+
+    /**
+     * Hands an event published by a thread other than a SINGLE ring's owner to every consumer.
+     * It is tagged with the owner's last claim, so consumers deliver it after the events the owner published before it.
+     */
+    private void publishFromOtherThread(BaseEvent event) {
+        Slot slot = new Slot(claimSequence.get(), event);
+        for (Consumer consumer : gatingConsumers) {
+            consumer.otherThreadEvents.offer(slot);
+            consumer.wake();
+        }
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            signalConsumers();
+        }
+    }
+
+    /**
+     * Claims the next sequence in the ring.
+     *
+     * @return the claimed sequence, or -1 if the ring is full and the event should be dropped
+     */
+    private long claim() {
+        int attempts = 0;
+        while (true) {
+            long current = claimSequence.get();
+            long next = current + 1;
+            long wrapPoint = next - bufferSize;
+            if (wrapPoint > gatingSequenceCache) {
+                long gating = minimumConsumerSequence(current);
+                gatingSequenceCache = gating;
+                if (wrapPoint > gating) {
+                    // The ring is full, the slowest consumer hasn't processed the slot we need yet
+                    if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                        return -1;
+                    }
+                    backOff(attempts++);
+                    continue;
+                }
+            }
+
+            if (producerType == ProducerType.SINGLE) {
+                claimSequence.lazySet(next);
+                return next;
+            }
+            if (claimSequence.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long minimumConsumerSequence(long defaultSequence) {
+        long min = defaultSequence;
+        for (Consumer consumer : gatingConsumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        return min;
+    }
+
+    /**
+     * Clears the slots every consumer has processed, so the ring doesn't keep consumed events reachable.
+     * Any thread may clear. A range is claimed by moving {@link #clearedSequence} forward, and each slot is only nulled if it still holds
+     * the sequence being cleared, so a clearer that falls behind never nulls a slot the producer has reused.
+     */
+    private void clearConsumed() {
+        long cleared = clearedSequence.get();
+        long consumed = minimumConsumerSequence(claimSequence.get());
+        if (consumed <= cleared || !clearedSequence.compareAndSet(cleared, consumed)) {
+            return;
+        }
+        for (long s = cleared + 1; s <= consumed; s++) {
+            int index = (int) (s & mask);
+            Slot slot = slots.get(index);
+            if (slot != null && slot.sequence == s) {
+                slots.compareAndSet(index, slot, null);
+            }
+        }
+    }
+
+    private void backOff(int attempts) {
+        if (attempts < 100) {
+            Thread.onSpinWait();
+        } else if (attempts < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    private void signalConsumers() {
+        lock.lock();
+        try {
+            eventsAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Slot slotAt(long sequence) {
+        Slot slot = slots.get((int) (sequence & mask));
+        return slot != null && slot.sequence == sequence ? slot : null;
+    }
+
+    /**
+     * Publishes an error event
+     * Errors are rare, so they are delivered directly to the strategy's listeners on the calling thread
+     *
+     * @param strategyId the strategy id where the error happened
+     * @param e          the exception
+     */
+    @Override
+    public void publishErrorEvent(String strategyId, Exception e) {
+        log.info("Publishing error event for strategy: {}", strategyId);
+        String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        registry.forEachErrorListener(strategyId, listener -> listener.onError(strategyId, message));
+    }
+
+    /**
+     * Checks whether any registered listener is subscribed to the given event type for the given strategy.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the strategy the event would be published for
+     * @return true if at least one listener would consume the event
+     */
+    @Override
+    public boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+        return registry.hasSubscribers(eventType, strategyId);
+    }
+
+    /**
+     * Stops accepting events. Consumers will finish delivering any events already in the ring before stopping.
+     */
+    @Override
+    public void shutdown() {
+        running = false;
+        signalConsumers();
+    }
+
+    /**
+     * @return the number of listeners added and not yet removed
+     */
+    public int getListenerCount() {
+        return consumers.size();
+    }
+
+    /**
+     * @return the number of events dropped because the ring was full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * @return the number of events published but not yet processed by the slowest listener
+     */
+    public long getBacklog() {
+        long current = claimSequence.get();
+        return current - minimumConsumerSequence(current);
+    }
+
+    /**
+     * Whether the publisher will be written to from one thread, or many.
+     */
+    public enum ProducerType {
+        SINGLE,
+        MULTI
+    }
+
+    /**
+     * How consumer threads wait when there are no new events.
+     * Lower latency strategies burn more CPU, BUSY_SPIN and YIELDING keep a core busy per listener.
+     */
+    public enum WaitStrategy {
+        /**
+         * Parks on a lock until the producer signals. Lowest CPU usage, highest latency.
+         */
+        BLOCKING,
+        /**
+         * Spins, then yields, then sleeps briefly. A good compromise for most workloads.
+         */
+        SLEEPING,
+        /**
+         * Spins, then yields the thread.
+         */
+        YIELDING,
+        /**
+         * Spins continuously. Lowest latency, uses a full core per listener.
+         */
+        BUSY_SPIN
+    }
+
+    /**
+     * What the producer does when the ring is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for the slowest consumer to free a slot. No events are lost, but the producing strategy is slowed down.
+         */
+        BLOCK,
+        /**
+         * Drop the event being published. The producing strategy is never slowed down.
+         */
+        DROP
+    }
+
+    /**
+     * An event and the sequence it was published at.
+     * For events published from a thread other than a SINGLE ring's owner, the owner's last claim when it was published.
+     */
+    private record Slot(long sequence, BaseEvent event) {
+    }
+
+    /**
+     * Delivers events from the ring to a single listener, tracking its own sequence.
+     */
+    private final class Consumer implements Runnable {
+        private final EventListener listener;
+        // The last sequence processed by this consumer. Only written by the consumer's thread once started
+        private final AtomicLong sequence;
+        private final Queue<Slot> otherThreadEvents = new ConcurrentLinkedQueue<>();
+        private volatile boolean active = true;
+        private volatile Thread thread;
+
+        private Consumer(EventListener listener, long startSequence) {
+            this.listener = listener;
+            this.sequence = new AtomicLong(startSequence);
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                long next = sequence.get() + 1;
+                int idleCount = 0;
+                while (active) {
+                    if (slotAt(next) != null) {
+                        long end = next;
+                        while (end - next < MAX_CONSUMER_BATCH - 1 && slotAt(end + 1) != null) {
+                            end++;
+                        }
+                        // Halted consumers stop before reading further slots, they still gate the producer until this thread exits
+                        long s = next;
+                        while (s <= end && active) {
+                            Slot slot = slotAt(s);
+                            // Only missing if cleared by a clear that started before this consumer was added, see below
+                            if (slot != null) {
+                                deliver(slot.event());
+                            }
+                            s++;
+                        }
+                        sequence.lazySet(s - 1);
+                        clearConsumed();
+                        next = s;
+                        idleCount = 0;
+                        deliverOtherThreadEvents();
+                    } else if (deliverOtherThreadEvents()) {
+                        idleCount = 0;
+                    } else if (clearedSequence.get() >= next) {
+                        // A clear that started before this consumer was added didn't wait for it.
+                        // The events it cleared were published before the listener was added, so skip them
+                        next = clearedSequence.get() + 1;
+                        sequence.lazySet(next - 1);
+                    } else if (!running) {
+                        // Shutdown, and we have drained everything that was published
+                        break;
+                    } else {
+                        idle(next, idleCount++);
+                    }
+                }
+            } finally {
+                // Once stopped, even by an Error thrown from the listener, the consumer shouldn't hold back the producer
+                gatingConsumers.remove(this);
+                clearConsumed();
+            }
+        }
+
+        /**
+         * Delivers the events published from other threads that are due, i.e. whose preceding ring events have been processed.
+         *
+         * @return true if any event was delivered
+         */
+        private boolean deliverOtherThreadEvents() {
+            boolean delivered = false;
+            Slot slot;
+            while (active && (slot = otherThreadEvents.peek()) != null && slot.sequence <= sequence.get()) {
+                otherThreadEvents.poll();
+                deliver(slot.event());
+                delivered = true;
+            }
+            return delivered;
+        }
+
+        private boolean hasDueOtherThreadEvents() {
+            Slot slot = otherThreadEvents.peek();
+            return slot != null && slot.sequence <= sequence.get();
+        }
+
+        private void deliver(BaseEvent event) {
+            try {
+                if (registry.routes(listener, event)) {
+                    listener.onEvent(event);
+                }
+            } catch (Exception e) {
+                log.error("Listener {} failed to handle event {}", listener, event.getType(), e);
+            }
+        }
+
+        private void idle(long next, int idleCount) {
+            switch (waitStrategy) {
+                case BUSY_SPIN -> Thread.onSpinWait();
+                case YIELDING -> {
+                    if (idleCount < 100) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                case SLEEPING -> {
+                    if (idleCount < 100) {
+                        Thread.onSpinWait();
+                    } else if (idleCount < 200) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(100_000);
+                    }
+                }
+                case BLOCKING -> {
+                    blockedConsumers.incrementAndGet();
+                    lock.lock();
+                    try {
+                        // Re-check under the lock so we don't miss a signal, and time out as a safety net
+                        if (active && running && slotAt(next) == null && !hasDueOtherThreadEvents()) {
+                            eventsAvailable.await(1, TimeUnit.MILLISECONDS);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        active = false;
+                    } finally {
+                        lock.unlock();
+                        blockedConsumers.decrementAndGet();
+                    }
+                }
+            }
+        }
+
+        private void wake() {
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        private void halt() {
+            active = false;
+            wake();
+            if (waitStrategy == WaitStrategy.BLOCKING) {
+                signalConsumers();
+            }
+        }
+    }
+}
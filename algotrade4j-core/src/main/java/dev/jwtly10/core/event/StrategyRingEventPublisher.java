@@ -0,0 +1,138 @@
+package dev.jwtly10.core.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The StrategyRingEventPublisher gives each strategy its own {@link RingBufferEventPublisher}, so every ring has a single producer
+ * (the strategy's thread) and claims slots without a CAS, and strategies never contend with each other for a ring.
+ *
+ * <p>
+ * A strategy's ring is created when the first {@link TopicEventListener} for it is added, and dropped when its last one is removed.
+ * Events for strategies without listeners are dropped without touching a ring.
+ * Broadcast listeners, which receive every strategy's events, share one {@link RingBufferEventPublisher.ProducerType#MULTI} ring.
+ * </p>
+ */
+@Slf4j
+public class StrategyRingEventPublisher implements EventPublisher {
+    private final int bufferSize;
+    private final RingBufferEventPublisher.WaitStrategy waitStrategy;
+    private final RingBufferEventPublisher.OverflowPolicy overflowPolicy;
+
+    private final Map<String, RingBufferEventPublisher> strategyRings = new ConcurrentHashMap<>();
+    private final RingBufferEventPublisher broadcastRing;
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a publisher with a ring per strategy
+     *
+     * @param bufferSize     the number of slots in each ring, must be a power of 2
+     * @param waitStrategy   how consumers wait for new events
+     * @param overflowPolicy what happens when a ring is full
+     */
+    public StrategyRingEventPublisher(int bufferSize, RingBufferEventPublisher.WaitStrategy waitStrategy, RingBufferEventPublisher.OverflowPolicy overflowPolicy) {
+        this.bufferSize = bufferSize;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.broadcastRing = new RingBufferEventPublisher(bufferSize, RingBufferEventPublisher.ProducerType.MULTI, waitStrategy, overflowPolicy);
+    }
+
+    /**
+     * Adds an event listener. Topic listeners are added to their strategy's ring, other listeners to the broadcast ring.
+     *
+     * @param listener The EventListener to be added.
+     */
+    @Override
+    public void addListener(EventListener listener) {
+        if (!(listener instanceof TopicEventListener topicListener)) {
+            broadcastRing.addListener(listener);
+            return;
+        }
+        strategyRings.compute(topicListener.getStrategyId(), (strategyId, ring) -> {
+            if (ring == null) {
+                log.debug("Creating event ring for strategy: {}", strategyId);
+                ring = new RingBufferEventPublisher(bufferSize, RingBufferEventPublisher.ProducerType.SINGLE, waitStrategy, overflowPolicy);
+                if (!running) {
+                    ring.shutdown();
+                }
+            }
+            ring.addListener(listener);
+            return ring;
+        });
+    }
+
+    /**
+     * Removes an event listener, dropping its strategy's ring if it was the last listener on it.
+     *
+     * @param listener The EventListener to be removed.
+     */
+    @Override
+    public void removeListener(EventListener listener) {
+        if (!(listener instanceof TopicEventListener topicListener)) {
+            broadcastRing.removeListener(listener);
+            return;
+        }
+        strategyRings.computeIfPresent(topicListener.getStrategyId(), (strategyId, ring) -> {
+            ring.removeListener(listener);
+            // The ring's consumers have all been halted, so their threads exit and the ring can be collected
+            return ring.getListenerCount() == 0 ? null : ring;
+        });
+    }
+
+    /**
+     * Publishes an event into its strategy's ring, and the broadcast ring if it has listeners.
+     *
+     * @param event The BaseEvent to be published to all listeners.
+     */
+    @Override
+    public void publishEvent(BaseEvent event) {
+        RingBufferEventPublisher ring = strategyRings.get(event.getStrategyId());
+        if (ring != null) {
+            ring.publishEvent(event);
+        }
+        if (broadcastRing.getListenerCount() > 0) {
+            broadcastRing.publishEvent(event);
+        }
+    }
+
+    /**
+     * Publishes an error event to the strategy's listeners and the broadcast listeners.
+     *
+     * @param strategyId the strategy id where the error happened
+     * @param e          the exception
+     */
+    @Override
+    public void publishErrorEvent(String strategyId, Exception e) {
+        RingBufferEventPublisher ring = strategyRings.get(strategyId);
+        if (ring != null) {
+            ring.publishErrorEvent(strategyId, e);
+        }
+        broadcastRing.publishErrorEvent(strategyId, e);
+    }
+
+    /**
+     * Checks whether any registered listener is subscribed to the given event type for the given strategy.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the strategy the event would be published for
+     * @return true if at least one listener would consume the event
+     */
+    @Override
+    public boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+        RingBufferEventPublisher ring = strategyRings.get(strategyId);
+        return (ring != null && ring.hasSubscribers(eventType, strategyId)) || broadcastRing.hasSubscribers(eventType, strategyId);
+    }
+
+    /**
+     * Stops accepting events on every ring.
+     */
+    @Override
+    public void shutdown() {
+        running = false;
+        strategyRings.values().forEach(RingBufferEventPublisher::shutdown);
+        broadcastRing.shutdown();
+    }
+}
@@ -2,8 +2,6 @@ package dev.jwtly10.core.event;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The SyncEventPublisher class is a Synchronous event publisher.
@@ -12,7 +10,7 @@ import java.util.List;
  */
 @Slf4j
 public class SyncEventPublisher implements EventPublisher {
-    private final List<EventListener> listeners = new ArrayList<>();
+    private final EventSubscriptionRegistry registry = new EventSubscriptionRegistry();
 
     public SyncEventPublisher() {
     }
@@ -23,7 +21,7 @@ public class SyncEventPublisher implements EventPublisher {
      * @param listener The EventListener to be added.
      */
     public void addListener(EventListener listener) {
-        listeners.add(listener);
+        registry.add(listener);
     }
 
     /**
@@ -32,27 +30,31 @@ public class SyncEventPublisher implements EventPublisher {
      * @param listener The EventListener to be removed.
      */
     public void removeListener(EventListener listener) {
-        listeners.remove(listener);
+        registry.remove(listener);
     }
 
     /**
-     * Publishes an event to all registered listeners.
-     * This method iterates through all registered listeners and calls their onEvent method,
-     * passing the event as an argument.
-     * Does not block the calling thread.
+     * Publishes an event to the listeners subscribed to it, on the calling thread.
      *
      * @param event The BaseEvent to be published to all listeners.
      */
     public void publishEvent(BaseEvent event) {
-        for (EventListener listener : listeners) {
-            listener.onEvent(event);
-        }
+        registry.forEachSubscriber(event, listener -> listener.onEvent(event));
     }
 
     public void publishErrorEvent(String strategyId, Exception e) {
-        for (EventListener listener : listeners) {
-            listener.onError(strategyId, e);
-        }
+        registry.forEachErrorListener(strategyId, listener -> listener.onError(strategyId, e));
+    }
+
+    /**
+     * Checks whether any registered listener is subscribed to the given event type for the given strategy.
+     *
+     * @param eventType  the class of the event
+     * @param strategyId the strategy the event would be published for
+     * @return true if at least one listener would consume the event
+     */
+    public boolean hasSubscribers(Class<? extends BaseEvent> eventType, String strategyId) {
+        return registry.hasSubscribers(eventType, strategyId);
     }
 
     public void shutdown() {
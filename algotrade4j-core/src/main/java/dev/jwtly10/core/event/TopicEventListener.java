@@ -0,0 +1,111 @@
+package dev.jwtly10.core.event;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Base class for listeners that are only interested in specific event types for a single strategy (e.g. a websocket session).
+ *
+ * <p>
+ * Subscriptions are kept in sync with every {@link EventSubscriptionRegistry} the listener is registered with,
+ * so publishers can route events by (strategy id, event class) instead of offering every event to every listener.
+ * Subscribing and unsubscribing can happen at any time, before or after the listener is added to a publisher, and concurrently with dispatch.
+ * </p>
+ *
+ * <p>
+ * Routing is by exact event class. Subscribing to a base class does not subscribe to its subclasses.
+ * </p>
+ */
+public abstract class TopicEventListener implements EventListener {
+    private final String strategyId;
+    private final Set<Class<? extends BaseEvent>> subscribedEventTypes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean isActive = new AtomicBoolean(true);
+    // The registries this listener has been added to, normally just one
+    private final List<EventSubscriptionRegistry> registries = new CopyOnWriteArrayList<>();
+    // Serialises subscription changes with attach/detach, dispatch never takes this lock
+    private final Object subscriptionLock = new Object();
+
+    protected TopicEventListener(String strategyId) {
+        this.strategyId = strategyId;
+    }
+
+    /**
+     * @return the id of the strategy this listener receives events for
+     */
+    public String getStrategyId() {
+        return strategyId;
+    }
+
+    /**
+     * Subscribes to an event type for this listener's strategy.
+     *
+     * @param eventType the class of the event
+     */
+    public void subscribe(Class<? extends BaseEvent> eventType) {
+        synchronized (subscriptionLock) {
+            if (subscribedEventTypes.add(eventType)) {
+                for (EventSubscriptionRegistry registry : registries) {
+                    registry.index(this, eventType);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unsubscribes from an event type.
+     *
+     * @param eventType the class of the event
+     */
+    public void unsubscribe(Class<? extends BaseEvent> eventType) {
+        synchronized (subscriptionLock) {
+            if (subscribedEventTypes.remove(eventType)) {
+                for (EventSubscriptionRegistry registry : registries) {
+                    registry.unindex(this, eventType);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the listener from receiving any further events. The listener should still be removed from its publisher.
+     */
+    public void deactivate() {
+        isActive.set(false);
+    }
+
+    public boolean isActive() {
+        return isActive.get();
+    }
+
+    @Override
+    public boolean isSubscribed(Class<? extends BaseEvent> eventType, String strategyId) {
+        return isActive.get() && subscribedEventTypes.contains(eventType) && this.strategyId.equals(strategyId);
+    }
+
+    /**
+     * Called by a registry when this listener is added to it, indexes all existing subscriptions.
+     */
+    void attach(EventSubscriptionRegistry registry) {
+        synchronized (subscriptionLock) {
+            registries.add(registry);
+            for (Class<? extends BaseEvent> eventType : subscribedEventTypes) {
+                registry.index(this, eventType);
+            }
+        }
+    }
+
+    /**
+     * Called by a registry when this listener is removed from it, removes all subscriptions from its index.
+     */
+    void detach(EventSubscriptionRegistry registry) {
+        synchronized (subscriptionLock) {
+            registries.remove(registry);
+            for (Class<? extends BaseEvent> eventType : subscribedEventTypes) {
+                registry.unindex(this, eventType);
+            }
+        }
+    }
+}
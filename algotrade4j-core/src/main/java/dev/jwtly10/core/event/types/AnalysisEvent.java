@@ -10,12 +10,19 @@ import java.util.List;
 
 @Getter
 public class AnalysisEvent extends BaseEvent {
+    // More than a chart can usefully display, the curve is downsampled to this many points keeping its shape
+    public static final int DEFAULT_EQUITY_HISTORY_POINTS = 2000;
+
     private final List<PerformanceAnalyser.EquityPoint> equityHistory;
     private final AnalysisStats stats;
 
     public AnalysisEvent(String strategyId, Instrument instrument, PerformanceAnalyser performanceAnalyser) {
+        this(strategyId, instrument, performanceAnalyser, DEFAULT_EQUITY_HISTORY_POINTS);
+    }
+
+    public AnalysisEvent(String strategyId, Instrument instrument, PerformanceAnalyser performanceAnalyser, int maxEquityPoints) {
         super(strategyId, "ANALYSIS", instrument);
-        this.equityHistory = performanceAnalyser.getEquityHistory();
+        this.equityHistory = performanceAnalyser.getEquityHistory(maxEquityPoints);
         this.stats = new AnalysisStats(
                 performanceAnalyser.getInitialDeposit(),
                 performanceAnalyser.getOpenTradeProfit(),
@@ -0,0 +1,66 @@
+package dev.jwtly10.core.event.types;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.event.Log;
+import dev.jwtly10.core.model.Bar;
+import dev.jwtly10.core.model.IndicatorValue;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Trade;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of history older than what a live strategy viewer already has, in reply to a history request.
+ * Only the field for the page's {@link Kind} is set. Items are in the same order as the full state events,
+ * oldest first for bars, trades and indicators, newest first for logs.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HistoryPageEvent extends BaseEvent {
+    private final Kind kind;
+    /**
+     * Whether there is more history before this page.
+     */
+    private final boolean hasMore;
+    private final List<Bar> bars;
+    private final List<Trade> trades;
+    private final Map<String, List<IndicatorValue>> indicators;
+    private final List<Log> logs;
+
+    private HistoryPageEvent(String strategyId, Instrument instrument, Kind kind, boolean hasMore,
+                             List<Bar> bars, List<Trade> trades, Map<String, List<IndicatorValue>> indicators, List<Log> logs) {
+        super(strategyId, "HISTORY_PAGE", instrument);
+        this.kind = kind;
+        this.hasMore = hasMore;
+        this.bars = bars;
+        this.trades = trades;
+        this.indicators = indicators;
+        this.logs = logs;
+    }
+
+    public static HistoryPageEvent bars(String strategyId, Instrument instrument, List<Bar> bars, boolean hasMore) {
+        return new HistoryPageEvent(strategyId, instrument, Kind.BARS, hasMore, bars, null, null, null);
+    }
+
+    public static HistoryPageEvent trades(String strategyId, Instrument instrument, List<Trade> trades, boolean hasMore) {
+        return new HistoryPageEvent(strategyId, instrument, Kind.TRADES, hasMore, null, trades, null, null);
+    }
+
+    public static HistoryPageEvent indicators(String strategyId, Instrument instrument, Map<String, List<IndicatorValue>> indicators, boolean hasMore) {
+        return new HistoryPageEvent(strategyId, instrument, Kind.INDICATORS, hasMore, null, null, indicators, null);
+    }
+
+    public static HistoryPageEvent logs(String strategyId, Instrument instrument, List<Log> logs, boolean hasMore) {
+        return new HistoryPageEvent(strategyId, instrument, Kind.LOGS, hasMore, null, null, null, logs);
+    }
+
+    public enum Kind {
+        BARS,
+        TRADES,
+        INDICATORS,
+        LOGS
+    }
+}
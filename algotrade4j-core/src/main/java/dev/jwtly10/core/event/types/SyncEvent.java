@@ -0,0 +1,50 @@
+package dev.jwtly10.core.event.types;
+
+import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.event.EventJournal;
+import dev.jwtly10.core.model.Instrument;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Sent to a live strategy viewer when it attaches, before any state.
+ *
+ * <p>
+ * If the viewer resumed, only the events after its last sequence follow. Otherwise a snapshot follows, with the full history of
+ * bars, trades, indicator values and logs, or only the most recent window of them if the server limits snapshots. Older history
+ * for the truncated kinds can then be requested a page at a time, see {@link HistoryPageEvent}.
+ * </p>
+ */
+@Getter
+public class SyncEvent extends BaseEvent {
+    /**
+     * The journal the sequences belong to, the viewer sends this back when resuming.
+     */
+    private final String journalId;
+    /**
+     * The state that follows is current as of this sequence, live events continue from the next one.
+     */
+    private final long syncSequence;
+    /**
+     * Whether the viewer resumed, rather than being sent a snapshot.
+     */
+    private final boolean resumed;
+    /**
+     * The max number of items of each kind in the snapshot, 0 if the snapshot has the full history.
+     */
+    private final int windowSize;
+    /**
+     * The kinds with older history than was included in the snapshot.
+     */
+    private final Set<HistoryPageEvent.Kind> truncated;
+
+    public SyncEvent(String strategyId, Instrument instrument, EventJournal journal, long syncSequence, boolean resumed, int windowSize, Set<HistoryPageEvent.Kind> truncated) {
+        super(strategyId, "SYNC", instrument);
+        this.journalId = journal.getJournalId();
+        this.syncSequence = syncSequence;
+        this.resumed = resumed;
+        this.windowSize = windowSize;
+        this.truncated = truncated;
+    }
+}
@@ -1,6 +1,7 @@
 package dev.jwtly10.core.event.types.async;
 
 import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.indicators.IndicatorHistory;
 import dev.jwtly10.core.model.IndicatorValue;
 import dev.jwtly10.core.model.Instrument;
 import lombok.Getter;
@@ -12,6 +13,10 @@ import java.util.stream.Collectors;
 
 /**
  * Event representing all indicator data from a given strategy run
+ *
+ * <p>
+ * Values backed by an {@link IndicatorHistory} are copied into a compact primitive snapshot, and serialised straight from the arrays.
+ * </p>
  */
 @Getter
 public class AsyncIndicatorsEvent extends BaseEvent {
@@ -26,6 +31,14 @@ public class AsyncIndicatorsEvent extends BaseEvent {
         Map<String, List<IndicatorValue>> filteredIndicators = new HashMap<>();
 
         for (Map.Entry<String, List<IndicatorValue>> entry : originalIndicators.entrySet()) {
+            if (entry.getValue() instanceof IndicatorHistory.View view) {
+                IndicatorHistory snapshot = view.history().snapshot(true);
+                if (!snapshot.isEmpty()) {
+                    filteredIndicators.put(entry.getKey(), snapshot.asList());
+                }
+                continue;
+            }
+
             List<IndicatorValue> filteredList = entry.getValue().stream()
                     .filter(iv -> iv.getValue() != 0)
                     .collect(Collectors.toList());
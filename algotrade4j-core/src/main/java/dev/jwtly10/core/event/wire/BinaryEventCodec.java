@@ -0,0 +1,285 @@
+package dev.jwtly10.core.event.wire;
+
+import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.event.EventPayloadEncoder;
+import dev.jwtly10.core.event.types.async.AsyncBarSeriesEvent;
+import dev.jwtly10.core.event.types.async.AsyncIndicatorsEvent;
+import dev.jwtly10.core.event.types.async.AsyncTradesEvent;
+import dev.jwtly10.core.indicators.IndicatorHistory;
+import dev.jwtly10.core.model.Bar;
+import dev.jwtly10.core.model.BarSeries;
+import dev.jwtly10.core.model.IndicatorValue;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for the large end of run events ({@link AsyncBarSeriesEvent}, {@link AsyncTradesEvent} and {@link AsyncIndicatorsEvent}).
+ *
+ * <p>
+ * The JSON form of these events repeats every field name per element, and writes prices as decimal strings,
+ * so a multi year run can be many megabytes. The binary form is columnar: each field is written as one column,
+ * with timestamps delta-of-delta encoded and prices as scaled integer deltas (see {@link BinaryWriter}).
+ * </p>
+ *
+ * <p>
+ * Message layout, after the {@link EventPayloadEncoder#FLAG_BINARY} flag byte:
+ * <pre>
+ * varint version, varint frame type, string strategyId, string instrument, frame body
+ *
+ * BAR_SERIES:     varint count, varint time period seconds, timestamps openTime, timestamps closeTime,
+ *                 doubles open, doubles high, doubles low, doubles close, doubles volume
+ * ALL_TRADES:     varint count, timestamps id, booleans isLong, doubles quantity, doubles entryPrice, doubles stopLoss,
+ *                 doubles takeProfit, doubles closePrice, doubles profit, timestamps openTime, timestamps closeTime
+ * ALL_INDICATORS: varint count, then per indicator: string name, varint count, timestamps time, doubles value
+ * </pre>
+ * Timestamps are epoch millis. Missing prices are NaN, missing times are {@link #NO_TIME}.
+ * </p>
+ */
+public final class BinaryEventCodec {
+    public static final int VERSION = 2;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final int BAR_SERIES = 1;
+    private static final int ALL_TRADES = 2;
+    private static final int ALL_INDICATORS = 3;
+
+    private BinaryEventCodec() {
+    }
+
+    /**
+     * @param event the event
+     * @return true if the event has a binary encoding
+     */
+    public static boolean supports(BaseEvent event) {
+        return event instanceof AsyncBarSeriesEvent || event instanceof AsyncTradesEvent || event instanceof AsyncIndicatorsEvent;
+    }
+
+    /**
+     * Encodes an event into a binary websocket payload, including the flag byte.
+     *
+     * @param event the event
+     * @return the payload, or null if the event has no binary encoding and should be sent as JSON
+     */
+    public static byte[] encode(BaseEvent event) {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeByte(EventPayloadEncoder.FLAG_BINARY);
+        writer.writeVarLong(VERSION);
+
+        switch (event) {
+            case AsyncBarSeriesEvent barSeriesEvent -> {
+                writeHeader(writer, BAR_SERIES, event);
+                writeBars(writer, barSeriesEvent.getBarSeries());
+            }
+            case AsyncTradesEvent tradesEvent -> {
+                writeHeader(writer, ALL_TRADES, event);
+                writeTrades(writer, tradesEvent.getTrades());
+            }
+            case AsyncIndicatorsEvent indicatorsEvent -> {
+                writeHeader(writer, ALL_INDICATORS, event);
+                writeIndicators(writer, indicatorsEvent.getIndicators());
+            }
+            default -> {
+                return null;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a binary websocket payload.
+     *
+     * @param payload the payload, positioned at the flag byte
+     * @return the decoded frame
+     */
+    public static BinaryFrame decode(ByteBuffer payload) {
+        BinaryReader reader = new BinaryReader(payload);
+        int flag = reader.readByte();
+        if (flag != EventPayloadEncoder.FLAG_BINARY) {
+            throw new IllegalArgumentException("Not a binary payload, flag: " + flag);
+        }
+        long version = reader.readVarLong();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary protocol version: " + version);
+        }
+
+        int frameType = reader.readVarInt();
+        String strategyId = reader.readString();
+        String instrument = reader.readString();
+        return switch (frameType) {
+            case BAR_SERIES -> readBars(reader, strategyId, instrument);
+            case ALL_TRADES -> readTrades(reader, strategyId, instrument);
+            case ALL_INDICATORS -> readIndicators(reader, strategyId, instrument);
+            default -> throw new IllegalArgumentException("Unknown binary frame type: " + frameType);
+        };
+    }
+
+    private static void writeHeader(BinaryWriter writer, int frameType, BaseEvent event) {
+        writer.writeVarLong(frameType);
+        writer.writeString(event.getStrategyId());
+        writer.writeString(event.getInstrument() == null ? null : event.getInstrument().name());
+    }
+
+    private static void writeBars(BinaryWriter writer, BarSeries barSeries) {
+        List<Bar> bars = barSeries.getBars();
+        int count = bars.size();
+        long[] openTimes = new long[count];
+        long[] closeTimes = new long[count];
+        double[] open = new double[count];
+        double[] high = new double[count];
+        double[] low = new double[count];
+        double[] close = new double[count];
+        double[] volume = new double[count];
+        for (int i = 0; i < count; i++) {
+            Bar bar = bars.get(i);
+            openTimes[i] = toMillis(bar.getOpenTime());
+            closeTimes[i] = toMillis(bar.getCloseTime());
+            open[i] = toDouble(bar.getOpen());
+            high[i] = toDouble(bar.getHigh());
+            low[i] = toDouble(bar.getLow());
+            close[i] = toDouble(bar.getClose());
+            volume[i] = toDouble(bar.getVolume());
+        }
+
+        writer.writeVarLong(count);
+        writer.writeVarLong(count == 0 || bars.getFirst().getTimePeriod() == null ? 0 : bars.getFirst().getTimePeriod().toSeconds());
+        writer.writeTimestamps(openTimes, count);
+        writer.writeTimestamps(closeTimes, count);
+        writer.writeDoubles(open, count);
+        writer.writeDoubles(high, count);
+        writer.writeDoubles(low, count);
+        writer.writeDoubles(close, count);
+        writer.writeDoubles(volume, count);
+    }
+
+    private static BinaryFrame.BarSeriesFrame readBars(BinaryReader reader, String strategyId, String instrument) {
+        int count = reader.readVarInt();
+        long timePeriodSeconds = reader.readVarLong();
+        long[] openTimes = reader.readTimestamps(count);
+        long[] closeTimes = reader.readTimestamps(count);
+        double[] open = reader.readDoubles(count);
+        double[] high = reader.readDoubles(count);
+        double[] low = reader.readDoubles(count);
+        double[] close = reader.readDoubles(count);
+        double[] volume = reader.readDoubles(count);
+        return new BinaryFrame.BarSeriesFrame(strategyId, instrument, timePeriodSeconds, openTimes, closeTimes, open, high, low, close, volume);
+    }
+
+    private static void writeTrades(BinaryWriter writer, Map<Integer, Trade> tradesById) {
+        // Copy first, live trades can be updated while we encode
+        List<Trade> trades = new ArrayList<>(tradesById.values());
+        int count = trades.size();
+        long[] ids = new long[count];
+        boolean[] isLong = new boolean[count];
+        double[] quantity = new double[count];
+        double[] entryPrice = new double[count];
+        double[] stopLoss = new double[count];
+        double[] takeProfit = new double[count];
+        double[] closePrice = new double[count];
+        double[] profit = new double[count];
+        long[] openTimes = new long[count];
+        long[] closeTimes = new long[count];
+        for (int i = 0; i < count; i++) {
+            Trade trade = trades.get(i);
+            ids[i] = trade.getId();
+            isLong[i] = trade.isLong();
+            quantity[i] = trade.getQuantity();
+            entryPrice[i] = toDouble(trade.getEntryPrice());
+            stopLoss[i] = toDouble(trade.getStopLoss());
+            takeProfit[i] = toDouble(trade.getTakeProfit());
+            closePrice[i] = toDouble(trade.getClosePrice());
+            profit[i] = trade.getProfit();
+            openTimes[i] = toMillis(trade.getOpenTime());
+            closeTimes[i] = toMillis(trade.getCloseTime());
+        }
+
+        writer.writeVarLong(count);
+        writer.writeTimestamps(ids, count); // Ids are sequential, so delta-of-delta encodes them in ~1 byte each
+        writer.writeBooleans(isLong, count);
+        writer.writeDoubles(quantity, count);
+        writer.writeDoubles(entryPrice, count);
+        writer.writeDoubles(stopLoss, count);
+        writer.writeDoubles(takeProfit, count);
+        writer.writeDoubles(closePrice, count);
+        writer.writeDoubles(profit, count);
+        writer.writeTimestamps(openTimes, count);
+        writer.writeTimestamps(closeTimes, count);
+    }
+
+    private static BinaryFrame.TradesFrame readTrades(BinaryReader reader, String strategyId, String instrument) {
+        int count = reader.readVarInt();
+        long[] ids = reader.readTimestamps(count);
+        boolean[] isLong = reader.readBooleans(count);
+        double[] quantity = reader.readDoubles(count);
+        double[] entryPrice = reader.readDoubles(count);
+        double[] stopLoss = reader.readDoubles(count);
+        double[] takeProfit = reader.readDoubles(count);
+        double[] closePrice = reader.readDoubles(count);
+        double[] profit = reader.readDoubles(count);
+        long[] openTimes = reader.readTimestamps(count);
+        long[] closeTimes = reader.readTimestamps(count);
+        return new BinaryFrame.TradesFrame(strategyId, instrument, ids, isLong, quantity, entryPrice, stopLoss, takeProfit, closePrice, profit, openTimes, closeTimes);
+    }
+
+    private static void writeIndicators(BinaryWriter writer, Map<String, List<IndicatorValue>> indicators) {
+        writer.writeVarLong(indicators.size());
+        for (Map.Entry<String, List<IndicatorValue>> entry : indicators.entrySet()) {
+            List<IndicatorValue> values = entry.getValue();
+            int count;
+            long[] times;
+            double[] doubles;
+            if (values instanceof IndicatorHistory.View view) {
+                // Read straight from the primitive history, without materialising IndicatorValues
+                IndicatorHistory history = view.history().snapshot(false);
+                count = history.size();
+                times = new long[count];
+                doubles = new double[count];
+                for (int i = 0; i < count; i++) {
+                    times[i] = history.timeAt(i);
+                    doubles[i] = history.valueAt(i);
+                }
+            } else {
+                count = values.size();
+                times = new long[count];
+                doubles = new double[count];
+                for (int i = 0; i < count; i++) {
+                    IndicatorValue value = values.get(i);
+                    times[i] = toMillis(value.getDateTime());
+                    doubles[i] = value.getValue();
+                }
+            }
+
+            writer.writeString(entry.getKey());
+            writer.writeVarLong(count);
+            writer.writeTimestamps(times, count);
+            writer.writeDoubles(doubles, count);
+        }
+    }
+
+    private static BinaryFrame.IndicatorsFrame readIndicators(BinaryReader reader, String strategyId, String instrument) {
+        int indicatorCount = reader.readVarInt();
+        Map<String, BinaryFrame.Series> indicators = new LinkedHashMap<>();
+        for (int i = 0; i < indicatorCount; i++) {
+            String name = reader.readString();
+            int count = reader.readVarInt();
+            long[] times = reader.readTimestamps(count);
+            double[] values = reader.readDoubles(count);
+            indicators.put(name, new BinaryFrame.Series(times, values));
+        }
+        return new BinaryFrame.IndicatorsFrame(strategyId, instrument, indicators);
+    }
+
+    private static long toMillis(ZonedDateTime dateTime) {
+        return dateTime == null ? NO_TIME : dateTime.toInstant().toEpochMilli();
+    }
+
+    private static double toDouble(Number number) {
+        return number == null ? Double.NaN : number.doubleValue();
+    }
+}
@@ -0,0 +1,38 @@
+package dev.jwtly10.core.event.wire;
+
+import java.util.Map;
+
+/**
+ * A decoded binary wire protocol message. Data is kept in the columnar form it is sent in.
+ * Timestamps are epoch millis, {@link BinaryEventCodec#NO_TIME} where a value had no time.
+ * Missing prices (e.g. a trade without a stop loss) are NaN.
+ */
+public sealed interface BinaryFrame {
+
+    String strategyId();
+
+    String instrument();
+
+    record BarSeriesFrame(String strategyId, String instrument, long timePeriodSeconds,
+                          long[] openTimes, long[] closeTimes,
+                          double[] open, double[] high, double[] low, double[] close, double[] volume) implements BinaryFrame {
+        public int size() {
+            return openTimes.length;
+        }
+    }
+
+    record TradesFrame(String strategyId, String instrument,
+                       long[] ids, boolean[] isLong, double[] quantity,
+                       double[] entryPrice, double[] stopLoss, double[] takeProfit, double[] closePrice, double[] profit,
+                       long[] openTimes, long[] closeTimes) implements BinaryFrame {
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    record IndicatorsFrame(String strategyId, String instrument, Map<String, Series> indicators) implements BinaryFrame {
+    }
+
+    record Series(long[] times, double[] values) {
+    }
+}
@@ -0,0 +1,130 @@
+package dev.jwtly10.core.event.wire;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the primitive encodings written by {@link BinaryWriter}.
+ */
+public class BinaryReader {
+    private final ByteBuffer buffer;
+
+    public BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public BinaryReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public int readByte() {
+        return buffer.get() & 0xFF;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalStateException("Malformed varint");
+            }
+        }
+    }
+
+    public int readVarInt() {
+        return Math.toIntExact(readVarLong());
+    }
+
+    public long readZigZag() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long[] readTimestamps(int count) {
+        long[] values = new long[count];
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = previousDelta + readZigZag();
+            values[i] = previous + delta;
+            previous = values[i];
+            previousDelta = delta;
+        }
+        return values;
+    }
+
+    public double[] readDoubles(int count) {
+        int header = readByte();
+        if (header == BinaryWriter.XOR_ENCODED) {
+            return readXorDoubles(count);
+        }
+        if (header > BinaryWriter.MAX_DECIMALS) {
+            throw new IllegalStateException("Malformed double column header: " + header);
+        }
+
+        boolean[] missing = readByte() == 1 ? readBooleans(count) : null;
+        double scale = BinaryWriter.POWERS_OF_TEN[header];
+        double[] values = new double[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (missing != null && missing[i]) {
+                values[i] = Double.NaN;
+                continue;
+            }
+            previous += readZigZag();
+            values[i] = previous / scale;
+        }
+        return values;
+    }
+
+    private double[] readXorDoubles(int count) {
+        double[] values = new double[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            int header = readByte();
+            int leading = header >>> 4;
+            int trailing = header & 0x0F;
+            int meaningful = 8 - leading - trailing;
+            long xor = 0;
+            for (int b = 0; b < meaningful; b++) {
+                xor |= (long) readByte() << (b * 8);
+            }
+            long bits = previous ^ (xor << (trailing * 8));
+            values[i] = Double.longBitsToDouble(bits);
+            previous = bits;
+        }
+        return values;
+    }
+
+    public boolean[] readBooleans(int count) {
+        boolean[] values = new boolean[count];
+        int current = 0;
+        for (int i = 0; i < count; i++) {
+            if ((i & 7) == 0) {
+                current = readByte();
+            }
+            values[i] = (current & (1 << (i & 7))) != 0;
+        }
+        return values;
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+}
@@ -0,0 +1,226 @@
+package dev.jwtly10.core.event.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitive encodings used by the binary wire protocol.
+ *
+ * <ul>
+ *     <li>Varints are unsigned LEB128, 7 bits per byte, least significant group first.</li>
+ *     <li>Signed values are zigzag encoded before being written as varints, so small negative numbers stay small.</li>
+ *     <li>Timestamp columns are delta-of-delta encoded, so a regular series (e.g. 1 minute bars) costs ~1 byte per value.</li>
+ *     <li>Double columns are written as scaled integers where possible. Prices, quantities and profits are decimals with a few
+ *     decimal places, so the column is scaled by the smallest power of ten that makes every value an exact integer, and each
+ *     value is written as the zigzag varint delta from the previous one. Neighbouring prices differ by a few pips, so they
+ *     typically cost 1-2 bytes rather than 8. Missing values (NaN) are marked in a bitset and skipped.</li>
+ *     <li>Columns that aren't short decimals (e.g. indicator values like a moving average) fall back to XOR encoding against the
+ *     previous value, in the style of Facebook's Gorilla, but byte aligned. A header byte holds the number of leading and
+ *     trailing zero bytes of the XOR, followed by only the meaningful bytes.</li>
+ * </ul>
+ *
+ * @see BinaryReader
+ */
+public class BinaryWriter {
+    /**
+     * The most decimal places a column is scaled by before falling back to XOR encoding
+     */
+    static final int MAX_DECIMALS = 9;
+    static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+    /**
+     * Scaled values must stay within the range where every integer is exactly representable as a double
+     */
+    private static final double MAX_EXACT = 1L << 53;
+    /**
+     * Column header for XOR encoded doubles. Scaled columns use the number of decimals, 0 to {@link #MAX_DECIMALS}
+     */
+    static final int XOR_ENCODED = 0xFF;
+
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter() {
+        this(1024);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeZigZag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // Length + 1, so 0 can mean null
+        writeVarLong(bytes.length + 1L);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Writes a column of timestamps, delta-of-delta encoded.
+     *
+     * @param values the timestamps, e.g. epoch millis
+     * @param count  the number of values to write
+     */
+    public void writeTimestamps(long[] values, int count) {
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            writeZigZag(delta - previousDelta);
+            previous = values[i];
+            previousDelta = delta;
+        }
+    }
+
+    /**
+     * Writes a column of doubles. Decimal columns are scaled to integers and delta encoded, anything else is XOR encoded.
+     *
+     * @param values the values, NaN for missing values
+     * @param count  the number of values to write
+     */
+    public void writeDoubles(double[] values, int count) {
+        int decimals = decimalsOf(values, count);
+        if (decimals < 0) {
+            writeByte(XOR_ENCODED);
+            writeXorDoubles(values, count);
+            return;
+        }
+
+        writeByte(decimals);
+        boolean[] missing = new boolean[count];
+        boolean anyMissing = false;
+        for (int i = 0; i < count; i++) {
+            missing[i] = Double.isNaN(values[i]);
+            anyMissing |= missing[i];
+        }
+        writeByte(anyMissing ? 1 : 0);
+        if (anyMissing) {
+            writeBooleans(missing, count);
+        }
+
+        double scale = POWERS_OF_TEN[decimals];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (missing[i]) {
+                continue;
+            }
+            long scaled = Math.round(values[i] * scale);
+            writeZigZag(scaled - previous);
+            previous = scaled;
+        }
+    }
+
+    /**
+     * Finds the fewest decimal places that represent every value in the column exactly.
+     *
+     * @return the number of decimals, or -1 if the column can't be scaled to integers (e.g. infinities, or more than {@link #MAX_DECIMALS} decimals)
+     */
+    static int decimalsOf(double[] values, int count) {
+        int decimals = 0;
+        for (int i = 0; i < count; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            while (!isExact(value, decimals)) {
+                if (++decimals > MAX_DECIMALS) {
+                    return -1;
+                }
+            }
+        }
+        return decimals;
+    }
+
+    private static boolean isExact(double value, int decimals) {
+        double scaled = value * POWERS_OF_TEN[decimals];
+        if (!(Math.abs(scaled) < MAX_EXACT)) {
+            return false;
+        }
+        // The reader divides by the same power of ten, so this is exactly the value it will decode (including -0.0)
+        return Double.compare(Math.round(scaled) / POWERS_OF_TEN[decimals], value) == 0;
+    }
+
+    private void writeXorDoubles(double[] values, int count) {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            previous = bits;
+
+            if (xor == 0) {
+                // Same as the previous value, 8 leading zero bytes and nothing else
+                writeByte(8 << 4);
+                continue;
+            }
+            int leading = Long.numberOfLeadingZeros(xor) / 8;
+            int trailing = Long.numberOfTrailingZeros(xor) / 8;
+            int meaningful = 8 - leading - trailing;
+            ensureCapacity(1 + meaningful);
+            buffer[position++] = (byte) ((leading << 4) | trailing);
+            long shifted = xor >>> (trailing * 8);
+            for (int b = 0; b < meaningful; b++) {
+                buffer[position++] = (byte) shifted;
+                shifted >>>= 8;
+            }
+        }
+    }
+
+    /**
+     * Writes a column of booleans as a bitset, 8 values per byte.
+     *
+     * @param values the values
+     * @param count  the number of values to write
+     */
+    public void writeBooleans(boolean[] values, int count) {
+        int current = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i]) {
+                current |= 1 << (i & 7);
+            }
+            if ((i & 7) == 7) {
+                writeByte(current);
+                current = 0;
+            }
+        }
+        if ((count & 7) != 0) {
+            writeByte(current);
+        }
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -78,7 +78,9 @@ public class BacktestExecutor implements DataListener {
         strategy.onStart();
         initialised = true;
 
-        eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Strategy initialized"));
+        if (eventPublisher.hasSubscribers(LogEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Strategy initialized"));
+        }
     }
 
     @Override
@@ -89,7 +91,9 @@ public class BacktestExecutor implements DataListener {
         }
         try {
             tradeManager.setCurrentTick(tick);
-            eventPublisher.publishEvent(new BarEvent(strategyId, currentBar.getInstrument(), currentBar));
+            if (eventPublisher.hasSubscribers(BarEvent.class, strategyId)) {
+                eventPublisher.publishEvent(new BarEvent(strategyId, currentBar.getInstrument(), currentBar));
+            }
             tradeStateManager.updateTradeProfitStateOnTick(tradeManager, tick);
             tradeStateManager.updateAccountEquityOnTick(accountManager, tradeManager);
             performanceAnalyser.updateOnTick(accountManager.getEquity());
@@ -113,7 +117,7 @@ public class BacktestExecutor implements DataListener {
             IndicatorUtils.updateIndicators(strategy, closedBar);
             strategy.onBarClose(closedBar);
             log.trace("Bar: {}, Balance: {}, Equity: {}", closedBar, accountManager.getBalance(), accountManager.getEquity());
-            performanceAnalyser.updateOnBar(accountManager.getEquity(), closedBar.getCloseTime());
+            performanceAnalyser.updateOnBar(accountManager.getEquity(), accountManager.getBalance(), closedBar.getCloseTime());
         } catch (Exception e) {
             throw new BacktestExecutorException(strategy, "Strategy failed on bar close: " + e.getMessage(), e);
         }
@@ -138,6 +142,7 @@ public class BacktestExecutor implements DataListener {
     public void onTradeClose(Trade trade) {
         log.trace("(Callback) Trade closed @ {} : id={}, profit={}, closePrice={}", trade.getCloseTime(), trade.getId(), trade.getProfit(), trade.getClosePrice());
         tradeStateManager.updateBalanceOnTradeClose(trade, accountManager);
+        performanceAnalyser.onTradeClosed(trade);
         strategy.onTradeClose(trade);
     }
 
@@ -164,7 +169,7 @@ public class BacktestExecutor implements DataListener {
         tradeStateManager.updateAccountEquityOnTick(accountManager, tradeManager);
 
         // Run final performance analysis
-        performanceAnalyser.calculateStatistics(tradeManager.getAllTrades(), accountManager.getInitialBalance());
+        performanceAnalyser.updateStatistics(tradeManager.getOpenTrades().values(), accountManager.getInitialBalance());
 
         // Shutdown any processes in the trade manager
         tradeManager.shutdown();
@@ -177,16 +182,24 @@ public class BacktestExecutor implements DataListener {
         eventPublisher.publishEvent(new AnalysisEvent(strategyId, dataManager.getInstrument(), performanceAnalyser));
         eventPublisher.publishEvent(new AccountEvent(strategyId, accountManager.getAccount()));
 
-        // Async specific events
-        eventPublisher.publishEvent(new AsyncAccountEvent(strategyId, accountManager.getAccount()));
-        eventPublisher.publishEvent(new AsyncBarSeriesEvent(strategyId, dataManager.getInstrument(), dataManager.getBarSeries()));
-        eventPublisher.publishEvent(new AsyncTradesEvent(strategyId, dataManager.getInstrument(), tradeManager.getAllTrades()));
-        // Generate structure for all indicator data
-        Map<String, List<IndicatorValue>> allIndicatorsValues = new HashMap<>();
-        for (Indicator i : strategy.getIndicators()) {
-            allIndicatorsValues.put(i.getName(), i.getValues());
+        // Async specific events, these can be large so are skipped if nothing is listening (e.g. optimisation runs)
+        if (eventPublisher.hasSubscribers(AsyncAccountEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new AsyncAccountEvent(strategyId, accountManager.getAccount()));
+        }
+        if (eventPublisher.hasSubscribers(AsyncBarSeriesEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new AsyncBarSeriesEvent(strategyId, dataManager.getInstrument(), dataManager.getBarSeries()));
+        }
+        if (eventPublisher.hasSubscribers(AsyncTradesEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new AsyncTradesEvent(strategyId, dataManager.getInstrument(), tradeManager.getAllTrades()));
+        }
+        if (eventPublisher.hasSubscribers(AsyncIndicatorsEvent.class, strategyId)) {
+            // Generate structure for all indicator data
+            Map<String, List<IndicatorValue>> allIndicatorsValues = new HashMap<>();
+            for (Indicator i : strategy.getIndicators()) {
+                allIndicatorsValues.put(i.getName(), i.getValues());
+            }
+            eventPublisher.publishEvent(new AsyncIndicatorsEvent(strategyId, dataManager.getInstrument(), allIndicatorsValues));
         }
-        eventPublisher.publishEvent(new AsyncIndicatorsEvent(strategyId, dataManager.getInstrument(), allIndicatorsValues));
 
         // This should always happen last, as there may be some logic a client needs to handle once all events are complete
         eventPublisher.publishEvent(new StrategyStopEvent(strategyId, "Strategy stopped"));
@@ -6,32 +6,46 @@ import dev.jwtly10.core.exception.InvalidTradeException;
 import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.model.*;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.ZonedDateTime;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
+/**
+ * Trade manager for backtests. Trade ids are allocated per run, and closed trades are moved from the open trades into a
+ * {@link ClosedTradeLedger}, so a run only keeps {@link Trade} objects for its open positions.
+ * Open positions are aggregated in a single threaded {@link PositionBook}, marked on every tick.
+ *
+ * <p>
+ * Pending limit and stop orders are kept in a {@link PendingOrderBook} per instrument, and checked against each tick
+ * as it is set, so strategies don't need to watch prices themselves. They are only simulated here, live trade managers don't
+ * support them, so they aren't part of {@link TradeManager}. Triggered orders are filled through the {@link SlippageModel}.
+ * </p>
+ */
 @Slf4j
 public class BacktestTradeManager implements TradeManager {
     private final String strategyId;
+    private final TradeIdAllocator tradeIdAllocator = new TradeIdAllocator();
+    private final ClosedTradeLedger closedTrades = new ClosedTradeLedger();
     @Getter
-    private final Map<Integer, Trade> allTrades;
-    @Getter
+    private final PositionBook positionBook = new PositionBook();
     private final ConcurrentHashMap<Integer, Trade> openTrades;
+    private final Map<Integer, Trade> openTradesView;
+    private final Map<Integer, PendingOrder> pendingOrders = new LinkedHashMap<>();
+    private final Map<Instrument, PendingOrderBook> pendingOrderBooks = new EnumMap<>(Instrument.class);
+    private final SlippageModel slippageModel = new SlippageModel();
+    private int lastOrderId = 0;
     private final EventPublisher eventPublisher;
     private final BarSeries barSeries;
     private final Broker BROKER;
     private Consumer<Trade> onTradeCloseCallback;
-    @Setter
     private Tick currentTick;
 
     public BacktestTradeManager(Broker broker, Tick currentTick, BarSeries barSeries, String strategyId, EventPublisher eventPublisher) {
-        this.allTrades = new HashMap<>();
         this.openTrades = new ConcurrentHashMap<>();
+        this.openTradesView = Collections.unmodifiableMap(openTrades);
         this.eventPublisher = eventPublisher;
         this.strategyId = strategyId;
         this.barSeries = barSeries;
@@ -39,6 +53,20 @@ public class BacktestTradeManager implements TradeManager {
         this.BROKER = broker;
     }
 
+    /**
+     * Sets the current tick, marking open positions and triggering any pending orders of the tick's instrument crossed by it.
+     *
+     * @param tick the current tick
+     */
+    @Override
+    public void setCurrentTick(Tick tick) {
+        this.currentTick = tick;
+        positionBook.mark(tick);
+        if (!pendingOrders.isEmpty()) {
+            processPendingOrders();
+        }
+    }
+
     @Override
     public Broker getBroker() {
         return BROKER;
@@ -82,17 +110,22 @@ public class BacktestTradeManager implements TradeManager {
             log.trace("Entry price does not match current ask/bid price. Using current ask/bid price as entry price. (Wanted: {}, Got: {})", params.getEntryPrice(), entryPrice);
         }
 
+        return fillPosition(params, entryPrice);
+    }
+
+    private Trade fillPosition(TradeParameters params, Number entryPrice) {
         // These values won't be known by the strategy specifically, we can inject them here
         params.setEntryPrice(entryPrice);
         params.setOpenTime(currentTick.getDateTime());
 
         log.trace("Entry price for {}: {}", params.getInstrument(), entryPrice);
 
-        Trade trade = params.createTrade(getBroker());
+        Trade trade = params.createTrade(getBroker(), tradeIdAllocator.next());
 
         eventPublisher.publishEvent(new TradeEvent(strategyId, params.getInstrument(), trade, TradeEvent.Action.OPEN));
-        allTrades.put(trade.getId(), trade);
         openTrades.put(trade.getId(), trade);
+        positionBook.onOpen(trade);
+        positionBook.mark(trade.getInstrument(), currentTick.getBid(), currentTick.getAsk());
 
         log.debug("Opened {} position @ {}: id={}, instrument={}, entryPrice={}, stopLoss={}, takeProfit={}, quantity={}",
                 trade.isLong() ? "long" : "short", trade.getOpenTime(), trade.getId(), trade.getInstrument(), trade.getEntryPrice(), trade.getStopLoss(), trade.getTakeProfit(), trade.getQuantity());
@@ -100,6 +133,105 @@ public class BacktestTradeManager implements TradeManager {
         return trade;
     }
 
+    /**
+     * Places a pending order to open a long position once the ask reaches the order price (the params entry price).
+     * The trade is opened from the params when the order is triggered, so calculated parameters use the fill price.
+     *
+     * @param type   whether the order is a limit or stop order
+     * @param params {@link TradeParameters} Trading params as defined in the TradeParameters class
+     * @param expiry the time the order is cancelled at if it hasn't been triggered, or null to keep it until cancelled
+     * @return the pending order
+     */
+    public PendingOrder placeLongOrder(PendingOrder.Type type, TradeParameters params, ZonedDateTime expiry) {
+        params.setLong(true);
+        return placeOrder(type, params, expiry);
+    }
+
+    /**
+     * Places a pending order to open a short position once the bid reaches the order price (the params entry price).
+     * The trade is opened from the params when the order is triggered, so calculated parameters use the fill price.
+     *
+     * @param type   whether the order is a limit or stop order
+     * @param params {@link TradeParameters} Trading params as defined in the TradeParameters class
+     * @param expiry the time the order is cancelled at if it hasn't been triggered, or null to keep it until cancelled
+     * @return the pending order
+     */
+    public PendingOrder placeShortOrder(PendingOrder.Type type, TradeParameters params, ZonedDateTime expiry) {
+        params.setLong(false);
+        return placeOrder(type, params, expiry);
+    }
+
+    private PendingOrder placeOrder(PendingOrder.Type type, TradeParameters params, ZonedDateTime expiry) {
+        if (params.getInstrument() == null || params.getEntryPrice() == null) {
+            throw new InvalidTradeException("Pending orders require an instrument and an entry price");
+        }
+
+        PendingOrder order = new PendingOrder(++lastOrderId, type, params, params.isLong(), currentTick.getDateTime(), expiry);
+        pendingOrders.put(order.getId(), order);
+        pendingOrderBooks.computeIfAbsent(order.getInstrument(), instrument -> new PendingOrderBook()).add(order);
+
+        log.debug("Placed {} {} order @ {}: id={}, instrument={}, price={}, expiry={}",
+                order.isLong() ? "long" : "short", type, order.getPlacedTime(), order.getId(), order.getInstrument(), order.getPrice(), expiry);
+        return order;
+    }
+
+    /**
+     * Cancels a pending order.
+     *
+     * @param orderId the id of the order
+     * @return whether the order was pending and is now cancelled
+     */
+    public boolean cancelOrder(int orderId) {
+        PendingOrder order = pendingOrders.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        pendingOrderBooks.get(order.getInstrument()).remove(order);
+        order.setStatus(PendingOrder.Status.CANCELLED);
+        log.debug("Cancelled order {}", orderId);
+        return true;
+    }
+
+    /**
+     * Retrieves the pending orders.
+     *
+     * @return the orders that haven't been triggered, cancelled or expired, by order id
+     */
+    public Map<Integer, PendingOrder> getPendingOrders() {
+        return Collections.unmodifiableMap(pendingOrders);
+    }
+
+    private void processPendingOrders() {
+        if (currentTick.getInstrument() == null || currentTick.getAsk() == null || currentTick.getBid() == null) {
+            return;
+        }
+        PendingOrderBook book = pendingOrderBooks.get(currentTick.getInstrument());
+        if (book == null || book.isEmpty()) {
+            return;
+        }
+
+        for (PendingOrder order : book.removeExpired(currentTick.getDateTime())) {
+            pendingOrders.remove(order.getId());
+            order.setStatus(PendingOrder.Status.EXPIRED);
+            log.debug("Order {} expired at {}", order.getId(), order.getExpiry());
+        }
+
+        for (PendingOrder order : book.removeTriggered(currentTick.getBid(), currentTick.getAsk())) {
+            pendingOrders.remove(order.getId());
+            Number fillPrice = slippageModel.calculateEntryPrice(order.isLong(), order.getType() == PendingOrder.Type.STOP,
+                    order.getPrice(), currentTick.getAsk(), currentTick.getBid(), false);
+            log.trace("Order {} triggered at ask={}, bid={}. Fill price: {}", order.getId(), currentTick.getAsk(), currentTick.getBid(), fillPrice);
+            try {
+                Trade trade = fillPosition(order.getParams(), fillPrice);
+                order.setTradeId(trade.getId());
+                order.setStatus(PendingOrder.Status.FILLED);
+            } catch (InvalidTradeException e) {
+                order.setStatus(PendingOrder.Status.REJECTED);
+                log.error("Failed to fill order {}: {}", order.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
     @Override
     public void closePosition(Integer tradeId, boolean manual) throws InvalidTradeException {
         Trade trade = openTrades.remove(tradeId);
@@ -154,6 +286,8 @@ public class BacktestTradeManager implements TradeManager {
         trade.setProfit(profitLoss);
 
         log.debug("Trade {} closed at {} ({}) for {}", trade.getId(), trade.getClosePrice(), trade.getCloseTime(), trade.getProfit());
+        positionBook.onClose(trade);
+        closedTrades.add(trade);
 
         eventPublisher.publishEvent(new TradeEvent(strategyId, trade.getInstrument(), trade, TradeEvent.Action.CLOSE));
 
@@ -172,15 +306,42 @@ public class BacktestTradeManager implements TradeManager {
 
     @Override
     public Trade getTrade(Integer tradeId) {
-        return allTrades.get(tradeId);
+        Trade trade = openTrades.get(tradeId);
+        return trade != null ? trade : closedTrades.get(tradeId);
+    }
+
+    /**
+     * Builds a view of every trade in the run. Closed trades are recreated from the ledger,
+     * so this should only be used when the full trade list is needed (e.g. at the end of a run).
+     *
+     * @return all trades by id
+     */
+    @Override
+    public Map<Integer, Trade> getAllTrades() {
+        Map<Integer, Trade> trades = new HashMap<>(closedTrades.size() + openTrades.size());
+        closedTrades.forEach(trade -> trades.put(trade.getId(), trade));
+        trades.putAll(openTrades);
+        return trades;
+    }
+
+    /**
+     * @return the number of closed trades in the run
+     */
+    public int getClosedTradeCount() {
+        return closedTrades.size();
     }
 
     @Override
     public double getOpenPositionValue(Instrument instrument) {
         return openTrades.values().stream()
                 .filter(trade -> trade.getInstrument().equals(instrument))
-                .map(Trade::getProfit)
-                .reduce(0.0, Double::sum);
+                .mapToDouble(Trade::getProfit)
+                .sum();
+    }
+
+    @Override
+    public Map<Integer, Trade> getOpenTrades() {
+        return openTradesView;
     }
 
     @Override
@@ -11,7 +11,6 @@ import dev.jwtly10.core.model.Trade;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.ZonedDateTime;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class BacktestTradeStateManager implements TradeStateManager {
@@ -37,7 +36,8 @@ public class BacktestTradeStateManager implements TradeStateManager {
         log.trace("Current prices - Ask: {}, Bid: {}", tick.getAsk(), tick.getBid());
 
         Tick finalTick = tick;
-        ZonedDateTime now = ZonedDateTime.now();
+        // Only build update events if something (e.g. a UI) is listening for them
+        ZonedDateTime now = eventPublisher.hasSubscribers(TradeEvent.class, strategyId) ? ZonedDateTime.now() : null;
         tradeManager.getOpenTrades().values().forEach(trade -> {
             updateTradeProfitLoss(trade, finalTick, now);
             checkAndExecuteStopLossTakeProfit(trade, tradeManager, finalTick);
@@ -72,7 +72,9 @@ public class BacktestTradeStateManager implements TradeStateManager {
 
         double profit = priceDifference.getValue().doubleValue() * trade.getQuantity();
         trade.setProfit(profit);
-        eventPublisher.publishEvent(new TradeEvent(this.strategyId, trade.getInstrument(), trade, TradeEvent.Action.UPDATE, now));
+        if (now != null) {
+            eventPublisher.publishEvent(new TradeEvent(this.strategyId, trade.getInstrument(), trade, TradeEvent.Action.UPDATE, now));
+        }
         log.trace("Updating trade profit/loss for trade id: {}. Profit: {}", trade.getId(), trade.getProfit());
     }
 
@@ -117,13 +119,21 @@ public class BacktestTradeStateManager implements TradeStateManager {
     private void updateAccountEquity(AccountManager accountManager, TradeManager tradeManager) {
         // Calculate and set equity (balance + unrealized profit/loss from open trades)
 
-        ConcurrentHashMap<Integer, Trade> openTrades = tradeManager.getOpenTrades();
-        double unrealizedProfit = openTrades.isEmpty() ? 0.0 :
-                openTrades.reduceValues(Long.MAX_VALUE, Trade::getProfit, Double::sum);
+        double unrealizedProfit;
+        PositionBook positionBook = tradeManager.getPositionBook();
+        if (positionBook != null) {
+            unrealizedProfit = positionBook.getUnrealizedProfit();
+        } else {
+            unrealizedProfit = tradeManager.getOpenTrades().values().stream()
+                    .mapToDouble(Trade::getProfit)
+                    .sum();
+        }
 
         double equity = accountManager.getBalance() + unrealizedProfit;
         accountManager.setEquity(equity);
         log.trace("Unrealized profit/loss: {}, Equity: {}", unrealizedProfit, equity);
-        eventPublisher.publishEvent(new AccountEvent(strategyId, accountManager.getAccount()));
+        if (eventPublisher.hasSubscribers(AccountEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new AccountEvent(strategyId, accountManager.getAccount()));
+        }
     }
 }
\ No newline at end of file
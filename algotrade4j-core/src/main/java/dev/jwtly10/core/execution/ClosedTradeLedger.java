@@ -0,0 +1,179 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Closed trades of a backtest run, stored as parallel primitive arrays (one per trade field) rather than one {@link Trade} per trade.
+ *
+ * <p>
+ * A closed trade never changes, so once closed a trade only needs a few dozen bytes rather than a Trade with its Numbers and dates.
+ * {@link Trade} objects are created on request, for API views of the run's trades. Prices are stored as doubles, which
+ * hold {@link Number}'s fixed decimal places without loss, and times to the millisecond.
+ * </p>
+ *
+ * <p>
+ * Trades are looked up by id through an index array, so ids are expected to be small and dense, as allocated by a
+ * {@link TradeIdAllocator}. Not thread safe, callers are responsible for synchronising access.
+ * </p>
+ */
+public class ClosedTradeLedger {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final Instrument[] INSTRUMENTS = Instrument.values();
+    // Stands in for a missing time, as no trade is opened or closed at the minimum epoch millisecond
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private short[] instruments = new short[INITIAL_CAPACITY];
+    private boolean[] longs = new boolean[INITIAL_CAPACITY];
+    private double[] quantities = new double[INITIAL_CAPACITY];
+    private double[] entryPrices = new double[INITIAL_CAPACITY];
+    private double[] stopLosses = new double[INITIAL_CAPACITY];
+    private double[] takeProfits = new double[INITIAL_CAPACITY];
+    private double[] closePrices = new double[INITIAL_CAPACITY];
+    private double[] profits = new double[INITIAL_CAPACITY];
+    private long[] openTimes = new long[INITIAL_CAPACITY];
+    private long[] closeTimes = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Ledger index + 1 by trade id, 0 if the trade isn't in the ledger
+    private int[] indexById = new int[INITIAL_CAPACITY];
+    // Times are recreated in the zone of the first trade added
+    private ZoneId zone = null;
+
+    /**
+     * Adds a closed trade to the ledger. The trade object isn't kept.
+     *
+     * @param trade the closed trade
+     * @throws IllegalArgumentException if the trade id is negative, or a trade with the same id was already added
+     */
+    public void add(Trade trade) {
+        int id = trade.getId();
+        if (id < 0) {
+            throw new IllegalArgumentException("Trade id must not be negative: " + id);
+        }
+        if (contains(id)) {
+            throw new IllegalArgumentException("Trade already closed: " + id);
+        }
+        if (size == ids.length) {
+            grow(ids.length * 2);
+        }
+        if (id >= indexById.length) {
+            indexById = Arrays.copyOf(indexById, Math.max(indexById.length * 2, id + 1));
+        }
+        if (zone == null) {
+            zone = trade.getCloseTime() != null ? trade.getCloseTime().getZone()
+                    : trade.getOpenTime() != null ? trade.getOpenTime().getZone() : null;
+        }
+
+        ids[size] = id;
+        instruments[size] = (short) trade.getInstrument().ordinal();
+        longs[size] = trade.isLong();
+        quantities[size] = trade.getQuantity();
+        entryPrices[size] = toDouble(trade.getEntryPrice());
+        stopLosses[size] = toDouble(trade.getStopLoss());
+        takeProfits[size] = toDouble(trade.getTakeProfit());
+        closePrices[size] = toDouble(trade.getClosePrice());
+        profits[size] = trade.getProfit();
+        openTimes[size] = toMillis(trade.getOpenTime());
+        closeTimes[size] = toMillis(trade.getCloseTime());
+        indexById[id] = size + 1;
+        size++;
+    }
+
+    /**
+     * @return the number of closed trades
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param id the trade id
+     * @return whether the trade is in the ledger
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < indexById.length && indexById[id] != 0;
+    }
+
+    /**
+     * @param id the trade id
+     * @return the closed trade, recreated from the ledger, or null if it isn't in the ledger
+     */
+    public Trade get(int id) {
+        return contains(id) ? toTrade(indexById[id] - 1) : null;
+    }
+
+    /**
+     * @param index the position of the trade in the ledger, in the order trades closed
+     * @return the profit of the trade
+     */
+    public double getProfit(int index) {
+        checkIndex(index);
+        return profits[index];
+    }
+
+    /**
+     * Recreates every closed trade, in the order they closed.
+     *
+     * @param action the action to run for each trade
+     */
+    public void forEach(Consumer<Trade> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(toTrade(i));
+        }
+    }
+
+    private Trade toTrade(int index) {
+        Trade trade = new Trade(ids[index], INSTRUMENTS[instruments[index]], quantities[index], toTime(openTimes[index]),
+                toNumber(entryPrices[index]), toNumber(stopLosses[index]), toNumber(takeProfits[index]), longs[index]);
+        trade.setClosePrice(toNumber(closePrices[index]));
+        trade.setCloseTime(toTime(closeTimes[index]));
+        trade.setProfit(profits[index]);
+        return trade;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        instruments = Arrays.copyOf(instruments, capacity);
+        longs = Arrays.copyOf(longs, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        entryPrices = Arrays.copyOf(entryPrices, capacity);
+        stopLosses = Arrays.copyOf(stopLosses, capacity);
+        takeProfits = Arrays.copyOf(takeProfits, capacity);
+        closePrices = Arrays.copyOf(closePrices, capacity);
+        profits = Arrays.copyOf(profits, capacity);
+        openTimes = Arrays.copyOf(openTimes, capacity);
+        closeTimes = Arrays.copyOf(closeTimes, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for ledger of size " + size);
+        }
+    }
+
+    private static double toDouble(Number number) {
+        return number == null ? Double.NaN : number.doubleValue();
+    }
+
+    private static Number toNumber(double value) {
+        return Double.isNaN(value) ? null : new Number(value);
+    }
+
+    private static long toMillis(ZonedDateTime time) {
+        return time == null ? NO_TIME : time.toInstant().toEpochMilli();
+    }
+
+    private ZonedDateTime toTime(long millis) {
+        return millis == NO_TIME ? null : ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), zone == null ? ZoneOffset.UTC : zone);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+
+import java.util.Collection;
+
+/**
+ * A {@link PositionBook} that can be shared between threads, for live trading where trades are opened and closed
+ * by the broker's transaction stream and reconciliation while prices are marked by the strategy's ticks.
+ */
+public class ConcurrentPositionBook extends PositionBook {
+
+    @Override
+    public synchronized void onOpen(Trade trade) {
+        super.onOpen(trade);
+    }
+
+    @Override
+    public synchronized void onClose(Trade trade) {
+        super.onClose(trade);
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<Trade> openTrades) {
+        super.rebuild(openTrades);
+    }
+
+    @Override
+    public synchronized void mark(Instrument instrument, Number bid, Number ask) {
+        super.mark(instrument, bid, ask);
+    }
+
+    @Override
+    public synchronized double getUnrealizedProfit() {
+        return super.getUnrealizedProfit();
+    }
+
+    @Override
+    public synchronized double getUnrealizedProfit(Instrument instrument) {
+        return super.getUnrealizedProfit(instrument);
+    }
+
+    @Override
+    public synchronized double getQuantity(Instrument instrument, boolean isLong) {
+        return super.getQuantity(instrument, isLong);
+    }
+
+    @Override
+    public synchronized double getNetQuantity(Instrument instrument) {
+        return super.getNetQuantity(instrument);
+    }
+
+    @Override
+    public synchronized double getGrossQuantity(Instrument instrument) {
+        return super.getGrossQuantity(instrument);
+    }
+
+    @Override
+    public synchronized double getAverageEntryPrice(Instrument instrument, boolean isLong) {
+        return super.getAverageEntryPrice(instrument, isLong);
+    }
+
+    @Override
+    public synchronized int getTradeCount(Instrument instrument, boolean isLong) {
+        return super.getTradeCount(instrument, isLong);
+    }
+}
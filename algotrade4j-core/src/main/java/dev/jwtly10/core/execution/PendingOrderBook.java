@@ -0,0 +1,124 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.PendingOrder;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * The pending orders of one instrument, sorted by price so a tick only looks at the orders it crosses.
+ *
+ * <p>
+ * Each side (long/short limit, long/short stop) is a queue ordered by the price the market reaches it at, e.g. the
+ * highest long limit is reached first as the ask falls. A tick that crosses none of the orders is four peeks,
+ * however many orders are pending. Orders that expire are kept in a separate queue ordered by expiry.
+ * </p>
+ *
+ * <p>
+ * Not thread safe, for use by a single thread (e.g. a backtest run).
+ * </p>
+ */
+public class PendingOrderBook {
+    private static final Comparator<PendingOrder> LOWEST_FIRST =
+            Comparator.comparing(PendingOrder::getPrice).thenComparingInt(PendingOrder::getId);
+    private static final Comparator<PendingOrder> HIGHEST_FIRST =
+            Comparator.comparing(PendingOrder::getPrice, Comparator.reverseOrder()).thenComparingInt(PendingOrder::getId);
+
+    private final PriorityQueue<PendingOrder> longLimits = new PriorityQueue<>(HIGHEST_FIRST);
+    private final PriorityQueue<PendingOrder> longStops = new PriorityQueue<>(LOWEST_FIRST);
+    private final PriorityQueue<PendingOrder> shortLimits = new PriorityQueue<>(LOWEST_FIRST);
+    private final PriorityQueue<PendingOrder> shortStops = new PriorityQueue<>(HIGHEST_FIRST);
+    private final List<PriorityQueue<PendingOrder>> queues = List.of(longLimits, longStops, shortLimits, shortStops);
+    private final PriorityQueue<PendingOrder> expiries = new PriorityQueue<>(
+            Comparator.comparing(PendingOrder::getExpiry).thenComparingInt(PendingOrder::getId));
+
+    /**
+     * @param order the order to add
+     */
+    public void add(PendingOrder order) {
+        queue(order).add(order);
+        if (order.getExpiry() != null) {
+            expiries.add(order);
+        }
+    }
+
+    /**
+     * @param order the order to remove
+     * @return whether the order was in the book
+     */
+    public boolean remove(PendingOrder order) {
+        if (!queue(order).remove(order)) {
+            return false;
+        }
+        if (order.getExpiry() != null) {
+            expiries.remove(order);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the orders that have expired.
+     *
+     * @param now the current time
+     * @return the expired orders, by expiry
+     */
+    public List<PendingOrder> removeExpired(ZonedDateTime now) {
+        if (expiries.isEmpty() || !expiries.peek().isExpiredAt(now)) {
+            return List.of();
+        }
+        List<PendingOrder> expired = new ArrayList<>();
+        while (!expiries.isEmpty() && expiries.peek().isExpiredAt(now)) {
+            PendingOrder order = expiries.poll();
+            queue(order).remove(order);
+            expired.add(order);
+        }
+        return expired;
+    }
+
+    /**
+     * Removes the orders triggered by the current prices.
+     *
+     * @param bid the current bid
+     * @param ask the current ask
+     * @return the triggered orders, in the order they were placed
+     */
+    public List<PendingOrder> removeTriggered(Number bid, Number ask) {
+        List<PendingOrder> triggered = null;
+        for (PriorityQueue<PendingOrder> queue : queues) {
+            while (!queue.isEmpty() && queue.peek().isTriggeredBy(bid, ask)) {
+                if (triggered == null) {
+                    triggered = new ArrayList<>();
+                }
+                PendingOrder order = queue.poll();
+                if (order.getExpiry() != null) {
+                    expiries.remove(order);
+                }
+                triggered.add(order);
+            }
+        }
+        if (triggered == null) {
+            return List.of();
+        }
+        triggered.sort(Comparator.comparingInt(PendingOrder::getId));
+        return triggered;
+    }
+
+    /**
+     * @return the number of pending orders
+     */
+    public int size() {
+        return longLimits.size() + longStops.size() + shortLimits.size() + shortStops.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private PriorityQueue<PendingOrder> queue(PendingOrder order) {
+        return switch (order.getType()) {
+            case LIMIT -> order.isLong() ? longLimits : shortLimits;
+            case STOP -> order.isLong() ? longStops : shortStops;
+        };
+    }
+}
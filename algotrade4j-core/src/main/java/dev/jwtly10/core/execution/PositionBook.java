@@ -0,0 +1,211 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Tick;
+import dev.jwtly10.core.model.Trade;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Aggregates of a trade manager's open trades, per instrument and direction: the open quantity, the volume weighted entry price
+ * and the unrealized profit at the last marked price.
+ *
+ * <p>
+ * The aggregates are updated as trades open and close, and the unrealized profit as prices are marked, so reading the
+ * exposure or unrealized profit of the account never needs a scan of the open trades.
+ * A position's unrealized profit is {@code (bid * quantity) - Σ(entry * quantity)} for longs, and the reverse at the ask for shorts,
+ * which is the sum of the profit of each trade in the position.
+ * </p>
+ *
+ * <p>
+ * Not thread safe, for use by a single thread (e.g. a backtest run). See {@link ConcurrentPositionBook} for live trading.
+ * </p>
+ */
+public class PositionBook {
+    private static final int LONG = 0;
+    private static final int SHORT = 1;
+
+    // Indexed by position, see index(instrument, isLong)
+    private final double[] quantities;
+    private final double[] notionals;
+    private final int[] tradeCounts;
+
+    // Indexed by instrument ordinal
+    private final double[] bids;
+    private final double[] asks;
+    private final double[] unrealizedProfits;
+
+    public PositionBook() {
+        int instruments = Instrument.values().length;
+        this.quantities = new double[instruments * 2];
+        this.notionals = new double[instruments * 2];
+        this.tradeCounts = new int[instruments * 2];
+        this.bids = new double[instruments];
+        this.asks = new double[instruments];
+        this.unrealizedProfits = new double[instruments];
+        Arrays.fill(bids, Double.NaN);
+        Arrays.fill(asks, Double.NaN);
+    }
+
+    /**
+     * Adds an opened trade to its position.
+     *
+     * @param trade the opened trade
+     */
+    public void onOpen(Trade trade) {
+        int index = index(trade.getInstrument(), trade.isLong());
+        quantities[index] += trade.getQuantity();
+        notionals[index] += trade.getQuantity() * trade.getEntryPrice().doubleValue();
+        tradeCounts[index]++;
+        revalue(trade.getInstrument().ordinal());
+    }
+
+    /**
+     * Removes a closed trade from its position. The trade must have been added with {@link #onOpen(Trade)}, with the same quantity and entry price.
+     *
+     * @param trade the closed trade
+     */
+    public void onClose(Trade trade) {
+        int index = index(trade.getInstrument(), trade.isLong());
+        if (tradeCounts[index] == 0) {
+            throw new IllegalStateException("No open " + (trade.isLong() ? "long" : "short") + " position for " + trade.getInstrument());
+        }
+        if (--tradeCounts[index] == 0) {
+            // Reset rather than subtract, so rounding errors don't carry over to the next position
+            quantities[index] = 0.0;
+            notionals[index] = 0.0;
+        } else {
+            quantities[index] -= trade.getQuantity();
+            notionals[index] -= trade.getQuantity() * trade.getEntryPrice().doubleValue();
+        }
+        revalue(trade.getInstrument().ordinal());
+    }
+
+    /**
+     * Replaces every position with the positions of the given open trades. Prices already marked are kept.
+     *
+     * @param openTrades the open trades
+     */
+    public void rebuild(Collection<Trade> openTrades) {
+        Arrays.fill(quantities, 0.0);
+        Arrays.fill(notionals, 0.0);
+        Arrays.fill(tradeCounts, 0);
+        for (Trade trade : openTrades) {
+            int index = index(trade.getInstrument(), trade.isLong());
+            quantities[index] += trade.getQuantity();
+            notionals[index] += trade.getQuantity() * trade.getEntryPrice().doubleValue();
+            tradeCounts[index]++;
+        }
+        for (int i = 0; i < unrealizedProfits.length; i++) {
+            revalue(i);
+        }
+    }
+
+    /**
+     * Marks the positions of the tick's instrument at the tick's prices. Longs are valued at the bid, shorts at the ask.
+     *
+     * @param tick the tick
+     */
+    public void mark(Tick tick) {
+        if (tick == null || tick.getInstrument() == null || tick.getBid() == null || tick.getAsk() == null) {
+            return;
+        }
+        mark(tick.getInstrument(), tick.getBid(), tick.getAsk());
+    }
+
+    /**
+     * Marks the positions of an instrument at the given prices. Longs are valued at the bid, shorts at the ask.
+     *
+     * @param instrument the instrument
+     * @param bid        the current bid
+     * @param ask        the current ask
+     */
+    public void mark(Instrument instrument, Number bid, Number ask) {
+        int ordinal = instrument.ordinal();
+        bids[ordinal] = bid.doubleValue();
+        asks[ordinal] = ask.doubleValue();
+        revalue(ordinal);
+    }
+
+    /**
+     * @return the unrealized profit of every position, at the last marked prices
+     */
+    public double getUnrealizedProfit() {
+        // One value per instrument, rather than a running total which would accumulate rounding errors over a long run
+        double profit = 0.0;
+        for (double instrumentProfit : unrealizedProfits) {
+            profit += instrumentProfit;
+        }
+        return profit;
+    }
+
+    /**
+     * @param instrument the instrument
+     * @return the unrealized profit of the instrument's positions, at the last marked prices
+     */
+    public double getUnrealizedProfit(Instrument instrument) {
+        return unrealizedProfits[instrument.ordinal()];
+    }
+
+    /**
+     * @param instrument the instrument
+     * @param isLong     the direction of the position
+     * @return the open quantity of the position
+     */
+    public double getQuantity(Instrument instrument, boolean isLong) {
+        return quantities[index(instrument, isLong)];
+    }
+
+    /**
+     * @param instrument the instrument
+     * @return the long quantity less the short quantity of the instrument
+     */
+    public double getNetQuantity(Instrument instrument) {
+        return getQuantity(instrument, true) - getQuantity(instrument, false);
+    }
+
+    /**
+     * @param instrument the instrument
+     * @return the long quantity plus the short quantity of the instrument
+     */
+    public double getGrossQuantity(Instrument instrument) {
+        return getQuantity(instrument, true) + getQuantity(instrument, false);
+    }
+
+    /**
+     * @param instrument the instrument
+     * @param isLong     the direction of the position
+     * @return the volume weighted entry price of the position, or NaN if there is no open position
+     */
+    public double getAverageEntryPrice(Instrument instrument, boolean isLong) {
+        int index = index(instrument, isLong);
+        return tradeCounts[index] == 0 ? Double.NaN : notionals[index] / quantities[index];
+    }
+
+    /**
+     * @param instrument the instrument
+     * @param isLong     the direction of the position
+     * @return the number of open trades in the position
+     */
+    public int getTradeCount(Instrument instrument, boolean isLong) {
+        return tradeCounts[index(instrument, isLong)];
+    }
+
+    private void revalue(int ordinal) {
+        double profit = 0.0;
+        // Positions are worth nothing until their instrument is marked
+        if (!Double.isNaN(bids[ordinal])) {
+            int longIndex = ordinal * 2 + LONG;
+            int shortIndex = ordinal * 2 + SHORT;
+            profit = (bids[ordinal] * quantities[longIndex] - notionals[longIndex])
+                    + (notionals[shortIndex] - asks[ordinal] * quantities[shortIndex]);
+        }
+        unrealizedProfits[ordinal] = profit;
+    }
+
+    private static int index(Instrument instrument, boolean isLong) {
+        return instrument.ordinal() * 2 + (isLong ? LONG : SHORT);
+    }
+}
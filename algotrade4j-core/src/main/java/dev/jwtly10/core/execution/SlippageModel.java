@@ -30,4 +30,28 @@ public class SlippageModel {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calculates the fill price of a pending entry order triggered by the current prices.
+     * Limit orders fill at their price, or the market price if it gapped through to a better one.
+     * Stop orders become market orders once triggered, so they fill past their price by a fraction of how far the market moved through it.
+     *
+     * @param isLong           whether the order buys (at the ask) or sells (at the bid)
+     * @param isStop           whether the order is a stop order rather than a limit order
+     * @param orderPrice       the price the order was triggered at
+     * @param ask              the current ask
+     * @param bid              the current bid
+     * @param isHighVolatility whether to apply high volatility slippage
+     * @return the fill price
+     */
+    public Number calculateEntryPrice(boolean isLong, boolean isStop, Number orderPrice, Number ask, Number bid, boolean isHighVolatility) {
+        Number marketPrice = isLong ? ask : bid;
+        if (!isStop) {
+            boolean isBetter = isLong ? marketPrice.isLessThan(orderPrice) : marketPrice.isGreaterThan(orderPrice);
+            return isBetter ? marketPrice : orderPrice;
+        }
+
+        double slippageFactor = isHighVolatility ? HIGH_VOLATILITY_SLIPPAGE_FACTOR : NORMAL_SLIPPAGE_FACTOR;
+        return orderPrice.add(marketPrice.subtract(orderPrice).multiply(new Number(slippageFactor)));
+    }
+}
@@ -0,0 +1,28 @@
+package dev.jwtly10.core.execution;
+
+/**
+ * Allocates trade ids for a single backtest run, starting from 1.
+ *
+ * <p>
+ * Each run has its own allocator, so concurrent backtests and optimisation runs never share (or contend on) a counter,
+ * and a run's trade ids are the same however many other runs are in progress. Not thread safe, as trades in a run are only
+ * opened from the run's own thread.
+ * </p>
+ */
+public class TradeIdAllocator {
+    private int lastId = 0;
+
+    /**
+     * @return the next trade id
+     */
+    public int next() {
+        return ++lastId;
+    }
+
+    /**
+     * @return the last trade id allocated, or 0 if none have been
+     */
+    public int getLastId() {
+        return lastId;
+    }
+}
@@ -3,9 +3,10 @@ package dev.jwtly10.core.execution;
 import dev.jwtly10.core.data.DataManager;
 import dev.jwtly10.core.model.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -58,6 +59,68 @@ public interface TradeManager {
      */
     Trade openShort(TradeParameters params) throws Exception;
 
+    /**
+     * Opens a long position without waiting for the broker, see {@link #openLong(TradeParameters)}.
+     * By default the trade is opened on the calling thread, and the returned future is already complete (e.g. for backtests).
+     *
+     * @param params {@link TradeParameters} Trading params as defined in the TradeParameters class
+     * @return a future completed with the opened trade once filled, or completed exceptionally if the trade couldn't be opened
+     */
+    default CompletableFuture<Trade> openLongAsync(TradeParameters params) {
+        try {
+            return CompletableFuture.completedFuture(openLong(params));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Opens a short position without waiting for the broker, see {@link #openShort(TradeParameters)}.
+     * By default the trade is opened on the calling thread, and the returned future is already complete (e.g. for backtests).
+     *
+     * @param params {@link TradeParameters} Trading params as defined in the TradeParameters class
+     * @return a future completed with the opened trade once filled, or completed exceptionally if the trade couldn't be opened
+     */
+    default CompletableFuture<Trade> openShortAsync(TradeParameters params) {
+        try {
+            return CompletableFuture.completedFuture(openShort(params));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Closes a position without waiting for the broker, see {@link #closePosition(Integer, boolean)}.
+     * By default the trade is closed on the calling thread, and the returned future is already complete (e.g. for backtests).
+     *
+     * @param tradeId The unique identifier of the trade to close
+     * @param manual  Whether the close was manually triggered or a result of a stoploss/tp
+     * @return a future completed once the trade is closed, or completed exceptionally if the trade couldn't be closed
+     */
+    default CompletableFuture<Void> closePositionAsync(Integer tradeId, boolean manual) {
+        try {
+            closePosition(tradeId, manual);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Closes every open position, sending the closes together rather than one after another.
+     *
+     * @param manual Whether the close was manually triggered or a result of a stoploss/tp
+     * @return the close of each open trade by trade id
+     */
+    default Map<Integer, CompletableFuture<Void>> closeAllPositionsAsync(boolean manual) {
+        Map<Integer, CompletableFuture<Void>> closes = new LinkedHashMap<>();
+        // Copy the ids first, as closes may complete (and remove the trade) while iterating
+        for (Integer tradeId : List.copyOf(getOpenTrades().keySet())) {
+            closes.put(tradeId, closePositionAsync(tradeId, manual));
+        }
+        return closes;
+    }
+
     /**
      * Closes an existing position identified by the trade ID.
      *
@@ -95,11 +158,21 @@ public interface TradeManager {
     Map<Integer, Trade> getAllTrades();
 
     /**
-     * Retrieves all open trades.
+     * Retrieves all open trades. The map is a read-only view, trades are opened and closed through this trade manager.
+     * Its iterators are weakly consistent, so trades can be closed while iterating over it.
      *
      * @return A map of all open trades, with the trade ID as the key and the Trade object as the value
      */
-    ConcurrentHashMap<Integer, Trade> getOpenTrades();
+    Map<Integer, Trade> getOpenTrades();
+
+    /**
+     * Retrieves the aggregates of the open trades, per instrument and direction.
+     *
+     * @return the position book, or null if the trade manager doesn't keep one
+     */
+    default PositionBook getPositionBook() {
+        return null;
+    }
 
     /**
      * Sets the current tick for the TradeManager.
@@ -0,0 +1,108 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.event.types.TradeEvent;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+
+import java.util.*;
+
+/**
+ * Merges trade state reported by a broker into a trade manager's trade maps, reporting only the trades that changed.
+ *
+ * <p>
+ * Used for live trading, where trade state arrives incrementally (from the transaction stream and periodic reconciliation with the broker)
+ * rather than being rebuilt from a full trade list. Callers are responsible for synchronising access to the maps.
+ * </p>
+ */
+public final class TradeReconciler {
+
+    private TradeReconciler() {
+    }
+
+    /**
+     * Merges trades reported by the broker into the trade maps.
+     *
+     * <p>
+     * A trade is reported as opened if it wasn't known, closed if it was known to be open but is now closed, and updated if its profit,
+     * stop loss or take profit changed. Unchanged trades are ignored. A trade known to be closed is never reopened, as the broker
+     * data may be older than a close already received from the transaction stream.
+     * </p>
+     *
+     * @param allTrades        all known trades by id, updated in place
+     * @param openTrades       the known open trades by id, updated in place
+     * @param trades           the trades reported by the broker, either every trade or only the ones that changed
+     * @param openTradeProfits the current profit of open trades by id. Applied to trades not in {@code trades}
+     * @return the changes, in the order they were found
+     */
+    public static List<TradeChange> merge(Map<Integer, Trade> allTrades, Map<Integer, Trade> openTrades,
+                                          Collection<Trade> trades, Map<Integer, Double> openTradeProfits) {
+        List<TradeChange> changes = new ArrayList<>();
+        Set<Integer> reported = new HashSet<>();
+
+        for (Trade trade : trades) {
+            reported.add(trade.getId());
+            Trade known = allTrades.get(trade.getId());
+            TradeEvent.Action action;
+            if (known == null) {
+                action = isOpen(trade) ? TradeEvent.Action.OPEN : TradeEvent.Action.CLOSE;
+            } else if (!isOpen(known)) {
+                // Already closed, the broker has nothing newer to tell us about this trade
+                continue;
+            } else if (!isOpen(trade)) {
+                action = TradeEvent.Action.CLOSE;
+            } else if (hasChanged(known, trade)) {
+                action = TradeEvent.Action.UPDATE;
+            } else {
+                continue;
+            }
+
+            allTrades.put(trade.getId(), trade);
+            if (isOpen(trade)) {
+                openTrades.put(trade.getId(), trade);
+            } else {
+                openTrades.remove(trade.getId());
+            }
+            changes.add(new TradeChange(trade, action));
+        }
+
+        openTradeProfits.forEach((id, profit) -> {
+            Trade trade = openTrades.get(id);
+            if (trade != null && !reported.contains(id) && trade.getProfit() != profit) {
+                trade.setProfit(profit);
+                changes.add(new TradeChange(trade, TradeEvent.Action.UPDATE));
+            }
+        });
+
+        return changes;
+    }
+
+    /**
+     * @param trade the trade to check
+     * @return whether the trade is still open
+     */
+    public static boolean isOpen(Trade trade) {
+        return trade.getClosePrice() == null || trade.getClosePrice().isEquals(Number.ZERO);
+    }
+
+    private static boolean hasChanged(Trade known, Trade trade) {
+        return known.getProfit() != trade.getProfit()
+                || !sameValue(known.getStopLoss(), trade.getStopLoss())
+                || !sameValue(known.getTakeProfit(), trade.getTakeProfit());
+    }
+
+    private static boolean sameValue(Number a, Number b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.isEquals(b);
+    }
+
+    /**
+     * A change to a trade, and the trade's state after the change.
+     *
+     * @param trade  the trade
+     * @param action whether the trade was opened, closed or updated
+     */
+    public record TradeChange(Trade trade, TradeEvent.Action action) {
+    }
+}
@@ -28,12 +28,19 @@ public class ForexFactoryClient {
     private List<ForexFactoryNews> cachedNews;
     private ZonedDateTime lastFetchDate;
 
+    /**
+     * @param httpClient the shared HTTP client, so ForexFactory requests reuse its connection pool
+     */
     public ForexFactoryClient(OkHttpClient httpClient) {
         this.httpClient = httpClient;
     }
 
+    /**
+     * Creates a client that only serves the mocked news, for testing and backtesting. It has no HTTP client of its own,
+     * fetching live news needs the shared client, see {@link #ForexFactoryClient(OkHttpClient)}.
+     */
     public ForexFactoryClient() {
-        this.httpClient = new OkHttpClient();
+        this.httpClient = null;
     }
 
     /**
@@ -120,6 +127,10 @@ public class ForexFactoryClient {
             return cachedNews;
         }
 
+        if (httpClient == null) {
+            throw new IllegalStateException("ForexFactory client was created for mocked news only, and has no HTTP client");
+        }
+
         log.debug("Fetching news from ForexFactory");
         String url = "https://nfs.faireconomy.media/ff_calendar_thisweek.json";
 
@@ -12,7 +12,8 @@ import java.util.List;
  */
 public interface Indicator {
     /**
-     * Gets all values of the indicator
+     * Gets all retained values of the indicator, oldest first.
+     * Implementations backed by an {@link IndicatorHistory} return a read only view rather than a copy.
      *
      * @return all values generated by the indicator
      */
@@ -0,0 +1,279 @@
+package dev.jwtly10.core.indicators;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import dev.jwtly10.core.model.IndicatorValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar storage for the values produced by an indicator.
+ * Values and timestamps are held in primitive ring buffers rather than one {@link IndicatorValue} per bar,
+ * so long running backtests/live strategies don't accumulate millions of small objects.
+ *
+ * <p>
+ * The retention controls how many of the most recent values are kept. A retention of {@link #UNBOUNDED} keeps every value,
+ * which is required if the full history needs to be charted at the end of a backtest.
+ * </p>
+ */
+public class IndicatorHistory {
+    /**
+     * Retention value used to keep every value produced by the indicator
+     */
+    public static final int UNBOUNDED = 0;
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Marker for values that were added without a timestamp
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final int retention;
+    private double[] values;
+    private long[] times; // Epoch millis
+    private ZoneId zone;
+    // Index of the oldest value in the ring
+    private int head;
+    private int size;
+
+    private final View view = new View();
+
+    /**
+     * Creates an unbounded history
+     */
+    public IndicatorHistory() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * Creates a history that keeps at most the given number of recent values
+     *
+     * @param retention the max number of values to retain, or {@link #UNBOUNDED} to retain all values
+     */
+    public IndicatorHistory(int retention) {
+        if (retention < 0) {
+            throw new IllegalArgumentException("Retention must be >= 0, got: " + retention);
+        }
+        this.retention = retention;
+        int initialCapacity = retention == UNBOUNDED ? INITIAL_CAPACITY : Math.min(retention, INITIAL_CAPACITY);
+        this.values = new double[initialCapacity];
+        this.times = new long[initialCapacity];
+        this.zone = ZoneOffset.UTC;
+    }
+
+    /**
+     * Appends a new value to the history, evicting the oldest value if the retention has been reached
+     *
+     * @param value    the indicator value
+     * @param dateTime the time the value relates to
+     */
+    public synchronized void add(double value, ZonedDateTime dateTime) {
+        if (size == 0 && dateTime != null) {
+            zone = dateTime.getZone();
+        }
+        long time = dateTime == null ? NO_TIME : dateTime.toInstant().toEpochMilli();
+
+        if (retention != UNBOUNDED && size == retention) {
+            // Full, overwrite the oldest value
+            values[head] = value;
+            times[head] = time;
+            head = (head + 1) % retention;
+            return;
+        }
+
+        if (size == values.length) {
+            grow();
+        }
+        int idx = (head + size) % values.length;
+        values[idx] = value;
+        times[idx] = time;
+        size++;
+    }
+
+    private void grow() {
+        int newCapacity = Math.max(values.length * 2, INITIAL_CAPACITY);
+        if (retention != UNBOUNDED) {
+            newCapacity = Math.min(newCapacity, retention);
+        }
+        double[] newValues = new double[newCapacity];
+        long[] newTimes = new long[newCapacity];
+        for (int i = 0; i < size; i++) {
+            int idx = (head + i) % values.length;
+            newValues[i] = values[idx];
+            newTimes[i] = times[idx];
+        }
+        values = newValues;
+        times = newTimes;
+        head = 0;
+    }
+
+    /**
+     * @return the number of values currently retained
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return true if no values have been retained
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the configured retention, or {@link #UNBOUNDED}
+     */
+    public int getRetention() {
+        return retention;
+    }
+
+    /**
+     * Returns the value at the given position, where 0 is the oldest retained value
+     *
+     * @param index the position from the oldest retained value
+     * @return the value
+     */
+    public synchronized double valueAt(int index) {
+        checkIndex(index);
+        return values[(head + index) % values.length];
+    }
+
+    /**
+     * Returns the epoch millis of the value at the given position, where 0 is the oldest retained value
+     *
+     * @param index the position from the oldest retained value
+     * @return the epoch millis, or {@link Long#MIN_VALUE} if the value was added without a timestamp
+     */
+    public synchronized long timeAt(int index) {
+        checkIndex(index);
+        return times[(head + index) % values.length];
+    }
+
+    /**
+     * Returns a value counting back from the most recent, where 0 is the most recent value
+     *
+     * @param index the number of values back from the most recent
+     * @return the value
+     */
+    public synchronized double getValue(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[(head + size - 1 - index) % values.length];
+    }
+
+    /**
+     * @return the most recent value, or 0 if there are no values
+     */
+    public synchronized double getLast() {
+        return size == 0 ? 0 : values[(head + size - 1) % values.length];
+    }
+
+    /**
+     * Returns a read only view of the history as {@link IndicatorValue}s, oldest first.
+     * The view is backed by the underlying arrays, and elements are only materialised when accessed.
+     *
+     * @return the view of the history
+     */
+    public List<IndicatorValue> asList() {
+        return view;
+    }
+
+    /**
+     * Creates a compact, independent copy of the retained values.
+     * Used when the history needs to be handed to another thread (e.g. for event serialisation) while the indicator keeps updating.
+     *
+     * @param excludeZeros whether zero values (e.g. from an indicator that is not yet ready) should be dropped
+     * @return a new history containing only the copied values
+     */
+    public synchronized IndicatorHistory snapshot(boolean excludeZeros) {
+        IndicatorHistory copy = new IndicatorHistory(UNBOUNDED);
+        double[] copyValues = new double[size];
+        long[] copyTimes = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int idx = (head + i) % values.length;
+            if (excludeZeros && values[idx] == 0) {
+                continue;
+            }
+            copyValues[count] = values[idx];
+            copyTimes[count] = times[idx];
+            count++;
+        }
+        copy.values = count == size ? copyValues : Arrays.copyOf(copyValues, count);
+        copy.times = count == size ? copyTimes : Arrays.copyOf(copyTimes, count);
+        copy.size = count;
+        copy.zone = zone;
+        return copy;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Read only list view over the history. Serialised directly from the underlying arrays.
+     */
+    @JsonSerialize(using = ViewSerializer.class)
+    public final class View extends AbstractList<IndicatorValue> implements RandomAccess {
+        @Override
+        public IndicatorValue get(int index) {
+            synchronized (IndicatorHistory.this) {
+                long time = timeAt(index);
+                ZonedDateTime dateTime = time == NO_TIME ? null : ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), zone);
+                return new IndicatorValue(valueAt(index), dateTime);
+            }
+        }
+
+        @Override
+        public int size() {
+            return IndicatorHistory.this.size();
+        }
+
+        /**
+         * @return the history backing this view
+         */
+        public IndicatorHistory history() {
+            return IndicatorHistory.this;
+        }
+    }
+
+    /**
+     * Writes the history in the same shape as a list of {@link IndicatorValue}s, without creating any intermediate objects.
+     * Timestamps are written as epoch seconds, matching the default jackson ZonedDateTime format.
+     */
+    static class ViewSerializer extends JsonSerializer<View> {
+        @Override
+        public void serialize(View view, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            IndicatorHistory history = view.history();
+            synchronized (history) {
+                gen.writeStartArray(view, history.size);
+                for (int i = 0; i < history.size; i++) {
+                    int idx = (history.head + i) % history.values.length;
+                    gen.writeStartObject();
+                    gen.writeNumberField("value", history.values[idx]);
+                    gen.writeFieldName("dateTime");
+                    if (history.times[idx] == NO_TIME) {
+                        gen.writeNull();
+                    } else {
+                        gen.writeNumber(BigDecimal.valueOf(history.times[idx], 3));
+                    }
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+        }
+    }
+}
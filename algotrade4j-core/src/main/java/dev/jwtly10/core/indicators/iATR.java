@@ -5,10 +5,8 @@ import dev.jwtly10.core.event.types.IndicatorEvent;
 import dev.jwtly10.core.model.Bar;
 import dev.jwtly10.core.model.IndicatorValue;
 import dev.jwtly10.core.model.Number;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -16,9 +14,8 @@ public class iATR implements Indicator {
     // Params
     private final int period;
 
-    private final List<Double> trueRanges;
-    @Getter
-    private final List<IndicatorValue> values;
+    private long trueRangeCount;
+    private final IndicatorHistory history;
     private final String name;
     private final double multiplier;
     private String strategyId;
@@ -26,9 +23,12 @@ public class iATR implements Indicator {
     private Number previousClose;
 
     public iATR(int period) {
+        this(period, IndicatorHistory.UNBOUNDED);
+    }
+
+    public iATR(int period, int retention) {
         this.period = period;
-        this.trueRanges = new ArrayList<>();
-        this.values = new ArrayList<>();
+        this.history = new IndicatorHistory(retention);
         this.name = "ATR " + period;
         this.previousClose = null;
         this.multiplier = (2 / (double) period + 1);
@@ -55,53 +55,50 @@ public class iATR implements Indicator {
             }
         }
 
-        trueRanges.add(trueRange);
+        trueRangeCount++;
         previousClose = bar.getClose();
 
         if (isReady()) {
             double atr;
-            if (trueRanges.size() == period) {
+            if (trueRangeCount == period) {
                 atr = trueRange;
             } else {
                 //TODO: Make this configurable
                 //Subsequent ATRs use EMA smoothing: ATR = (Current TR * multiplier) + (Prior ATR * (1 - multiplier))
-                double priorATR = values.getLast().getValue();
+                double priorATR = history.getLast();
                 atr = (trueRange * multiplier) + priorATR * (1 - multiplier);
             }
 
-            IndicatorValue indicatorValue = new IndicatorValue(atr, bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(atr, bar.getOpenTime());
 
             if (eventPublisher != null) {
+                IndicatorValue indicatorValue = new IndicatorValue(atr, bar.getOpenTime());
                 log.trace("Publishing ATR event. Strategy ID: {}, Symbol: {}, Indicator: {}, Value: {}, Timestamp: {}",
                         strategyId, bar.getInstrument(), getName(), atr, bar.getOpenTime());
                 eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), indicatorValue));
             }
         } else {
-            IndicatorValue indicatorValue = new IndicatorValue(0, bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(0, bar.getOpenTime());
             if (eventPublisher != null) {
+                IndicatorValue indicatorValue = new IndicatorValue(0, bar.getOpenTime());
                 eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), indicatorValue));
             }
         }
+    }
 
-        // Remove oldest true range if we have more than we need
-        if (trueRanges.size() > period) {
-            trueRanges.remove(0);
-        }
+    @Override
+    public List<IndicatorValue> getValues() {
+        return history.asList();
     }
 
     @Override
     public double getValue() {
-        return values.isEmpty() ? 0 : values.getLast().getValue();
+        return history.getLast();
     }
 
     @Override
     public double getValue(int index) {
-        if (index < 0 || index >= values.size()) {
-            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.size());
-        }
-        return values.get(values.size() - index - 1).getValue();
+        return history.getValue(index);
     }
 
     @Override
@@ -111,8 +108,8 @@ public class iATR implements Indicator {
 
     @Override
     public boolean isReady() {
-        log.trace("Checking if ATR is ready. Values size: {}, Period: {}", trueRanges.size(), period);
-        return trueRanges.size() >= period;
+        log.trace("Checking if ATR is ready. Values size: {}, Period: {}", trueRangeCount, period);
+        return trueRangeCount >= period;
     }
 
     @Override
@@ -5,10 +5,8 @@ import dev.jwtly10.core.event.types.IndicatorEvent;
 import dev.jwtly10.core.model.Bar;
 import dev.jwtly10.core.model.IndicatorValue;
 import dev.jwtly10.core.model.Number;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -19,18 +17,22 @@ public class iATRCandle implements Indicator {
     private final double relativeSize;
 
     private final iATR atr;
-    @Getter
-    private final List<IndicatorValue> values;
+    private final IndicatorHistory history;
     private final String name;
     private Bar prevBar;
     private String strategyId;
     private EventPublisher eventPublisher;
 
     public iATRCandle(int atrPeriod, double sensitivity, double relativeSize) {
+        this(atrPeriod, sensitivity, relativeSize, IndicatorHistory.UNBOUNDED);
+    }
+
+    public iATRCandle(int atrPeriod, double sensitivity, double relativeSize, int retention) {
         this.atrPeriod = atrPeriod;
         this.atrMultiplier = sensitivity;
-        this.atr = new iATR(atrPeriod);
-        this.values = new ArrayList<>();
+        // The inner ATR is only read for its latest value
+        this.atr = new iATR(atrPeriod, 1);
+        this.history = new IndicatorHistory(retention);
         this.name = "ATR_CANDLE " + atrPeriod + " " + sensitivity;
         this.relativeSize = relativeSize;
     }
@@ -41,18 +43,18 @@ public class iATRCandle implements Indicator {
 
         if (atr.isReady()) {
             boolean violation = checkViolation(bar);
-            IndicatorValue indicatorValue = new IndicatorValue(violation ? 1 : 0, bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(violation ? 1 : 0, bar.getOpenTime());
 
             if (violation) {
                 if (eventPublisher != null) {
+                    IndicatorValue indicatorValue = new IndicatorValue(1, bar.getOpenTime());
                     log.trace("Publishing ATR Violation event. Strategy ID: {}, Symbol: {}, Indicator: {}, Timestamp: {}",
                             strategyId, bar.getInstrument(), getName(), bar.getOpenTime());
                     eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), indicatorValue));
                 }
             }
         } else {
-            values.add(new IndicatorValue(0, bar.getOpenTime()));
+            history.add(0, bar.getOpenTime());
         }
 
         prevBar = bar;
@@ -78,17 +80,19 @@ public class iATRCandle implements Indicator {
         return atrViolation && isEngulfing;
     }
 
+    @Override
+    public List<IndicatorValue> getValues() {
+        return history.asList();
+    }
+
     @Override
     public double getValue() {
-        return values.isEmpty() ? 0 : values.getLast().getValue();
+        return history.getLast();
     }
 
     @Override
     public double getValue(int index) {
-        if (index < 0 || index >= values.size()) {
-            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.size());
-        }
-        return values.get(values.size() - index - 1).getValue();
+        return history.getValue(index);
     }
 
     @Override
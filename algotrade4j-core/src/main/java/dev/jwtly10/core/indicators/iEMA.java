@@ -4,10 +4,8 @@ import dev.jwtly10.core.event.EventPublisher;
 import dev.jwtly10.core.event.types.IndicatorEvent;
 import dev.jwtly10.core.model.Bar;
 import dev.jwtly10.core.model.IndicatorValue;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -20,8 +18,7 @@ public class iEMA implements Indicator {
     private final int period;
     private final double multiplier;
 
-    @Getter
-    private final List<IndicatorValue> values; // The data the indicator produces
+    private final IndicatorHistory history; // The data the indicator produces
     private final String name;
     private String strategyId;
     private EventPublisher eventPublisher;
@@ -32,9 +29,19 @@ public class iEMA implements Indicator {
      * @param period the number of periods to use in the EMA calculation
      */
     public iEMA(int period) {
+        this(period, IndicatorHistory.UNBOUNDED);
+    }
+
+    /**
+     * Constructs a new EMA indicator with the specified period, keeping only the most recent values.
+     *
+     * @param period    the number of periods to use in the EMA calculation
+     * @param retention the number of values to retain, or {@link IndicatorHistory#UNBOUNDED}
+     */
+    public iEMA(int period, int retention) {
         this.period = period;
         this.multiplier = (2.0 / (period + 1));
-        this.values = new ArrayList<>();
+        this.history = new IndicatorHistory(retention);
         this.name = "EMA " + period;
     }
 
@@ -46,31 +53,38 @@ public class iEMA implements Indicator {
     public void update(Bar bar) {
         log.trace("Updating EMA with new bar. Close price: {}", bar.getClose());
 
-        if (values.isEmpty()) {
+        if (history.isEmpty()) {
             // First value is treated as SMA
-            IndicatorValue indicatorValue = new IndicatorValue(bar.getClose().getValue().doubleValue(), bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(bar.getClose().getValue().doubleValue(), bar.getOpenTime());
         } else {
-            double previousEMA = values.getLast().getValue();
+            double previousEMA = history.getLast();
             double newEMA = (bar.getClose().getValue().doubleValue() * multiplier) + (previousEMA * (1 - multiplier));
-            IndicatorValue indicatorValue = new IndicatorValue(newEMA, bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(newEMA, bar.getOpenTime());
         }
 
         if (eventPublisher != null) {
             log.trace("Publishing EMA event. Strategy ID: {}, Symbol: {}, Indicator: {}, Value: {}, Timestamp: {}",
                     strategyId, bar.getInstrument(), getName(), getValue(), bar.getOpenTime());
-            eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), values.get(values.size() - 1)));
+            eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), new IndicatorValue(getValue(), bar.getOpenTime())));
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * Returns a view over the EMA history.
+     */
+    @Override
+    public List<IndicatorValue> getValues() {
+        return history.asList();
+    }
+
     /**
      * {@inheritDoc}
      * Returns the current EMA value.
      */
     @Override
     public double getValue() {
-        return values.isEmpty() ? 0 : values.getLast().getValue();
+        return history.getLast();
     }
 
     /**
@@ -79,10 +93,7 @@ public class iEMA implements Indicator {
      */
     @Override
     public double getValue(int index) {
-        if (index < 0 || index >= values.size()) {
-            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.size());
-        }
-        return values.get(values.size() - index - 1).getValue();
+        return history.getValue(index);
     }
 
     /**
@@ -100,7 +111,7 @@ public class iEMA implements Indicator {
      */
     @Override
     public boolean isReady() {
-        return !values.isEmpty();
+        return !history.isEmpty();
     }
 
     /**
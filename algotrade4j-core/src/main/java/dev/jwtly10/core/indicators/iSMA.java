@@ -5,11 +5,9 @@ import dev.jwtly10.core.event.types.IndicatorEvent;
 import dev.jwtly10.core.model.Bar;
 import dev.jwtly10.core.model.IndicatorValue;
 import dev.jwtly10.core.model.Number;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,9 +20,9 @@ public class iSMA implements Indicator {
     // Params
     private final int period;
 
-    private final List<Double> rawValues; // The raw running sum
-    @Getter
-    private final List<IndicatorValue> values; // The data the indicator produces
+    private final double[] window; // The close prices in the current period
+    private long count; // Number of bars seen
+    private final IndicatorHistory history; // The data the indicator produces
     private final String name;
     private String strategyId;
     private EventPublisher eventPublisher;
@@ -35,9 +33,19 @@ public class iSMA implements Indicator {
      * @param period the number of periods to use in the SMA calculation
      */
     public iSMA(int period) {
+        this(period, IndicatorHistory.UNBOUNDED);
+    }
+
+    /**
+     * Constructs a new SMA indicator with the specified period, keeping only the most recent values.
+     *
+     * @param period    the number of periods to use in the SMA calculation
+     * @param retention the number of values to retain, or {@link IndicatorHistory#UNBOUNDED}
+     */
+    public iSMA(int period, int retention) {
         this.period = period;
-        this.rawValues = new ArrayList<>();
-        this.values = new ArrayList<>();
+        this.window = new double[period];
+        this.history = new IndicatorHistory(retention);
         this.name = "SMA " + period;
     }
 
@@ -48,36 +56,47 @@ public class iSMA implements Indicator {
     @Override
     public void update(Bar bar) {
         log.trace("Updating SMA with new bar. Close price: {}", bar.getClose());
-        rawValues.add(bar.getClose().getValue().doubleValue());
+        window[(int) (count % period)] = bar.getClose().getValue().doubleValue();
+        count++;
 
         if (isReady()) {
-            BigDecimal sum = rawValues.subList(rawValues.size() - period, rawValues.size()).stream()
-                    .map(BigDecimal::valueOf)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal sum = BigDecimal.ZERO;
+            for (double v : window) {
+                sum = sum.add(BigDecimal.valueOf(v));
+            }
             BigDecimal average = sum.divide(BigDecimal.valueOf(period), Number.DECIMAL_PLACES, Number.ROUNDING_MODE);
-            IndicatorValue indicatorValue = new IndicatorValue(average.doubleValue(), bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(average.doubleValue(), bar.getOpenTime());
             if (eventPublisher != null) {
+                IndicatorValue indicatorValue = new IndicatorValue(average.doubleValue(), bar.getOpenTime());
                 log.trace("Publishing SMA event. Strategy ID: {}, Symbol: {}, Indicator: {}, Value: {}, Timestamp: {}",
                         strategyId, bar.getInstrument(), getName(), average.doubleValue(), bar.getOpenTime());
                 eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), indicatorValue));
             }
         } else {
-            IndicatorValue indicatorValue = new IndicatorValue(0, bar.getOpenTime());
-            values.add(indicatorValue);
+            history.add(0, bar.getOpenTime());
             if (eventPublisher != null) {
+                IndicatorValue indicatorValue = new IndicatorValue(0, bar.getOpenTime());
                 eventPublisher.publishEvent(new IndicatorEvent(strategyId, bar.getInstrument(), getName(), indicatorValue));
             }
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * Returns a view over the SMA history.
+     */
+    @Override
+    public List<IndicatorValue> getValues() {
+        return history.asList();
+    }
+
     /**
      * {@inheritDoc}
      * Returns the current SMA value.
      */
     @Override
     public double getValue() {
-        return values.isEmpty() ? 0 : values.getLast().getValue();
+        return history.getLast();
     }
 
     /**
@@ -86,10 +105,7 @@ public class iSMA implements Indicator {
      */
     @Override
     public double getValue(int index) {
-        if (index < 0 || index >= values.size()) {
-            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.size());
-        }
-        return values.get(values.size() - index - 1).getValue();
+        return history.getValue(index);
     }
 
     /**
@@ -107,8 +123,8 @@ public class iSMA implements Indicator {
      */
     @Override
     public boolean isReady() {
-        log.trace("Checking if SMA is ready. Values size: {}, Period: {}", rawValues.size(), period);
-        return rawValues.size() >= period;
+        log.trace("Checking if SMA is ready. Values size: {}, Period: {}", count, period);
+        return count >= period;
     }
 
     /**
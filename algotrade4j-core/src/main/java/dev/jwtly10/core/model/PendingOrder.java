@@ -0,0 +1,123 @@
+package dev.jwtly10.core.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Represents an order to open a trade once the market reaches a price.
+ */
+@Getter
+@ToString
+public class PendingOrder {
+
+    /**
+     * The unique identifier of the order.
+     */
+    private final int id;
+
+    /**
+     * Whether the order is a limit or stop order.
+     */
+    private final Type type;
+
+    /**
+     * The parameters of the trade to open. The entry price is the price the order is triggered at.
+     */
+    private final TradeParameters params;
+
+    /**
+     * Indicates whether the order opens a long position.
+     */
+    private final boolean isLong;
+
+    /**
+     * The time the order was placed.
+     */
+    private final ZonedDateTime placedTime;
+
+    /**
+     * The time the order is cancelled at if it hasn't been triggered, or null if it doesn't expire.
+     */
+    private final ZonedDateTime expiry;
+
+    /**
+     * The current status of the order.
+     */
+    @Setter
+    private Status status = Status.PENDING;
+
+    /**
+     * The id of the trade opened by the order, once filled.
+     */
+    @Setter
+    private Integer tradeId;
+
+    public PendingOrder(int id, Type type, TradeParameters params, boolean isLong, ZonedDateTime placedTime, ZonedDateTime expiry) {
+        this.id = id;
+        this.type = type;
+        this.params = params;
+        this.isLong = isLong;
+        this.placedTime = placedTime;
+        this.expiry = expiry;
+    }
+
+    public Instrument getInstrument() {
+        return params.getInstrument();
+    }
+
+    /**
+     * @return the price the order is triggered at
+     */
+    public Number getPrice() {
+        return params.getEntryPrice();
+    }
+
+    /**
+     * Checks whether the current prices cross the order's price. Long orders are bought at the ask, short orders sold at the bid.
+     * Limit orders trigger at their price or better, stop orders once the market moves through their price.
+     *
+     * @param bid the current bid
+     * @param ask the current ask
+     * @return whether the order is triggered
+     */
+    public boolean isTriggeredBy(Number bid, Number ask) {
+        Number price = getPrice();
+        return switch (type) {
+            case LIMIT -> isLong ? !ask.isGreaterThan(price) : !bid.isLessThan(price);
+            case STOP -> isLong ? !ask.isLessThan(price) : !bid.isGreaterThan(price);
+        };
+    }
+
+    /**
+     * @param now the current time
+     * @return whether the order has expired at the given time
+     */
+    public boolean isExpiredAt(ZonedDateTime now) {
+        return expiry != null && !now.isBefore(expiry);
+    }
+
+    public enum Type {
+        /**
+         * Opens a trade at the order price or better, e.g. buying below the current price.
+         */
+        LIMIT,
+        /**
+         * Opens a trade once the market moves through the order price, e.g. buying a breakout above the current price.
+         */
+        STOP
+    }
+
+    public enum Status {
+        PENDING,
+        FILLED,
+        CANCELLED,
+        EXPIRED,
+        /**
+         * The order was triggered, but the trade couldn't be opened (e.g. invalid trade parameters).
+         */
+        REJECTED
+    }
+}
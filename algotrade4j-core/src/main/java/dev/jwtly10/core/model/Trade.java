@@ -5,6 +5,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a trade in the trading system.
@@ -13,7 +14,8 @@ import java.time.ZonedDateTime;
 @Setter
 @ToString
 public class Trade {
-    private static Integer idCounter = 0;
+    // Only used for trades created without an id, which are given their real id by the broker (live) or trade manager (backtests)
+    private static final AtomicInteger idCounter = new AtomicInteger();
 
     /**
      * The unique identifier of the trade.
@@ -72,7 +74,7 @@ public class Trade {
 
     /**
      * Constructs a Trade with the specified parameters.
-     * Generates a unique identifier for the trade.
+     * Generates a temporary identifier for the trade, for trades that are given an id when opened with a broker.
      *
      * @param instrument the instrument associated with the trade
      * @param quantity   the quantity of the trade
@@ -83,7 +85,7 @@ public class Trade {
      * @param isLong     indicates whether the trade is a long position
      */
     public Trade(Instrument instrument, double quantity, Number entryPrice, ZonedDateTime openTime, Number stopLoss, Number takeProfit, boolean isLong) {
-        this.id = ++idCounter;
+        this.id = idCounter.incrementAndGet();
         this.instrument = instrument;
         this.quantity = quantity;
         this.entryPrice = entryPrice;
@@ -114,7 +116,6 @@ public class Trade {
         this.stopLoss = stopLoss;
         this.takeProfit = takeProfit;
         this.isLong = isLong;
-        idCounter = Math.max(idCounter, id);
     }
 
     /**
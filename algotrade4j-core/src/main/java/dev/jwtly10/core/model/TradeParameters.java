@@ -85,10 +85,26 @@ public class TradeParameters {
 
     /**
      * Uses the parameters of the instance to generate a trade object.
+     * The trade is given a temporary id, for brokers that assign their own id when the trade is opened.
      *
      * @return the trade object
      */
     public Trade createTrade(Broker broker) {
+        return createTrade(broker, null);
+    }
+
+    /**
+     * Uses the parameters of the instance to generate a trade object with the given id.
+     *
+     * @param broker the broker the trade is for
+     * @param id     the trade id
+     * @return the trade object
+     */
+    public Trade createTrade(Broker broker, int id) {
+        return createTrade(broker, Integer.valueOf(id));
+    }
+
+    private Trade createTrade(Broker broker, Integer id) {
         Trade trade;
 
         if (useRaw()) {
@@ -97,7 +113,7 @@ public class TradeParameters {
                 log.warn("Quantity cannot be below 0");
                 throw new InvalidTradeException(String.format("Quantity cannot be below 0 for the new trade opened @ %s. Value was %s", openTime, this.quantity));
             }
-            trade = new Trade(instrument, quantity, entryPrice, openTime, stopLoss, takeProfit, isLong);
+            trade = newTrade(id, quantity, takeProfit);
         } else {
             double balance = balanceToRisk;
             log.trace("Selected balance: {}", balance);
@@ -139,10 +155,15 @@ public class TradeParameters {
                 throw new InvalidTradeException(String.format("Quantity cannot be below 0 for the new trade opened @ %s. Value was %s", openTime, quantity));
             }
 
-            trade = new Trade(instrument, quantity, entryPrice, openTime,
-                    stopLoss, takeProfit, isLong);
+            trade = newTrade(id, quantity, takeProfit);
         }
 
         return trade;
     }
+
+    private Trade newTrade(Integer id, double quantity, Number takeProfit) {
+        return id == null
+                ? new Trade(instrument, quantity, entryPrice, openTime, stopLoss, takeProfit, isLong)
+                : new Trade(id, instrument, quantity, openTime, entryPrice, stopLoss, takeProfit, isLong);
+    }
 }
\ No newline at end of file
@@ -29,6 +29,11 @@ public class OptimisationResultListener implements EventListener {
         }
     }
 
+    @Override
+    public boolean isSubscribed(Class<? extends BaseEvent> eventType, String strategyId) {
+        return eventType == AnalysisEvent.class;
+    }
+
     @Override
     public void onError(String strategyId, Exception e) {
         optimisationExecutor.onStrategyFailure(strategyId, e);
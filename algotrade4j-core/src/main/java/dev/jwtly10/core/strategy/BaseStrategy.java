@@ -19,6 +19,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Abstract base class for trading strategies.
@@ -132,7 +134,7 @@ public abstract class BaseStrategy implements Strategy {
             throw new RuntimeException("Error initializing strategy parameters", e);
         }
         initIndicators();
-        eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Strategy '%s' initialized", strategyId));
+        publishLog(LogEvent.LogType.INFO, "Strategy '%s' initialized", strategyId);
     }
 
     /**
@@ -141,7 +143,7 @@ public abstract class BaseStrategy implements Strategy {
     @Override
     public void onDeInit() {
         log.info("Strategy run {} completed", strategyId);
-        eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Strategy '%s' de-initialized", strategyId));
+        publishLog(LogEvent.LogType.INFO, "Strategy '%s' de-initialized", strategyId);
     }
 
     /**
@@ -181,11 +183,11 @@ public abstract class BaseStrategy implements Strategy {
         try {
             Trade openedTrade = tradeManager.openLong(params);
             sysOpenTradeNotif(openedTrade);
-            eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Trade [%s] opened long for strategy '%s' at price", openedTrade.getId(), strategyId, openedTrade.getEntryPrice()));
+            publishLog(LogEvent.LogType.INFO, "Trade [%s] opened long for strategy '%s' at price %s", openedTrade.getId(), strategyId, openedTrade.getEntryPrice());
             return Optional.of(openedTrade);
         } catch (Exception e) {
             sysErrorNotif("Error opening long trade for strategy '" + strategyId + "'", e);
-            eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.ERROR, "Error opening short trade: %s ", e.getMessage()));
+            publishLog(LogEvent.LogType.ERROR, "Error opening long trade: %s ", e.getMessage());
             return Optional.empty();
         }
     }
@@ -202,17 +204,54 @@ public abstract class BaseStrategy implements Strategy {
         try {
             Trade openedTrade = tradeManager.openShort(params);
             sysOpenTradeNotif(openedTrade);
-            eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Trade [%s] opened short for strategy '%s' at price", openedTrade.getId(), strategyId, openedTrade.getEntryPrice()));
+            publishLog(LogEvent.LogType.INFO, "Trade [%s] opened short for strategy '%s' at price %s", openedTrade.getId(), strategyId, openedTrade.getEntryPrice());
             return Optional.of(openedTrade);
         } catch (Exception e) {
             sysErrorNotif("Error opening short trade for strategy '" + strategyId + "'", e);
-            eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.ERROR, "Error opening short trade: %s ", e.getMessage()));
+            publishLog(LogEvent.LogType.ERROR, "Error opening short trade: %s ", e.getMessage());
             return Optional.empty();
         }
     }
 
     /**
-     * Closes all open trades for the strategy.
+     * Opens a long position with the specified trade parameters, without waiting for the broker to fill it.
+     * The strategy keeps processing ticks in the meantime. Use the returned future to act on the fill, bearing in mind
+     * that for live strategies the future completes on another thread.
+     *
+     * @param params the trade parameters
+     * @return a future completed with the trade once filled, or completed exceptionally if it couldn't be opened
+     */
+    public CompletableFuture<Trade> openLongAsync(TradeParameters params) {
+        return onOpened(tradeManager.openLongAsync(params), "long");
+    }
+
+    /**
+     * Opens a short position with the specified trade parameters, without waiting for the broker to fill it.
+     * The strategy keeps processing ticks in the meantime. Use the returned future to act on the fill, bearing in mind
+     * that for live strategies the future completes on another thread.
+     *
+     * @param params the trade parameters
+     * @return a future completed with the trade once filled, or completed exceptionally if it couldn't be opened
+     */
+    public CompletableFuture<Trade> openShortAsync(TradeParameters params) {
+        return onOpened(tradeManager.openShortAsync(params), "short");
+    }
+
+    private CompletableFuture<Trade> onOpened(CompletableFuture<Trade> order, String direction) {
+        return order.whenComplete((openedTrade, e) -> {
+            if (e == null) {
+                sysOpenTradeNotif(openedTrade);
+                publishLog(LogEvent.LogType.INFO, "Trade [%s] opened %s for strategy '%s' at price %s", openedTrade.getId(), direction, strategyId, openedTrade.getEntryPrice());
+            } else {
+                Exception cause = unwrap(e);
+                sysErrorNotif("Error opening " + direction + " trade for strategy '" + strategyId + "'", cause);
+                publishLog(LogEvent.LogType.ERROR, "Error opening %s trade: %s ", direction, cause.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Closes all open trades for the strategy. The closes are sent together, and this waits for all of them to complete.
      *
      * @param reason the reason for closing the trades
      */
@@ -223,18 +262,24 @@ public abstract class BaseStrategy implements Strategy {
             return;
         }
         log.info("Strategy requested to manually close all trades for reason: {}", reason);
-        eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Manually closing all trades for strategy '%s' for reason: %s", strategyId, reason));
-        for (Trade trade : trades.values()) {
-            try {
-                tradeManager.closePosition(trade.getId(), true);
-            } catch (Exception e) {
-                sysErrorNotif("Error closing trade for strategy '" + strategyId + "'", e);
-                eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.ERROR, "Error closing trade: %s ", e.getMessage()));
-            }
-        }
+        publishLog(LogEvent.LogType.INFO, "Manually closing all trades for strategy '%s' for reason: %s", strategyId, reason);
+        CompletableFuture<?>[] closes = tradeManager.closeAllPositionsAsync(true).values().stream()
+                .map(close -> close.exceptionally(e -> {
+                    Exception cause = unwrap(e);
+                    sysErrorNotif("Error closing trade for strategy '" + strategyId + "'", cause);
+                    publishLog(LogEvent.LogType.ERROR, "Error closing trade: %s ", cause.getMessage());
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(closes).join();
         sysAllPositionsClosedNotif(reason);
     }
 
+    private static Exception unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof Exception exception ? exception : new Exception(cause);
+    }
+
     /**
      * Turns on the use of system notifications for a strategy
      * System notifications include automated trade open/close notifications
@@ -552,6 +597,20 @@ public abstract class BaseStrategy implements Strategy {
                 (paramType.isPrimitive() && getPrimitiveType(ctorParamType) == paramType);
     }
 
+    /**
+     * Publishes a log event for the strategy.
+     * The message is only formatted if something is listening for log events (they are not used during optimisation)
+     *
+     * @param type            the log type
+     * @param messageTemplate the message template
+     * @param params          the parameters for the message template
+     */
+    private void publishLog(LogEvent.LogType type, String messageTemplate, Object... params) {
+        if (eventPublisher.hasSubscribers(LogEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new LogEvent(strategyId, type, messageTemplate, params));
+        }
+    }
+
     /**
      * Wrapper for trade open notifications
      *
@@ -0,0 +1,83 @@
+package dev.jwtly10.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquityCurveTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("America/New_York"));
+
+    @Test
+    void testStoresPointsBeyondInitialCapacity() {
+        EquityCurve curve = new EquityCurve();
+        for (int i = 0; i < 5000; i++) {
+            curve.add(START.plusMinutes(i), 10000 + i, 10000 - i);
+        }
+
+        assertEquals(5000, curve.size());
+        assertEquals(START.plusMinutes(4321), curve.getTimestamp(4321));
+        assertEquals(14321, curve.getEquity(4321));
+        assertEquals(5679, curve.getBalance(4321));
+
+        List<PerformanceAnalyser.EquityPoint> points = curve.toPoints();
+        assertEquals(5000, points.size());
+        assertEquals(new PerformanceAnalyser.EquityPoint(10000, 10000, START), points.getFirst());
+        assertThrows(IndexOutOfBoundsException.class, () -> curve.getEquity(5000));
+    }
+
+    @Test
+    void testCurveWithinBudgetIsReturnedInFull() {
+        EquityCurve curve = curve(100);
+
+        assertEquals(curve.toPoints(), curve.downsample(100));
+        assertEquals(curve.toPoints(), curve.downsample(1000));
+        assertTrue(new EquityCurve().downsample(10).isEmpty());
+    }
+
+    @Test
+    void testDownsampleKeepsEndsAndExtremes() {
+        EquityCurve curve = new EquityCurve();
+        for (int i = 0; i < 100_000; i++) {
+            double equity = 10000 + Math.sin(i / 5000.0) * 500;
+            // A sharp drawdown that lasts a single point
+            if (i == 61_234) {
+                equity = 7000;
+            }
+            curve.add(START.plusMinutes(i), equity, 10000);
+        }
+
+        List<PerformanceAnalyser.EquityPoint> points = curve.downsample(500);
+
+        assertEquals(500, points.size());
+        assertEquals(START, points.getFirst().timestamp());
+        assertEquals(START.plusMinutes(99_999), points.getLast().timestamp());
+        for (int i = 1; i < points.size(); i++) {
+            assertTrue(points.get(i).timestamp().isAfter(points.get(i - 1).timestamp()));
+        }
+        assertTrue(points.stream().anyMatch(p -> p.equity() == 7000));
+        double max = points.stream().mapToDouble(PerformanceAnalyser.EquityPoint::equity).max().orElseThrow();
+        assertEquals(10500, max, 1);
+    }
+
+    @Test
+    void testTinyBudgetKeepsFirstAndLast() {
+        EquityCurve curve = curve(10);
+
+        List<PerformanceAnalyser.EquityPoint> points = curve.downsample(2);
+
+        assertEquals(List.of(curve.toPoints().getFirst(), curve.toPoints().getLast()), points);
+    }
+
+    private EquityCurve curve(int size) {
+        EquityCurve curve = new EquityCurve();
+        for (int i = 0; i < size; i++) {
+            curve.add(START.plusHours(i), 10000 + (i % 7) * 10, 10000);
+        }
+        return curve;
+    }
+}
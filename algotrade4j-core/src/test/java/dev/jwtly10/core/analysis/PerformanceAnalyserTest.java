@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -225,6 +226,56 @@ public class PerformanceAnalyserTest {
         assertEquals((-70), analyser.getMaxConsecutiveLoss());
     }
 
+    @Test
+    void testIncrementalStatisticsMatchBatchCalculation() {
+        Map<Integer, Trade> trades = new HashMap<>();
+        ZonedDateTime now = ZonedDateTime.parse("2024-03-01T10:00:00Z");
+
+        PerformanceAnalyser incremental = new PerformanceAnalyser();
+        for (int i = 1; i <= 20; i++) {
+            Number profit = new Number(i % 3 == 0 ? -50 * i : 30 * i);
+            Trade trade = createTrade(i, 1, now.plusDays(i), new Number(100), new Number(90), new Number(110), i % 2 == 0, profit, new Number(105), now.plusDays(i).plusHours(2));
+            trades.put(i, trade);
+            incremental.onTradeClosed(trade);
+        }
+        Trade open = createTrade(21, 1, now.plusDays(21), new Number(100), new Number(90), new Number(110), true, new Number(-25), Number.ZERO, null);
+        trades.put(21, open);
+
+        incremental.updateStatistics(List.of(open), 10000);
+        analyser.calculateStatistics(trades, 10000);
+
+        assertEquals(analyser.getTotalTradeInclOpen(), incremental.getTotalTradeInclOpen());
+        assertEquals(analyser.getOpenTrades(), incremental.getOpenTrades());
+        assertEquals(analyser.getOpenTradeProfit(), incremental.getOpenTradeProfit());
+        assertEquals(analyser.getTotalNetProfit(), incremental.getTotalNetProfit());
+        assertEquals(analyser.getProfitFactor(), incremental.getProfitFactor());
+        assertEquals(analyser.getExpectedPayoff(), incremental.getExpectedPayoff());
+        assertEquals(analyser.getLongWinPercentage(), incremental.getLongWinPercentage());
+        assertEquals(analyser.getShortWinPercentage(), incremental.getShortWinPercentage());
+        assertEquals(analyser.getLargestLosingTrade(), incremental.getLargestLosingTrade());
+        assertEquals(analyser.getMaxConsecutiveWins(), incremental.getMaxConsecutiveWins());
+        assertEquals(analyser.getAverageConsecutiveLosses(), incremental.getAverageConsecutiveLosses());
+        assertEquals(analyser.getSharpeRatio(), incremental.getSharpeRatio());
+        assertEquals(-25, incremental.getOpenTradeProfit());
+        assertEquals(21, incremental.getTotalTradeInclOpen());
+    }
+
+    @Test
+    void testRepeatedCalculationGivesSameResults() {
+        Map<Integer, Trade> trades = new HashMap<>();
+        ZonedDateTime now = ZonedDateTime.now();
+        trades.put(1, createTrade(1, 1, now, new Number(100), new Number(90), new Number(110), true, new Number(100), new Number(110), now.plusHours(1)));
+        trades.put(2, createTrade(2, 1, now.plusHours(2), new Number(110), new Number(100), new Number(120), false, new Number(-50), new Number(115), now.plusHours(3)));
+
+        analyser.calculateStatistics(trades, 10000);
+        analyser.calculateStatistics(trades, 10000);
+
+        assertEquals(1, analyser.getTotalClosedLongTrades());
+        assertEquals(1, analyser.getTotalClosedShortTrades());
+        assertEquals(50, analyser.getTotalNetProfit());
+        assertEquals(1, analyser.getAverageConsecutiveWins());
+    }
+
     @Test
     void testDrawdown() {
         analyser.updateOnTick((10000));
@@ -0,0 +1,83 @@
+package dev.jwtly10.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskFreeRateTableTest {
+
+    private static final String RATES = """
+            DATE,DTB3
+            2024-01-02,5.00
+            2024-01-03,4.00
+            2024-01-04,.
+            2024-01-05,3.00
+            2024-01-08,2.00
+            """;
+
+    @Test
+    void testAverageExcludesRangeEndsAndMissingDays() throws Exception {
+        RiskFreeRateTable table = load(RATES);
+
+        assertEquals(4, table.size());
+        assertEquals(LocalDate.of(2024, 1, 8), table.getLastDate());
+        // Rates strictly between the dates: 01-03 and 01-05
+        assertEquals(3.5, table.getAverageRate(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 8)));
+        assertEquals(3.5, table.getAverageRate(LocalDate.of(2024, 1, 1), LocalDate.of(2025, 1, 1)));
+        assertEquals(3.0, table.getAverageRate(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 6)));
+    }
+
+    @Test
+    void testRangeWithoutRatesIsZero() throws Exception {
+        RiskFreeRateTable table = load(RATES);
+
+        assertEquals(0, table.getAverageRate(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 8)));
+        assertEquals(0, table.getAverageRate(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 2, 1)));
+        assertEquals(0, table.getAverageRate(LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 2)));
+    }
+
+    @Test
+    void testMatchesAveragingEveryRate() throws Exception {
+        RiskFreeRateTable table = RiskFreeRateTable.getDefault();
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2023, 12, 29);
+
+        double expected = Files.readAllLines(Path.of(getClass().getResource("/DTB3.csv").toURI())).stream()
+                .skip(1)
+                .map(line -> line.split(","))
+                .filter(split -> split.length == 2 && !split[1].equals("."))
+                .filter(split -> LocalDate.parse(split[0]).isAfter(from) && LocalDate.parse(split[0]).isBefore(to))
+                .mapToDouble(split -> Double.parseDouble(split[1]))
+                .average()
+                .orElse(0);
+
+        assertTrue(expected > 0);
+        assertEquals(expected, table.getAverageRate(from, to), 1e-9);
+    }
+
+    @Test
+    void testReloadReplacesRates(@TempDir Path dir) throws Exception {
+        RiskFreeRateTable table = load(RATES);
+        Path updated = dir.resolve("DTB3.csv");
+        Files.writeString(updated, RATES + "2024-01-09,1.00\n");
+
+        table.reload(updated);
+
+        assertEquals(5, table.size());
+        assertEquals(1.5, table.getAverageRate(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 10)));
+        assertThrows(IOException.class, () -> table.reload(dir.resolve("missing.csv")));
+        assertEquals(5, table.size());
+    }
+
+    private RiskFreeRateTable load(String csv) throws IOException {
+        return RiskFreeRateTable.load(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
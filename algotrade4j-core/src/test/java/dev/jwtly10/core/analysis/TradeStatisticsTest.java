@@ -0,0 +1,102 @@
+package dev.jwtly10.core.analysis;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TradeStatisticsTest {
+
+    @Test
+    void testEmptyStatistics() {
+        TradeStatistics stats = new TradeStatistics();
+
+        assertEquals(0, stats.getClosedTrades());
+        assertEquals(0, stats.getProfitFactor());
+        assertEquals(0, stats.getExpectedPayoff());
+        assertEquals(0, stats.getLargestProfitableTrade());
+        assertEquals(0, stats.getLargestLosingTrade());
+        assertEquals(0, stats.getAverageConsecutiveWins());
+        assertEquals(0, stats.getProfitStandardDeviation());
+        assertNull(stats.getEarliestCloseDate());
+    }
+
+    @Test
+    void testMatchesBatchCalculation() {
+        Random random = new Random(42);
+        ZonedDateTime start = ZonedDateTime.parse("2024-01-01T00:00:00Z");
+        List<Trade> trades = new ArrayList<>();
+        TradeStatistics stats = new TradeStatistics();
+
+        for (int i = 0; i < 500; i++) {
+            // Whole numbers, so sums are exact and can be compared without a tolerance
+            double profit = random.nextInt(5) == 0 ? 0 : random.nextInt(2001) - 1000;
+            Trade trade = createTrade(i, random.nextBoolean(), profit, start.plusHours(i * 7L));
+            trades.add(trade);
+            stats.add(trade);
+        }
+
+        double grossProfit = trades.stream().mapToDouble(Trade::getProfit).filter(p -> p > 0).sum();
+        double grossLoss = trades.stream().mapToDouble(Trade::getProfit).filter(p -> p < 0).sum();
+        long profitable = trades.stream().filter(t -> t.getProfit() > 0).count();
+        long losing = trades.stream().filter(t -> t.getProfit() < 0).count();
+        double mean = trades.stream().mapToDouble(Trade::getProfit).average().orElse(0);
+        double variance = trades.stream().mapToDouble(t -> (t.getProfit() - mean) * (t.getProfit() - mean)).sum() / trades.size();
+
+        assertEquals(500, stats.getClosedTrades());
+        assertEquals(grossProfit, stats.getGrossProfit());
+        assertEquals(grossLoss, stats.getGrossLoss());
+        assertEquals(grossProfit + grossLoss, stats.getTotalNetProfit());
+        assertEquals(grossProfit / Math.abs(grossLoss), stats.getProfitFactor());
+        assertEquals((grossProfit + grossLoss) / 500, stats.getExpectedPayoff());
+        assertEquals(grossProfit / profitable, stats.getAverageProfitableTradeReturn());
+        assertEquals(grossLoss / losing, stats.getAverageLosingTradeReturn());
+        assertEquals(trades.stream().mapToDouble(Trade::getProfit).max().orElseThrow(), stats.getLargestProfitableTrade());
+        assertEquals(trades.stream().mapToDouble(Trade::getProfit).min().orElseThrow(), stats.getLargestLosingTrade());
+        assertEquals(trades.stream().filter(Trade::isLong).count(), stats.getClosedLongTrades());
+        assertEquals(trades.stream().filter(t -> t.isLong() && t.getProfit() > 0).count(), stats.getLongWinningTrades());
+        assertEquals(trades.stream().filter(t -> !t.isLong()).count(), stats.getClosedShortTrades());
+        assertEquals(trades.stream().filter(t -> !t.isLong() && t.getProfit() > 0).count(), stats.getShortWinningTrades());
+        assertEquals(mean, stats.getMeanProfit(), 1e-9);
+        assertEquals(Math.sqrt(variance), stats.getProfitStandardDeviation(), 1e-9);
+        assertEquals(LocalDate.of(2024, 1, 1), stats.getEarliestCloseDate());
+        assertEquals(trades.getLast().getCloseTime().toLocalDate(), stats.getLatestCloseDate());
+    }
+
+    @Test
+    void testConsecutiveStatsIncludeCurrentStreak() {
+        TradeStatistics stats = new TradeStatistics();
+        ZonedDateTime now = ZonedDateTime.now();
+        double[] profits = {10, 20, -5, 0, -15, 30, 40, 50};
+        for (int i = 0; i < profits.length; i++) {
+            stats.add(createTrade(i, true, profits[i], now.plusHours(i)));
+        }
+
+        assertEquals(3, stats.getMaxConsecutiveWins());
+        assertEquals(3, stats.getMaxConsecutiveLosses());
+        assertEquals(120, stats.getMaxConsecutiveProfit());
+        assertEquals(-20, stats.getMaxConsecutiveLoss());
+        // Win streaks of 2 and 3 (still running), one loss streak of 3
+        assertEquals(2.5, stats.getAverageConsecutiveWins());
+        assertEquals(3, stats.getAverageConsecutiveLosses());
+        // A break even trade is part of a losing streak, but isn't a losing trade
+        assertEquals(-10, stats.getAverageLosingTradeReturn());
+    }
+
+    private Trade createTrade(int id, boolean isLong, double profit, ZonedDateTime closeTime) {
+        Trade trade = new Trade(id, Instrument.NAS100USD, 1, closeTime.minusHours(1), new Number(100), new Number(90), new Number(110), isLong);
+        trade.setProfit(profit);
+        trade.setClosePrice(new Number(105));
+        trade.setCloseTime(closeTime);
+        return trade;
+    }
+}
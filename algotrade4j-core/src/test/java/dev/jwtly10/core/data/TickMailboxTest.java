@@ -0,0 +1,252 @@
+package dev.jwtly10.core.data;
+
+import dev.jwtly10.core.event.EventPublisher;
+import dev.jwtly10.core.model.*;
+import dev.jwtly10.core.model.Number;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TickMailboxTest {
+
+    private final ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    private BlockingListener listener;
+    private TickMailbox mailbox;
+
+    @BeforeEach
+    void setUp() {
+        listener = new BlockingListener();
+        mailbox = new TickMailbox(listener);
+        mailbox.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.release.countDown();
+        mailbox.close();
+    }
+
+    @Test
+    void testEventsBeforeStartAreQueued() throws Exception {
+        TickMailbox notStarted = new TickMailbox(listener);
+        Trade trade = mock(Trade.class);
+        notStarted.onTradeClose(trade);
+        sleep(100);
+        assertTrue(listener.events.isEmpty());
+
+        notStarted.start();
+        awaitEvents(1);
+        assertEquals(List.of("tradeClose"), listener.events);
+        notStarted.close();
+    }
+
+    @Test
+    void testStopBeforeStartStopsListenerDirectly() {
+        TickMailbox notStarted = new TickMailbox(listener);
+        notStarted.onTradeClose(mock(Trade.class));
+
+        notStarted.onStop("Failed to initialise");
+
+        assertEquals(List.of("stop:Failed to initialise"), listener.events);
+    }
+
+    @Test
+    void testBusyListenerOnlyGetsLatestTick() throws Exception {
+        mailbox.onTick(tick(1, 100), null);
+        awaitEvents(1);
+
+        // The listener is stuck on the first tick, so these pile up
+        for (int i = 2; i <= 100; i++) {
+            mailbox.onTick(tick(i, 100), null);
+        }
+        listener.release.countDown();
+        awaitEvents(2);
+
+        assertEquals(List.of("tick:1", "tick:100"), listener.events);
+        assertEquals(100, mailbox.getReceivedTicks());
+        assertEquals(98, mailbox.getDroppedTicks());
+    }
+
+    @Test
+    void testTicksNeverConflatedPastOtherEvents() throws Exception {
+        Bar bar = mock(Bar.class);
+        mailbox.onTick(tick(1, 100), null);
+        awaitEvents(1);
+
+        mailbox.onTick(tick(2, 100), null);
+        mailbox.onTick(tick(3, 100), null);
+        mailbox.onBarClose(bar);
+        mailbox.onNewDay(start);
+        mailbox.onTick(tick(4, 100), null);
+        mailbox.onTick(tick(5, 100), null);
+        listener.release.countDown();
+        awaitEvents(5);
+
+        assertEquals(List.of("tick:1", "tick:3", "barClose", "newDay", "tick:5"), listener.events);
+        assertEquals(2, mailbox.getDroppedTicks());
+    }
+
+    @Test
+    void testStopWaitsForListenerAndDiscardsWaitingTicks() throws Exception {
+        mailbox.onTick(tick(1, 100), null);
+        awaitEvents(1);
+        mailbox.onTick(tick(2, 100), null);
+
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            sleep(100);
+            listener.release.countDown();
+        });
+        mailbox.onStop("Test");
+        releaser.join();
+
+        assertEquals(List.of("tick:1", "stop:Test"), listener.events);
+
+        // Nothing is delivered after the stop
+        mailbox.onTick(tick(3, 100), null);
+        sleep(50);
+        assertEquals(2, listener.events.size());
+    }
+
+    @Test
+    void testListenerStoppingItselfDoesNotDeadlock() throws Exception {
+        listener.release.countDown();
+        listener.stopOnTick = mailbox;
+
+        mailbox.onTick(tick(1, 100), null);
+        awaitEvents(2);
+
+        assertEquals(List.of("tick:1", "stop:Self"), listener.events);
+    }
+
+    @Test
+    void testListenerErrorsDoNotStopDelivery() throws Exception {
+        listener.release.countDown();
+        listener.failOnTick = true;
+
+        mailbox.onTick(tick(1, 100), null);
+        awaitEvents(1);
+        mailbox.onTick(tick(2, 100), null);
+        awaitEvents(2);
+
+        assertEquals(List.of("tick:1", "tick:2"), listener.events);
+    }
+
+    @Test
+    void testBarsBuiltFromEveryTickWhileListenerIsBusy() throws Exception {
+        DataProvider dataProvider = mock(DataProvider.class);
+        DefaultDataManager dataManager = new DefaultDataManager("Test", Instrument.NAS100USD, dataProvider, Duration.ofMinutes(1),
+                new DefaultBarSeries(100), mock(EventPublisher.class), null);
+        dataManager.addDataListener(mailbox);
+        dataManager.start();
+
+        dataManager.onTick(tick(1, 100));
+        awaitEvents(2);
+        // Only seen by the bar while the listener is stuck
+        dataManager.onTick(tick(2, 150));
+        dataManager.onTick(tick(3, 50));
+        dataManager.onTick(tick(4, 101));
+        listener.release.countDown();
+        awaitEvents(3);
+
+        assertEquals(List.of("newDay", "tick:1", "tick:4"), listener.events);
+        Bar bar = dataManager.getCurrentBar();
+        assertEquals(new Number(150), bar.getHigh());
+        assertEquals(new Number(50), bar.getLow());
+        assertEquals(new Number(101), bar.getClose());
+        assertEquals(2, mailbox.getDroppedTicks());
+    }
+
+    private Tick tick(int seconds, double price) {
+        return new DefaultTick(Instrument.NAS100USD, new Number(price), new Number(price), new Number(price), new Number(1), start.plusSeconds(seconds));
+    }
+
+    private void awaitEvents(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (listener.events.size() < count) {
+            if (System.nanoTime() > deadline) {
+                fail("Expected " + count + " events but got " + listener.events);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records events, blocking on the first tick until released.
+     */
+    private class BlockingListener implements DataListener {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile TickMailbox stopOnTick;
+        private volatile boolean failOnTick = false;
+
+        @Override
+        public void onTick(Tick tick, Bar currentBar) {
+            events.add("tick:" + (tick.getDateTime().toEpochSecond() - start.toEpochSecond()));
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (stopOnTick != null) {
+                stopOnTick.onStop("Self");
+            }
+            if (failOnTick) {
+                throw new RuntimeException("Strategy error");
+            }
+        }
+
+        @Override
+        public void onBarClose(Bar bar) {
+            events.add("barClose");
+        }
+
+        @Override
+        public void onNewDay(ZonedDateTime newDay) {
+            events.add("newDay");
+        }
+
+        @Override
+        public void onStop(String reason) {
+            events.add("stop:" + reason);
+        }
+
+        @Override
+        public void onTradeClose(Trade trade) {
+            events.add("tradeClose");
+        }
+
+        @Override
+        public void initialise() {
+        }
+
+        @Override
+        public DataManager getDataManager() {
+            return null;
+        }
+
+        @Override
+        public String getStrategyId() {
+            return "Test";
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.event.types.AccountEvent;
+import dev.jwtly10.core.event.types.BarEvent;
+import dev.jwtly10.core.event.types.LogEvent;
+import dev.jwtly10.core.event.types.TradeEvent;
+import dev.jwtly10.core.model.Bar;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Trade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventConflatorTest {
+
+    private final ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    private ScheduledExecutorService scheduler;
+    private List<BaseEvent> delivered;
+    private EventConflator conflator;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        delivered = new CopyOnWriteArrayList<>();
+        // 1 fps, so the tests control flushing
+        conflator = new EventConflator(delivered::add, 1, scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        conflator.close();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testKeepsLatestValuePerKey() {
+        AccountEvent first = new AccountEvent("Test", mock(Account.class));
+        AccountEvent second = new AccountEvent("Test", mock(Account.class));
+        TradeEvent tradeUpdate1 = tradeEvent(1, TradeEvent.Action.UPDATE);
+        TradeEvent tradeUpdate2 = tradeEvent(2, TradeEvent.Action.UPDATE);
+        TradeEvent tradeUpdate1Latest = tradeEvent(1, TradeEvent.Action.UPDATE);
+
+        conflator.offer(first);
+        conflator.offer(tradeUpdate1);
+        conflator.offer(tradeUpdate2);
+        conflator.offer(second);
+        conflator.offer(tradeUpdate1Latest);
+        assertTrue(delivered.isEmpty());
+
+        conflator.flush();
+
+        assertEquals(List.of(second, tradeUpdate1Latest, tradeUpdate2), delivered);
+        assertEquals(2, conflator.getConflatedEvents());
+    }
+
+    @Test
+    void testCompletedBarsAreNotLost() {
+        BarEvent bar1Tick1 = barEvent(start);
+        BarEvent bar1Tick2 = barEvent(start);
+        BarEvent bar2Tick1 = barEvent(start.plusMinutes(1));
+
+        conflator.offer(bar1Tick1);
+        conflator.offer(bar1Tick2);
+        conflator.offer(bar2Tick1);
+        conflator.flush();
+
+        assertEquals(List.of(bar1Tick2, bar2Tick1), delivered);
+    }
+
+    @Test
+    void testDiscreteEventsPassThroughInOrder() {
+        TradeEvent update = tradeEvent(1, TradeEvent.Action.UPDATE);
+        TradeEvent close = tradeEvent(1, TradeEvent.Action.CLOSE);
+        LogEvent log = new LogEvent("Test", LogEvent.LogType.INFO, "Closed trade");
+        TradeEvent open = tradeEvent(2, TradeEvent.Action.OPEN);
+
+        conflator.offer(update);
+        conflator.offer(close);
+        conflator.offer(log);
+        conflator.offer(open);
+
+        // The pending update is flushed ahead of the close
+        assertEquals(List.of(update, close, log, open), delivered);
+    }
+
+    @Test
+    void testFlushesOnSchedule() {
+        @SuppressWarnings("unchecked")
+        Consumer<BaseEvent> downstream = mock(Consumer.class);
+        EventConflator scheduled = new EventConflator(downstream, 50, scheduler);
+        AccountEvent event = new AccountEvent("Test", mock(Account.class));
+
+        scheduled.offer(event);
+
+        verify(downstream, timeout(1000)).accept(event);
+        scheduled.close();
+    }
+
+    @Test
+    void testCloseFlushesAndIgnoresFurtherEvents() {
+        @SuppressWarnings("unchecked")
+        Consumer<BaseEvent> downstream = mock(Consumer.class);
+        EventConflator closing = new EventConflator(downstream, 1, scheduler);
+        AccountEvent pending = new AccountEvent("Test", mock(Account.class));
+        AccountEvent late = new AccountEvent("Test", mock(Account.class));
+
+        closing.offer(pending);
+        closing.close();
+        closing.offer(late);
+
+        verify(downstream).accept(pending);
+        verify(downstream, after(200).never()).accept(late);
+    }
+
+    @Test
+    void testInvalidFrameRate() {
+        assertThrows(IllegalArgumentException.class, () -> new EventConflator(delivered::add, 0, scheduler));
+    }
+
+    private TradeEvent tradeEvent(int id, TradeEvent.Action action) {
+        Trade trade = mock(Trade.class);
+        when(trade.getId()).thenReturn(id);
+        return new TradeEvent("Test", Instrument.NAS100USD, trade, action);
+    }
+
+    private BarEvent barEvent(ZonedDateTime openTime) {
+        Bar bar = mock(Bar.class);
+        when(bar.getOpenTime()).thenReturn(openTime);
+        return new BarEvent("Test", Instrument.NAS100USD, bar);
+    }
+}
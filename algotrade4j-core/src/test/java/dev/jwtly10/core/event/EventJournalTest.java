@@ -0,0 +1,270 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.event.types.BarEvent;
+import dev.jwtly10.core.event.types.LogEvent;
+import dev.jwtly10.core.event.types.TradeEvent;
+import dev.jwtly10.core.event.types.async.AsyncTradesEvent;
+import dev.jwtly10.core.model.Bar;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventJournalTest {
+
+    private final ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    private EventJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        journal = new EventJournal("Test", 5);
+        journal.subscribe(BarEvent.class);
+        journal.subscribe(TradeEvent.class);
+        journal.subscribe(LogEvent.class);
+        journal.subscribe(AsyncTradesEvent.class);
+    }
+
+    @Test
+    void testAssignsSequencesAndFansOut() {
+        RecordingViewer viewer = new RecordingViewer();
+        journal.attach(viewer, new RecordingSync());
+
+        LogEvent first = log();
+        LogEvent second = log();
+        journal.onEvent(first);
+        journal.onEvent(second);
+        journal.onEvent(new LogEvent("Other", LogEvent.LogType.INFO, "Not for this journal"));
+
+        assertEquals(1, first.getSequence());
+        assertEquals(2, second.getSequence());
+        assertEquals(List.of(first, second), viewer.events);
+        assertEquals(2, journal.getLastSequence());
+    }
+
+    @Test
+    void testNewViewerGetsSnapshotAtCurrentSequence() {
+        journal.onEvent(log());
+        journal.onEvent(log());
+
+        RecordingSync sync = new RecordingSync();
+        RecordingViewer viewer = new RecordingViewer();
+        journal.attach(viewer, sync);
+
+        assertEquals(2, sync.snapshotSequence);
+        assertTrue(viewer.events.isEmpty());
+    }
+
+    @Test
+    void testResumeReplaysOnlyMissedEvents() {
+        List<LogEvent> logs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            LogEvent event = log();
+            logs.add(event);
+            journal.onEvent(event);
+        }
+
+        RecordingSync sync = new RecordingSync();
+        RecordingViewer viewer = new RecordingViewer();
+        boolean resumed = journal.attach(viewer, journal.getJournalId(), 2, sync);
+
+        assertTrue(resumed);
+        assertEquals(2, sync.resumeFrom);
+        assertEquals(4, sync.resumeTo);
+        assertEquals(logs.subList(2, 4), viewer.events);
+
+        LogEvent live = log();
+        journal.onEvent(live);
+        assertEquals(live, viewer.events.getLast());
+    }
+
+    @Test
+    void testCannotResumeAfterEviction() {
+        for (int i = 0; i < 8; i++) {
+            journal.onEvent(log());
+        }
+
+        RecordingSync sync = new RecordingSync();
+        assertFalse(journal.attach(new RecordingViewer(), journal.getJournalId(), 2, sync));
+        assertEquals(8, sync.snapshotSequence);
+
+        // Everything after 3 is still retained
+        assertTrue(journal.attach(new RecordingViewer(), journal.getJournalId(), 3, new RecordingSync()));
+    }
+
+    @Test
+    void testCannotResumeFromAnotherJournal() {
+        journal.onEvent(log());
+
+        RecordingSync sync = new RecordingSync();
+        assertFalse(journal.attach(new RecordingViewer(), "another-journal", 1, sync));
+        assertEquals(1, sync.snapshotSequence);
+        assertFalse(journal.attach(new RecordingViewer(), journal.getJournalId(), 5, new RecordingSync()));
+    }
+
+    @Test
+    void testStateUpdatesReplaceEachOtherWithoutEvictingDiscreteEvents() {
+        LogEvent discrete = log();
+        journal.onEvent(discrete);
+        BarEvent latestBar = null;
+        for (int i = 0; i < 100; i++) {
+            latestBar = barEvent(start);
+            journal.onEvent(latestBar);
+        }
+        TradeEvent update = tradeEvent(1, TradeEvent.Action.UPDATE);
+        journal.onEvent(update);
+
+        assertEquals(List.of(discrete, latestBar, update), journal.retainedEvents());
+
+        RecordingViewer viewer = new RecordingViewer();
+        assertTrue(journal.attach(viewer, journal.getJournalId(), 0, new RecordingSync()));
+        assertEquals(List.of(discrete, latestBar, update), viewer.events);
+    }
+
+    @Test
+    void testSnapshotEventsReplaceEachOtherWithoutEvictingDiscreteEvents() {
+        LogEvent discrete = log();
+        journal.onEvent(discrete);
+        AsyncTradesEvent latestTrades = null;
+        for (int i = 0; i < 100; i++) {
+            latestTrades = new AsyncTradesEvent("Test", Instrument.NAS100USD, Map.of());
+            journal.onEvent(latestTrades);
+        }
+
+        assertEquals(List.of(discrete, latestTrades), journal.retainedEvents());
+    }
+
+    @Test
+    void testStopsSubscribingOnceTheResumeWindowPassesWithoutViewers() throws InterruptedException {
+        EventJournal shortJournal = new EventJournal("Test", 5, Duration.ofMillis(50));
+        shortJournal.subscribe(LogEvent.class);
+        RecordingViewer viewer = new RecordingViewer();
+        shortJournal.attach(viewer, new RecordingSync());
+        shortJournal.onEvent(log());
+        shortJournal.detach(viewer);
+
+        // Within the window the viewer could still come back
+        assertTrue(shortJournal.isSubscribed(LogEvent.class, "Test"));
+        Thread.sleep(100);
+        assertFalse(shortJournal.isSubscribed(LogEvent.class, "Test"));
+
+        shortJournal.onEvent(log());
+        assertEquals(List.of(), shortJournal.retainedEvents());
+        // Events may have been skipped since the viewer left, so it needs a snapshot
+        RecordingSync sync = new RecordingSync();
+        assertFalse(shortJournal.attach(viewer, shortJournal.getJournalId(), 1, sync));
+        assertTrue(shortJournal.isSubscribed(LogEvent.class, "Test"));
+
+        LogEvent live = log();
+        shortJournal.onEvent(live);
+        assertEquals(sync.snapshotSequence + 1, live.getSequence());
+        assertTrue(shortJournal.attach(new RecordingViewer(), shortJournal.getJournalId(), sync.snapshotSequence, new RecordingSync()));
+    }
+
+    @Test
+    void testDetachedViewerStopsReceiving() {
+        RecordingViewer viewer = new RecordingViewer();
+        journal.attach(viewer, new RecordingSync());
+        journal.detach(viewer);
+
+        journal.onEvent(log());
+
+        assertTrue(viewer.events.isEmpty());
+        assertFalse(journal.hasViewers());
+    }
+
+    @Test
+    void testNoGapsOrDuplicatesWhenAttachingDuringPublishing() throws Exception {
+        EventJournal bigJournal = new EventJournal("Test", 100_000);
+        bigJournal.subscribe(LogEvent.class);
+        int total = 20_000;
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> {
+            for (int i = 0; i < total; i++) {
+                bigJournal.onEvent(log());
+                if (i == 100) {
+                    started.countDown();
+                }
+            }
+        });
+        started.await();
+
+        RecordingViewer viewer = new RecordingViewer();
+        RecordingSync sync = new RecordingSync();
+        bigJournal.attach(viewer, sync);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        long expected = sync.snapshotSequence + 1;
+        for (BaseEvent event : viewer.events) {
+            assertEquals(expected++, event.getSequence());
+        }
+        assertEquals(total + 1, expected);
+    }
+
+    private LogEvent log() {
+        return new LogEvent("Test", LogEvent.LogType.INFO, "Message");
+    }
+
+    private TradeEvent tradeEvent(int id, TradeEvent.Action action) {
+        Trade trade = mock(Trade.class);
+        when(trade.getId()).thenReturn(id);
+        return new TradeEvent("Test", Instrument.NAS100USD, trade, action);
+    }
+
+    private BarEvent barEvent(ZonedDateTime openTime) {
+        Bar bar = mock(Bar.class);
+        when(bar.getOpenTime()).thenReturn(openTime);
+        return new BarEvent("Test", Instrument.NAS100USD, bar);
+    }
+
+    private static class RecordingViewer implements EventListener {
+        private final List<BaseEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvent(BaseEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(String strategyId, Exception e) {
+        }
+
+        @Override
+        public void onError(String strategyId, String message) {
+        }
+    }
+
+    private static class RecordingSync implements EventJournal.SyncHandler {
+        private long snapshotSequence = -1;
+        private long resumeFrom = -1;
+        private long resumeTo = -1;
+
+        @Override
+        public void onSnapshot(long sequence) {
+            snapshotSequence = sequence;
+        }
+
+        @Override
+        public void onResume(long fromSequence, long toSequence) {
+            resumeFrom = fromSequence;
+            resumeTo = toSequence;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.model.Instrument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPayloadEncoderTest {
+
+    @Test
+    void testSmallPayloadNotCompressed() {
+        byte[] json = "{\"type\":\"TEST\"}".getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer payload = EventPayloadEncoder.encode(json);
+
+        assertEquals(EventPayloadEncoder.FLAG_UNCOMPRESSED, payload.get());
+        assertEquals("{\"type\":\"TEST\"}", remainingAsString(payload));
+    }
+
+    @Test
+    void testLargePayloadGzipped() throws IOException {
+        String message = largeJson(50_000);
+
+        ByteBuffer payload = EventPayloadEncoder.encode(message.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(EventPayloadEncoder.FLAG_COMPRESSED, payload.get());
+        assertTrue(payload.remaining() < message.length());
+        assertEquals(message, gunzip(payload));
+    }
+
+    @Test
+    void testConcurrentEncodingWithPooledCompressors() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String message = largeJson(2_000 + i * 100);
+            results.add(executor.submit(() -> {
+                ByteBuffer payload = EventPayloadEncoder.encode(message.getBytes(StandardCharsets.UTF_8));
+                payload.get();
+                return message.equals(gunzip(payload));
+            }));
+        }
+
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testEventPayloadEncodedOnceAndShared() throws IOException {
+        TestEvent event = new TestEvent(largeJson(5_000));
+
+        ByteBuffer first = event.toWirePayload();
+        first.get(new byte[first.remaining()]); // Consume, as a session send would
+        ByteBuffer second = event.toWirePayload();
+
+        assertEquals(0, second.position());
+        assertEquals(first.limit(), second.remaining());
+        assertTrue(second.isReadOnly());
+        assertEquals(EventPayloadEncoder.FLAG_COMPRESSED, second.get());
+        assertEquals(event.toJson(), gunzip(second));
+    }
+
+    private String largeJson(int length) {
+        StringBuilder sb = new StringBuilder("{\"values\":[");
+        int i = 0;
+        while (sb.length() < length) {
+            sb.append(i % 97).append(',');
+            i++;
+        }
+        sb.append("0]}");
+        return sb.toString();
+    }
+
+    private String remainingAsString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String gunzip(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class TestEvent extends BaseEvent {
+        private final String message;
+
+        TestEvent(String message) {
+            super("Testing", "TEST_EVENT", Instrument.NAS100USD);
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
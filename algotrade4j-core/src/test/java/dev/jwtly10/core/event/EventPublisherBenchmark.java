@@ -0,0 +1,141 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.model.Instrument;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH comparison of the {@link AsyncEventPublisher} and {@link RingBufferEventPublisher}.
+ *
+ * <p>
+ * {@link #sustainedOneMillionPerSecond} paces the producer at 1M events/sec for the whole measurement, and reports the average time
+ * per event until every listener has received it. A publisher that sustains the rate reports ~1000 ns/op, one that can't keep up
+ * (it blocks the producer, or its listeners fall behind) reports more.
+ * {@link #saturated} publishes as fast as possible, for the maximum end to end events/sec.
+ * </p>
+ *
+ * <p>
+ * Not run as part of the test suite. Run with:
+ * {@code mvn -pl algotrade4j-core test-compile exec:java -Dexec.mainClass=dev.jwtly10.core.event.EventPublisherBenchmark -Dexec.classpathScope=test}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventPublisherBenchmark {
+    private static final int EVENTS = 1_000_000;
+    private static final long TARGET_RATE_PER_SECOND = 1_000_000;
+    private static final long NANOS_PER_EVENT = TimeUnit.SECONDS.toNanos(1) / TARGET_RATE_PER_SECOND;
+    // Events per invocation of the paced benchmark. Small, so waiting for listeners to catch up at the end of each is a small part of it
+    private static final int PACED_EVENTS = 10_000;
+
+    @Param({"ASYNC", "RING_BLOCKING", "RING_SLEEPING", "RING_YIELDING"})
+    private String publisherType;
+
+    @Param({"1", "3"})
+    private int listenerCount;
+
+    private EventPublisher publisher;
+    private CountingListener[] listeners;
+    private BaseEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        publisher = switch (publisherType) {
+            case "ASYNC" -> new AsyncEventPublisher();
+            case "RING_BLOCKING" -> new RingBufferEventPublisher(RingBufferEventPublisher.DEFAULT_BUFFER_SIZE,
+                    RingBufferEventPublisher.ProducerType.SINGLE, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+            case "RING_SLEEPING" -> new RingBufferEventPublisher(RingBufferEventPublisher.DEFAULT_BUFFER_SIZE,
+                    RingBufferEventPublisher.ProducerType.SINGLE, RingBufferEventPublisher.WaitStrategy.SLEEPING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+            case "RING_YIELDING" -> new RingBufferEventPublisher(RingBufferEventPublisher.DEFAULT_BUFFER_SIZE,
+                    RingBufferEventPublisher.ProducerType.SINGLE, RingBufferEventPublisher.WaitStrategy.YIELDING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+            default -> throw new IllegalArgumentException("Unknown publisher type: " + publisherType);
+        };
+        listeners = new CountingListener[listenerCount];
+        for (int i = 0; i < listenerCount; i++) {
+            listeners[i] = new CountingListener();
+            publisher.addListener(listeners[i]);
+        }
+        event = new BenchmarkEvent();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(PACED_EVENTS)
+    public void sustainedOneMillionPerSecond() {
+        long target = listeners[0].count.get() + PACED_EVENTS;
+        long start = System.nanoTime();
+        for (int i = 0; i < PACED_EVENTS; i++) {
+            // Publish each event at its slot in a 1M events/sec schedule. If publishing falls behind, it doesn't catch up by bursting
+            long due = start + i * NANOS_PER_EVENT;
+            while (System.nanoTime() < due) {
+                Thread.onSpinWait();
+            }
+            publisher.publishEvent(event);
+        }
+        awaitDelivery(target);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(EVENTS)
+    public void saturated() {
+        long target = listeners[0].count.get() + EVENTS;
+        for (int i = 0; i < EVENTS; i++) {
+            publisher.publishEvent(event);
+        }
+        awaitDelivery(target);
+    }
+
+    private void awaitDelivery(long target) {
+        for (CountingListener listener : listeners) {
+            while (listener.count.get() < target) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(EventPublisherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    private static class CountingListener implements EventListener {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void onEvent(BaseEvent event) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void onError(String strategyId, Exception e) {
+        }
+
+        @Override
+        public void onError(String strategyId, String message) {
+        }
+    }
+
+    private static class BenchmarkEvent extends BaseEvent {
+        BenchmarkEvent() {
+            super("Benchmark", "BENCHMARK", Instrument.NAS100USD);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.model.Instrument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventSubscriptionRegistryTest {
+
+    private EventSubscriptionRegistry registry;
+
+    @Mock
+    private EventListener broadcastListener;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new EventSubscriptionRegistry();
+    }
+
+    @Test
+    void testEventsRoutedByStrategyAndType() {
+        RecordingListener strategy1 = new RecordingListener("strategy1");
+        RecordingListener strategy2 = new RecordingListener("strategy2");
+        strategy1.subscribe(TestEvent.class);
+        strategy2.subscribe(OtherEvent.class);
+        registry.add(strategy1);
+        registry.add(strategy2);
+
+        dispatch(new TestEvent("strategy1"));
+        dispatch(new TestEvent("strategy2"));
+        dispatch(new OtherEvent("strategy1"));
+        dispatch(new OtherEvent("strategy2"));
+
+        assertEquals(List.of("TestEvent:strategy1"), strategy1.received);
+        assertEquals(List.of("OtherEvent:strategy2"), strategy2.received);
+    }
+
+    @Test
+    void testBroadcastListenersReceiveEverything() {
+        registry.add(broadcastListener);
+
+        dispatch(new TestEvent("strategy1"));
+        dispatch(new OtherEvent("strategy2"));
+
+        verify(broadcastListener, times(2)).onEvent(any());
+    }
+
+    @Test
+    void testSubscriptionChangesAfterListenerAdded() {
+        RecordingListener listener = new RecordingListener("strategy1");
+        registry.add(listener);
+
+        dispatch(new TestEvent("strategy1"));
+        listener.subscribe(TestEvent.class);
+        dispatch(new TestEvent("strategy1"));
+        listener.unsubscribe(TestEvent.class);
+        dispatch(new TestEvent("strategy1"));
+
+        assertEquals(List.of("TestEvent:strategy1"), listener.received);
+        assertFalse(registry.hasSubscribers(TestEvent.class, "strategy1"));
+    }
+
+    @Test
+    void testRemovedListenerNoLongerRouted() {
+        RecordingListener listener = new RecordingListener("strategy1");
+        listener.subscribe(TestEvent.class);
+        registry.add(listener);
+        assertTrue(registry.hasSubscribers(TestEvent.class, "strategy1"));
+
+        registry.remove(listener);
+        dispatch(new TestEvent("strategy1"));
+
+        assertTrue(listener.received.isEmpty());
+        assertFalse(registry.hasSubscribers(TestEvent.class, "strategy1"));
+        assertTrue(registry.getListeners().isEmpty());
+    }
+
+    @Test
+    void testHasSubscribersIgnoresInactiveListeners() {
+        RecordingListener listener = new RecordingListener("strategy1");
+        listener.subscribe(TestEvent.class);
+        registry.add(listener);
+
+        listener.deactivate();
+
+        assertFalse(registry.hasSubscribers(TestEvent.class, "strategy1"));
+    }
+
+    @Test
+    void testErrorsRoutedByStrategy() {
+        RecordingListener strategy1 = new RecordingListener("strategy1");
+        RecordingListener strategy2 = new RecordingListener("strategy2");
+        registry.add(strategy1);
+        registry.add(strategy2);
+        registry.add(broadcastListener);
+
+        registry.forEachErrorListener("strategy1", listener -> listener.onError("strategy1", "Test Error"));
+
+        assertEquals(List.of("Error:strategy1"), strategy1.received);
+        assertTrue(strategy2.received.isEmpty());
+        verify(broadcastListener).onError("strategy1", "Test Error");
+    }
+
+    @Test
+    void testSubscribeConcurrentlyWithDispatch() throws InterruptedException {
+        int listenerCount = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(listenerCount);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread dispatcher = new Thread(() -> {
+            try {
+                while (done.getCount() > 0) {
+                    dispatch(new TestEvent("strategy1"));
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        dispatcher.start();
+
+        List<RecordingListener> listeners = new ArrayList<>();
+        for (int i = 0; i < listenerCount; i++) {
+            RecordingListener listener = new RecordingListener("strategy1");
+            listeners.add(listener);
+            executor.submit(() -> {
+                registry.add(listener);
+                listener.subscribe(TestEvent.class);
+                listener.unsubscribe(TestEvent.class);
+                listener.subscribe(TestEvent.class);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        dispatcher.join();
+        executor.shutdown();
+        assertNull(failure.get());
+
+        listeners.forEach(listener -> listener.received.clear());
+        dispatch(new TestEvent("strategy1"));
+        for (RecordingListener listener : listeners) {
+            assertEquals(List.of("TestEvent:strategy1"), listener.received);
+        }
+    }
+
+    private void dispatch(BaseEvent event) {
+        registry.forEachSubscriber(event, listener -> listener.onEvent(event));
+    }
+
+    private static class RecordingListener extends TopicEventListener {
+        private final List<String> received = new CopyOnWriteArrayList<>();
+
+        RecordingListener(String strategyId) {
+            super(strategyId);
+        }
+
+        @Override
+        public void onEvent(BaseEvent event) {
+            received.add(event.getClass().getSimpleName() + ":" + event.getStrategyId());
+        }
+
+        @Override
+        public void onError(String strategyId, Exception e) {
+            received.add("Error:" + strategyId);
+        }
+
+        @Override
+        public void onError(String strategyId, String message) {
+            received.add("Error:" + strategyId);
+        }
+    }
+
+    private static class TestEvent extends BaseEvent {
+        TestEvent(String strategyId) {
+            super(strategyId, "TEST_EVENT", Instrument.NAS100USD);
+        }
+    }
+
+    private static class OtherEvent extends BaseEvent {
+        OtherEvent(String strategyId) {
+            super(strategyId, "OTHER_EVENT", Instrument.NAS100USD);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.event.types.AccountEvent;
+import dev.jwtly10.core.event.types.LogEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class OutboundEventQueueTest {
+
+    private final List<BaseEvent> sent = new CopyOnWriteArrayList<>();
+    // Holds the sender on the first event, simulating a stalled client
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final AtomicInteger disconnects = new AtomicInteger(0);
+    private OutboundEventQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    @Test
+    void testEventsSentInOrder() throws InterruptedException {
+        CountDownLatch received = new CountDownLatch(3);
+        queue = new OutboundEventQueue("test", 10, OutboundEventQueue.OverflowPolicy.DROP_OLDEST, event -> {
+            sent.add(event);
+            received.countDown();
+        }, disconnects::incrementAndGet);
+        LogEvent first = log("1");
+        LogEvent second = log("2");
+        LogEvent third = log("3");
+
+        queue.offer(first);
+        queue.offer(second);
+        queue.offer(third);
+
+        assertTrue(received.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of(first, second, third), sent);
+        assertEquals(3, queue.getSentEvents());
+    }
+
+    @Test
+    void testStalledClientDoesNotBlockOffer() throws InterruptedException {
+        queue = stalledQueue(2, OutboundEventQueue.OverflowPolicy.DROP_OLDEST);
+        queue.offer(log("blocked"));
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            queue.offer(log(String.valueOf(i)));
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertEquals(2, queue.getDepth());
+        assertEquals(98, queue.getDroppedEvents());
+    }
+
+    @Test
+    void testDropOldestKeepsNewestEvents() throws InterruptedException {
+        queue = stalledQueue(2, OutboundEventQueue.OverflowPolicy.DROP_OLDEST);
+        LogEvent blocked = log("blocked");
+        LogEvent dropped = log("dropped");
+        LogEvent kept1 = log("kept1");
+        LogEvent kept2 = log("kept2");
+        queue.offer(blocked);
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+
+        queue.offer(dropped);
+        queue.offer(kept1);
+        queue.offer(kept2);
+        release.countDown();
+
+        awaitSent(3);
+        assertEquals(List.of(blocked, kept1, kept2), sent);
+        assertEquals(1, queue.getDroppedEvents());
+    }
+
+    @Test
+    void testConflateReplacesQueuedStateUpdates() throws InterruptedException {
+        queue = stalledQueue(10, OutboundEventQueue.OverflowPolicy.CONFLATE);
+        LogEvent blocked = log("blocked");
+        AccountEvent oldAccount = new AccountEvent("Test", mock(Account.class));
+        LogEvent logEvent = log("log");
+        AccountEvent newAccount = new AccountEvent("Test", mock(Account.class));
+        queue.offer(blocked);
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+
+        queue.offer(oldAccount);
+        queue.offer(logEvent);
+        queue.offer(newAccount);
+        release.countDown();
+
+        awaitSent(3);
+        // The newer account state takes the place of the old one
+        assertEquals(List.of(blocked, newAccount, logEvent), sent);
+        assertEquals(1, queue.getConflatedEvents());
+    }
+
+    @Test
+    void testConflateDropsOldestStateUpdateWhenFull() throws InterruptedException {
+        queue = stalledQueue(3, OutboundEventQueue.OverflowPolicy.CONFLATE);
+        LogEvent blocked = log("blocked");
+        LogEvent logEvent = log("log");
+        AccountEvent dropped = new AccountEvent("A", mock(Account.class));
+        AccountEvent kept = new AccountEvent("B", mock(Account.class));
+        LogEvent overflow = log("overflow");
+        queue.offer(blocked);
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+
+        queue.offer(logEvent);
+        queue.offer(dropped);
+        queue.offer(kept);
+        queue.offer(overflow);
+        release.countDown();
+
+        awaitSent(4);
+        // The log is older, but only the state update can be dropped
+        assertEquals(List.of(blocked, logEvent, kept, overflow), sent);
+        assertEquals(1, queue.getDroppedEvents());
+        assertEquals(0, disconnects.get());
+    }
+
+    @Test
+    void testConflateDisconnectsWhenNoStateUpdateIsQueued() throws InterruptedException {
+        queue = stalledQueue(2, OutboundEventQueue.OverflowPolicy.CONFLATE);
+        queue.offer(log("blocked"));
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+
+        queue.offer(log("queued1"));
+        queue.offer(log("queued2"));
+        queue.offer(new AccountEvent("Test", mock(Account.class)));
+
+        assertEquals(1, disconnects.get());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    void testDisconnectWhenFull() throws InterruptedException {
+        queue = stalledQueue(1, OutboundEventQueue.OverflowPolicy.DISCONNECT);
+        queue.offer(log("blocked"));
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+
+        queue.offer(log("queued"));
+        queue.offer(log("overflow"));
+        queue.offer(log("after disconnect"));
+
+        assertEquals(1, disconnects.get());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    void testSendLatencyRecorded() throws InterruptedException {
+        queue = new OutboundEventQueue("test", 10, OutboundEventQueue.OverflowPolicy.DROP_OLDEST, event -> {
+            Thread.sleep(20);
+            sent.add(event);
+        }, disconnects::incrementAndGet);
+
+        queue.offer(log("1"));
+        awaitSent(1);
+
+        assertTrue(queue.getMaxSendLatencyMicros() >= 20_000);
+        assertTrue(queue.getAverageSendLatencyMicros() >= 20_000);
+        assertEquals(1, queue.getMaxDepth());
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new OutboundEventQueue("test", 0, OutboundEventQueue.OverflowPolicy.CONFLATE, sent::add, () -> {
+        }));
+    }
+
+    private OutboundEventQueue stalledQueue(int capacity, OutboundEventQueue.OverflowPolicy policy) {
+        return new OutboundEventQueue("test", capacity, policy, event -> {
+            firstSendStarted.countDown();
+            release.await();
+            sent.add(event);
+        }, disconnects::incrementAndGet);
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, sent.size());
+    }
+
+    private LogEvent log(String message) {
+        return new LogEvent("Test", LogEvent.LogType.INFO, message);
+    }
+}
@@ -0,0 +1,297 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.model.Instrument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RingBufferEventPublisherTest {
+
+    private RingBufferEventPublisher publisher;
+
+    @Mock
+    private EventListener mockListener1;
+
+    @Mock
+    private EventListener mockListener2;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        publisher = new RingBufferEventPublisher();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void testAddListener() {
+        publisher.addListener(mockListener1);
+        publisher.publishEvent(new TestEvent("Test Event"));
+
+        verify(mockListener1, timeout(1000).times(1)).onEvent(any(TestEvent.class));
+    }
+
+    @Test
+    void testRemoveListener() {
+        publisher.addListener(mockListener1);
+        publisher.removeListener(mockListener1);
+        publisher.publishEvent(new TestEvent("Test Event"));
+
+        verify(mockListener1, after(500).never()).onEvent(any(TestEvent.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RingBufferEventPublisher.WaitStrategy.class, names = {"BLOCKING", "SLEEPING", "YIELDING"})
+    void testEventsDeliveredInOrder(RingBufferEventPublisher.WaitStrategy waitStrategy) throws InterruptedException {
+        publisher = new RingBufferEventPublisher(64, RingBufferEventPublisher.ProducerType.SINGLE, waitStrategy, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+        int eventCount = 1000;
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(eventCount);
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0).toString());
+            latch.countDown();
+            return null;
+        }).when(mockListener1).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+
+        // More events than the ring can hold, so the producer has to wait for the consumer
+        for (int i = 0; i < eventCount; i++) {
+            publisher.publishEvent(new TestEvent(String.valueOf(i)));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < eventCount; i++) {
+            assertEquals("TestEvent{message='" + i + "'}", received.get(i));
+        }
+        assertEquals(0, publisher.getDroppedEvents());
+    }
+
+    @Test
+    void testSlowListenerDoesNotBlockOtherListeners() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastReceived = new CountDownLatch(10);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(mockListener1).onEvent(any(TestEvent.class));
+        doAnswer(invocation -> {
+            fastReceived.countDown();
+            return null;
+        }).when(mockListener2).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+        publisher.addListener(mockListener2);
+
+        for (int i = 0; i < 10; i++) {
+            publisher.publishEvent(new TestEvent("Test Event " + i));
+        }
+
+        assertTrue(fastReceived.await(1, TimeUnit.SECONDS));
+        release.countDown();
+        verify(mockListener1, timeout(1000).times(10)).onEvent(any(TestEvent.class));
+    }
+
+    @Test
+    void testDropPolicyDropsWhenFull() throws InterruptedException {
+        publisher = new RingBufferEventPublisher(4, RingBufferEventPublisher.ProducerType.SINGLE, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.DROP);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(mockListener1).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+
+        for (int i = 0; i < 10; i++) {
+            publisher.publishEvent(new TestEvent("Test Event " + i));
+        }
+
+        assertEquals(6, publisher.getDroppedEvents());
+        release.countDown();
+        verify(mockListener1, timeout(1000).times(4)).onEvent(any(TestEvent.class));
+    }
+
+    @Test
+    void testListenerExceptionDoesNotStopConsumer() {
+        doThrow(new RuntimeException("Listener failure")).doNothing().when(mockListener1).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+
+        publisher.publishEvent(new TestEvent("Test Event 1"));
+        publisher.publishEvent(new TestEvent("Test Event 2"));
+
+        verify(mockListener1, timeout(1000).times(2)).onEvent(any(TestEvent.class));
+    }
+
+    @Test
+    void testListenerErrorDoesNotBlockProducer() throws InterruptedException {
+        publisher = new RingBufferEventPublisher(4, RingBufferEventPublisher.ProducerType.SINGLE, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+        doThrow(new OutOfMemoryError("Listener error")).when(mockListener1).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+
+        // The error kills the consumer, more events than the ring can hold must still be published
+        Thread producer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 10; i++) {
+                publisher.publishEvent(new TestEvent("Test Event " + i));
+            }
+        });
+
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(producer.isAlive(), "Producer was blocked by a dead consumer");
+        verify(mockListener1, times(1)).onEvent(any(TestEvent.class));
+    }
+
+    @Test
+    void testRemovedListenerIsNotDeliveredReusedSlots() throws InterruptedException {
+        // MULTI, as events are published from two threads
+        publisher = new RingBufferEventPublisher(4, RingBufferEventPublisher.ProducerType.MULTI, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<BaseEvent> received = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            delivering.countDown();
+            release.await();
+            return null;
+        }).when(mockListener1).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+        publisher.publishEvent(new TestEvent("First"));
+        publisher.publishEvent(new TestEvent("Second"));
+        assertTrue(delivering.await(1, TimeUnit.SECONDS));
+
+        // Removed mid delivery, the consumer still holds back the producer until it stops reading the ring
+        publisher.removeListener(mockListener1);
+        Thread producer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 10; i++) {
+                publisher.publishEvent(new TestEvent("After removal " + i));
+            }
+        });
+        producer.join(300);
+        assertTrue(producer.isAlive(), "Producer reused slots the removed consumer could still read");
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(producer.isAlive());
+        assertEquals(1, received.size());
+        assertEquals("TestEvent{message='First'}", received.getFirst().toString());
+    }
+
+    @Test
+    void testEventsFromOtherThreadsFollowTheOwnersEarlierEvents() throws InterruptedException {
+        publisher = new RingBufferEventPublisher(64, RingBufferEventPublisher.ProducerType.SINGLE, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+        int eventCount = 500;
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(eventCount + 1);
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0).toString());
+            latch.countDown();
+            return null;
+        }).when(mockListener1).onEvent(any(TestEvent.class));
+        publisher.addListener(mockListener1);
+
+        // The first thread to publish owns the ring
+        Thread owner = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < eventCount; i++) {
+                publisher.publishEvent(new TestEvent(String.valueOf(i)));
+            }
+        });
+        owner.join();
+        // e.g. a strategy stopped from another thread
+        publisher.publishEvent(new TestEvent("Stopped"));
+        publisher.publishEvent(new TestEvent("Stopped again"));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        verify(mockListener1, timeout(1000).times(eventCount + 2)).onEvent(any(TestEvent.class));
+        for (int i = 0; i < eventCount; i++) {
+            assertEquals("TestEvent{message='" + i + "'}", received.get(i));
+        }
+        assertEquals(List.of("TestEvent{message='Stopped'}", "TestEvent{message='Stopped again'}"), received.subList(eventCount, eventCount + 2));
+    }
+
+    @Test
+    void testConsumedEventsAreNotRetained() throws InterruptedException {
+        CountDownLatch received = new CountDownLatch(1);
+        // Not a mock, as mocks keep the arguments of their invocations reachable
+        publisher.addListener(new EventListener() {
+            @Override
+            public void onEvent(BaseEvent event) {
+                received.countDown();
+            }
+
+            @Override
+            public void onError(String strategyId, Exception e) {
+            }
+
+            @Override
+            public void onError(String strategyId, String message) {
+            }
+        });
+
+        TestEvent event = new TestEvent("Large Event");
+        WeakReference<TestEvent> reference = new WeakReference<>(event);
+        publisher.publishEvent(event);
+        assertTrue(received.await(1, TimeUnit.SECONDS));
+        event = null;
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reference.get() != null) {
+            assertTrue(System.nanoTime() < deadline, "Consumed event is still reachable from the ring");
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testPublishErrorEvent() {
+        publisher.addListener(mockListener1);
+        Exception testException = new RuntimeException("Test Exception");
+        Exception cause = new RuntimeException("Test Cause");
+        testException.initCause(cause);
+        publisher.publishErrorEvent("TestStrategy", testException);
+
+        verify(mockListener1, times(1)).onError("TestStrategy", "Test Cause");
+    }
+
+    @Test
+    void testShutdown() throws InterruptedException {
+        publisher.shutdown();
+        publisher.addListener(mockListener1);
+        publisher.publishEvent(new TestEvent("Test Event"));
+
+        Thread.sleep(500); // Give some time for potential processing
+        verify(mockListener1, never()).onEvent(any(TestEvent.class));
+    }
+
+    @Test
+    void testInvalidBufferSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferEventPublisher(1000, RingBufferEventPublisher.ProducerType.MULTI, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.BLOCK));
+    }
+
+    private static class TestEvent extends BaseEvent {
+        private final String message;
+
+        TestEvent(String message) {
+            super("Testing", "TEST_EVENT", Instrument.NAS100USD);
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "TestEvent{message='" + message + "'}";
+        }
+    }
+}
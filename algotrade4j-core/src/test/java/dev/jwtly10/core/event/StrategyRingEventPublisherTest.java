@@ -0,0 +1,144 @@
+package dev.jwtly10.core.event;
+
+import dev.jwtly10.core.model.Instrument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrategyRingEventPublisherTest {
+
+    private StrategyRingEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new StrategyRingEventPublisher(64, RingBufferEventPublisher.WaitStrategy.BLOCKING, RingBufferEventPublisher.OverflowPolicy.BLOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void testEventsAreRoutedToTheirStrategysRing() throws InterruptedException {
+        RecordingListener first = new RecordingListener("First");
+        RecordingListener second = new RecordingListener("Second");
+        publisher.addListener(first);
+        publisher.addListener(second);
+
+        publisher.publishEvent(new TestEvent("First"));
+        publisher.publishEvent(new TestEvent("Second"));
+        publisher.publishEvent(new TestEvent("Second"));
+
+        await(() -> first.received.size() == 1 && second.received.size() == 2);
+        assertTrue(first.received.stream().allMatch(event -> event.getStrategyId().equals("First")));
+        assertTrue(second.received.stream().allMatch(event -> event.getStrategyId().equals("Second")));
+    }
+
+    @Test
+    void testBroadcastListenersReceiveEveryStrategy() throws InterruptedException {
+        List<BaseEvent> received = new CopyOnWriteArrayList<>();
+        publisher.addListener(new EventListener() {
+            @Override
+            public void onEvent(BaseEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onError(String strategyId, Exception e) {
+            }
+
+            @Override
+            public void onError(String strategyId, String message) {
+            }
+        });
+
+        publisher.publishEvent(new TestEvent("First"));
+        publisher.publishEvent(new TestEvent("Second"));
+
+        await(() -> received.size() == 2);
+        assertTrue(publisher.hasSubscribers(TestEvent.class, "Any"));
+    }
+
+    @Test
+    void testStrategyRingIsDroppedWithItsLastListener() throws InterruptedException {
+        RecordingListener listener = new RecordingListener("First");
+        assertFalse(publisher.hasSubscribers(TestEvent.class, "First"));
+
+        publisher.addListener(listener);
+        assertTrue(publisher.hasSubscribers(TestEvent.class, "First"));
+        assertFalse(publisher.hasSubscribers(TestEvent.class, "Second"));
+
+        publisher.removeListener(listener);
+        assertFalse(publisher.hasSubscribers(TestEvent.class, "First"));
+        publisher.publishEvent(new TestEvent("First"));
+
+        // A new listener gets a new ring, and only events published after it was added
+        RecordingListener next = new RecordingListener("First");
+        publisher.addListener(next);
+        publisher.publishEvent(new TestEvent("First"));
+        await(() -> next.received.size() == 1);
+        Thread.sleep(100);
+        assertTrue(listener.received.isEmpty());
+        assertEquals(1, next.received.size());
+    }
+
+    @Test
+    void testErrorsAreDeliveredToTheStrategysListeners() {
+        RecordingListener first = new RecordingListener("First");
+        RecordingListener second = new RecordingListener("Second");
+        publisher.addListener(first);
+        publisher.addListener(second);
+
+        publisher.publishErrorEvent("First", new RuntimeException("Failure"));
+
+        assertEquals(List.of("Failure"), first.errors);
+        assertTrue(second.errors.isEmpty());
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for events");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingListener extends TopicEventListener {
+        private final List<BaseEvent> received = new CopyOnWriteArrayList<>();
+        private final List<String> errors = new CopyOnWriteArrayList<>();
+
+        RecordingListener(String strategyId) {
+            super(strategyId);
+            subscribe(TestEvent.class);
+        }
+
+        @Override
+        public void onEvent(BaseEvent event) {
+            received.add(event);
+        }
+
+        @Override
+        public void onError(String strategyId, Exception e) {
+            errors.add(e.getMessage());
+        }
+
+        @Override
+        public void onError(String strategyId, String message) {
+            errors.add(message);
+        }
+    }
+
+    private static class TestEvent extends BaseEvent {
+        TestEvent(String strategyId) {
+            super(strategyId, "TEST_EVENT", Instrument.NAS100USD);
+        }
+    }
+}
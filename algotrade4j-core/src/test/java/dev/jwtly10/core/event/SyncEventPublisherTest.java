@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class SyncEventPublisherTest {
@@ -74,6 +76,21 @@ class SyncEventPublisherTest {
         verify(mockListener1, times(eventCount)).onEvent(any(TestEvent.class));
     }
 
+    @Test
+    void testHasSubscribers() {
+        assertFalse(publisher.hasSubscribers(TestEvent.class, "Testing"));
+
+        when(mockListener1.isSubscribed(TestEvent.class, "Testing")).thenReturn(true);
+        publisher.addListener(mockListener1);
+        publisher.addListener(mockListener2);
+
+        assertTrue(publisher.hasSubscribers(TestEvent.class, "Testing"));
+        assertFalse(publisher.hasSubscribers(TestEvent.class, "Other"));
+
+        publisher.removeListener(mockListener1);
+        assertFalse(publisher.hasSubscribers(TestEvent.class, "Testing"));
+    }
+
     @Test
     void testShutdown() {
         // Shutdown method is empty anyway for synchronous events
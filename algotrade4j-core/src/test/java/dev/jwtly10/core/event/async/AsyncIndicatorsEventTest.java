@@ -1,6 +1,7 @@
 package dev.jwtly10.core.event.async;
 
 import dev.jwtly10.core.event.types.async.AsyncIndicatorsEvent;
+import dev.jwtly10.core.indicators.IndicatorHistory;
 import dev.jwtly10.core.model.IndicatorValue;
 import dev.jwtly10.core.model.Instrument;
 import org.junit.jupiter.api.Test;
@@ -81,4 +82,22 @@ class AsyncIndicatorsEventTest {
 
         assertTrue(event.getIndicators().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHistoryBackedIndicatorsAreSnapshotted() {
+        IndicatorHistory history = new IndicatorHistory();
+        history.add(0.0, ZonedDateTime.now());
+        history.add(1.0, ZonedDateTime.now());
+        history.add(2.0, ZonedDateTime.now());
+        Map<String, List<IndicatorValue>> indicators = new HashMap<>();
+        indicators.put("SMA", history.asList());
+
+        AsyncIndicatorsEvent event = new AsyncIndicatorsEvent("testStrategy", Instrument.NAS100USD, indicators);
+        history.add(3.0, ZonedDateTime.now());
+
+        List<IndicatorValue> values = event.getIndicators().get("SMA");
+        assertEquals(2, values.size());
+        assertEquals(1.0, values.get(0).getValue());
+        assertEquals(2.0, values.get(1).getValue());
+    }
+}
@@ -0,0 +1,222 @@
+package dev.jwtly10.core.event.wire;
+
+import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.event.EventPayloadEncoder;
+import dev.jwtly10.core.event.types.async.AsyncBarSeriesEvent;
+import dev.jwtly10.core.event.types.async.AsyncIndicatorsEvent;
+import dev.jwtly10.core.event.types.async.AsyncTradesEvent;
+import dev.jwtly10.core.indicators.IndicatorHistory;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEventCodecTest {
+    private static final ZonedDateTime START = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    @Test
+    void testPrimitivesRoundTrip() {
+        BinaryWriter writer = new BinaryWriter(16);
+        writer.writeVarLong(0);
+        writer.writeVarLong(300);
+        writer.writeVarLong(Long.MAX_VALUE);
+        writer.writeZigZag(-1);
+        writer.writeZigZag(Long.MIN_VALUE);
+        writer.writeString("EUR_USD");
+        writer.writeString(null);
+        writer.writeString("");
+        long[] times = {1_000, 61_000, 121_000, 181_000, 90_000, Long.MIN_VALUE};
+        writer.writeTimestamps(times, times.length);
+        double[] doubles = {1.08321, 1.08321, 1.08325, -2.5, Double.NaN, 0, Double.MAX_VALUE};
+        writer.writeDoubles(doubles, doubles.length);
+        boolean[] booleans = {true, false, false, true, true, false, true, false, true};
+        writer.writeBooleans(booleans, booleans.length);
+
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertEquals(0, reader.readVarLong());
+        assertEquals(300, reader.readVarLong());
+        assertEquals(Long.MAX_VALUE, reader.readVarLong());
+        assertEquals(-1, reader.readZigZag());
+        assertEquals(Long.MIN_VALUE, reader.readZigZag());
+        assertEquals("EUR_USD", reader.readString());
+        assertNull(reader.readString());
+        assertEquals("", reader.readString());
+        assertArrayEquals(times, reader.readTimestamps(times.length));
+        assertArrayEquals(doubles, reader.readDoubles(doubles.length));
+        assertArrayEquals(booleans, reader.readBooleans(booleans.length));
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    void testDecimalColumnsAreScaledAndOthersXorEncoded() {
+        double[] prices = {1.08321, 1.08325, Double.NaN, 1.0831, 0, 1.08299};
+        // -0.0 would decode as 0.0 once scaled, so it has to be XOR encoded to round trip exactly
+        double[] irrational = {Math.PI, Math.E, 1.1, -0.0};
+        assertEquals(5, BinaryWriter.decimalsOf(prices, prices.length));
+        assertEquals(-1, BinaryWriter.decimalsOf(irrational, irrational.length));
+
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeDoubles(prices, prices.length);
+        int decimalSize = writer.size();
+        writer.writeDoubles(irrational, irrational.length);
+
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertArrayEquals(prices, reader.readDoubles(prices.length));
+        assertArrayEquals(irrational, reader.readDoubles(irrational.length));
+        assertFalse(reader.hasRemaining());
+        // Header, missing flag, missing bitset, then ~3 bytes for the first price and 1-2 bytes per delta
+        assertTrue(decimalSize <= 14, "Size was " + decimalSize);
+    }
+
+    @Test
+    void testRegularTimestampsCostOneByteEach() {
+        long[] times = new long[1000];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = 1_700_000_000_000L + i * 60_000L;
+        }
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeTimestamps(times, times.length);
+
+        // First value and first delta are large, everything after is a zero delta-of-delta
+        assertTrue(writer.size() < times.length + 16, "Size was " + writer.size());
+    }
+
+    @Test
+    void testBarSeriesRoundTrip() {
+        BarSeries series = bars(500);
+        AsyncBarSeriesEvent event = new AsyncBarSeriesEvent("Testing", Instrument.EURUSD, series);
+
+        BinaryFrame.BarSeriesFrame frame = (BinaryFrame.BarSeriesFrame) BinaryEventCodec.decode(ByteBuffer.wrap(BinaryEventCodec.encode(event)));
+
+        assertEquals("Testing", frame.strategyId());
+        assertEquals("EURUSD", frame.instrument());
+        assertEquals(60, frame.timePeriodSeconds());
+        assertEquals(500, frame.size());
+        // The last bar is still open
+        assertEquals(BinaryEventCodec.NO_TIME, frame.closeTimes()[499]);
+        for (int i = 0; i < frame.size(); i++) {
+            Bar bar = series.getBars().get(i);
+            assertEquals(bar.getOpenTime().toInstant().toEpochMilli(), frame.openTimes()[i]);
+            long closeTime = bar.getCloseTime() == null ? BinaryEventCodec.NO_TIME : bar.getCloseTime().toInstant().toEpochMilli();
+            assertEquals(closeTime, frame.closeTimes()[i]);
+            assertEquals(bar.getOpen().doubleValue(), frame.open()[i]);
+            assertEquals(bar.getHigh().doubleValue(), frame.high()[i]);
+            assertEquals(bar.getLow().doubleValue(), frame.low()[i]);
+            assertEquals(bar.getClose().doubleValue(), frame.close()[i]);
+            assertEquals(bar.getVolume().doubleValue(), frame.volume()[i]);
+        }
+    }
+
+    @Test
+    void testTradesRoundTrip() {
+        Map<Integer, Trade> trades = new LinkedHashMap<>();
+        Trade closed = new Trade(1, Instrument.EURUSD, 1.5, START, new Number(1.1), new Number(1.09), new Number(1.12), true);
+        closed.setClosePrice(new Number(1.12));
+        closed.setCloseTime(START.plusHours(2));
+        closed.setProfit(300);
+        trades.put(1, closed);
+        Trade open = new Trade(2, Instrument.EURUSD, 0.5, START.plusHours(3), new Number(1.11), null, null, false);
+        trades.put(2, open);
+
+        AsyncTradesEvent event = new AsyncTradesEvent("Testing", Instrument.EURUSD, trades);
+        BinaryFrame.TradesFrame frame = (BinaryFrame.TradesFrame) BinaryEventCodec.decode(ByteBuffer.wrap(BinaryEventCodec.encode(event)));
+
+        assertEquals(2, frame.size());
+        assertArrayEquals(new long[]{1, 2}, frame.ids());
+        assertArrayEquals(new boolean[]{true, false}, frame.isLong());
+        assertArrayEquals(new double[]{1.5, 0.5}, frame.quantity());
+        assertEquals(1.1, frame.entryPrice()[0]);
+        assertEquals(1.09, frame.stopLoss()[0]);
+        assertTrue(Double.isNaN(frame.stopLoss()[1]));
+        assertTrue(Double.isNaN(frame.takeProfit()[1]));
+        assertEquals(1.12, frame.closePrice()[0]);
+        assertEquals(300, frame.profit()[0]);
+        assertEquals(START.toInstant().toEpochMilli(), frame.openTimes()[0]);
+        assertEquals(START.plusHours(2).toInstant().toEpochMilli(), frame.closeTimes()[0]);
+        assertEquals(BinaryEventCodec.NO_TIME, frame.closeTimes()[1]);
+    }
+
+    @Test
+    void testIndicatorsRoundTrip() {
+        IndicatorHistory history = new IndicatorHistory();
+        for (int i = 0; i < 100; i++) {
+            history.add(1.1 + i * 0.0001, START.plusMinutes(i));
+        }
+        Map<String, List<IndicatorValue>> indicators = new LinkedHashMap<>();
+        indicators.put("SMA 14", history.asList());
+        indicators.put("Plain", List.of(new IndicatorValue(5.5, START), new IndicatorValue(6.5, START.plusMinutes(1))));
+
+        AsyncIndicatorsEvent event = new AsyncIndicatorsEvent("Testing", Instrument.EURUSD, indicators);
+        BinaryFrame.IndicatorsFrame frame = (BinaryFrame.IndicatorsFrame) BinaryEventCodec.decode(ByteBuffer.wrap(BinaryEventCodec.encode(event)));
+
+        assertEquals(List.of("SMA 14", "Plain"), List.copyOf(frame.indicators().keySet()));
+        BinaryFrame.Series sma = frame.indicators().get("SMA 14");
+        assertEquals(100, sma.values().length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(history.valueAt(i), sma.values()[i]);
+            assertEquals(history.timeAt(i), sma.times()[i]);
+        }
+        BinaryFrame.Series plain = frame.indicators().get("Plain");
+        assertArrayEquals(new double[]{5.5, 6.5}, plain.values());
+        assertEquals(START.plusMinutes(1).toInstant().toEpochMilli(), plain.times()[1]);
+    }
+
+    @Test
+    void testUnsupportedEventNotEncoded() {
+        BaseEvent event = new BaseEvent("Testing", "TEST_EVENT", Instrument.EURUSD) {
+        };
+
+        assertFalse(BinaryEventCodec.supports(event));
+        assertNull(BinaryEventCodec.encode(event));
+    }
+
+    @Test
+    void testEventBinaryPayloadCachedAndSmallerThanJson() throws Exception {
+        AsyncBarSeriesEvent event = new AsyncBarSeriesEvent("Testing", Instrument.EURUSD, bars(5_000));
+
+        ByteBuffer binary = event.toBinaryWirePayload();
+        ByteBuffer json = event.toWirePayload();
+
+        assertTrue(binary.isReadOnly());
+        assertEquals(EventPayloadEncoder.FLAG_BINARY, binary.get(0));
+        assertTrue(binary.remaining() < json.remaining(), "Binary " + binary.remaining() + " vs JSON " + json.remaining());
+        assertTrue(binary.remaining() < event.toJson().getBytes(StandardCharsets.UTF_8).length / 5);
+
+        binary.get(new byte[binary.remaining()]);
+        assertEquals(0, event.toBinaryWirePayload().position());
+    }
+
+    @Test
+    void testRejectsNonBinaryPayload() {
+        ByteBuffer payload = ByteBuffer.wrap(new byte[]{EventPayloadEncoder.FLAG_UNCOMPRESSED, '{', '}'});
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryEventCodec.decode(payload));
+    }
+
+    private static BarSeries bars(int count) {
+        DefaultBarSeries series = new DefaultBarSeries(count);
+        double price = 1.1;
+        for (int i = 0; i < count; i++) {
+            double next = price + ((i * 7919) % 11 - 5) * 0.00001;
+            DefaultBar bar = new DefaultBar(Instrument.EURUSD, Duration.ofMinutes(1), START.plusMinutes(i),
+                    new Number(price), new Number(Math.max(price, next) + 0.00002), new Number(Math.min(price, next) - 0.00002),
+                    new Number(next), new Number(100 + i % 50));
+            if (i < count - 1) {
+                bar.setCloseTime(START.plusMinutes(i + 1));
+            }
+            series.addBar(bar);
+            price = next;
+        }
+        return series;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.jwtly10.core.event.wire;
+
+import dev.jwtly10.core.event.EventPayloadEncoder;
+import dev.jwtly10.core.event.types.async.AsyncBarSeriesEvent;
+import dev.jwtly10.core.model.DefaultBar;
+import dev.jwtly10.core.model.DefaultBarSeries;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the JSON (+ gzip) wire format against the {@link BinaryEventCodec}, encoding a full
+ * {@link AsyncBarSeriesEvent}. Payload sizes for each format are printed during setup.
+ *
+ * <p>
+ * Not run as part of the test suite. Run with:
+ * {@code mvn -pl algotrade4j-core test-compile exec:java -Dexec.mainClass=dev.jwtly10.core.event.wire.WireProtocolBenchmark -Dexec.classpathScope=test}
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireProtocolBenchmark {
+
+    @Param({"10000", "100000"})
+    private int barCount;
+
+    private AsyncBarSeriesEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        DefaultBarSeries series = new DefaultBarSeries(barCount);
+        ZonedDateTime time = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+        double price = 1.1;
+        for (int i = 0; i < barCount; i++) {
+            double next = price + (Math.sin(i) * 5) * 0.00001;
+            series.addBar(new DefaultBar(Instrument.EURUSD, Duration.ofMinutes(1), time.plusMinutes(i),
+                    new Number(price), new Number(Math.max(price, next) + 0.00003), new Number(Math.min(price, next) - 0.00003),
+                    new Number(next), new Number(100 + i % 250)));
+            price = next;
+        }
+        event = new AsyncBarSeriesEvent("Benchmark", Instrument.EURUSD, series);
+
+        byte[] json = event.toJson().getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%n%d bars: JSON %d bytes, JSON+gzip %d bytes, binary %d bytes%n",
+                barCount, json.length, EventPayloadEncoder.encode(json).remaining(), BinaryEventCodec.encode(event).length);
+    }
+
+    @Benchmark
+    public ByteBuffer json() throws Exception {
+        return EventPayloadEncoder.encode(event.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return BinaryEventCodec.encode(event);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(WireProtocolBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
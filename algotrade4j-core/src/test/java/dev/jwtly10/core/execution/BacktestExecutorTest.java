@@ -61,6 +61,7 @@ class BacktestExecutorTest {
 
     @Test
     void testInitialisation() {
+        when(eventPublisher.hasSubscribers(LogEvent.class, "testStrategy")).thenReturn(true);
         assertFalse(backtestExecutor.isInitialised());
         backtestExecutor.initialise();
         assertTrue(backtestExecutor.isInitialised());
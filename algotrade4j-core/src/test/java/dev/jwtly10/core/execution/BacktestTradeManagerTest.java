@@ -10,6 +10,9 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static dev.jwtly10.core.model.Instrument.NAS100USD;
 import static org.junit.jupiter.api.Assertions.*;
@@ -253,33 +256,79 @@ class BacktestTradeManagerTest {
     }
 
     @Test
-    void testOpenPositionValue() {
-        Trade trade1 = new Trade(
-                NAS100USD,
-                0.5,
-                new Number("10"),
-                ZonedDateTime.now(),
-                new Number("8"),
-                new Number("12"),
-                true
-        );
-        trade1.setProfit(10);
-
-        Trade trade2 = new Trade(
-                NAS100USD,
-                0.5,
-                new Number("10"),
-                ZonedDateTime.now(),
-                new Number("12"),
-                new Number("8"),
-                false
-        );
-        trade2.setProfit(20);
-
-        backtestTradeManager.getOpenTrades().put(1, trade1);
-        backtestTradeManager.getOpenTrades().put(2, trade2);
-
-        assertEquals(30, backtestTradeManager.getOpenPositionValue(SYMBOL));
+    void testTradeIdsAreAllocatedPerRun() {
+        BacktestTradeManager otherRun = new BacktestTradeManager(TEST_BROKER, mockCurrentTick, mockBarSeries, "OtherRun", mockEventPublisher);
+        when(mockCurrentTick.getBid()).thenReturn(new Number("10"));
+        when(mockCurrentTick.getAsk()).thenReturn(new Number("10"));
+
+        assertEquals(1, backtestTradeManager.openLong(longParams()).getId());
+        assertEquals(1, otherRun.openLong(longParams()).getId());
+        assertEquals(2, backtestTradeManager.openLong(longParams()).getId());
+    }
+
+    @Test
+    void testClosedTradesMoveToLedger() {
+        when(mockCurrentTick.getBid()).thenReturn(new Number("10"));
+        when(mockCurrentTick.getAsk()).thenReturn(new Number("10"));
+        int closedId = backtestTradeManager.openLong(longParams()).getId();
+        int openId = backtestTradeManager.openLong(longParams()).getId();
+        backtestTradeManager.setCurrentTick(new DefaultTick(SYMBOL, new Number("14"), new Number("12"), new Number("10"), new Number("100"), ZonedDateTime.now()));
+
+        backtestTradeManager.closePosition(closedId, true);
+
+        assertEquals(1, backtestTradeManager.getClosedTradeCount());
+        assertEquals(Set.of(openId), backtestTradeManager.getOpenTrades().keySet());
+        assertEquals(Set.of(closedId, openId), backtestTradeManager.getAllTrades().keySet());
+        assertEquals(new Number("14"), backtestTradeManager.getTrade(closedId).getClosePrice());
+        assertEquals(2, backtestTradeManager.getTrade(closedId).getProfit());
+        assertSame(backtestTradeManager.getOpenTrades().get(openId), backtestTradeManager.getTrade(openId));
+    }
+
+    @Test
+    void testPositionBookFollowsOpenTrades() throws Exception {
+        when(mockCurrentTick.getBid()).thenReturn(new Number("10"));
+        when(mockCurrentTick.getAsk()).thenReturn(new Number("10"));
+        TradeParameters longParams = longParams();
+        longParams.setQuantity(2);
+        backtestTradeManager.openLong(longParams);
+        TradeParameters shortParams = longParams();
+        shortParams.setStopLoss(new Number("12"));
+        shortParams.setQuantity(1);
+        int shortId = backtestTradeManager.openShort(shortParams).getId();
+
+        backtestTradeManager.setCurrentTick(new DefaultTick(SYMBOL, new Number("15"), new Number("15.5"), new Number("16"), new Number("100"), ZonedDateTime.now()));
+
+        // Long: (15 - 10) * 2, short: (10 - 16) * 1
+        assertEquals(4, backtestTradeManager.getPositionBook().getUnrealizedProfit(SYMBOL), 1e-9);
+        assertEquals(4, backtestTradeManager.getPositionBook().getUnrealizedProfit(), 1e-9);
+
+        backtestTradeManager.closePosition(shortId, true);
+
+        assertEquals(10, backtestTradeManager.getPositionBook().getUnrealizedProfit(SYMBOL), 1e-9);
+        assertEquals(2, backtestTradeManager.getPositionBook().getNetQuantity(SYMBOL));
+    }
+
+    @Test
+    void testOpenPositionValue() throws Exception {
+        when(mockCurrentTick.getBid()).thenReturn(new Number("10"));
+        when(mockCurrentTick.getAsk()).thenReturn(new Number("10"));
+        Trade first = backtestTradeManager.openLong(longParams());
+        Trade second = backtestTradeManager.openLong(longParams());
+        first.setProfit(10);
+        second.setProfit(20);
+
+        // The sum of the open trades' profits, as last updated by the trade state manager
+        assertEquals(30, backtestTradeManager.getOpenPositionValue(SYMBOL), 1e-9);
+    }
+
+    @Test
+    void testOpenTradesAreReadOnly() throws Exception {
+        when(mockCurrentTick.getBid()).thenReturn(new Number("10"));
+        when(mockCurrentTick.getAsk()).thenReturn(new Number("10"));
+        Trade trade = backtestTradeManager.openLong(longParams());
+
+        assertThrows(UnsupportedOperationException.class, () -> backtestTradeManager.getOpenTrades().remove(trade.getId()));
+        assertEquals(1, backtestTradeManager.getOpenTrades().size());
     }
 
     @Test
@@ -325,4 +374,104 @@ class BacktestTradeManagerTest {
 
         assertThrows(IllegalStateException.class, () -> backtestTradeManager.closePosition(tradeId, false));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAsyncOrdersCompleteOnTheCallingThread() {
+        when(mockCurrentTick.getBid()).thenReturn(new Number("10"));
+        when(mockCurrentTick.getAsk()).thenReturn(new Number("10"));
+
+        CompletableFuture<Trade> first = backtestTradeManager.openLongAsync(longParams());
+        CompletableFuture<Trade> second = backtestTradeManager.openLongAsync(longParams());
+        TradeParameters invalidParams = longParams();
+        invalidParams.setQuantity(-1);
+        CompletableFuture<Trade> invalid = backtestTradeManager.openLongAsync(invalidParams);
+
+        assertTrue(first.isDone());
+        assertEquals(2, backtestTradeManager.getOpenTrades().size());
+        assertTrue(invalid.isCompletedExceptionally());
+
+        Map<Integer, CompletableFuture<Void>> closes = backtestTradeManager.closeAllPositionsAsync(true);
+
+        assertEquals(Set.of(first.join().getId(), second.join().getId()), closes.keySet());
+        assertTrue(closes.values().stream().allMatch(close -> close.isDone() && !close.isCompletedExceptionally()));
+        assertTrue(backtestTradeManager.getOpenTrades().isEmpty());
+        assertTrue(backtestTradeManager.closePositionAsync(first.join().getId(), true).isCompletedExceptionally());
+    }
+
+    @Test
+    void testPendingOrdersFillWhenCrossed() {
+        ZonedDateTime start = ZonedDateTime.now();
+        when(mockCurrentTick.getDateTime()).thenReturn(start);
+        TradeParameters limitParams = longParams();
+        limitParams.setEntryPrice(new Number("9"));
+        limitParams.setQuantity(1);
+        PendingOrder limit = backtestTradeManager.placeLongOrder(PendingOrder.Type.LIMIT, limitParams, null);
+        TradeParameters stopParams = longParams();
+        stopParams.setEntryPrice(new Number("11"));
+        stopParams.setQuantity(1);
+        PendingOrder stop = backtestTradeManager.placeLongOrder(PendingOrder.Type.STOP, stopParams, null);
+
+        backtestTradeManager.setCurrentTick(tick("10", "10.1", start.plusMinutes(1)));
+
+        assertEquals(2, backtestTradeManager.getPendingOrders().size());
+        assertTrue(backtestTradeManager.getOpenTrades().isEmpty());
+
+        // Gaps below the limit price, so the limit fills at the better ask
+        backtestTradeManager.setCurrentTick(tick("8.7", "8.8", start.plusMinutes(2)));
+
+        assertEquals(PendingOrder.Status.FILLED, limit.getStatus());
+        Trade limitTrade = backtestTradeManager.getTrade(limit.getTradeId());
+        assertEquals(new Number("8.8"), limitTrade.getEntryPrice());
+        assertEquals(start.plusMinutes(2), limitTrade.getOpenTime());
+        assertEquals(Set.of(stop.getId()), backtestTradeManager.getPendingOrders().keySet());
+
+        // Moves through the stop price, so the stop fills with slippage past it
+        backtestTradeManager.setCurrentTick(tick("11.4", "11.5", start.plusMinutes(3)));
+
+        assertEquals(PendingOrder.Status.FILLED, stop.getStatus());
+        assertEquals(new Number("11.05"), backtestTradeManager.getTrade(stop.getTradeId()).getEntryPrice());
+        assertTrue(backtestTradeManager.getPendingOrders().isEmpty());
+        assertEquals(2, backtestTradeManager.getOpenTrades().size());
+        verify(mockEventPublisher, times(2)).publishEvent(argThat(event -> event instanceof TradeEvent tradeEvent && tradeEvent.getAction() == TradeEvent.Action.OPEN));
+    }
+
+    @Test
+    void testPendingOrdersExpireAndCancel() {
+        ZonedDateTime start = ZonedDateTime.now();
+        when(mockCurrentTick.getDateTime()).thenReturn(start);
+        TradeParameters expiringParams = longParams();
+        expiringParams.setEntryPrice(new Number("12"));
+        expiringParams.setStopLoss(new Number("14"));
+        PendingOrder expiring = backtestTradeManager.placeShortOrder(PendingOrder.Type.LIMIT, expiringParams, start.plusHours(1));
+        TradeParameters cancelledParams = longParams();
+        cancelledParams.setEntryPrice(new Number("9"));
+        PendingOrder cancelled = backtestTradeManager.placeLongOrder(PendingOrder.Type.LIMIT, cancelledParams, null);
+
+        assertTrue(backtestTradeManager.cancelOrder(cancelled.getId()));
+        assertFalse(backtestTradeManager.cancelOrder(cancelled.getId()));
+        backtestTradeManager.setCurrentTick(tick("10", "10.1", start.plusHours(1)));
+        // Would have triggered both orders
+        backtestTradeManager.setCurrentTick(tick("8.8", "8.9", start.plusHours(2)));
+        backtestTradeManager.setCurrentTick(tick("12.5", "12.6", start.plusHours(3)));
+
+        assertEquals(PendingOrder.Status.EXPIRED, expiring.getStatus());
+        assertEquals(PendingOrder.Status.CANCELLED, cancelled.getStatus());
+        assertTrue(backtestTradeManager.getPendingOrders().isEmpty());
+        assertTrue(backtestTradeManager.getOpenTrades().isEmpty());
+    }
+
+    private Tick tick(String bid, String ask, ZonedDateTime dateTime) {
+        return new DefaultTick(SYMBOL, new Number(bid), new Number(bid).add(new Number(ask)).divide(2), new Number(ask), new Number("100"), dateTime);
+    }
+
+    private TradeParameters longParams() {
+        TradeParameters params = new TradeParameters();
+        params.setInstrument(SYMBOL);
+        params.setEntryPrice(new Number("10"));
+        params.setStopLoss(new Number("8"));
+        params.setRiskRatio(2);
+        params.setRiskPercentage(1);
+        params.setBalanceToRisk(100);
+        return params;
+    }
+}
@@ -36,9 +36,32 @@ class BacktestTradeStateManagerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(mockEventPublisher.hasSubscribers(any(), eq("Test"))).thenReturn(true);
         tradeStateManager = new BacktestTradeStateManager("Test", mockEventPublisher);
     }
 
+    @Test
+    void updateTradeProfitStateOnTick_skipsEventsWithoutSubscribers() {
+        when(mockEventPublisher.hasSubscribers(any(), eq("Test"))).thenReturn(false);
+        ConcurrentHashMap<Integer, Trade> openTrades = new ConcurrentHashMap<>();
+        Trade longTrade = new Trade(NAS100USD, 1, new Number("1.2000"), ZonedDateTime.now(), new Number("1.1900"), new Number("1.2100"), true);
+        openTrades.put(1, longTrade);
+
+        when(tradeManager.getOpenTrades()).thenReturn(openTrades);
+        when(tick.getBid()).thenReturn(new Number("1.2050"));
+        when(tick.getAsk()).thenReturn(new Number("1.3950"));
+        when(accountManager.getInitialBalance()).thenReturn(1000.00);
+        when(accountManager.getEquity()).thenReturn(1000.00);
+        when(accountManager.getBalance()).thenReturn(1000.00);
+
+        tradeStateManager.updateTradeProfitStateOnTick(tradeManager, tick);
+        tradeStateManager.updateAccountEquityOnTick(accountManager, tradeManager);
+
+        // State is still updated, just no events are built
+        verify(mockEventPublisher, never()).publishEvent(any());
+        verify(accountManager).setEquity(1000.00 + longTrade.getProfit());
+    }
+
     @Test
     void updateTradeProfitStateOnTick_updatesTrades() {
         ConcurrentHashMap<Integer, Trade> openTrades = new ConcurrentHashMap<>();
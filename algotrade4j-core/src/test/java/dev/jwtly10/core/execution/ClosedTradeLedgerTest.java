@@ -0,0 +1,95 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.jwtly10.core.model.Instrument.EURUSD;
+import static dev.jwtly10.core.model.Instrument.NAS100USD;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClosedTradeLedgerTest {
+
+    private static final ZonedDateTime OPEN_TIME = ZonedDateTime.of(2024, 3, 1, 9, 30, 0, 0, ZoneId.of("America/New_York"));
+
+    @Test
+    void testRecreatesClosedTrades() {
+        ClosedTradeLedger ledger = new ClosedTradeLedger();
+        Trade original = closedTrade(7, true, -12.34567);
+
+        ledger.add(original);
+        Trade recreated = ledger.get(7);
+
+        assertNotSame(original, recreated);
+        assertEquals(original.getId(), recreated.getId());
+        assertEquals(original.getInstrument(), recreated.getInstrument());
+        assertEquals(original.isLong(), recreated.isLong());
+        assertEquals(original.getQuantity(), recreated.getQuantity());
+        assertEquals(original.getEntryPrice(), recreated.getEntryPrice());
+        assertEquals(original.getStopLoss(), recreated.getStopLoss());
+        assertEquals(original.getTakeProfit(), recreated.getTakeProfit());
+        assertEquals(original.getClosePrice(), recreated.getClosePrice());
+        assertEquals(original.getProfit(), recreated.getProfit());
+        assertEquals(original.getOpenTime(), recreated.getOpenTime());
+        assertEquals(original.getCloseTime(), recreated.getCloseTime());
+    }
+
+    @Test
+    void testHandlesManyTradesInCloseOrder() {
+        ClosedTradeLedger ledger = new ClosedTradeLedger();
+        // Closed in reverse order of opening
+        for (int id = 10_000; id >= 1; id--) {
+            ledger.add(closedTrade(id, id % 2 == 0, id));
+        }
+
+        assertEquals(10_000, ledger.size());
+        assertEquals(5000, ledger.get(5000).getProfit());
+        assertEquals(10_000, ledger.getProfit(0));
+        assertTrue(ledger.get(5000).isLong());
+        assertNull(ledger.get(10_001));
+        assertNull(ledger.get(0));
+
+        List<Integer> ids = new ArrayList<>();
+        ledger.forEach(trade -> ids.add(trade.getId()));
+        assertEquals(10_000, ids.getFirst());
+        assertEquals(1, ids.getLast());
+    }
+
+    @Test
+    void testMissingValuesAreKept() {
+        ClosedTradeLedger ledger = new ClosedTradeLedger();
+        Trade trade = new Trade(1, EURUSD, 1000, null, new Number("1.10000"), null, null, false);
+        trade.setClosePrice(new Number("1.10100"));
+
+        ledger.add(trade);
+
+        Trade recreated = ledger.get(1);
+        assertNull(recreated.getOpenTime());
+        assertNull(recreated.getCloseTime());
+        assertNull(recreated.getStopLoss());
+        assertNull(recreated.getTakeProfit());
+        assertEquals(new Number("1.10100"), recreated.getClosePrice());
+    }
+
+    @Test
+    void testRejectsDuplicateTrades() {
+        ClosedTradeLedger ledger = new ClosedTradeLedger();
+        ledger.add(closedTrade(1, true, 5));
+
+        assertThrows(IllegalArgumentException.class, () -> ledger.add(closedTrade(1, true, 5)));
+        assertEquals(1, ledger.size());
+    }
+
+    private Trade closedTrade(int id, boolean isLong, double profit) {
+        Trade trade = new Trade(id, NAS100USD, 0.5, OPEN_TIME.plusMinutes(id), new Number("18012.34567"), new Number("17900.1"), new Number("18250.75"), isLong);
+        trade.setClosePrice(new Number("18100.00001"));
+        trade.setCloseTime(OPEN_TIME.plusMinutes(id).plusSeconds(90));
+        trade.setProfit(profit);
+        return trade;
+    }
+}
@@ -0,0 +1,65 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.PendingOrder;
+import dev.jwtly10.core.model.TradeParameters;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static dev.jwtly10.core.model.Instrument.NAS100USD;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingOrderBookTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.now();
+
+    @Test
+    void testOnlyCrossedOrdersAreTriggered() {
+        PendingOrderBook book = new PendingOrderBook();
+        PendingOrder longLimit = order(1, PendingOrder.Type.LIMIT, "95", true, null);
+        PendingOrder deepLongLimit = order(2, PendingOrder.Type.LIMIT, "90", true, null);
+        PendingOrder longStop = order(3, PendingOrder.Type.STOP, "105", true, null);
+        PendingOrder shortLimit = order(4, PendingOrder.Type.LIMIT, "105", false, null);
+        PendingOrder shortStop = order(5, PendingOrder.Type.STOP, "94", false, null);
+        List.of(longLimit, deepLongLimit, longStop, shortLimit, shortStop).forEach(book::add);
+
+        assertEquals(List.of(), book.removeTriggered(new Number("99"), new Number("101")));
+
+        // Falls to 94/95, crossing the long limit at 95 and the short stop at 94
+        assertEquals(List.of(longLimit, shortStop), book.removeTriggered(new Number("94"), new Number("95")));
+        assertEquals(3, book.size());
+
+        // Rises to 105/106, crossing the long stop and short limit at 105
+        assertEquals(List.of(longStop, shortLimit), book.removeTriggered(new Number("105"), new Number("106")));
+        assertEquals(1, book.size());
+
+        assertTrue(book.remove(deepLongLimit));
+        assertFalse(book.remove(deepLongLimit));
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    void testExpiredOrdersAreRemoved() {
+        PendingOrderBook book = new PendingOrderBook();
+        PendingOrder first = order(1, PendingOrder.Type.LIMIT, "95", true, START.plusHours(2));
+        PendingOrder second = order(2, PendingOrder.Type.STOP, "105", true, START.plusHours(1));
+        PendingOrder neverExpires = order(3, PendingOrder.Type.LIMIT, "90", true, null);
+        List.of(first, second, neverExpires).forEach(book::add);
+
+        assertEquals(List.of(), book.removeExpired(START.plusMinutes(59)));
+        assertEquals(List.of(second), book.removeExpired(START.plusHours(1)));
+        // A triggered order is no longer waiting to expire
+        assertEquals(List.of(first), book.removeTriggered(new Number("94"), new Number("95")));
+        assertEquals(List.of(), book.removeExpired(START.plusDays(1)));
+        assertEquals(1, book.size());
+    }
+
+    private PendingOrder order(int id, PendingOrder.Type type, String price, boolean isLong, ZonedDateTime expiry) {
+        TradeParameters params = new TradeParameters();
+        params.setInstrument(NAS100USD);
+        params.setEntryPrice(new Number(price));
+        return new PendingOrder(id, type, params, isLong, START, expiry);
+    }
+}
@@ -0,0 +1,112 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static dev.jwtly10.core.model.Instrument.EURUSD;
+import static dev.jwtly10.core.model.Instrument.NAS100USD;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionBookTest {
+
+    @Test
+    void testAggregatesPositionsPerInstrumentAndDirection() {
+        PositionBook book = new PositionBook();
+        book.onOpen(trade(1, NAS100USD, 1, "100", true));
+        book.onOpen(trade(2, NAS100USD, 3, "104", true));
+        book.onOpen(trade(3, NAS100USD, 2, "110", false));
+        book.onOpen(trade(4, EURUSD, 1000, "1.1", true));
+
+        assertEquals(4, book.getQuantity(NAS100USD, true));
+        assertEquals(2, book.getQuantity(NAS100USD, false));
+        assertEquals(2, book.getNetQuantity(NAS100USD));
+        assertEquals(6, book.getGrossQuantity(NAS100USD));
+        assertEquals(103, book.getAverageEntryPrice(NAS100USD, true), 1e-9);
+        assertEquals(110, book.getAverageEntryPrice(NAS100USD, false), 1e-9);
+        assertEquals(2, book.getTradeCount(NAS100USD, true));
+        assertTrue(Double.isNaN(book.getAverageEntryPrice(EURUSD, false)));
+        // Nothing is marked yet
+        assertEquals(0, book.getUnrealizedProfit());
+    }
+
+    @Test
+    void testUnrealizedProfitFollowsMarks() {
+        PositionBook book = new PositionBook();
+        book.onOpen(trade(1, NAS100USD, 1, "100", true));
+        book.onOpen(trade(2, NAS100USD, 2, "110", false));
+        book.onOpen(trade(3, EURUSD, 1000, "1.1", true));
+
+        book.mark(NAS100USD, new Number("105"), new Number("106"));
+
+        // Long: (105 - 100) * 1, short: (110 - 106) * 2
+        assertEquals(13, book.getUnrealizedProfit(NAS100USD), 1e-9);
+        assertEquals(13, book.getUnrealizedProfit(), 1e-9);
+
+        book.mark(EURUSD, new Number("1.2"), new Number("1.2001"));
+
+        assertEquals(100, book.getUnrealizedProfit(EURUSD), 1e-9);
+        assertEquals(113, book.getUnrealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void testClosingEveryTradeLeavesNoPosition() {
+        PositionBook book = new PositionBook();
+        Trade first = trade(1, NAS100USD, 0.3, "100.1", true);
+        Trade second = trade(2, NAS100USD, 0.7, "100.3", true);
+        book.onOpen(first);
+        book.onOpen(second);
+        book.mark(NAS100USD, new Number("101"), new Number("101"));
+
+        book.onClose(first);
+        assertEquals(0.7, book.getQuantity(NAS100USD, true), 1e-9);
+        assertEquals(0.49, book.getUnrealizedProfit(), 1e-9);
+
+        book.onClose(second);
+        assertEquals(0, book.getQuantity(NAS100USD, true));
+        assertEquals(0, book.getUnrealizedProfit());
+        assertThrows(IllegalStateException.class, () -> book.onClose(second));
+    }
+
+    @Test
+    void testMatchesSumOfTradeProfits() {
+        PositionBook book = new PositionBook();
+        Random random = new Random(42);
+        List<Trade> open = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (!open.isEmpty() && random.nextInt(3) == 0) {
+                book.onClose(open.remove(random.nextInt(open.size())));
+            } else {
+                Trade trade = trade(i, NAS100USD, random.nextInt(100) / 10.0 + 0.1, String.valueOf(18000 + random.nextInt(1000)), random.nextBoolean());
+                book.onOpen(trade);
+                open.add(trade);
+            }
+        }
+
+        Number bid = new Number("18500.5");
+        Number ask = new Number("18501.25");
+        book.mark(NAS100USD, bid, ask);
+
+        double expected = open.stream()
+                .mapToDouble(trade -> trade.isLong()
+                        ? bid.subtract(trade.getEntryPrice()).doubleValue() * trade.getQuantity()
+                        : trade.getEntryPrice().subtract(ask).doubleValue() * trade.getQuantity())
+                .sum();
+        assertEquals(expected, book.getUnrealizedProfit(), 1e-6);
+
+        PositionBook rebuilt = new PositionBook();
+        rebuilt.mark(NAS100USD, bid, ask);
+        rebuilt.rebuild(open);
+        assertEquals(expected, rebuilt.getUnrealizedProfit(), 1e-6);
+    }
+
+    private Trade trade(int id, Instrument instrument, double quantity, String entryPrice, boolean isLong) {
+        return new Trade(id, instrument, quantity, ZonedDateTime.now(), new Number(entryPrice), null, null, isLong);
+    }
+}
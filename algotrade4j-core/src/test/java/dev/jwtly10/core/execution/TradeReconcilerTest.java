@@ -0,0 +1,123 @@
+package dev.jwtly10.core.execution;
+
+import dev.jwtly10.core.event.types.TradeEvent;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dev.jwtly10.core.model.Instrument.EURUSD;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeReconcilerTest {
+
+    private ConcurrentHashMap<Integer, Trade> allTrades;
+    private ConcurrentHashMap<Integer, Trade> openTrades;
+
+    @BeforeEach
+    void setUp() {
+        allTrades = new ConcurrentHashMap<>();
+        openTrades = new ConcurrentHashMap<>();
+    }
+
+    @Test
+    void testNewTradesAreReportedAsOpenedOrClosed() {
+        Trade open = openTrade(1, 5);
+        Trade closed = closedTrade(2, 10);
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades, List.of(open, closed), Map.of());
+
+        assertEquals(List.of(
+                new TradeReconciler.TradeChange(open, TradeEvent.Action.OPEN),
+                new TradeReconciler.TradeChange(closed, TradeEvent.Action.CLOSE)
+        ), changes);
+        assertEquals(2, allTrades.size());
+        assertEquals(Map.of(1, open), openTrades);
+    }
+
+    @Test
+    void testUnchangedTradesAreNotReported() {
+        TradeReconciler.merge(allTrades, openTrades, List.of(openTrade(1, 5), closedTrade(2, 10)), Map.of());
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades,
+                List.of(openTrade(1, 5), closedTrade(2, 10)), Map.of(1, 5.0));
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void testChangedOpenTradeIsReportedAsUpdated() {
+        TradeReconciler.merge(allTrades, openTrades, List.of(openTrade(1, 5)), Map.of());
+        Trade moved = new Trade(1, EURUSD, 1000, ZonedDateTime.now(), new Number("1.1000"), new Number("1.1050"), new Number("1.1200"), true);
+        moved.setProfit(5);
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades, List.of(moved), Map.of());
+
+        assertEquals(List.of(new TradeReconciler.TradeChange(moved, TradeEvent.Action.UPDATE)), changes);
+        assertSame(moved, openTrades.get(1));
+    }
+
+    @Test
+    void testClosingTradeRemovesItFromOpenTrades() {
+        TradeReconciler.merge(allTrades, openTrades, List.of(openTrade(1, 5)), Map.of());
+        Trade closed = closedTrade(1, 12);
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades, List.of(closed), Map.of());
+
+        assertEquals(List.of(new TradeReconciler.TradeChange(closed, TradeEvent.Action.CLOSE)), changes);
+        assertTrue(openTrades.isEmpty());
+        assertSame(closed, allTrades.get(1));
+    }
+
+    @Test
+    void testClosedTradeIsNotReopenedByStaleData() {
+        TradeReconciler.merge(allTrades, openTrades, List.of(closedTrade(1, 12)), Map.of());
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades, List.of(openTrade(1, 5)), Map.of(1, 6.0));
+
+        assertTrue(changes.isEmpty());
+        assertTrue(openTrades.isEmpty());
+        assertEquals(12, allTrades.get(1).getProfit());
+    }
+
+    @Test
+    void testOpenTradeProfitsUpdateKnownTrades() {
+        Trade first = openTrade(1, 5);
+        Trade second = openTrade(2, 7);
+        TradeReconciler.merge(allTrades, openTrades, List.of(first, second), Map.of());
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades, List.of(), Map.of(1, 8.0, 2, 7.0, 3, 1.0));
+
+        assertEquals(List.of(new TradeReconciler.TradeChange(first, TradeEvent.Action.UPDATE)), changes);
+        assertEquals(8, first.getProfit());
+    }
+
+    @Test
+    void testReportedTradesTakePrecedenceOverOpenTradeProfits() {
+        TradeReconciler.merge(allTrades, openTrades, List.of(openTrade(1, 5)), Map.of());
+        Trade updated = openTrade(1, 9);
+
+        List<TradeReconciler.TradeChange> changes = TradeReconciler.merge(allTrades, openTrades, List.of(updated), Map.of(1, 8.5));
+
+        assertEquals(List.of(new TradeReconciler.TradeChange(updated, TradeEvent.Action.UPDATE)), changes);
+        assertEquals(9, openTrades.get(1).getProfit());
+    }
+
+    private Trade openTrade(int id, double profit) {
+        Trade trade = new Trade(id, EURUSD, 1000, ZonedDateTime.now(), new Number("1.1000"), new Number("1.0900"), new Number("1.1200"), true);
+        trade.setProfit(profit);
+        return trade;
+    }
+
+    private Trade closedTrade(int id, double profit) {
+        Trade trade = openTrade(id, profit);
+        trade.setClosePrice(new Number("1.1100"));
+        trade.setCloseTime(ZonedDateTime.now());
+        return trade;
+    }
+}
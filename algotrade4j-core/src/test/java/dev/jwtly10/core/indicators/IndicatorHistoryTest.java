@@ -0,0 +1,97 @@
+package dev.jwtly10.core.indicators;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jwtly10.core.model.IndicatorValue;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicatorHistoryTest {
+
+    private final ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    @Test
+    void testUnboundedKeepsAllValues() {
+        IndicatorHistory history = new IndicatorHistory();
+        for (int i = 0; i < 1000; i++) {
+            history.add(i, start.plusMinutes(i));
+        }
+
+        assertEquals(1000, history.size());
+        assertEquals(999, history.getLast());
+        assertEquals(999, history.getValue(0));
+        assertEquals(0, history.getValue(999));
+        assertEquals(0, history.valueAt(0));
+    }
+
+    @Test
+    void testRetentionEvictsOldestValues() {
+        IndicatorHistory history = new IndicatorHistory(3);
+        for (int i = 0; i < 5; i++) {
+            history.add(i, start.plusMinutes(i));
+        }
+
+        assertEquals(3, history.size());
+        assertEquals(4, history.getValue(0));
+        assertEquals(2, history.getValue(2));
+        assertEquals(start.plusMinutes(2).toInstant().toEpochMilli(), history.timeAt(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.getValue(3));
+    }
+
+    @Test
+    void testListViewIsBackedByHistory() {
+        IndicatorHistory history = new IndicatorHistory();
+        List<IndicatorValue> view = history.asList();
+        assertTrue(view.isEmpty());
+
+        history.add(1.5, start);
+        history.add(2.5, start.plusMinutes(1));
+
+        assertEquals(2, view.size());
+        assertEquals(1.5, view.get(0).getValue());
+        assertEquals(start.plusMinutes(1), view.get(1).getDateTime());
+        assertThrows(UnsupportedOperationException.class, () -> view.add(new IndicatorValue(1, start)));
+    }
+
+    @Test
+    void testSnapshotExcludesZerosAndIsIndependent() {
+        IndicatorHistory history = new IndicatorHistory();
+        history.add(0, start);
+        history.add(1, start.plusMinutes(1));
+        history.add(0, start.plusMinutes(2));
+        history.add(2, start.plusMinutes(3));
+
+        IndicatorHistory snapshot = history.snapshot(true);
+        history.add(3, start.plusMinutes(4));
+
+        assertEquals(2, snapshot.size());
+        assertEquals(1, snapshot.valueAt(0));
+        assertEquals(2, snapshot.valueAt(1));
+        assertEquals(5, history.size());
+    }
+
+    @Test
+    void testSerialisesLikeIndicatorValues() throws Exception {
+        IndicatorHistory history = new IndicatorHistory(2);
+        history.add(1, start);
+        history.add(2, start.plusMinutes(1));
+        history.add(3, start.plusMinutes(2));
+
+        JsonNode json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(history.asList()));
+
+        assertEquals(2, json.size());
+        assertEquals(2.0, json.get(0).get("value").asDouble());
+        assertEquals(start.plusMinutes(1).toEpochSecond(), json.get(0).get("dateTime").asLong());
+        assertEquals(3.0, json.get(1).get("value").asDouble());
+    }
+
+    @Test
+    void testNegativeRetentionThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new IndicatorHistory(-1));
+    }
+}
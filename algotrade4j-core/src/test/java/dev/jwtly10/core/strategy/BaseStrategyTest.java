@@ -4,6 +4,7 @@ import dev.jwtly10.core.account.AccountManager;
 import dev.jwtly10.core.analysis.PerformanceAnalyser;
 import dev.jwtly10.core.data.DataManager;
 import dev.jwtly10.core.event.EventPublisher;
+import dev.jwtly10.core.event.types.LogEvent;
 import dev.jwtly10.core.execution.TradeManager;
 import dev.jwtly10.core.external.news.StrategyNewsUtil;
 import dev.jwtly10.core.indicators.Indicator;
@@ -16,9 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class BaseStrategyTest {
@@ -69,6 +77,41 @@ class BaseStrategyTest {
 
 
     @Test
+    void testManuallyCloseAllOpenPositionsWaitsForEveryClose() {
+        testStrategy.onInit(mockBarSeries, mockDataManager, mockAccountManager, mockTradeManager, mockEventPublisher, mockRiskManager, mockPerformanceAnalyser, null, strategyNewsUtil);
+        ConcurrentHashMap<Integer, Trade> openTrades = new ConcurrentHashMap<>();
+        openTrades.put(1, new Trade(1, Instrument.NAS100USD, 1, ZonedDateTime.now(), new Number("100"), null, null, true));
+        openTrades.put(2, new Trade(2, Instrument.NAS100USD, 1, ZonedDateTime.now(), new Number("100"), null, null, true));
+        CompletableFuture<Void> slowClose = new CompletableFuture<>();
+        when(mockTradeManager.getOpenTrades()).thenReturn(openTrades);
+        when(mockTradeManager.closeAllPositionsAsync(true)).thenReturn(Map.of(
+                1, slowClose,
+                2, CompletableFuture.failedFuture(new RuntimeException("Broker unavailable"))));
+        when(mockEventPublisher.hasSubscribers(LogEvent.class, "TEST001")).thenReturn(true);
+
+        CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS).execute(() -> slowClose.complete(null));
+        testStrategy.manuallyCloseAllOpenPositions("Test");
+
+        assertTrue(slowClose.isDone());
+        verify(mockEventPublisher).publishEvent(argThat(event -> event instanceof LogEvent logEvent
+                && logEvent.getLogType() == LogEvent.LogType.ERROR && logEvent.getMessage().contains("Broker unavailable")));
+    }
+
+    @Test
+    void testOpenTradeLogsTheEntryPrice() throws Exception {
+        testStrategy.onInit(mockBarSeries, mockDataManager, mockAccountManager, mockTradeManager, mockEventPublisher, mockRiskManager, mockPerformanceAnalyser, null, strategyNewsUtil);
+        TradeParameters params = new TradeParameters();
+        Trade trade = new Trade(7, Instrument.NAS100USD, 1, ZonedDateTime.now(), new Number("100.5"), null, null, true);
+        when(mockTradeManager.openLong(params)).thenReturn(trade);
+        when(mockEventPublisher.hasSubscribers(LogEvent.class, "TEST001")).thenReturn(true);
+
+        testStrategy.openLong(params);
+
+        verify(mockEventPublisher).publishEvent(argThat(event -> event instanceof LogEvent logEvent
+                && logEvent.getMessage().equals("Trade [7] opened long for strategy 'TEST001' at price " + trade.getEntryPrice())));
+    }
+
+        @Test
     void testGetStrategyId() {
         assertEquals("TEST001", testStrategy.getStrategyId());
     }
@@ -3,6 +3,7 @@ package integration.dev.jwtly10.core.forexfactory;
 import dev.jwtly10.core.external.news.forexfactory.ForexFactoryClient;
 import dev.jwtly10.core.external.news.forexfactory.ForexFactoryNews;
 import dev.jwtly10.core.external.news.forexfactory.ForexFactorySearchParams;
+import okhttp3.OkHttpClient;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -14,7 +15,7 @@ class ForexFactoryClientIntegrationTest {
 
     @Test
     void testGetNewsWithNoFilter() throws IOException {
-        ForexFactoryClient client = new ForexFactoryClient();
+        ForexFactoryClient client = new ForexFactoryClient(new OkHttpClient());
 
         List<ForexFactoryNews> news = client.searchNews(ForexFactorySearchParams.builder().build());
 
@@ -3,6 +3,7 @@ package dev.jwtly10.liveapi.executor;
 import dev.jwtly10.core.account.AccountManager;
 import dev.jwtly10.core.data.DataListener;
 import dev.jwtly10.core.data.DataManager;
+import dev.jwtly10.core.data.TickMailbox;
 import dev.jwtly10.core.event.EventPublisher;
 import dev.jwtly10.core.event.types.BarEvent;
 import dev.jwtly10.core.event.types.LogEvent;
@@ -27,9 +28,6 @@ import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class LiveExecutor implements DataListener {
@@ -42,8 +40,10 @@ public class LiveExecutor implements DataListener {
     private final DataManager dataManager;
     private final String strategyId;
     private final LiveStateManager liveStateManager;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private final Notifier notifier;
+    // Delivers data to this executor on its own thread, so a slow strategy doesn't hold up the price stream
+    @Getter
+    private final TickMailbox tickMailbox;
 
     @Getter
     @Setter
@@ -69,7 +69,10 @@ public class LiveExecutor implements DataListener {
         this.liveStateManager = liveStateManager;
         this.notifier = notifier;
         this.liveStrategyService = liveStrategyService;
-        tradeManager.setOnTradeCloseCallback(this::onTradeClose);
+        this.tickMailbox = new TickMailbox(this);
+        // Trade closes come from the transaction stream and reconciliation threads, so they go through the mailbox to reach the strategy
+        // on the same thread as its ticks
+        tradeManager.setOnTradeCloseCallback(tickMailbox::onTradeClose);
         strategy.onInit(dataManager.getBarSeries(), dataManager, accountManager, tradeManager, eventPublisher, riskManagementService, null, notifier, strategyNewsUtil);
     }
 
@@ -96,9 +99,13 @@ public class LiveExecutor implements DataListener {
             eventPublisher.publishEvent(new AsyncIndicatorsEvent(strategyId, dataManager.getInstrument(), allIndicatorsValues));
         }
 
-        // Start polling for account/trade data
+        // Start reconciling account/trade data with the broker
         log.info("Starting live state manager for strategy: {}", strategyId);
-        scheduler.scheduleAtFixedRate(liveStateManager::updateState, 0, 1, TimeUnit.SECONDS);
+        liveStateManager.start();
+
+        // Only once initialised, so a strategy that fails to start doesn't leave a mailbox thread behind.
+        // Trade closes received while initialising are queued until now
+        tickMailbox.start();
     }
 
     @Override
@@ -110,7 +117,9 @@ public class LiveExecutor implements DataListener {
 
         try {
             tradeManager.setCurrentTick(tick);
-            eventPublisher.publishEvent(new BarEvent(strategyId, currentBar.getInstrument(), currentBar));
+            if (eventPublisher.hasSubscribers(BarEvent.class, strategyId)) {
+                eventPublisher.publishEvent(new BarEvent(strategyId, currentBar.getInstrument(), currentBar));
+            }
 
             strategy.onTick(tick, currentBar);
         } catch (Exception e) {
@@ -161,17 +170,19 @@ public class LiveExecutor implements DataListener {
     @Override
     public void onTradeClose(Trade trade) {
         log.info("(Callback) Trade closed @ {} : id={}, profit={}, closePrice={}, stopLoss={}, takeProfit={}", trade.getCloseTime(), trade.getId(), trade.getProfit(), trade.getClosePrice(), trade.getStopLoss(), trade.getTakeProfit());
-        eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Trade [%s] closed for strategy '%s' with profit '%s'", trade.getId(), strategyId, trade.getProfit()));
+        if (eventPublisher.hasSubscribers(LogEvent.class, strategyId)) {
+            eventPublisher.publishEvent(new LogEvent(strategyId, LogEvent.LogType.INFO, "Trade [%s] closed for strategy '%s' with profit '%s'", trade.getId(), strategyId, trade.getProfit()));
+        }
         strategy.onTradeClose(trade);
     }
 
     private void cleanup(String reason) {
-        log.info("Strategy {} stopped with reason: '{}'.", strategyId, reason);
+        log.info("Strategy {} stopped with reason: '{}'. Ticks received: {}, skipped while busy: {}", strategyId, reason, tickMailbox.getReceivedTicks(), tickMailbox.getDroppedTicks());
+        tickMailbox.close();
         notifier.sendSysNotification(String.format("Live Strategy '%s' stopped with reason: '%s'", strategyId, reason), true);
-        scheduler.shutdown();
 
         // Kill the live state manager
-        scheduler.shutdownNow();
+        liveStateManager.shutdown();
         // Shutdown any processes in the trade manager
         tradeManager.shutdown();
 
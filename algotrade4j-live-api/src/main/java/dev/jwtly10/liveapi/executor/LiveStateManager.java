@@ -6,42 +6,94 @@ import dev.jwtly10.core.analysis.PerformanceAnalyser;
 import dev.jwtly10.core.event.EventPublisher;
 import dev.jwtly10.core.event.types.AccountEvent;
 import dev.jwtly10.core.event.types.LiveAnalysisEvent;
-import dev.jwtly10.core.event.types.async.AsyncTradesEvent;
+import dev.jwtly10.core.event.types.TradeEvent;
 import dev.jwtly10.core.exception.RiskException;
-import dev.jwtly10.core.execution.TradeManager;
+import dev.jwtly10.core.execution.TradeReconciler;
 import dev.jwtly10.core.external.notifications.Notifier;
 import dev.jwtly10.core.model.Instrument;
-import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.model.Trade;
 import dev.jwtly10.core.strategy.Strategy;
 import dev.jwtly10.liveapi.model.Stats;
 import dev.jwtly10.liveapi.service.strategy.LiveStrategyService;
+import dev.jwtly10.marketdata.common.AccountChanges;
 import dev.jwtly10.marketdata.common.BrokerClient;
 import lombok.extern.slf4j.Slf4j;
 
 import java.text.DecimalFormat;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Keeps a live strategy's trade and account state in sync with the broker.
+ *
+ * <p>
+ * Trade opens and closes are applied as they happen, from the trade manager (orders placed and the broker's transaction stream).
+ * The account balance is only taken from the broker, by a reconciliation brought forward after each change.
+ * The state is also periodically reconciled with the broker, fetching only the trades that changed since the last reconciliation
+ * where the broker supports it. This picks up changes the stream can't report, like the profit of open trades and the account equity.
+ * Only changed trades are published, and statistics are only refreshed when something changed. Closed trades are added to the
+ * statistics once, as they close, so refreshing them doesn't revisit the strategy's trade history.
+ * </p>
+ *
+ * <p>
+ * The equity risk stop is checked every second, between reconciliations, against the equity of the last reconciliation moved on by
+ * the change in the strategy's unrealised profit since, as marked by ticks. So it reacts to price moves without calling the broker.
+ * </p>
+ */
 @Slf4j
 public class LiveStateManager {
+    // How long to wait after a change from the stream before reconciling, to pick up the broker's balance after the change
+    private static final long RECONCILE_AFTER_CHANGE_DELAY_MS = 1000;
+    private static final long RISK_CHECK_INTERVAL_MS = 1000;
+    // Duplicate closes only come from the stream and a reconciliation racing over a recent close, so only recent ids are kept
+    private static final int MAX_ANALYSED_CLOSED_TRADE_IDS = 1024;
+
     private final BrokerClient brokerClient;
     private final AccountManager accountManager;
-    private final TradeManager tradeManager;
+    private final LiveTradeManager tradeManager;
     private final EventPublisher eventPublisher;
     private final Strategy strategy;
     private final Instrument instrument;
     private final LiveStrategyService liveStrategyService;
     private final PerformanceAnalyser performanceAnalyser;
     private final Notifier notifier;
+    private final Duration reconcileInterval;
+    // All state updates run on this thread, so they don't need to be synchronised with each other
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean reconcilePending = new AtomicBoolean(false);
+
+    // The broker's cursor for the last reconciliation, null to fetch every trade
+    private String lastTransactionId = null;
+    private boolean analysisStale = true;
+    // The most recent closed trades added to the performance analyser, so a close is never counted twice
+    private final Set<Integer> analysedClosedTradeIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            return size() > MAX_ANALYSED_CLOSED_TRADE_IDS;
+        }
+    });
+    // The equity at the last reconciliation, and the strategy's unrealised profit at the time, for the risk check in between
+    private double reconciledEquity = Double.NaN;
+    private double reconciledUnrealizedProfit = 0.0;
 
     // Some error handling for state updates
     // To prevent spamming of notifications
     private final static int MAX_ERROR_NOTIFICATIONS = 5;
     private int errorNotificationCount = 0;
 
-    public LiveStateManager(BrokerClient brokerClient, AccountManager accountManager, TradeManager tradeManager,
-                            EventPublisher eventPublisher, Strategy strategy, Instrument instrument, LiveStrategyService liveStrategyService, Notifier notifier) {
+    public LiveStateManager(BrokerClient brokerClient, AccountManager accountManager, LiveTradeManager tradeManager,
+                            EventPublisher eventPublisher, Strategy strategy, Instrument instrument, LiveStrategyService liveStrategyService,
+                            Notifier notifier, Duration reconcileInterval) {
         this.brokerClient = brokerClient;
         this.accountManager = accountManager;
         this.tradeManager = tradeManager;
@@ -51,39 +103,90 @@ public class LiveStateManager {
         this.liveStrategyService = liveStrategyService;
         this.performanceAnalyser = new PerformanceAnalyser();
         this.notifier = notifier;
+        this.reconcileInterval = reconcileInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .daemon()
+                .name("live-state-" + strategy.getStrategyId())
+                .unstarted(runnable));
+        tradeManager.setOnTradesChangedCallback(this::onTradesChanged);
+    }
+
+    /**
+     * Starts reconciling with the broker, straight away and then at the reconcile interval, and checking the equity risk stop every second.
+     */
+    public void start() {
+        log.info("Reconciling state for strategy {} every {}s", strategy.getStrategyId(), reconcileInterval.toSeconds());
+        scheduler.execute(this::analyseLoadedTrades);
+        scheduler.scheduleWithFixedDelay(this::reconcile, 0, reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::checkEquity, RISK_CHECK_INTERVAL_MS, RISK_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Update the trade and account states of the strategy
-     * TODO, refactor this to use the same retryable stream logic we have implemented for streaming prices and transactions
+     * Stops all state updates.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Applies trade changes made by the trade manager, and brings a reconciliation forward to pick up the balance after them.
+     * The balance is only ever taken from the broker, as a reconciliation that already ran may include a closed trade's profit.
+     *
+     * @param changes the trades that were opened or closed
+     */
+    private void onTradesChanged(List<TradeReconciler.TradeChange> changes) {
+        try {
+            scheduler.execute(() -> {
+                analyseClosedTrades(changes);
+                publishChanges(changes, false);
+                analysisStale = true;
+            });
+            if (reconcilePending.compareAndSet(false, true)) {
+                scheduler.schedule(this::reconcile, RECONCILE_AFTER_CHANGE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("State manager for strategy {} is shut down, ignoring {} trade changes", strategy.getStrategyId(), changes.size());
+        }
+    }
+
+    /**
+     * Reconcile the trade and account states of the strategy with the broker
      * // TODO: Note. Risk management logic depends on this data being up to date. so we need to have a way to shutdown if we can't get this data
-     * Currently if this fails, there is no retry
+     * Currently if this fails, it is only retried at the next reconciliation
      */
-    public void updateState() {
+    private void reconcile() {
+        reconcilePending.set(false);
         try {
-            // Update account information
-            Account accountInfo = brokerClient.getAccountInfo();
-            accountManager.updateAccountInfo(accountInfo);
+            AccountChanges accountChanges = brokerClient.getAccountChanges(lastTransactionId);
+            lastTransactionId = accountChanges.lastTransactionId();
 
             // Update trade information
-            List<Trade> trades = brokerClient.getAllTrades();
-            List<Trade> openTrades = trades.stream().filter(trade -> trade.getClosePrice() == Number.ZERO || trade.getClosePrice() == null).collect(Collectors.toList());
-            tradeManager.updateAllTrades(trades);
-            tradeManager.updateOpenTrades(openTrades);
+            List<TradeReconciler.TradeChange> changes = tradeManager.mergeTrades(accountChanges.trades(), accountChanges.openTradeProfits());
+            analyseClosedTrades(changes);
 
-            // Update any WS clients with latest trade results
-            eventPublisher.publishEvent(new AsyncTradesEvent(strategy.getStrategyId(), instrument, tradeManager.getAllTrades()));
+            // Update account information
+            Account accountInfo = accountChanges.account();
+            boolean accountChanged = accountInfo.getBalance() != accountManager.getBalance() || accountInfo.getEquity() != accountManager.getEquity();
+            accountManager.updateAccountInfo(accountInfo);
+            reconciledEquity = accountManager.getEquity();
+            reconciledUnrealizedProfit = tradeManager.getPositionBook().getUnrealizedProfit();
 
-            // TODO: Need to refactor some account logic
-            eventPublisher.publishEvent(new AccountEvent(strategy.getStrategyId(), accountManager.getAccount()));
+            // Update any WS clients with the trades that changed
+            publishChanges(changes, accountChanged);
+            if (!changes.isEmpty() || accountChanged) {
+                analysisStale = true;
+            }
 
             // Check for risk management
-            if (accountManager.getEquity() < (accountManager.getInitialBalance() * 0.1)) {
-                throw new RiskException("Equity below 10%. Stopping strategy.");
-            }
+            checkRisk(accountManager.getEquity());
 
-            runPerformanceAnalysis();
-            eventPublisher.publishEvent(new LiveAnalysisEvent(strategy.getStrategyId(), instrument, performanceAnalyser, accountManager.getAccount()));
+            if (analysisStale) {
+                runPerformanceAnalysis();
+                if (eventPublisher.hasSubscribers(LiveAnalysisEvent.class, strategy.getStrategyId())) {
+                    eventPublisher.publishEvent(new LiveAnalysisEvent(strategy.getStrategyId(), instrument, performanceAnalyser, accountManager.getAccount()));
+                }
+                analysisStale = false;
+            }
 
             // Reset error notification count, alert if it was previously blocked
             if (errorNotificationCount >= MAX_ERROR_NOTIFICATIONS) {
@@ -91,19 +194,83 @@ public class LiveStateManager {
             }
             errorNotificationCount = 0;
         } catch (Exception e) {
-            log.error("Error updating state for strategy ID: {}", strategy.getStrategyId(), e);
+            onStateError(e);
+        }
+    }
 
-            if (errorNotificationCount < MAX_ERROR_NOTIFICATIONS) {
-                notifier.sendSysErrorNotification("Error updating state for strategy (#" + errorNotificationCount + "): " + strategy.getStrategyId(), e, true);
-                errorNotificationCount++;
+    /**
+     * Checks the equity risk stop between reconciliations, using the equity of the last reconciliation plus the change in the
+     * strategy's unrealised profit since. A close between reconciliations brings one forward, which picks up its realised profit.
+     */
+    private void checkEquity() {
+        if (Double.isNaN(reconciledEquity)) {
+            // Not reconciled yet
+            return;
+        }
+        try {
+            double unrealizedProfitChange = tradeManager.getPositionBook().getUnrealizedProfit() - reconciledUnrealizedProfit;
+            checkRisk(reconciledEquity + unrealizedProfitChange);
+        } catch (Exception e) {
+            onStateError(e);
+        }
+    }
+
+    private void checkRisk(double equity) {
+        if (equity < (accountManager.getInitialBalance() * 0.1)) {
+            throw new RiskException("Equity below 10%. Stopping strategy.");
+        }
+    }
+
+    private void onStateError(Exception e) {
+        log.error("Error updating state for strategy ID: {}", strategy.getStrategyId(), e);
+
+        if (errorNotificationCount < MAX_ERROR_NOTIFICATIONS) {
+            notifier.sendSysErrorNotification("Error updating state for strategy (#" + errorNotificationCount + "): " + strategy.getStrategyId(), e, true);
+            errorNotificationCount++;
+        }
+    }
+
+    /**
+     * Adds the trades closed before the strategy started (loaded from the broker) to the performance analyser, oldest first.
+     */
+    private void analyseLoadedTrades() {
+        tradeManager.getAllTrades().values().stream()
+                .filter(trade -> !TradeReconciler.isOpen(trade))
+                .sorted(Comparator.comparing(Trade::getCloseTime, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(this::analyseClosedTrade);
+    }
+
+    private void analyseClosedTrades(List<TradeReconciler.TradeChange> changes) {
+        for (TradeReconciler.TradeChange change : changes) {
+            if (change.action() == TradeEvent.Action.CLOSE) {
+                analyseClosedTrade(change.trade());
+            }
+        }
+    }
+
+    private void analyseClosedTrade(Trade trade) {
+        if (analysedClosedTradeIds.add(trade.getId())) {
+            performanceAnalyser.onTradeClosed(trade);
+        }
+    }
+
+    private void publishChanges(List<TradeReconciler.TradeChange> changes, boolean accountChanged) {
+        if (!changes.isEmpty() && eventPublisher.hasSubscribers(TradeEvent.class, strategy.getStrategyId())) {
+            for (TradeReconciler.TradeChange change : changes) {
+                eventPublisher.publishEvent(new TradeEvent(strategy.getStrategyId(), instrument, change.trade(), change.action()));
             }
         }
+
+        // TODO: Need to refactor some account logic
+        if (accountChanged && eventPublisher.hasSubscribers(AccountEvent.class, strategy.getStrategyId())) {
+            eventPublisher.publishEvent(new AccountEvent(strategy.getStrategyId(), accountManager.getAccount()));
+        }
     }
 
     private void runPerformanceAnalysis() {
         // Calculate stats
         Stats stats = new Stats();
-        performanceAnalyser.calculateStatistics(tradeManager.getAllTrades(), accountManager.getAccount().getInitialBalance());
+        performanceAnalyser.updateStatistics(tradeManager.getOpenTrades().values(), accountManager.getAccount().getInitialBalance());
 
         DecimalFormat df = new DecimalFormat("#.##");
         stats.setAccountBalance(Double.parseDouble(df.format(accountManager.getBalance())));
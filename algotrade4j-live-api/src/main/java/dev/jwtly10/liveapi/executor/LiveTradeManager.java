@@ -1,34 +1,53 @@
 package dev.jwtly10.liveapi.executor;
 
 import dev.jwtly10.core.data.DataManager;
+import dev.jwtly10.core.event.types.TradeEvent;
+import dev.jwtly10.core.execution.ConcurrentPositionBook;
+import dev.jwtly10.core.execution.PositionBook;
 import dev.jwtly10.core.execution.TradeManager;
+import dev.jwtly10.core.execution.TradeReconciler;
 import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.model.*;
 import dev.jwtly10.marketdata.common.BrokerClient;
 import dev.jwtly10.marketdata.common.TradeDTO;
 import dev.jwtly10.marketdata.common.stream.Stream;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 
+/**
+ * Trade manager for live trading, acting on the broker's account.
+ *
+ * <p>
+ * Orders are sent to the broker on virtual threads, so strategies using the async order methods can carry on
+ * processing ticks while the broker responds. The blocking order methods wait for the async ones.
+ * The round trip time of each order is logged, and aggregated in {@link #getOrderLatencyStats()}.
+ * </p>
+ */
 @Slf4j
 public class LiveTradeManager implements TradeManager {
 
     private final ExecutorService executorService;
     private final BrokerClient brokerClient;
+    @Getter
+    private final OrderLatencyStats orderLatencyStats = new OrderLatencyStats();
     private DataManager dataManager = null;
     private Stream<List<TradeDTO>> transactionStream;
     private Consumer<Trade> onTradeCloseCallback;
+    private Consumer<List<TradeReconciler.TradeChange>> onTradesChangedCallback;
 
     private ConcurrentHashMap<Integer, Trade> openTrades = new ConcurrentHashMap<>();
     private ConcurrentHashMap<Integer, Trade> allTrades = new ConcurrentHashMap<>();
+    // Aggregates of the open trades, kept in step with them under this manager's lock
+    private final ConcurrentPositionBook positionBook = new ConcurrentPositionBook();
 
     private Tick currentTick;
 
@@ -44,24 +63,31 @@ public class LiveTradeManager implements TradeManager {
         transactionStream.start(new Stream.StreamCallback<>() {
             @Override
             public void onData(List<TradeDTO> closedTradeDTOs) {
+                List<TradeReconciler.TradeChange> changes = new ArrayList<>();
                 closedTradeDTOs.forEach(t -> {
-                    Trade trade = allTrades.get(Integer.parseInt(t.tradeId()));
-                    if (trade != null) {
+                    Trade trade;
+                    synchronized (LiveTradeManager.this) {
+                        trade = allTrades.get(Integer.parseInt(t.tradeId()));
+                        if (trade == null) {
+                            log.warn("Trade not found for order fill transaction: {}", t.tradeId());
+                            return;
+                        }
+                        if (!TradeReconciler.isOpen(trade)) {
+                            log.debug("Trade {} already closed by reconciliation", t.tradeId());
+                            return;
+                        }
                         trade.setClosePrice(new Number(t.closePrice()));
                         trade.setCloseTime(ZonedDateTime.now());
                         trade.setProfit(t.profit());
                         allTrades.put(trade.getId(), trade);
-                        openTrades.remove(trade.getId());
-                        // Trigger any set callback on trade close
-                        if (onTradeCloseCallback != null) {
-                            onTradeCloseCallback.accept(trade);
-                        } else {
-                            log.warn("No callback set for trade close event");
+                        if (openTrades.remove(trade.getId()) != null) {
+                            positionBook.onClose(trade);
                         }
-                    } else {
-                        log.warn("Trade not found for order fill transaction: {}", t.tradeId());
                     }
+                    changes.add(new TradeReconciler.TradeChange(trade, TradeEvent.Action.CLOSE));
+                    onTradeClosed(trade);
                 });
+                notifyTradesChanged(changes);
             }
 
             @Override
@@ -83,13 +109,14 @@ public class LiveTradeManager implements TradeManager {
     }
 
     @Override
-    public void updateOpenTrades(List<Trade> trades) {
+    public synchronized void updateOpenTrades(List<Trade> trades) {
         openTrades = new ConcurrentHashMap<>();
         trades.forEach(trade -> openTrades.put(trade.getId(), trade));
+        positionBook.rebuild(openTrades.values());
     }
 
     @Override
-    public void updateAllTrades(List<Trade> trades) {
+    public synchronized void updateAllTrades(List<Trade> trades) {
         allTrades = new ConcurrentHashMap<>();
         trades.forEach(trade -> allTrades.put(trade.getId(), trade));
     }
@@ -99,26 +126,79 @@ public class LiveTradeManager implements TradeManager {
         this.onTradeCloseCallback = callback;
     }
 
+    /**
+     * Sets the callback for trades changed by this trade manager, i.e. trades opened through it, and closes received from the transaction stream.
+     * Changes found by {@link #mergeTrades} are returned to the caller instead.
+     *
+     * @param callback the callback, run on the thread that made the change
+     */
+    public void setOnTradesChangedCallback(Consumer<List<TradeReconciler.TradeChange>> callback) {
+        this.onTradesChangedCallback = callback;
+    }
+
+    /**
+     * Merges trade state reported by the broker into the known trades.
+     * Trades found to have closed trigger the trade close callback, as their close may not have come through the transaction stream.
+     *
+     * @param trades           the trades reported by the broker, either every trade or only the ones that changed
+     * @param openTradeProfits the current profit of open trades by id
+     * @return the trades that changed
+     * @see TradeReconciler#merge
+     */
+    public List<TradeReconciler.TradeChange> mergeTrades(Collection<Trade> trades, Map<Integer, Double> openTradeProfits) {
+        List<TradeReconciler.TradeChange> changes;
+        synchronized (this) {
+            changes = TradeReconciler.merge(allTrades, openTrades, trades, openTradeProfits);
+            updatePositionBook(changes);
+        }
+        changes.stream()
+                .filter(change -> change.action() == TradeEvent.Action.CLOSE)
+                .forEach(change -> onTradeClosed(change.trade()));
+        return changes;
+    }
+
+    private void updatePositionBook(List<TradeReconciler.TradeChange> changes) {
+        // Updates only change profits, stop losses and take profits, which the book doesn't depend on
+        if (changes.stream().anyMatch(change -> change.action() != TradeEvent.Action.UPDATE)) {
+            positionBook.rebuild(openTrades.values());
+        }
+    }
+
+    private void onTradeClosed(Trade trade) {
+        // Trigger any set callback on trade close
+        if (onTradeCloseCallback != null) {
+            onTradeCloseCallback.accept(trade);
+        } else {
+            log.warn("No callback set for trade close event");
+        }
+    }
+
+    private void notifyTradesChanged(List<TradeReconciler.TradeChange> changes) {
+        if (!changes.isEmpty() && onTradesChangedCallback != null) {
+            onTradesChangedCallback.accept(changes);
+        }
+    }
+
     @Override
     public Trade openLong(TradeParameters params) throws Exception {
-        params.setLong(true);
-        try {
-            return openPosition(params);
-        } catch (Exception e) {
-            log.error("Error opening long trade: {}", e.getMessage(), e);
-            throw e;
-        }
+        return await(openLongAsync(params));
     }
 
     @Override
     public Trade openShort(TradeParameters params) throws Exception {
+        return await(openShortAsync(params));
+    }
+
+    @Override
+    public CompletableFuture<Trade> openLongAsync(TradeParameters params) {
+        params.setLong(true);
+        return submit(OrderLatencyStats.Operation.OPEN, "opening long trade", () -> openPosition(params));
+    }
+
+    @Override
+    public CompletableFuture<Trade> openShortAsync(TradeParameters params) {
         params.setLong(false);
-        try {
-            return openPosition(params);
-        } catch (Exception e) {
-            log.error("Error opening short trade: {}", e.getMessage(), e);
-            throw e;
-        }
+        return submit(OrderLatencyStats.Operation.OPEN, "opening short trade", () -> openPosition(params));
     }
 
     private Trade openPosition(TradeParameters params) throws Exception {
@@ -131,25 +211,74 @@ public class LiveTradeManager implements TradeManager {
         log.info("Opened {} position @ {}: id={}, instrument={}, entryPrice={}, stopLoss={}, takeProfit={}, quantity={}",
                 trade.isLong() ? "long" : "short", trade.getOpenTime(), trade.getId(), trade.getInstrument(), trade.getEntryPrice(), trade.getStopLoss(), trade.getTakeProfit(), trade.getQuantity());
 
+        // Track the trade straight away, rather than waiting for the next reconciliation with the broker
+        notifyTradesChanged(mergeTrades(List.of(trade), Map.of()));
+
         return trade;
     }
 
     @Override
     public void closePosition(Integer tradeId, boolean manual) throws Exception {
-        log.info("Closing position: tradeId={}, manual={}", tradeId, manual);
-        brokerClient.closeTrade(tradeId);
+        await(closePositionAsync(tradeId, manual));
     }
 
     @Override
-    public void loadTrades() throws Exception {
-        List<Trade> trades = brokerClient.getAllTrades();
-        trades.forEach(trade -> allTrades.put(trade.getId(), trade));
+    public CompletableFuture<Void> closePositionAsync(Integer tradeId, boolean manual) {
+        return submit(OrderLatencyStats.Operation.CLOSE, "closing trade " + tradeId, () -> {
+            log.info("Closing position: tradeId={}, manual={}", tradeId, manual);
+            brokerClient.closeTrade(tradeId);
+            return null;
+        });
+    }
 
-        trades.forEach(trade -> {
-            if (trade.getClosePrice() == Number.ZERO) {
-                openTrades.put(trade.getId(), trade);
+    /**
+     * Sends an order to the broker on a virtual thread, timing the round trip.
+     *
+     * @param operation   the type of order, for latency stats
+     * @param description what the order does, for logging
+     * @param order       the call to the broker
+     * @return a future completed with the result of the order
+     */
+    private <T> CompletableFuture<T> submit(OrderLatencyStats.Operation operation, String description, Callable<T> order) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                T result = order.call();
+                failed = false;
+                return result;
+            } catch (Exception e) {
+                log.error("Error {}: {}", description, e.getMessage(), e);
+                throw new CompletionException(e);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                orderLatencyStats.record(operation, elapsed, failed);
+                log.info("Finished {} in {}ms{}", description, TimeUnit.NANOSECONDS.toMillis(elapsed), failed ? " (failed)" : "");
             }
-        });
+        }, executorService);
+    }
+
+    /**
+     * Waits for an order, rethrowing the exception it failed with.
+     */
+    private static <T> T await(CompletableFuture<T> order) throws Exception {
+        try {
+            return order.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void loadTrades() throws Exception {
+        List<Trade> trades = brokerClient.getAllTrades();
+        synchronized (this) {
+            // Historical trades, so no close callbacks
+            updatePositionBook(TradeReconciler.merge(allTrades, openTrades, trades, Map.of()));
+        }
     }
 
     @Override
@@ -159,10 +288,7 @@ public class LiveTradeManager implements TradeManager {
 
     @Override
     public double getOpenPositionValue(Instrument instrument) {
-        return openTrades.values().stream()
-                .filter(trade -> trade.getInstrument().equals(instrument))
-                .mapToDouble(trade -> trade.getQuantity() * currentTick.getBid().doubleValue())
-                .sum();
+        return positionBook.getGrossQuantity(instrument) * currentTick.getBid().doubleValue();
     }
 
     @Override
@@ -171,18 +297,24 @@ public class LiveTradeManager implements TradeManager {
     }
 
     @Override
-    public ConcurrentHashMap<Integer, Trade> getOpenTrades() {
-        return openTrades;
+    public Map<Integer, Trade> getOpenTrades() {
+        return Collections.unmodifiableMap(openTrades);
+    }
+
+    @Override
+    public PositionBook getPositionBook() {
+        return positionBook;
     }
 
     @Override
     public void setCurrentTick(Tick tick) {
         this.currentTick = tick;
+        positionBook.mark(tick);
     }
 
     @Override
     public void shutdown() {
-        log.info("Shutting down transaction streams.");
+        log.info("Shutting down transaction streams. Order latency: {}", orderLatencyStats);
         if (dataManager != null) {
             dataManager.stop("Trade manager shutdown");
         }
@@ -191,6 +323,8 @@ public class LiveTradeManager implements TradeManager {
             transactionStream.close();
         }
 
+        // Let orders already sent to the broker complete
+        executorService.shutdown();
         try {
             if (!executorService.awaitTermination(3, TimeUnit.SECONDS)) {
                 executorService.shutdownNow();
@@ -0,0 +1,77 @@
+package dev.jwtly10.liveapi.executor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round trip times of orders sent to the broker, per type of order. Thread safe.
+ */
+public class OrderLatencyStats {
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    public OrderLatencyStats() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * @param operation    the type of order
+     * @param elapsedNanos the time from sending the order to the broker's response
+     * @param failed       whether the order failed
+     */
+    public void record(Operation operation, long elapsedNanos, boolean failed) {
+        Stats s = stats.get(operation);
+        s.orders.incrementAndGet();
+        if (failed) {
+            s.failures.incrementAndGet();
+        }
+        s.totalNanos.addAndGet(elapsedNanos);
+        s.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    public long getOrders(Operation operation) {
+        return stats.get(operation).orders.get();
+    }
+
+    public long getFailures(Operation operation) {
+        return stats.get(operation).failures.get();
+    }
+
+    public long getAverageLatencyMillis(Operation operation) {
+        Stats s = stats.get(operation);
+        long orders = s.orders.get();
+        return orders == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(s.totalNanos.get() / orders);
+    }
+
+    public long getMaxLatencyMillis(Operation operation) {
+        return TimeUnit.NANOSECONDS.toMillis(stats.get(operation).maxNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            sb.append(String.format("%s: %d orders (%d failed), avg %dms, max %dms", operation, getOrders(operation),
+                    getFailures(operation), getAverageLatencyMillis(operation), getMaxLatencyMillis(operation)));
+        }
+        return sb.toString();
+    }
+
+    public enum Operation {
+        OPEN,
+        CLOSE
+    }
+
+    private static class Stats {
+        private final AtomicLong orders = new AtomicLong(0);
+        private final AtomicLong failures = new AtomicLong(0);
+        private final AtomicLong totalNanos = new AtomicLong(0);
+        private final AtomicLong maxNanos = new AtomicLong(0);
+    }
+}
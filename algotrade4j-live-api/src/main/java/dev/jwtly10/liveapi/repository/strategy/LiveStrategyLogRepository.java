@@ -1,12 +1,18 @@
 package dev.jwtly10.liveapi.repository.strategy;
 
 import dev.jwtly10.liveapi.model.strategy.LiveStrategyLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 @Repository
 public interface LiveStrategyLogRepository extends JpaRepository<LiveStrategyLog, Long> {
     List<LiveStrategyLog> findAllByLiveStrategyIdOrderByIdDesc(Long strategyId);
+
+    List<LiveStrategyLog> findByLiveStrategyIdOrderByIdDesc(Long strategyId, Pageable pageable);
+
+    List<LiveStrategyLog> findByLiveStrategyIdAndCreatedAtBeforeOrderByIdDesc(Long strategyId, ZonedDateTime before, Pageable pageable);
 }
\ No newline at end of file
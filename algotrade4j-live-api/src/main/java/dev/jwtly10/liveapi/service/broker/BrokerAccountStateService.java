@@ -0,0 +1,77 @@
+package dev.jwtly10.liveapi.service.broker;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.liveapi.model.broker.BrokerAccount;
+import dev.jwtly10.marketdata.common.BrokerClient;
+import dev.jwtly10.marketdata.common.SharedAccountState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Owns the shared state of each broker account with live strategies running on it.
+ * Strategies get their broker client from here, so every strategy on an account shares one sync loop and transaction stream,
+ * see {@link SharedAccountState}.
+ */
+@Service
+@Slf4j
+public class BrokerAccountStateService {
+    private final BrokerClientFactory brokerClientFactory;
+    private final Map<String, SharedAccountState> accounts = new ConcurrentHashMap<>();
+    // Syncs block on the broker, so a slow account can't hold up the others for long
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, Thread.ofPlatform()
+            .daemon()
+            .name("account-sync-", 0)
+            .factory());
+
+    @Value("${live.state.reconcile.interval.seconds:15}")
+    private int syncIntervalSeconds;
+
+    public BrokerAccountStateService(BrokerClientFactory brokerClientFactory) {
+        this.brokerClientFactory = brokerClientFactory;
+    }
+
+    /**
+     * Creates a broker client for a strategy, backed by the shared state of its broker account.
+     *
+     * @param brokerAccount the broker account the strategy trades on
+     * @param instrument    the instrument the strategy trades
+     * @return the broker client
+     */
+    public BrokerClient createBrokerClient(BrokerAccount brokerAccount, Instrument instrument) {
+        String key = brokerAccount.getBrokerType() + ":" + brokerAccount.getAccountId();
+        while (true) {
+            SharedAccountState state = accounts.compute(key, (k, existing) -> {
+                // Only a state whose views have all been released is recreated, so it picks up any change to the account's configuration
+                if (existing != null && !existing.isClosed()) {
+                    return existing;
+                }
+                log.info("Creating shared state for broker account {}", k);
+                return new SharedAccountState(k, brokerClientFactory.createBrokerClientFromBrokerConfig(brokerAccount), scheduler,
+                        Duration.ofSeconds(syncIntervalSeconds));
+            });
+            try {
+                return state.view(instrument);
+            } catch (IllegalStateException e) {
+                // The last view was released since the lookup, so the state is recreated
+                log.debug("Shared state for broker account {} closed while creating a view, retrying", key);
+            }
+        }
+    }
+
+    /**
+     * Releases a broker client created by {@link #createBrokerClient}, for a strategy that failed to start.
+     * Stopped strategies release theirs by closing its transaction stream.
+     *
+     * @param brokerClient the broker client to release
+     */
+    public void releaseBrokerClient(BrokerClient brokerClient) {
+        SharedAccountState.release(brokerClient);
+    }
+}
@@ -35,6 +35,18 @@ public class LogEventListener implements EventListener {
         }
     }
 
+    /**
+     * Only log events are persisted, for every strategy.
+     *
+     * @param eventType  The class of the event.
+     * @param strategyId The ID of the strategy the event belongs to.
+     * @return true if the event is a log event.
+     */
+    @Override
+    public boolean isSubscribed(Class<? extends BaseEvent> eventType, String strategyId) {
+        return eventType == LogEvent.class;
+    }
+
     /**
      * Called when an error occurs.
      *
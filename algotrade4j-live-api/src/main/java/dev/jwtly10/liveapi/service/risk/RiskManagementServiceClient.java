@@ -2,6 +2,7 @@ package dev.jwtly10.liveapi.service.risk;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.jwtly10.core.risk.DailyEquity;
+import dev.jwtly10.marketdata.common.http.HttpTransport;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -24,7 +25,7 @@ public class RiskManagementServiceClient {
     }
 
     public RiskManagementServiceClient(String apiUrl, String apiKey, ObjectMapper objectMapper){
-        this(apiUrl, apiKey, new OkHttpClient(), objectMapper);
+        this(apiUrl, apiKey, HttpTransport.getDefault().getClient(), objectMapper);
     }
 
     public Optional<DailyEquity> getDailyEquity(String accountId) throws Exception {
@@ -5,8 +5,10 @@ import dev.jwtly10.liveapi.model.strategy.LiveStrategy;
 import dev.jwtly10.liveapi.model.strategy.LiveStrategyLog;
 import dev.jwtly10.liveapi.repository.strategy.LiveStrategyLogRepository;
 import dev.jwtly10.liveapi.repository.strategy.LiveStrategyRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 @Service
@@ -14,22 +16,25 @@ public class LiveStrategyLogService {
 
     private final LiveStrategyLogRepository liveStrategyLogRepository;
     private final LiveStrategyRepository liveStrategyRepository;
+    private final LiveStrategyLogWriter liveStrategyLogWriter;
 
-    public LiveStrategyLogService(LiveStrategyLogRepository liveStrategyLogRepository, LiveStrategyRepository liveStrategyRepository) {
+    public LiveStrategyLogService(LiveStrategyLogRepository liveStrategyLogRepository, LiveStrategyRepository liveStrategyRepository,
+                                  LiveStrategyLogWriter liveStrategyLogWriter) {
         this.liveStrategyLogRepository = liveStrategyLogRepository;
         this.liveStrategyRepository = liveStrategyRepository;
+        this.liveStrategyLogWriter = liveStrategyLogWriter;
     }
 
+    /**
+     * Logs a line for a strategy. The line is written to the database in the background, see {@link LiveStrategyLogWriter},
+     * so it may take up to the writer's flush interval to be returned by {@link #getLogs}.
+     *
+     * @param strategyNameId the strategy name
+     * @param level          the level of the line
+     * @param message        the line
+     */
     public void log(String strategyNameId, LogEvent.LogType level, String message) {
-        LiveStrategy liveStrategy = liveStrategyRepository.findByStrategyName(strategyNameId).orElseThrow(() ->
-                new RuntimeException("Strategy not found with id: " + strategyNameId)
-        );
-
-        liveStrategyLogRepository.save(LiveStrategyLog.builder()
-                .liveStrategyId(liveStrategy.getId())
-                .level(level.name())
-                .message(message)
-                .build());
+        liveStrategyLogWriter.write(strategyNameId, level, message);
     }
 
     public List<LiveStrategyLog> getLogs(Long strategyId) {
@@ -44,6 +49,25 @@ public class LiveStrategyLogService {
         return getLogs(liveStrategy.getId());
     }
 
+    /**
+     * Gets a page of logs for a strategy, newest first.
+     *
+     * @param strategyName the strategy name
+     * @param before       only logs created before this time, or null for the latest logs
+     * @param limit        the max number of logs to return
+     * @return the logs
+     */
+    public List<LiveStrategyLog> getLogs(String strategyName, ZonedDateTime before, int limit) {
+        LiveStrategy liveStrategy = liveStrategyRepository.findByStrategyName(strategyName).orElseThrow(() ->
+                new RuntimeException("Strategy not found with name: " + strategyName)
+        );
+
+        PageRequest page = PageRequest.of(0, limit);
+        return before == null
+                ? liveStrategyLogRepository.findByLiveStrategyIdOrderByIdDesc(liveStrategy.getId(), page)
+                : liveStrategyLogRepository.findByLiveStrategyIdAndCreatedAtBeforeOrderByIdDesc(liveStrategy.getId(), before, page);
+    }
+
     public List<LiveStrategyLog> getAllLiveStrategyLogs() {
         return liveStrategyLogRepository.findAll();
     }
@@ -0,0 +1,299 @@
+package dev.jwtly10.liveapi.service.strategy;
+
+import dev.jwtly10.core.event.types.LogEvent;
+import dev.jwtly10.liveapi.model.strategy.LiveStrategy;
+import dev.jwtly10.liveapi.repository.strategy.LiveStrategyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes live strategy logs to the database in the background, so logging a line doesn't wait on the database.
+ *
+ * <p>
+ * Log lines are buffered in a bounded queue and written by a single thread in JDBC batches, once {@code batchSize} lines are buffered
+ * or the oldest buffered line has waited {@code flushInterval}. The ids of strategies are cached by strategy name, so a
+ * line is one insert in a batch rather than a strategy lookup and an insert.
+ * </p>
+ *
+ * <p>
+ * What happens when the queue is full is decided by the {@link OverflowPolicy}, by default the oldest lines are dropped so logging
+ * never waits. On shutdown the queue is drained before the database connections are closed, and lines logged after that are written directly.
+ * </p>
+ */
+@Service
+@Slf4j
+public class LiveStrategyLogWriter {
+    private static final String INSERT_SQL = "INSERT INTO live_strategy_log_tb (live_strategy_id, level, message, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+    // The size of live_strategy_log_tb.message. A longer message would fail the whole batch
+    private static final int MAX_MESSAGE_LENGTH = 255;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+    // How often the writer thread, and callers waiting for space with the BLOCK policy, check whether the writer was closed
+    private static final long CLOSE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LiveStrategyRepository liveStrategyRepository;
+    private final Map<String, Long> strategyIds = new ConcurrentHashMap<>();
+    private final BlockingQueue<Row> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public LiveStrategyLogWriter(JdbcTemplate jdbcTemplate,
+                                 LiveStrategyRepository liveStrategyRepository,
+                                 @Value("${live.strategy.log.queue.capacity:10000}") int queueCapacity,
+                                 @Value("${live.strategy.log.batch.size:200}") int batchSize,
+                                 @Value("${live.strategy.log.flush.interval.millis:500}") long flushIntervalMillis,
+                                 @Value("${live.strategy.log.overflow.policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.liveStrategyRepository = liveStrategyRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+        // A platform thread, as the JDBC driver would pin a virtual thread while it waits on the database
+        this.writerThread = Thread.ofPlatform().name("live-strategy-log-writer").daemon().start(this::writeUntilClosed);
+    }
+
+    /**
+     * Queues a log line to be written.
+     *
+     * @param strategyName the name of the strategy the line belongs to
+     * @param level        the level of the line
+     * @param message      the line
+     */
+    public void write(String strategyName, LogEvent.LogType level, String message) {
+        Row row = new Row(strategyName, level.name(), truncate(message), OffsetDateTime.now());
+        if (!running) {
+            write(List.of(row));
+            return;
+        }
+
+        enqueue(row);
+        if (!running) {
+            // Closed while the line was being queued, the writer thread may already have drained the queue and stopped
+            writeQueued();
+        }
+    }
+
+    private void enqueue(Row row) {
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    while (!queue.offer(row, CLOSE_CHECK_NANOS, TimeUnit.NANOSECONDS)) {
+                        if (!running) {
+                            // Nothing will make space in the queue anymore
+                            write(List.of(row));
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    recordDropped(row.strategyName());
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!queue.offer(row)) {
+                    recordDropped(row.strategyName());
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(row)) {
+                    Row oldest = queue.poll();
+                    if (oldest != null) {
+                        recordDropped(oldest.strategyName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the cached id of a strategy, e.g. because it was renamed and its name may be reused.
+     *
+     * @param strategyName the name of the strategy
+     */
+    public void forgetStrategy(String strategyName) {
+        strategyIds.remove(strategyName);
+    }
+
+    /**
+     * @return the number of log lines written to the database
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return the number of log lines dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of log lines that failed to be written
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Writes the queued log lines and stops the writer thread.
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        try {
+            if (!writerThread.join(CLOSE_TIMEOUT)) {
+                log.error("Live strategy log writer didn't finish within {}, writing the remaining {} log lines on shutdown", CLOSE_TIMEOUT, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lines queued by callers that saw the writer running just before it stopped
+        writeQueued();
+        log.info("Live strategy log writer closed. Written: {}, dropped: {}, failed: {}", getWritten(), getDropped(), getFailed());
+    }
+
+    private void writeUntilClosed() {
+        List<Row> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                // Polled in slices, so closing isn't held up by the flush interval
+                Row first = queue.poll(CLOSE_CHECK_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize && running) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Row next = queue.poll(Math.min(remaining, CLOSE_CHECK_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Write what we have, the loop exits once closed and drained
+                Thread.interrupted();
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeQueued() {
+        List<Row> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Row> rows) {
+        List<Object[]> batchArgs = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Long strategyId = findStrategyId(row.strategyName());
+            if (strategyId == null) {
+                log.warn("Can't write log for unknown strategy: {}", row.strategyName());
+                failed.incrementAndGet();
+                continue;
+            }
+            batchArgs.add(new Object[]{strategyId, row.level(), row.message(), row.createdAt(), row.createdAt()});
+        }
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+            written.addAndGet(batchArgs.size());
+        } catch (DataAccessException e) {
+            failed.addAndGet(batchArgs.size());
+            log.error("Failed to write {} live strategy logs: {}", batchArgs.size(), e.getMessage(), e);
+        }
+    }
+
+    private Long findStrategyId(String strategyName) {
+        Long strategyId = strategyIds.get(strategyName);
+        if (strategyId != null) {
+            return strategyId;
+        }
+        try {
+            strategyId = liveStrategyRepository.findByStrategyName(strategyName).map(LiveStrategy::getId).orElse(null);
+        } catch (DataAccessException e) {
+            log.error("Failed to find strategy {}: {}", strategyName, e.getMessage());
+            return null;
+        }
+        if (strategyId != null) {
+            strategyIds.put(strategyName, strategyId);
+        }
+        return strategyId;
+    }
+
+    private void recordDropped(String strategyName) {
+        long total = dropped.incrementAndGet();
+        if (total % 1000 == 1) {
+            log.warn("Live strategy log queue is full, dropped a log line for {} ({} dropped in total)", strategyName, total);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "";
+        }
+        return message.length() <= MAX_MESSAGE_LENGTH ? message : message.substring(0, MAX_MESSAGE_LENGTH - 3) + "...";
+    }
+
+    /**
+     * What happens to a log line when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for space in the queue. No lines are lost, but the logging thread (e.g. the event dispatch thread) is slowed down to the database's pace.
+         */
+        BLOCK,
+        /**
+         * Drop the line being logged.
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued line to make room, keeping the most recent lines.
+         */
+        DROP_OLDEST
+    }
+
+    private record Row(String strategyName, String level, String message, OffsetDateTime createdAt) {
+    }
+}
@@ -4,7 +4,6 @@ import dev.jwtly10.core.account.AccountManager;
 import dev.jwtly10.core.account.DefaultAccountManager;
 import dev.jwtly10.core.data.DefaultDataManager;
 import dev.jwtly10.core.event.EventPublisher;
-import dev.jwtly10.core.execution.TradeManager;
 import dev.jwtly10.core.external.news.StrategyNewsUtil;
 import dev.jwtly10.core.external.news.forexfactory.ForexFactoryClient;
 import dev.jwtly10.core.model.Bar;
@@ -22,7 +21,7 @@ import dev.jwtly10.liveapi.model.broker.BrokerAccount;
 import dev.jwtly10.liveapi.model.strategy.LiveStrategy;
 import dev.jwtly10.liveapi.model.strategy.LiveStrategyConfig;
 import dev.jwtly10.liveapi.repository.LiveExecutorRepository;
-import dev.jwtly10.liveapi.service.broker.BrokerClientFactory;
+import dev.jwtly10.liveapi.service.broker.BrokerAccountStateService;
 import dev.jwtly10.liveapi.service.risk.LiveRiskManager;
 import dev.jwtly10.liveapi.service.risk.RiskManagementServiceClient;
 import dev.jwtly10.marketdata.common.BrokerClient;
@@ -37,8 +36,10 @@ import dev.jwtly10.shared.service.external.telegram.TelegramNotifier;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -57,16 +58,19 @@ public class LiveStrategyManager {
     private final TelegramNotifier telegramNotifier;
     private final LiveStrategyService liveStrategyService;
 
-    private final BrokerClientFactory brokerClientFactory;
+    private final BrokerAccountStateService brokerAccountStateService;
     private final ForexFactoryClient forexFactoryClient;
     private final RiskManagementServiceClient riskManagementServiceClient;
 
+    @Value("${live.state.reconcile.interval.seconds:15}")
+    private int stateReconcileIntervalSeconds;
+
     public LiveStrategyManager(EventPublisher eventPublisher,
                                LiveExecutorRepository liveExecutorRepository,
                                OandaClient oandaClient,
                                TelegramNotifier telegramNotifier,
                                LiveStrategyService liveStrategyService,
-                               BrokerClientFactory brokerClientFactory,
+                               BrokerAccountStateService brokerAccountStateService,
                                ForexFactoryClient forexFactoryClient,
                                RiskManagementServiceClient riskManagementServiceClient
     ) {
@@ -75,7 +79,7 @@ public class LiveStrategyManager {
         this.oandaClient = oandaClient;
         this.telegramNotifier = telegramNotifier;
         this.liveStrategyService = liveStrategyService;
-        this.brokerClientFactory = brokerClientFactory;
+        this.brokerAccountStateService = brokerAccountStateService;
         this.forexFactoryClient = forexFactoryClient;
         this.riskManagementServiceClient = riskManagementServiceClient;
     }
@@ -204,18 +208,32 @@ public class LiveStrategyManager {
     private LiveExecutor createExecutor(LiveStrategy liveStrategy) throws Exception {
         final String strategyId = liveStrategy.getStrategyName();
         final LiveStrategyConfig config = liveStrategy.getConfig();
-        final StrategyFactory strategyFactory = new DefaultStrategyFactory();
 
         BrokerAccount brokerConfig = liveStrategy.getBrokerAccount();
         log.info("Strategy {} using broker account: {} ({})", strategyId, brokerConfig.getBrokerName(), brokerConfig.getBrokerType());
 
-        final BrokerClient brokerClient = brokerClientFactory.createBrokerClientFromBrokerConfig(brokerConfig);
-
-        BarSeries barSeries = new DefaultBarSeries(5000);
-
         // Validates the strategy configuration against the parameters of the strategy class
         config.validate();
 
+        // Shares account state with any other strategies on the same broker account
+        final BrokerClient brokerClient = brokerAccountStateService.createBrokerClient(brokerConfig, config.getInstrumentData().getInstrument());
+        try {
+            return createExecutor(liveStrategy, brokerClient);
+        } catch (Exception e) {
+            // Otherwise the account's shared state would be held open by a strategy that never ran
+            brokerAccountStateService.releaseBrokerClient(brokerClient);
+            throw e;
+        }
+    }
+
+    private LiveExecutor createExecutor(LiveStrategy liveStrategy, BrokerClient brokerClient) throws Exception {
+        final String strategyId = liveStrategy.getStrategyName();
+        final LiveStrategyConfig config = liveStrategy.getConfig();
+        final StrategyFactory strategyFactory = new DefaultStrategyFactory();
+        BrokerAccount brokerConfig = liveStrategy.getBrokerAccount();
+
+        BarSeries barSeries = new DefaultBarSeries(5000);
+
         // Create strategy instance
         Strategy strategyInstance = strategyFactory.createStrategy(config.getStrategyClass(), strategyId);
         LiveExternalDataProvider dataProvider = new LiveExternalDataProvider(brokerClient, config.getInstrumentData().getInstrument());
@@ -263,13 +281,14 @@ public class LiveStrategyManager {
 
         // Init with an empty account
         AccountManager accountManager = new DefaultAccountManager(0, 0, 0);
-        TradeManager tradeManager = new LiveTradeManager(brokerClient);
+        LiveTradeManager tradeManager = new LiveTradeManager(brokerClient);
         // Set, so we have the ability to stop the strategy in case of background processes
         tradeManager.setDataManager(dataManager);
 
         RiskManagementService riskManagementService = new LiveRiskManager(riskManagementServiceClient, brokerConfig.getAccountId());
 
-        LiveStateManager liveStateManager = new LiveStateManager(brokerClient, accountManager, tradeManager, eventPublisher, strategyInstance, config.getInstrumentData().getInstrument(), liveStrategyService, telegramNotifier);
+        LiveStateManager liveStateManager = new LiveStateManager(brokerClient, accountManager, tradeManager, eventPublisher, strategyInstance,
+                config.getInstrumentData().getInstrument(), liveStrategyService, telegramNotifier, Duration.ofSeconds(stateReconcileIntervalSeconds));
 
         strategyInstance.setNotificationChatId(liveStrategy.getTelegramChatId());
 
@@ -289,7 +308,7 @@ public class LiveStrategyManager {
         );
 
         executor.initialise();
-        dataManager.addDataListener(executor);
+        dataManager.addDataListener(executor.getTickMailbox());
 
         return executor;
     }
@@ -29,11 +29,14 @@ public class LiveStrategyService {
     private final BrokerAccountRepository brokerAccountRepository;
 
     private final TrackingService trackingService;
+    private final LiveStrategyLogWriter liveStrategyLogWriter;
 
-    public LiveStrategyService(LiveStrategyRepository liveStrategyRepository, BrokerAccountRepository brokerAccountRepository, TrackingService trackingService) {
+    public LiveStrategyService(LiveStrategyRepository liveStrategyRepository, BrokerAccountRepository brokerAccountRepository, TrackingService trackingService,
+                               LiveStrategyLogWriter liveStrategyLogWriter) {
         this.liveStrategyRepository = liveStrategyRepository;
         this.brokerAccountRepository = brokerAccountRepository;
         this.trackingService = trackingService;
+        this.liveStrategyLogWriter = liveStrategyLogWriter;
     }
 
     /**
@@ -298,6 +301,9 @@ public class LiveStrategyService {
             throw new ApiException("Invalid live strategy configuration: " + e.getMessage(), ErrorType.BAD_REQUEST);
         }
 
+        // The old name is free to be reused by another strategy, so stop mapping it to this strategy's logs
+        liveStrategyLogWriter.forgetStrategy(liveStrategy.getStrategyName());
+
         // Update the possible values that we allow for updating
         liveStrategy.setStrategyName(updatedStratConfig.getStrategyName().trim());
         liveStrategy.setTelegramChatId(updatedStratConfig.getTelegramChatId().trim());
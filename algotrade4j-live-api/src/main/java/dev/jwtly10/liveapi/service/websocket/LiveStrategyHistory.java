@@ -0,0 +1,120 @@
+package dev.jwtly10.liveapi.service.websocket;
+
+import dev.jwtly10.core.model.Bar;
+import dev.jwtly10.core.model.BarSeries;
+import dev.jwtly10.core.model.IndicatorValue;
+import dev.jwtly10.core.model.Trade;
+
+import java.util.*;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Pages over the in memory history of a live strategy, for the snapshot window and history requests.
+ * Bars and indicator values are paged by time, trades by id. Pages are oldest first.
+ */
+final class LiveStrategyHistory {
+
+    private LiveStrategyHistory() {
+    }
+
+    record Page<T>(T items, boolean hasMore) {
+    }
+
+    /**
+     * @param barSeries    the bar series
+     * @param beforeMillis only bars opened before this time, Long.MAX_VALUE for the latest bars
+     * @param limit        the max number of bars
+     * @return the page of bars
+     */
+    static Page<List<Bar>> barsBefore(BarSeries barSeries, long beforeMillis, int limit) {
+        // The live series is a linked list that the executor keeps appending to
+        return barsBefore(new ArrayList<>(barSeries.getBars()), beforeMillis, limit);
+    }
+
+    /**
+     * @param bars         a copy of the bars, oldest first, that supports random access
+     * @param beforeMillis only bars opened before this time, Long.MAX_VALUE for the latest bars
+     * @param limit        the max number of bars
+     * @return the page of bars
+     */
+    static Page<List<Bar>> barsBefore(List<Bar> bars, long beforeMillis, int limit) {
+        int end = firstIndexAtOrAfter(bars.size(), i -> bars.get(i).getOpenTime().toInstant().toEpochMilli(), beforeMillis);
+        int start = Math.max(0, end - limit);
+        return new Page<>(List.copyOf(bars.subList(start, end)), start > 0);
+    }
+
+    /**
+     * @param values       the values of each indicator
+     * @param beforeMillis only values before this time, Long.MAX_VALUE for the latest values
+     * @param limit        the max number of values per indicator
+     * @return the page of values for every indicator, hasMore if any indicator has older values
+     */
+    static Page<Map<String, List<IndicatorValue>>> indicatorsBefore(Map<String, List<IndicatorValue>> values, long beforeMillis, int limit) {
+        Map<String, List<IndicatorValue>> page = new HashMap<>();
+        boolean hasMore = false;
+        for (Map.Entry<String, List<IndicatorValue>> entry : values.entrySet()) {
+            List<IndicatorValue> indicatorValues = entry.getValue();
+            int end = firstIndexAtOrAfter(indicatorValues.size(), i -> indicatorValues.get(i).getDateTime().toInstant().toEpochMilli(), beforeMillis);
+            int start = Math.max(0, end - limit);
+            page.put(entry.getKey(), List.copyOf(indicatorValues.subList(start, end)));
+            hasMore |= start > 0;
+        }
+        return new Page<>(page, hasMore);
+    }
+
+    /**
+     * @param trades   all trades by id
+     * @param beforeId only trades with a lower id, Integer.MAX_VALUE for the latest trades
+     * @param limit    the max number of trades
+     * @return the page of trades
+     */
+    static Page<List<Trade>> tradesBefore(Map<Integer, Trade> trades, int beforeId, int limit) {
+        List<Trade> page = trades.values().stream()
+                .filter(trade -> trade.getId() < beforeId)
+                .sorted(Comparator.comparingInt(Trade::getId).reversed())
+                .limit(limit + 1L)
+                .collect(Collectors.toCollection(ArrayList::new));
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page.removeLast();
+        }
+        Collections.reverse(page);
+        return new Page<>(page, hasMore);
+    }
+
+    /**
+     * The trades for a snapshot: the latest trades, plus every trade that is still open however old it is.
+     *
+     * @param trades all trades by id
+     * @param limit  the max number of closed trades
+     * @return the trades by id, hasMore if older trades were left out
+     */
+    static Page<Map<Integer, Trade>> latestTrades(Map<Integer, Trade> trades, int limit) {
+        Page<List<Trade>> latest = tradesBefore(trades, Integer.MAX_VALUE, limit);
+        Map<Integer, Trade> snapshot = new LinkedHashMap<>();
+        for (Trade trade : trades.values()) {
+            if (trade.getCloseTime() == null) {
+                snapshot.put(trade.getId(), trade);
+            }
+        }
+        for (Trade trade : latest.items()) {
+            snapshot.put(trade.getId(), trade);
+        }
+        return new Page<>(snapshot, latest.hasMore());
+    }
+
+    private static int firstIndexAtOrAfter(int size, IntToLongFunction timeAt, long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timeAt.applyAsLong(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
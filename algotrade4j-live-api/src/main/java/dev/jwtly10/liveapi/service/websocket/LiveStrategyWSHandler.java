@@ -1,17 +1,22 @@
 package dev.jwtly10.liveapi.service.websocket;
 
+import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.event.EventJournal;
 import dev.jwtly10.core.event.EventPublisher;
+import dev.jwtly10.core.event.OutboundEventQueue;
 import dev.jwtly10.core.event.Log;
 import dev.jwtly10.core.event.types.*;
 import dev.jwtly10.core.event.types.async.AsyncBarSeriesEvent;
 import dev.jwtly10.core.event.types.async.AsyncIndicatorsEvent;
 import dev.jwtly10.core.event.types.async.AsyncLogsEvent;
 import dev.jwtly10.core.event.types.async.AsyncTradesEvent;
+import dev.jwtly10.core.model.*;
 import dev.jwtly10.liveapi.executor.LiveExecutor;
 import dev.jwtly10.liveapi.model.strategy.LiveStrategyLog;
 import dev.jwtly10.liveapi.repository.LiveExecutorRepository;
 import dev.jwtly10.liveapi.service.strategy.LiveStrategyLogService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -19,19 +24,84 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
-
+/**
+ * Streams live strategy events to websocket viewers.
+ *
+ * <p>
+ * Client messages:
+ * <ul>
+ *     <li>{@code STRATEGY:<strategyId>} - view a strategy, starting with a snapshot of its state. The snapshot has the strategy's full
+ *     history unless {@code websocket.snapshot.window.size} limits it, for clients that page older history</li>
+ *     <li>{@code RESUME:<strategyId>:<journalId>:<sequence>} - view a strategy again after reconnecting. The sequence is the last one
+ *     the client processed. Only the missed events are sent if the strategy's journal still has them, otherwise a snapshot</li>
+ *     <li>{@code HISTORY:<BARS|TRADES|INDICATORS|LOGS>:<before>:<limit>} - a page of history older than {@code before}
+ *     (epoch millis, or trade id for trades), for the kinds a limited snapshot truncated</li>
+ *     <li>{@code PROTOCOL:BINARY} - use the binary encoding for the events that support it</li>
+ * </ul>
+ * Every snapshot or resume starts with a {@link SyncEvent}, see {@link EventJournal}.
+ * </p>
+ */
 @Component
 @Slf4j
 public class LiveStrategyWSHandler extends TextWebSocketHandler {
+    // Sent by clients that can decode the binary protocol, before or after the STRATEGY message
+    private static final String BINARY_PROTOCOL_MESSAGE = "PROTOCOL:BINARY";
+    private static final String BINARY_PROTOCOL_ATTRIBUTE = "binaryProtocol";
+    private static final List<Class<? extends BaseEvent>> LIVE_EVENT_TYPES = List.of(
+            BarEvent.class,
+            TradeEvent.class,
+            IndicatorEvent.class,
+            StrategyStopEvent.class,
+            AccountEvent.class,
+            AnalysisEvent.class,
+            LiveAnalysisEvent.class,
+            LogEvent.class,
+            AsyncLogsEvent.class,
+            ErrorEvent.class,
+            AsyncIndicatorsEvent.class,
+            AsyncTradesEvent.class
+    );
     private final EventPublisher eventPublisher;
     private final Map<WebSocketSession, WebSocketEventListener> listeners = new ConcurrentHashMap<>();
-    private final Map<String, WebSocketSession> strategySessions = new ConcurrentHashMap<>();
+    // One journal per running strategy, shared by every session viewing it
+    private final Map<String, StrategyJournal> journals = new ConcurrentHashMap<>();
     private final LiveExecutorRepository liveExecutorRepository;
     private final LiveStrategyLogService liveStrategyLogService;
+    // Shared by all sessions to flush conflated bar/account/trade updates
+    private final ScheduledExecutorService conflationScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @Value("${websocket.conflation.frames.per.second:20}")
+    private int conflationFramesPerSecond;
+
+    @Value("${websocket.outbound.queue.capacity:1000}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.outbound.queue.overflow.policy:CONFLATE}")
+    private OutboundEventQueue.OverflowPolicy outboundQueueOverflowPolicy;
+
+    // 0 sends the full history in the snapshot, as clients that don't page older history need it
+    @Value("${websocket.snapshot.window.size:0}")
+    private int snapshotWindowSize;
+
+    @Value("${websocket.journal.capacity:500}")
+    private int journalCapacity;
+
+    @Value("${websocket.journal.resume.window.seconds:60}")
+    private long journalResumeWindowSeconds;
 
     public LiveStrategyWSHandler(EventPublisher eventPublisher, LiveExecutorRepository liveExecutorRepository, LiveStrategyLogService liveStrategyLogService) {
         this.eventPublisher = eventPublisher;
@@ -48,63 +118,224 @@ public class LiveStrategyWSHandler extends TextWebSocketHandler {
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         log.info("Received message: {} ", message.getPayload());
         String payload = message.getPayload();
+        if (BINARY_PROTOCOL_MESSAGE.equals(payload)) {
+            session.getAttributes().put(BINARY_PROTOCOL_ATTRIBUTE, true);
+            WebSocketEventListener listener = listeners.get(session);
+            if (listener != null) {
+                listener.setBinaryProtocol(true);
+            }
+            return;
+        }
         if (payload.startsWith("STRATEGY:")) {
             // TODO DEBUG - Delete this log once issue fixed
             log.debug("Received strategy message: {}", payload);
-            String strategyId = payload.substring(9);
-            log.info("Starting WS connection for live strategy: '{}'", strategyId);
-            LiveExecutor executor = liveExecutorRepository.getStrategy(strategyId);
-            if (executor != null) {
-                WebSocketEventListener listener = new WebSocketEventListener(session, strategyId);
-                listeners.put(session, listener);
-                eventPublisher.addListener(listener);
-                listener.subscribe(BarEvent.class);
-                listener.subscribe(TradeEvent.class);
-                listener.subscribe(IndicatorEvent.class);
-                listener.subscribe(StrategyStopEvent.class);
-                listener.subscribe(AccountEvent.class);
-                listener.subscribe(AnalysisEvent.class);
-                listener.subscribe(LiveAnalysisEvent.class);
-                listener.subscribe(LogEvent.class);
-                listener.subscribe(AsyncLogsEvent.class);
-                listener.subscribe(ErrorEvent.class);
-                listener.subscribe(AsyncIndicatorsEvent.class);
-                listener.subscribe(AsyncTradesEvent.class);
-                sendInitialState(session, executor);
-                // TODO DEBUG - Delete this log once issue fixed
-                log.debug("Initial state send completed for strategy: {}", strategyId);
-            } else {
-                try {
-                    session.sendMessage(new TextMessage("ERROR:" + message));
-                } catch (IOException e) {
-                    log.error("Error sending error message: {}", e.getMessage(), e);
-                }
+            attach(session, payload.substring(9), null, 0, message);
+        } else if (payload.startsWith("RESUME:")) {
+            // RESUME:<strategyId>:<journalId>:<last sequence>
+            String[] parts = payload.split(":");
+            if (parts.length != 4) {
+                sendError(session, message);
+                return;
+            }
+            try {
+                attach(session, parts[1], parts[2], Long.parseLong(parts[3]), message);
+            } catch (NumberFormatException e) {
+                sendError(session, message);
+            }
+        } else if (payload.startsWith("HISTORY:")) {
+            // HISTORY:<kind>:<before>:<limit>
+            String[] parts = payload.split(":");
+            WebSocketEventListener listener = listeners.get(session);
+            if (parts.length != 4 || listener == null) {
+                sendError(session, message);
+                return;
+            }
+            try {
+                sendHistoryPage(listener, HistoryPageEvent.Kind.valueOf(parts[1]), Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+            } catch (IllegalArgumentException e) {
+                sendError(session, message);
             }
         }
     }
 
+    /**
+     * Attaches a session to a strategy's journal. The session resumes from the given sequence if the journal still has
+     * everything after it, otherwise it is sent a snapshot of the most recent state.
+     */
+    private void attach(WebSocketSession session, String strategyId, String journalId, long fromSequence, TextMessage message) {
+        log.info("Starting WS connection for live strategy: '{}'", strategyId);
+        LiveExecutor executor = liveExecutorRepository.getStrategy(strategyId);
+        if (executor == null) {
+            sendError(session, message);
+            return;
+        }
+
+        WebSocketEventListener listener = new WebSocketEventListener(session, strategyId, conflationFramesPerSecond, conflationScheduler,
+                outboundQueueCapacity, outboundQueueOverflowPolicy);
+        listener.setBinaryProtocol(Boolean.TRUE.equals(session.getAttributes().get(BINARY_PROTOCOL_ATTRIBUTE)));
+        LIVE_EVENT_TYPES.forEach(listener::subscribe);
+        WebSocketEventListener previous = listeners.put(session, listener);
+        if (previous != null) {
+            detach(previous);
+        }
+
+        EventJournal journal = journalFor(strategyId, executor);
+        // Fetched before attaching (in case the session can't resume), so the journal lock isn't held over a DB call
+        List<LiveStrategyLog> dbLogs = snapshotWindowSize > 0
+                ? liveStrategyLogService.getLogs(strategyId, null, snapshotWindowSize + 1)
+                : liveStrategyLogService.getLogs(strategyId);
+
+        SnapshotState[] snapshot = new SnapshotState[1];
+        boolean resumed = journal.attach(listener, journalId, fromSequence, new EventJournal.SyncHandler() {
+            @Override
+            public void onSnapshot(long sequence) {
+                // Only copy the state under the journal lock, live events are held until the snapshot is queued
+                listener.hold();
+                snapshot[0] = SnapshotState.copy(executor, sequence);
+            }
+
+            @Override
+            public void onResume(long from, long to) {
+                listener.enqueue(new SyncEvent(strategyId, executor.getInstrument(), journal, from, true, snapshotWindowSize, Set.of()));
+            }
+        });
+        if (!resumed) {
+            List<BaseEvent> snapshotEvents = List.of();
+            try {
+                snapshotEvents = snapshotEvents(executor, journal, snapshot[0], dbLogs);
+            } finally {
+                // Even without a snapshot, the held live events mustn't build up forever
+                listener.release(snapshotEvents);
+            }
+        }
+        log.debug("Attached session {} to strategy {}, resumed: {}, sequence: {}", session.getId(), strategyId, resumed, journal.getLastSequence());
+    }
+
+    private List<BaseEvent> snapshotEvents(LiveExecutor executor, EventJournal journal, SnapshotState state, List<LiveStrategyLog> dbLogs) {
+        String strategyId = executor.getStrategyId();
+        Instrument instrument = executor.getInstrument();
+        int limit = snapshotLimit();
+        LiveStrategyHistory.Page<List<Bar>> bars = LiveStrategyHistory.barsBefore(state.bars(), Long.MAX_VALUE, limit);
+        LiveStrategyHistory.Page<Map<Integer, Trade>> trades = LiveStrategyHistory.latestTrades(state.trades(), limit);
+        LiveStrategyHistory.Page<Map<String, List<IndicatorValue>>> indicators =
+                LiveStrategyHistory.indicatorsBefore(state.indicators(), Long.MAX_VALUE, limit);
+        boolean moreLogs = dbLogs.size() > limit;
+        List<Log> logs = toLogs(moreLogs ? dbLogs.subList(0, limit) : dbLogs);
+
+        Set<HistoryPageEvent.Kind> truncated = EnumSet.noneOf(HistoryPageEvent.Kind.class);
+        if (bars.hasMore()) {
+            truncated.add(HistoryPageEvent.Kind.BARS);
+        }
+        if (trades.hasMore()) {
+            truncated.add(HistoryPageEvent.Kind.TRADES);
+        }
+        if (indicators.hasMore()) {
+            truncated.add(HistoryPageEvent.Kind.INDICATORS);
+        }
+        if (moreLogs) {
+            truncated.add(HistoryPageEvent.Kind.LOGS);
+        }
+
+        DefaultBarSeries barSeries = new DefaultBarSeries(Math.max(bars.items().size(), 1));
+        bars.items().forEach(barSeries::addBar);
+
+        return List.of(
+                new SyncEvent(strategyId, instrument, journal, state.sequence(), false, snapshotWindowSize, truncated),
+                new AsyncBarSeriesEvent(strategyId, instrument, barSeries),
+                new AsyncTradesEvent(strategyId, instrument, trades.items()),
+                new AsyncIndicatorsEvent(strategyId, instrument, indicators.items()),
+                new AsyncLogsEvent(strategyId, instrument, logs));
+    }
+
+    private void sendHistoryPage(WebSocketEventListener listener, HistoryPageEvent.Kind kind, long before, int limit) {
+        String strategyId = listener.getStrategyId();
+        LiveExecutor executor = liveExecutorRepository.getStrategy(strategyId);
+        if (executor == null) {
+            return;
+        }
+        Instrument instrument = executor.getInstrument();
+        int pageSize = Math.max(1, Math.min(limit, snapshotLimit()));
+
+        HistoryPageEvent page = switch (kind) {
+            case BARS -> {
+                LiveStrategyHistory.Page<List<Bar>> bars = LiveStrategyHistory.barsBefore(executor.getBarSeries(), before, pageSize);
+                yield HistoryPageEvent.bars(strategyId, instrument, bars.items(), bars.hasMore());
+            }
+            case TRADES -> {
+                int beforeId = (int) Math.min(before, Integer.MAX_VALUE);
+                LiveStrategyHistory.Page<List<Trade>> trades = LiveStrategyHistory.tradesBefore(executor.getTrades(), beforeId, pageSize);
+                yield HistoryPageEvent.trades(strategyId, instrument, trades.items(), trades.hasMore());
+            }
+            case INDICATORS -> {
+                LiveStrategyHistory.Page<Map<String, List<IndicatorValue>>> indicators =
+                        LiveStrategyHistory.indicatorsBefore(executor.getIndicators(), before, pageSize);
+                yield HistoryPageEvent.indicators(strategyId, instrument, indicators.items(), indicators.hasMore());
+            }
+            case LOGS -> {
+                ZonedDateTime beforeTime = Instant.ofEpochMilli(before).atZone(ZoneOffset.UTC);
+                List<LiveStrategyLog> dbLogs = liveStrategyLogService.getLogs(strategyId, beforeTime, pageSize + 1);
+                boolean hasMore = dbLogs.size() > pageSize;
+                yield HistoryPageEvent.logs(strategyId, instrument, toLogs(hasMore ? dbLogs.subList(0, pageSize) : dbLogs), hasMore);
+            }
+        };
+        listener.enqueue(page);
+    }
+
+    /**
+     * @return the max number of items of each kind in a snapshot
+     */
+    private int snapshotLimit() {
+        return snapshotWindowSize > 0 ? snapshotWindowSize : Integer.MAX_VALUE;
+    }
 
-    private void sendInitialState(WebSocketSession session, LiveExecutor executor) {
+    private EventJournal journalFor(String strategyId, LiveExecutor executor) {
+        return journals.compute(strategyId, (id, existing) -> {
+            if (existing != null && existing.executor() == executor) {
+                return existing;
+            }
+            if (existing != null) {
+                // The strategy was restarted, sequences from the old run mean nothing to the new one
+                retire(existing.journal());
+            }
+            EventJournal journal = new EventJournal(id, journalCapacity, Duration.ofSeconds(journalResumeWindowSeconds));
+            LIVE_EVENT_TYPES.forEach(journal::subscribe);
+            eventPublisher.addListener(journal);
+            return new StrategyJournal(executor, journal);
+        }).journal();
+    }
+
+    private void retire(EventJournal journal) {
+        journal.deactivate();
+        eventPublisher.removeListener(journal);
+    }
+
+    private void detach(WebSocketEventListener listener) {
+        listener.deactivate();
+        journals.computeIfPresent(listener.getStrategyId(), (id, strategyJournal) -> {
+            strategyJournal.journal().detach(listener);
+            // Keep the journal while the strategy runs, so viewers can resume after reconnecting
+            if (!strategyJournal.journal().hasViewers() && liveExecutorRepository.getStrategy(id) != strategyJournal.executor()) {
+                retire(strategyJournal.journal());
+                return null;
+            }
+            return strategyJournal;
+        });
+    }
+
+    private List<Log> toLogs(List<LiveStrategyLog> dbLogs) {
+        return dbLogs.stream().map(log ->
+                new Log(
+                        log.getMessage(),
+                        LogEvent.LogType.valueOf(log.getLevel()),
+                        log.getCreatedAt())
+        ).toList();
+    }
+
+    private void sendError(WebSocketSession session, TextMessage message) {
         try {
-            WebSocketEventListener listener = listeners.get(session);
-            AsyncBarSeriesEvent barSeriesEvent = new AsyncBarSeriesEvent(executor.getStrategyId(), executor.getInstrument(), executor.getBarSeries());
-            listener.sendBinaryMessage(barSeriesEvent.toJson());
-            AsyncTradesEvent tradesEvent = new AsyncTradesEvent(executor.getStrategyId(), executor.getInstrument(), executor.getTrades());
-            listener.sendBinaryMessage(tradesEvent.toJson());
-            AsyncIndicatorsEvent indicatorsEvent = new AsyncIndicatorsEvent(executor.getStrategyId(), executor.getInstrument(), executor.getIndicators());
-            listener.sendBinaryMessage(indicatorsEvent.toJson());
-
-            List<LiveStrategyLog> dbLogs = liveStrategyLogService.getLogs(executor.getStrategyId());
-            List<Log> logs = dbLogs.stream().map(log ->
-                    new Log(
-                            log.getMessage(),
-                            LogEvent.LogType.valueOf(log.getLevel()),
-                            log.getCreatedAt())
-            ).toList();
-            AsyncLogsEvent logsEvent = new AsyncLogsEvent(executor.getStrategyId(), executor.getInstrument(), logs);
-            listener.sendBinaryMessage(logsEvent.toJson());
+            session.sendMessage(new TextMessage("ERROR:" + message));
         } catch (IOException e) {
-            log.error("Error sending initial state: {}", e.getMessage(), e);
+            log.error("Error sending error message: {}", e.getMessage(), e);
         }
     }
 
@@ -113,7 +344,7 @@ public class LiveStrategyWSHandler extends TextWebSocketHandler {
         log.info("Session closed: {} ", session);
         WebSocketEventListener listener = listeners.remove(session);
         if (listener != null) {
-            eventPublisher.removeListener(listener);
+            detach(listener);
         }
     }
 
@@ -145,14 +376,23 @@ public class LiveStrategyWSHandler extends TextWebSocketHandler {
 //        return false;
     }
 
-    public WebSocketSession getSessionForStrategy(String strategyId) {
-        log.debug("Finding strategy for: {} ", strategyId);
-        log.debug("Current strategySessions map: {}", strategySessions);
-        return strategySessions.get(strategyId);
-    }
-
     public WebSocketEventListener getListenerForSession(WebSocketSession session) {
         log.debug("Getting listeners for: {} ", session);
         return listeners.get(session);
     }
-}
\ No newline at end of file
+
+    private record StrategyJournal(LiveExecutor executor, EventJournal journal) {
+    }
+
+    /**
+     * A copy of a strategy's state at a journal sequence, taken under the journal lock so the snapshot pages can be built outside it.
+     */
+    private record SnapshotState(long sequence, List<Bar> bars, Map<Integer, Trade> trades, Map<String, List<IndicatorValue>> indicators) {
+
+        static SnapshotState copy(LiveExecutor executor, long sequence) {
+            Map<String, List<IndicatorValue>> indicators = new HashMap<>();
+            executor.getIndicators().forEach((name, values) -> indicators.put(name, new ArrayList<>(values)));
+            return new SnapshotState(sequence, new ArrayList<>(executor.getBarSeries().getBars()), new HashMap<>(executor.getTrades()), indicators);
+        }
+    }
+}
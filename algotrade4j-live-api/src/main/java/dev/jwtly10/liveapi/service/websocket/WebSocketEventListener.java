@@ -1,99 +1,186 @@
 package dev.jwtly10.liveapi.service.websocket;
 
 import dev.jwtly10.core.event.BaseEvent;
-import dev.jwtly10.core.event.EventListener;
+import dev.jwtly10.core.event.EventConflator;
+import dev.jwtly10.core.event.OutboundEventQueue;
+import dev.jwtly10.core.event.TopicEventListener;
 import dev.jwtly10.core.event.types.ErrorEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.socket.BinaryMessage;
-import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.zip.GZIPOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
-public class WebSocketEventListener implements EventListener {
-    private static final int COMPRESSION_THRESHOLD = 1024; // 1KB
+public class WebSocketEventListener extends TopicEventListener {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
     private final WebSocketSession session;
-    private final Set<Class<? extends BaseEvent>> subscribedEventTypes = new HashSet<>();
-    private final AtomicBoolean isActive = new AtomicBoolean(true);
-    private final Object lock = new Object();
-    private final String strategyId;
+    // Spring sessions don't allow concurrent sends. Not a monitor, which would pin the queue's virtual thread during the write
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Null if high frequency events are sent as they arrive
+    private final EventConflator conflator;
+    // Events are sent from the queue's own thread, so a slow client never blocks the publisher
+    private final OutboundEventQueue outboundQueue;
+    // Whether the client negotiated the binary protocol for the events that support it
+    private volatile boolean binaryProtocol = false;
+    // Live events received while the session's snapshot is being built, null when events aren't held
+    private final Object holdLock = new Object();
+    private List<BaseEvent> heldEvents;
+    private volatile boolean holding = false;
 
     public WebSocketEventListener(WebSocketSession session, String strategyId) {
+        this(session, strategyId, 0, null, DEFAULT_QUEUE_CAPACITY, OutboundEventQueue.OverflowPolicy.CONFLATE);
+    }
+
+    /**
+     * Creates a listener that sends events through a bounded per session queue,
+     * optionally conflating high frequency events (bars, account and trade updates) to at most the given frames per second.
+     *
+     * @param session         the websocket session
+     * @param strategyId      the strategy to listen to
+     * @param framesPerSecond the max rate high frequency updates are sent at, 0 to disable conflation
+     * @param scheduler       the scheduler used to flush conflated events, only required if conflating
+     * @param queueCapacity   the max number of events waiting to be sent to the session
+     * @param overflowPolicy  what to do when the session can't keep up and the queue is full
+     */
+    public WebSocketEventListener(WebSocketSession session, String strategyId, int framesPerSecond, ScheduledExecutorService scheduler,
+                                  int queueCapacity, OutboundEventQueue.OverflowPolicy overflowPolicy) {
+        super(strategyId);
         this.session = session;
-        this.strategyId = strategyId;
+        this.outboundQueue = new OutboundEventQueue(session.getId(), queueCapacity, overflowPolicy, this::send, this::disconnect);
+        this.conflator = framesPerSecond > 0 ? new EventConflator(outboundQueue::offer, framesPerSecond, scheduler) : null;
     }
 
     @Override
     public void onEvent(BaseEvent event) {
-        if (!isActive.get() || !subscribedEventTypes.contains(event.getClass()) || !event.getStrategyId().equals(this.strategyId)) {
+        if (!isSubscribed(event.getClass(), event.getStrategyId())) {
             return;
         }
 
-        synchronized (lock) {
-            try {
-                if (session.isOpen()) {
-                    String jsonMessage = event.toJson();
-                    sendBinaryMessage(jsonMessage);
+        if (holding) {
+            synchronized (holdLock) {
+                if (heldEvents != null) {
+                    heldEvents.add(event);
+                    return;
                 }
-            } catch (IllegalStateException e) {
-                log.debug("Session already closed, unable to send event: {}", event);
-                deactivate();
-            } catch (IOException e) {
-                log.error("Failed to send message to WS session: {}", e.getMessage(), e);
             }
         }
+        dispatch(event);
     }
 
-    private byte[] compressMessage(String message) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
-            gzipOut.write(message.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Holds back live events until {@link #release(List)}, so the snapshot they follow can be built without blocking the publisher.
+     */
+    public void hold() {
+        synchronized (holdLock) {
+            heldEvents = new ArrayList<>();
+            holding = true;
         }
-        return baos.toByteArray();
     }
 
-    @Override
-    public void onError(String strategyId, Exception e) {
-        try {
-            String errorDetails = formatErrorWithStackTrace(strategyId, e);
-            ErrorEvent errorEvent = new ErrorEvent(strategyId, errorDetails);
-            session.sendMessage(new TextMessage(errorEvent.toJson()));
-        } catch (IOException ex) {
-            log.error("Failed to send error message to WS session", ex);
-        } catch (Exception ex) {
-            log.error("Unexpected error sending error message to WS session", ex);
+    /**
+     * Queues the given events, followed by the live events held since {@link #hold()}, and stops holding.
+     *
+     * @param first the events to send before the held events, e.g. a snapshot
+     */
+    public void release(List<BaseEvent> first) {
+        synchronized (holdLock) {
+            first.forEach(outboundQueue::offer);
+            if (heldEvents != null) {
+                heldEvents.forEach(this::dispatch);
+            }
+            heldEvents = null;
+            holding = false;
         }
     }
 
+    private void dispatch(BaseEvent event) {
+        if (conflator != null) {
+            conflator.offer(event);
+        } else {
+            outboundQueue.offer(event);
+        }
+    }
 
-    @Override
-    public void onError(String strategyId, String message) {
+    private void send(BaseEvent event) {
+        lock.lock();
         try {
-            ErrorEvent errorEvent = new ErrorEvent(strategyId, message);
-            session.sendMessage(new TextMessage(errorEvent.toJson()));
+            if (session.isOpen()) {
+                sendEvent(event);
+            }
+        } catch (IllegalStateException e) {
+            log.debug("Session already closed, unable to send event: {}", event);
+            deactivate();
         } catch (IOException e) {
-            log.error("Failed to send error message to WS session: {}", e.getMessage(), e);
+            log.error("Failed to send message to WS session: {}", e.getMessage(), e);
+        } finally {
+            lock.unlock();
         }
     }
 
-    public void subscribe(Class<? extends BaseEvent> eventType) {
-        subscribedEventTypes.add(eventType);
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        if (conflator != null) {
+            conflator.close();
+        }
+        outboundQueue.close();
     }
 
-    public void unsubscribe(Class<? extends BaseEvent> eventType) {
-        subscribedEventTypes.remove(eventType);
+    /**
+     * Switches the session to the binary protocol. Events without a binary encoding are still sent as JSON.
+     *
+     * @param binaryProtocol true to send supported events in the binary encoding
+     */
+    public void setBinaryProtocol(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
     }
 
-    public void deactivate() {
-        isActive.set(false);
+    private ByteBuffer payloadFor(BaseEvent event) throws IOException {
+        if (binaryProtocol) {
+            ByteBuffer binary = event.toBinaryWirePayload();
+            if (binary != null) {
+                return binary;
+            }
+        }
+        // Serialised and compressed once per event, however many sessions are watching
+        return event.toWirePayload();
+    }
+
+    /**
+     * @return the queue of events waiting to be sent to this session, for metrics
+     */
+    public OutboundEventQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    private void disconnect() {
+        deactivate();
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.error("Failed to close slow WS session: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queues the error behind the events already waiting, so it is sent by the queue's thread like every other event.
+     */
+    @Override
+    public void onError(String strategyId, Exception e) {
+        outboundQueue.offer(new ErrorEvent(strategyId, formatErrorWithStackTrace(strategyId, e)));
+    }
+
+    @Override
+    public void onError(String strategyId, String message) {
+        outboundQueue.offer(new ErrorEvent(strategyId, message));
     }
 
     private String formatErrorWithStackTrace(String strategyId, Exception e) {
@@ -116,22 +203,18 @@ public class WebSocketEventListener implements EventListener {
         return sb.toString();
     }
 
-    public void sendBinaryMessage(String jsonMessage) throws IOException {
-        byte[] messageBytes = jsonMessage.getBytes(StandardCharsets.UTF_8);
+    /**
+     * Queues an event for the session, ahead of anything the listener receives afterwards.
+     * Used for the initial state and history pages, which the session is not subscribed to and must not be conflated.
+     *
+     * @param event the event to send
+     */
+    public void enqueue(BaseEvent event) {
+        outboundQueue.offer(event);
+    }
 
-        ByteBuffer buffer;
-        if (messageBytes.length > COMPRESSION_THRESHOLD) {
-            // Compress large messages
-            byte[] compressedMessage = compressMessage(jsonMessage);
-            buffer = ByteBuffer.allocate(compressedMessage.length + 1);
-            buffer.put((byte) 1); // Flag for compressed message
-            buffer.put(compressedMessage);
-        } else {
-            buffer = ByteBuffer.allocate(messageBytes.length + 1);
-            buffer.put((byte) 0); // Flag for uncompressed message
-            buffer.put(messageBytes);
-        }
-        buffer.flip();
-        session.sendMessage(new BinaryMessage(buffer));
+    private void sendEvent(BaseEvent event) throws IOException {
+        // Encoded once per protocol, however many sessions it is sent to
+        session.sendMessage(new BinaryMessage(payloadFor(event)));
     }
-}
\ No newline at end of file
+}
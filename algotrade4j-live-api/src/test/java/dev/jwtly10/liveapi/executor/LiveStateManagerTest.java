@@ -0,0 +1,139 @@
+package dev.jwtly10.liveapi.executor;
+
+import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.account.DefaultAccountManager;
+import dev.jwtly10.core.event.BaseEvent;
+import dev.jwtly10.core.event.EventPublisher;
+import dev.jwtly10.core.event.types.TradeEvent;
+import dev.jwtly10.core.exception.RiskException;
+import dev.jwtly10.core.external.notifications.Notifier;
+import dev.jwtly10.core.model.DefaultTick;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Trade;
+import dev.jwtly10.core.strategy.Strategy;
+import dev.jwtly10.liveapi.model.Stats;
+import dev.jwtly10.liveapi.service.strategy.LiveStrategyService;
+import dev.jwtly10.marketdata.common.AccountChanges;
+import dev.jwtly10.marketdata.common.BrokerClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static dev.jwtly10.core.model.Instrument.EURUSD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs {@link LiveStateManager} against a mocked {@link BrokerClient}, with a real {@link LiveTradeManager} holding the trades.
+ */
+class LiveStateManagerTest {
+
+    private final List<TradeEvent> tradeEvents = new CopyOnWriteArrayList<>();
+
+    private BrokerClient brokerClient;
+    private LiveTradeManager tradeManager;
+    private LiveStrategyService liveStrategyService;
+    private Notifier notifier;
+    private LiveStateManager stateManager;
+
+    @BeforeEach
+    void setUp() {
+        brokerClient = mock(BrokerClient.class);
+        tradeManager = new LiveTradeManager(brokerClient);
+        liveStrategyService = mock(LiveStrategyService.class);
+        notifier = mock(Notifier.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stateManager != null) {
+            stateManager.shutdown();
+        }
+        tradeManager.shutdown();
+    }
+
+    @Test
+    void testReconcileMergesChangesIntoTheTrades() throws Exception {
+        Trade loaded = closedTrade(3, 20);
+        tradeManager.updateAllTrades(List.of(loaded));
+        when(brokerClient.getAccountChanges(null)).thenReturn(
+                new AccountChanges(new Account(1000, 1000, 1005), List.of(openTrade(1), closedTrade(2, 10), closedTrade(3, 20)), Map.of(), "10"));
+        when(brokerClient.getAccountChanges("10")).thenReturn(
+                new AccountChanges(new Account(1000, 1015, 1015), List.of(closedTrade(1, 5)), Map.of(), "11"));
+        when(brokerClient.getAccountChanges("11")).thenReturn(
+                new AccountChanges(new Account(1000, 1015, 1015), List.of(), Map.of(), "11"));
+
+        stateManager = stateManager(Duration.ofMillis(50));
+        stateManager.start();
+
+        // Only the first reconciliation fetches every trade, the following ones pass on the broker's cursor
+        verify(brokerClient, timeout(5000).atLeast(2)).getAccountChanges("11");
+        verify(brokerClient, times(1)).getAccountChanges(null);
+        verify(brokerClient, times(1)).getAccountChanges("10");
+
+        // Only the trades that changed are published, and the trade loaded at start isn't
+        assertEquals(List.of("1:OPEN", "2:CLOSE", "1:CLOSE"), tradeEvents.stream().map(e -> e.getTrade().getId() + ":" + e.getAction()).toList());
+        assertEquals(Map.of(), tradeManager.getOpenTrades());
+        assertEquals(3, tradeManager.getAllTrades().size());
+
+        // Every closed trade is counted once in the statistics, which are only refreshed when something changed
+        ArgumentCaptor<Stats> stats = ArgumentCaptor.forClass(Stats.class);
+        verify(liveStrategyService, times(2)).updateStrategyStats(eq("Test"), stats.capture());
+        assertEquals(3, stats.getValue().getTotalTrades());
+        assertEquals(1015.0, stats.getValue().getAccountBalance());
+    }
+
+    @Test
+    void testEquityRiskStopIsCheckedBetweenReconciliations() throws Exception {
+        when(brokerClient.getAccountChanges(null)).thenReturn(
+                new AccountChanges(new Account(1000, 1000, 1000), List.of(openTrade(1)), Map.of(), "10"));
+
+        stateManager = stateManager(Duration.ofHours(1));
+        stateManager.start();
+        verify(liveStrategyService, timeout(5000)).updateStrategyStats(eq("Test"), any());
+
+        // The long position loses 0.1 on 10000 units, taking the equity to 0
+        tradeManager.setCurrentTick(new DefaultTick(EURUSD, new Number("1.0000"), new Number("1.00005"), new Number("1.0001"), new Number("1"), ZonedDateTime.now()));
+
+        verify(notifier, timeout(5000)).sendSysErrorNotification(anyString(), any(RiskException.class), eq(true));
+        // The check didn't wait for the next reconciliation
+        verify(brokerClient, times(1)).getAccountChanges(any());
+    }
+
+    private LiveStateManager stateManager(Duration reconcileInterval) {
+        EventPublisher eventPublisher = mock(EventPublisher.class);
+        when(eventPublisher.hasSubscribers(any(), anyString())).thenReturn(true);
+        doAnswer(invocation -> {
+            BaseEvent event = invocation.getArgument(0);
+            if (event instanceof TradeEvent tradeEvent) {
+                tradeEvents.add(tradeEvent);
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any());
+
+        Strategy strategy = mock(Strategy.class);
+        when(strategy.getStrategyId()).thenReturn("Test");
+        return new LiveStateManager(brokerClient, new DefaultAccountManager(1000), tradeManager, eventPublisher, strategy, EURUSD,
+                liveStrategyService, notifier, reconcileInterval);
+    }
+
+    private Trade openTrade(int id) {
+        return new Trade(id, EURUSD, 10000, ZonedDateTime.now().minusHours(1), new Number("1.1000"), new Number("1.0900"), new Number("1.1200"), true);
+    }
+
+    private Trade closedTrade(int id, double profit) {
+        Trade trade = openTrade(id);
+        trade.setClosePrice(new Number("1.1010"));
+        trade.setCloseTime(ZonedDateTime.now());
+        trade.setProfit(profit);
+        return trade;
+    }
+}
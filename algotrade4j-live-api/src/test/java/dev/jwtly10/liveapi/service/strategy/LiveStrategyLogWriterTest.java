@@ -0,0 +1,204 @@
+package dev.jwtly10.liveapi.service.strategy;
+
+import dev.jwtly10.core.event.types.LogEvent;
+import dev.jwtly10.liveapi.model.strategy.LiveStrategy;
+import dev.jwtly10.liveapi.repository.strategy.LiveStrategyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs {@link LiveStrategyLogWriter} against a mocked {@link JdbcTemplate}.
+ */
+class LiveStrategyLogWriterTest {
+
+    private static final long LONG_FLUSH_INTERVAL_MILLIS = 10_000;
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private JdbcTemplate jdbcTemplate;
+    private LiveStrategyRepository liveStrategyRepository;
+    private LiveStrategyLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batchArgs = invocation.getArgument(1);
+            List<String> messages = new ArrayList<>();
+            for (Object[] args : batchArgs) {
+                messages.add((String) args[2]);
+            }
+            batches.add(messages);
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new int[batchArgs.size()];
+        });
+
+        LiveStrategy strategy = mock(LiveStrategy.class);
+        when(strategy.getId()).thenReturn(1L);
+        liveStrategyRepository = mock(LiveStrategyRepository.class);
+        when(liveStrategyRepository.findByStrategyName("Test")).thenReturn(Optional.of(strategy));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testLinesAreWrittenInBatches() throws Exception {
+        writer = writer(100, 3, LONG_FLUSH_INTERVAL_MILLIS, LiveStrategyLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 7; i++) {
+            writer.write("Test", LogEvent.LogType.INFO, "line " + i);
+        }
+
+        // Full batches are written without waiting for the flush interval
+        await(() -> batches.size() == 2);
+        assertEquals(List.of(List.of("line 0", "line 1", "line 2"), List.of("line 3", "line 4", "line 5")), batches);
+        // Only the strategy id lookup for the first line goes to the repository
+        verify(liveStrategyRepository, times(1)).findByStrategyName("Test");
+    }
+
+    @Test
+    void testPartialBatchIsWrittenAfterTheFlushInterval() throws Exception {
+        writer = writer(100, 10, 50, LiveStrategyLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        writer.write("Test", LogEvent.LogType.WARNING, "line");
+
+        await(() -> batches.size() == 1);
+        assertEquals(List.of("line"), batches.getFirst());
+        assertEquals(1, writer.getWritten());
+    }
+
+    @Test
+    void testCloseWritesQueuedLines() {
+        writer = writer(100, 3, LONG_FLUSH_INTERVAL_MILLIS, LiveStrategyLogWriter.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 4; i++) {
+            writer.write("Test", LogEvent.LogType.INFO, "line " + i);
+        }
+
+        writer.close();
+
+        assertEquals(List.of("line 0", "line 1", "line 2", "line 3"), messages());
+        assertEquals(4, writer.getWritten());
+
+        // Lines logged after closing are written straight away
+        writer.write("Test", LogEvent.LogType.INFO, "after close");
+        assertEquals("after close", messages().getLast());
+    }
+
+    @Test
+    void testDropOldestKeepsTheMostRecentLines() throws Exception {
+        writer = writer(2, 1, LONG_FLUSH_INTERVAL_MILLIS, LiveStrategyLogWriter.OverflowPolicy.DROP_OLDEST);
+        blockWriterOn("in flight");
+
+        writer.write("Test", LogEvent.LogType.INFO, "a");
+        writer.write("Test", LogEvent.LogType.INFO, "b");
+        writer.write("Test", LogEvent.LogType.INFO, "c");
+        release.countDown();
+        writer.close();
+
+        assertEquals(List.of("in flight", "b", "c"), messages());
+        assertEquals(1, writer.getDropped());
+    }
+
+    @Test
+    void testDropNewestKeepsTheQueuedLines() throws Exception {
+        writer = writer(2, 1, LONG_FLUSH_INTERVAL_MILLIS, LiveStrategyLogWriter.OverflowPolicy.DROP_NEWEST);
+        blockWriterOn("in flight");
+
+        writer.write("Test", LogEvent.LogType.INFO, "a");
+        writer.write("Test", LogEvent.LogType.INFO, "b");
+        writer.write("Test", LogEvent.LogType.INFO, "c");
+        release.countDown();
+        writer.close();
+
+        assertEquals(List.of("in flight", "a", "b"), messages());
+        assertEquals(1, writer.getDropped());
+    }
+
+    @Test
+    void testBlockWaitsForSpace() throws Exception {
+        writer = writer(1, 1, LONG_FLUSH_INTERVAL_MILLIS, LiveStrategyLogWriter.OverflowPolicy.BLOCK);
+        blockWriterOn("in flight");
+        writer.write("Test", LogEvent.LogType.INFO, "queued");
+
+        Thread logging = Thread.ofPlatform().start(() -> writer.write("Test", LogEvent.LogType.INFO, "waiting"));
+        logging.join(300);
+        assertTrue(logging.isAlive(), "Logging didn't wait for space in the queue");
+
+        release.countDown();
+        logging.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(logging.isAlive());
+        writer.close();
+
+        assertEquals(List.of("in flight", "queued", "waiting"), messages());
+        assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    void testBlockedLineIsWrittenWhenClosed() throws Exception {
+        writer = writer(1, 1, LONG_FLUSH_INTERVAL_MILLIS, LiveStrategyLogWriter.OverflowPolicy.BLOCK);
+        blockWriterOn("in flight");
+        writer.write("Test", LogEvent.LogType.INFO, "queued");
+
+        Thread logging = Thread.ofPlatform().start(() -> writer.write("Test", LogEvent.LogType.INFO, "waiting"));
+        logging.join(300);
+        Thread closing = Thread.ofPlatform().start(writer::close);
+        release.countDown();
+        closing.join(TimeUnit.SECONDS.toMillis(5));
+        logging.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(logging.isAlive(), "Logging was left waiting after the writer closed");
+        // The closing thread and the logging thread race to write the last lines, but none are lost
+        assertEquals(Set.of("in flight", "queued", "waiting"), Set.copyOf(messages()));
+        assertEquals(3, writer.getWritten());
+    }
+
+    private LiveStrategyLogWriter writer(int capacity, int batchSize, long flushIntervalMillis, LiveStrategyLogWriter.OverflowPolicy policy) {
+        return new LiveStrategyLogWriter(jdbcTemplate, liveStrategyRepository, capacity, batchSize, flushIntervalMillis, policy);
+    }
+
+    /**
+     * Writes a line and waits until the writer thread is stuck writing it, so the following lines stay queued.
+     */
+    private void blockWriterOn(String message) throws InterruptedException {
+        release = new CountDownLatch(1);
+        writer.write("Test", LogEvent.LogType.INFO, message);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+    }
+
+    private List<String> messages() {
+        return batches.stream().flatMap(List::stream).toList();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for batches: " + batches);
+            Thread.sleep(10);
+        }
+    }
+}
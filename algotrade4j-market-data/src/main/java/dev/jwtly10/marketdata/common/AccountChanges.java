@@ -0,0 +1,19 @@
+package dev.jwtly10.marketdata.common;
+
+import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.model.Trade;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of a broker account, and the trades that changed since a point in the account's transaction history.
+ *
+ * @param account           the current balance and equity of the account
+ * @param trades            the trades that were opened, closed or modified since the given transaction, or every trade if there was no cursor
+ * @param openTradeProfits  the current profit of open trades by trade id, for trades not included in {@code trades}
+ * @param lastTransactionId the cursor to pass to the next {@link BrokerClient#getAccountChanges(String)} call,
+ *                          or null if the broker doesn't support incremental updates
+ */
+public record AccountChanges(Account account, List<Trade> trades, Map<Integer, Double> openTradeProfits, String lastTransactionId) {
+}
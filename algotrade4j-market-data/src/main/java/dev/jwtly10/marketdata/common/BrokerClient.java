@@ -8,6 +8,7 @@ import dev.jwtly10.core.model.TradeParameters;
 import dev.jwtly10.marketdata.common.stream.Stream;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for interacting with a broker client.
@@ -46,6 +47,18 @@ public interface BrokerClient {
      */
     List<Trade> getAllTrades() throws Exception;
 
+    /**
+     * Retrieves the account state, and the trades that changed since the given transaction.
+     * Brokers that can't query changes by transaction return every trade, and a null cursor.
+     *
+     * @param sinceTransactionId the cursor returned by the previous call, or null to fetch every trade
+     * @return The account state and changed trades.
+     * @throws Exception If an error occurs while retrieving the changes.
+     */
+    default AccountChanges getAccountChanges(String sinceTransactionId) throws Exception {
+        return new AccountChanges(getAccountInfo(), getAllTrades(), Map.of(), null);
+    }
+
     /**
      * Opens a new trade.
      *
@@ -0,0 +1,453 @@
+package dev.jwtly10.marketdata.common;
+
+import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.execution.TradeReconciler;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.*;
+import dev.jwtly10.marketdata.common.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares the state of one broker account between every live strategy trading on it.
+ *
+ * <p>
+ * A single sync loop reconciles the account with the broker (see {@link BrokerClient#getAccountChanges}), and a single transaction
+ * stream applies trade closes as they happen. Each strategy gets a {@link BrokerClient} view that serves account info and trades from memory,
+ * filtered to the strategy's instrument, while orders go straight to the broker. So the upstream calls for an account are the same
+ * however many strategies trade on it.
+ * </p>
+ *
+ * <p>
+ * The sync loop and transaction stream run while any view has a started transaction stream (every live strategy starts one),
+ * and stop when the last one is closed.
+ * </p>
+ *
+ * <p>
+ * The state is counted from the moment a view is created, not when it subscribes, so strategies starting together share it.
+ * A view is released when its transaction stream is closed, or by {@link #release}. Once the last view is released the state is closed,
+ * and no more views can be created from it.
+ * </p>
+ */
+@Slf4j
+public class SharedAccountState {
+    // How long to wait after a transaction before syncing, to pick up the broker's balance after the change
+    private static final long SYNC_AFTER_TRANSACTION_DELAY_MS = 1000;
+
+    private final String name;
+    private final BrokerClient upstream;
+    private final ScheduledExecutorService scheduler;
+    private final long syncIntervalMs;
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final Map<Integer, Trade> allTrades = new HashMap<>();
+    private final Map<Integer, Trade> openTrades = new HashMap<>();
+    // The version each trade last changed at, so a view only fetches what changed since its last call
+    private final Map<Integer, Long> changedAt = new HashMap<>();
+    private final List<TransactionSubscription> subscribers = new ArrayList<>();
+    private long version = 0;
+    private Account account;
+    private String lastTransactionId;
+    private boolean synced = false;
+    private Exception lastSyncError;
+    private Stream<List<TradeDTO>> transactionStream;
+    private ScheduledFuture<?> syncLoop;
+    private int openViews = 0;
+    private boolean closed = false;
+
+    // Held for the whole upstream call, so changes are applied in cursor order
+    private final Object syncLock = new Object();
+    private final AtomicBoolean syncPending = new AtomicBoolean(false);
+    private final AtomicLong upstreamSyncs = new AtomicLong();
+
+    /**
+     * @param name         name of the account, for logging
+     * @param upstream     the broker client for the account
+     * @param scheduler    runs the sync loop. Syncs block on the broker, so this shouldn't be a single thread shared with time sensitive tasks
+     * @param syncInterval the time between syncs with the broker
+     */
+    public SharedAccountState(String name, BrokerClient upstream, ScheduledExecutorService scheduler, Duration syncInterval) {
+        this.name = name;
+        this.upstream = upstream;
+        this.scheduler = scheduler;
+        this.syncIntervalMs = syncInterval.toMillis();
+    }
+
+    /**
+     * Creates a view of the account for a strategy.
+     *
+     * @param instrument the instrument the strategy trades. Only trades on this instrument are visible through the view
+     * @return a broker client backed by the shared account state
+     * @throws IllegalStateException if the state has been closed
+     */
+    public BrokerClient view(Instrument instrument) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Shared state for account " + name + " is closed");
+            }
+            openViews++;
+        }
+        return new View(instrument);
+    }
+
+    /**
+     * Releases a view created by {@link #view}, closing its transaction stream if started. Releasing a view more than once has no effect.
+     *
+     * @param view the view to release
+     */
+    public static void release(BrokerClient view) {
+        if (!(view instanceof SharedAccountState.View owned)) {
+            throw new IllegalArgumentException("Not a view of a shared account state: " + view);
+        }
+        owned.release();
+    }
+
+    /**
+     * @return true once every view has been released. A closed state can't create views, so a new one must be created for the account
+     */
+    public boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    /**
+     * Fetches the changes since the last sync from the broker, and applies them to the shared state.
+     *
+     * @throws Exception if the broker call fails
+     */
+    public void sync() throws Exception {
+        syncPending.set(false);
+        synchronized (syncLock) {
+            String cursor;
+            synchronized (lock) {
+                cursor = lastTransactionId;
+            }
+            AccountChanges changes;
+            try {
+                changes = upstream.getAccountChanges(cursor);
+            } catch (Exception e) {
+                synchronized (lock) {
+                    lastSyncError = e;
+                }
+                throw e;
+            }
+            upstreamSyncs.incrementAndGet();
+
+            synchronized (lock) {
+                TradeReconciler.merge(allTrades, openTrades, changes.trades(), changes.openTradeProfits())
+                        .forEach(change -> markChanged(change.trade().getId()));
+                account = changes.account();
+                lastTransactionId = changes.lastTransactionId();
+                synced = true;
+                lastSyncError = null;
+            }
+        }
+    }
+
+    /**
+     * @return the number of successful syncs with the broker
+     */
+    public long getUpstreamSyncCount() {
+        return upstreamSyncs.get();
+    }
+
+    /**
+     * @return the number of views with a started transaction stream
+     */
+    public int getSubscriberCount() {
+        synchronized (lock) {
+            return subscribers.size();
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (Exception e) {
+            log.error("Error syncing shared state for account {}: {}", name, e.getMessage(), e);
+        }
+    }
+
+    private void ensureSynced() throws Exception {
+        boolean needsSync;
+        synchronized (lock) {
+            needsSync = !synced;
+        }
+        if (needsSync) {
+            sync();
+        }
+    }
+
+    // Must hold lock
+    private void markChanged(Integer tradeId) {
+        changedAt.put(tradeId, ++version);
+    }
+
+    private void recordOpened(Trade trade) {
+        synchronized (lock) {
+            TradeReconciler.merge(allTrades, openTrades, List.of(copy(trade)), Map.of())
+                    .forEach(change -> markChanged(change.trade().getId()));
+        }
+    }
+
+    private void onUpstreamTransactions(List<TradeDTO> closedTrades) {
+        Map<TransactionSubscription, List<TradeDTO>> deliveries = new HashMap<>();
+        synchronized (lock) {
+            for (TradeDTO dto : closedTrades) {
+                Trade trade = allTrades.get(Integer.parseInt(dto.tradeId()));
+                if (trade == null) {
+                    log.warn("Trade {} not found in shared state for account {}", dto.tradeId(), name);
+                    continue;
+                }
+                if (TradeReconciler.isOpen(trade)) {
+                    trade.setClosePrice(new Number(dto.closePrice()));
+                    trade.setCloseTime(ZonedDateTime.now());
+                    trade.setProfit(dto.profit());
+                    openTrades.remove(trade.getId());
+                    // The balance is left to the sync brought forward below, which takes it from the broker.
+                    // Adding the profit here would count it twice if a sync had already applied the close
+                    markChanged(trade.getId());
+                }
+                for (TransactionSubscription subscriber : subscribers) {
+                    if (subscriber.instrument == trade.getInstrument()) {
+                        deliveries.computeIfAbsent(subscriber, s -> new ArrayList<>()).add(dto);
+                    }
+                }
+            }
+        }
+
+        // Outside the lock, the callbacks run strategy code
+        deliveries.forEach((subscriber, dtos) -> {
+            try {
+                subscriber.callback.onData(dtos);
+            } catch (Exception e) {
+                log.error("Error delivering transactions to subscriber: {}", e.getMessage(), e);
+            }
+        });
+
+        if (syncPending.compareAndSet(false, true)) {
+            scheduler.schedule(this::syncQuietly, SYNC_AFTER_TRANSACTION_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void subscribe(TransactionSubscription subscription) {
+        synchronized (lock) {
+            subscribers.add(subscription);
+            if (subscribers.size() > 1) {
+                return;
+            }
+
+            log.info("Starting shared sync loop and transaction stream for account {}", name);
+            @SuppressWarnings("unchecked")
+            Stream<List<TradeDTO>> stream = (Stream<List<TradeDTO>>) upstream.streamTransactions();
+            transactionStream = stream;
+            stream.start(new Stream.StreamCallback<>() {
+                @Override
+                public void onData(List<TradeDTO> data) {
+                    onUpstreamTransactions(data);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    log.error("Shared transaction stream for account {} failed: {}", name, e.getMessage(), e);
+                    currentSubscribers().forEach(subscriber -> subscriber.callback.onError(e));
+                }
+
+                @Override
+                public void onComplete() {
+                    currentSubscribers().forEach(subscriber -> subscriber.callback.onComplete());
+                }
+            });
+            syncLoop = scheduler.scheduleWithFixedDelay(this::syncQuietly, 0, syncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void unsubscribe(TransactionSubscription subscription) {
+        synchronized (lock) {
+            if (!subscribers.remove(subscription) || !subscribers.isEmpty()) {
+                return;
+            }
+
+            log.info("No strategies left on account {}, stopping shared sync loop and transaction stream", name);
+            transactionStream.close();
+            transactionStream = null;
+            syncLoop.cancel(false);
+            syncLoop = null;
+        }
+    }
+
+    private void releaseView() {
+        synchronized (lock) {
+            if (--openViews == 0) {
+                log.info("Last view of account {} released, closing shared state", name);
+                closed = true;
+            }
+        }
+    }
+
+    private List<TransactionSubscription> currentSubscribers() {
+        synchronized (lock) {
+            return List.copyOf(subscribers);
+        }
+    }
+
+    /**
+     * Copies a trade, so the views never hand out (and so never let strategies see changes to) the shared instances.
+     */
+    private static Trade copy(Trade trade) {
+        Trade copy = new Trade(trade.getId(), trade.getInstrument(), trade.getQuantity(), trade.getOpenTime(), trade.getEntryPrice(),
+                trade.getStopLoss(), trade.getTakeProfit(), trade.isLong());
+        copy.setProfit(trade.getProfit());
+        copy.setClosePrice(trade.getClosePrice());
+        copy.setCloseTime(trade.getCloseTime());
+        return copy;
+    }
+
+    /**
+     * A strategy's view of the account. Reads are served from the shared state, orders are sent to the broker.
+     */
+    private class View implements BrokerClient {
+        private final Instrument instrument;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile TransactionSubscription subscription;
+
+        private View(Instrument instrument) {
+            this.instrument = instrument;
+        }
+
+        private void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            TransactionSubscription current = subscription;
+            if (current != null) {
+                unsubscribe(current);
+            }
+            releaseView();
+        }
+
+        @Override
+        public Broker getBroker() {
+            return upstream.getBroker();
+        }
+
+        @Override
+        public Account getAccountInfo() throws Exception {
+            ensureSynced();
+            synchronized (lock) {
+                return new Account(account.getInitialBalance(), account.getBalance(), account.getEquity());
+            }
+        }
+
+        @Override
+        public List<Trade> getOpenTrades() throws Exception {
+            ensureSynced();
+            synchronized (lock) {
+                return visible(openTrades.values(), -1);
+            }
+        }
+
+        @Override
+        public List<Trade> getAllTrades() throws Exception {
+            ensureSynced();
+            synchronized (lock) {
+                return visible(allTrades.values(), -1);
+            }
+        }
+
+        /**
+         * Returns the changes since this view's last call, from memory. The cursor is the shared state's version, not the broker's.
+         * Fails if the last sync with the broker failed, so strategies find out their state is stale.
+         */
+        @Override
+        public AccountChanges getAccountChanges(String sinceTransactionId) throws Exception {
+            ensureSynced();
+            synchronized (lock) {
+                if (lastSyncError != null) {
+                    throw new Exception("Last sync of account " + name + " failed: " + lastSyncError.getMessage(), lastSyncError);
+                }
+                long since = sinceTransactionId == null ? -1 : Long.parseLong(sinceTransactionId);
+                Account current = new Account(account.getInitialBalance(), account.getBalance(), account.getEquity());
+                return new AccountChanges(current, visible(allTrades.values(), since), Map.of(), String.valueOf(version));
+            }
+        }
+
+        @Override
+        public Trade openTrade(Trade trade) throws Exception {
+            Trade opened = upstream.openTrade(trade);
+            recordOpened(opened);
+            return opened;
+        }
+
+        @Override
+        public Trade openTrade(TradeParameters tradeParameters) throws Exception {
+            Trade opened = upstream.openTrade(tradeParameters);
+            recordOpened(opened);
+            return opened;
+        }
+
+        @Override
+        public void closeTrade(Integer tradeId) throws Exception {
+            upstream.closeTrade(tradeId);
+        }
+
+        @Override
+        public Stream<?> streamPrices(List<Instrument> instruments) {
+            return upstream.streamPrices(instruments);
+        }
+
+        @Override
+        public Stream<List<TradeDTO>> streamTransactions() {
+            return new TransactionSubscription(this);
+        }
+
+        // Must hold lock
+        private List<Trade> visible(Collection<Trade> trades, long changedSince) {
+            List<Trade> result = new ArrayList<>();
+            for (Trade trade : trades) {
+                if (trade.getInstrument() == instrument && changedAt.getOrDefault(trade.getId(), 0L) > changedSince) {
+                    result.add(copy(trade));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A view's transaction stream. Started, it subscribes to the shared transaction stream, receiving closes of trades on its instrument.
+     * Closing it releases the view.
+     */
+    private class TransactionSubscription implements Stream<List<TradeDTO>> {
+        private final View view;
+        private final Instrument instrument;
+        private volatile StreamCallback<List<TradeDTO>> callback;
+
+        private TransactionSubscription(View view) {
+            this.view = view;
+            this.instrument = view.instrument;
+        }
+
+        @Override
+        public void start(StreamCallback<List<TradeDTO>> callback) {
+            this.callback = callback;
+            view.subscription = this;
+            subscribe(this);
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(this);
+            view.release();
+        }
+    }
+}
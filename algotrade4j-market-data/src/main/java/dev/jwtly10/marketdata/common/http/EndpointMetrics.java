@@ -0,0 +1,75 @@
+package dev.jwtly10.marketdata.common.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and error counters for one endpoint (method, host and path, with ids replaced by a placeholder).
+ *
+ * <p>
+ * Latency is measured from sending the request until the response headers arrive, so for streams it is the time to connect.
+ * Error responses are requests the server answered with a non 2xx status, failures are requests that got no response at all
+ * (e.g. connection refused, timeouts).
+ * </p>
+ */
+public class EndpointMetrics {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errorResponses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void recordResponse(long elapsedNanos, boolean isSuccessful) {
+        record(elapsedNanos);
+        if (!isSuccessful) {
+            errorResponses.incrementAndGet();
+        }
+    }
+
+    void recordFailure(long elapsedNanos) {
+        record(elapsedNanos);
+        failures.incrementAndGet();
+    }
+
+    private void record(long elapsedNanos) {
+        requests.incrementAndGet();
+        totalNanos.addAndGet(elapsedNanos);
+        maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    /**
+     * @return the number of requests sent, including failed ones
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of requests answered with a non 2xx status
+     */
+    public long getErrorResponses() {
+        return errorResponses.get();
+    }
+
+    /**
+     * @return the number of requests that got no response
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public double getAverageLatencyMs() {
+        long count = requests.get();
+        return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / count) / 1000;
+    }
+
+    public double getMaxLatencyMs() {
+        return (double) TimeUnit.NANOSECONDS.toMicros(maxNanos.get()) / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointMetrics{requests=%d, errorResponses=%d, failures=%d, averageLatencyMs=%.1f, maxLatencyMs=%.1f}",
+                getRequests(), getErrorResponses(), getFailures(), getAverageLatencyMs(), getMaxLatencyMs());
+    }
+}
@@ -0,0 +1,191 @@
+package dev.jwtly10.marketdata.common.http;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The HTTP transport shared by every broker, data and notification client, so connections (and their TLS sessions)
+ * are reused across clients, strategies and backtest runs rather than each client opening its own.
+ *
+ * <p>
+ * Every client is built from one {@link OkHttpClient}, so they share:
+ * <ul>
+ *     <li>A connection pool. OkHttp keys pooled connections by host, so each host keeps its own idle connections alive for reuse</li>
+ *     <li>A dispatcher, limiting concurrent async calls (including long lived streams) overall and per host</li>
+ *     <li>HTTP/2 where the server supports it, so concurrent requests to the same host share one connection</li>
+ *     <li>Per-endpoint latency and error metrics, see {@link #getMetrics()}</li>
+ * </ul>
+ * Clients needing different timeouts (e.g. streams) should derive them with {@link OkHttpClient#newBuilder()}, which keeps
+ * the shared pool, dispatcher and metrics.
+ * </p>
+ *
+ * <p>
+ * {@link #prewarm(String)} opens a connection to a host ahead of time (and keeps it open when repeated within the keep alive),
+ * so the first order of a session doesn't pay for the TCP and TLS handshakes.
+ * </p>
+ */
+@Slf4j
+public class HttpTransport {
+    private static final Pattern ID_SEGMENT = Pattern.compile("\\d+(-\\d+)*");
+    private static final Set<String> ID_COLLECTIONS = Set.of("accounts", "trades", "orders", "transactions", "positions");
+
+    private final OkHttpClient client;
+    private final Map<String, EndpointMetrics> metrics = new ConcurrentHashMap<>();
+
+    public HttpTransport(Settings settings) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.maxRequests());
+        dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost());
+
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(settings.maxIdleConnections(), settings.keepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(settings.connectTimeout())
+                .readTimeout(settings.readTimeout())
+                .addInterceptor(this::recordMetrics)
+                .build();
+    }
+
+    /**
+     * @return the shared transport with the default settings, for clients created outside of Spring
+     */
+    public static HttpTransport getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * @return the shared client. Derive clients with different settings from it with {@link OkHttpClient#newBuilder()}
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Opens (or keeps open) a pooled connection to the url's host, without waiting for it. Prewarm requests aren't included in metrics.
+     *
+     * @param url any url on the host, the response is ignored
+     */
+    public void prewarm(String url) {
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(url)
+                    .head()
+                    .tag(Prewarm.class, Prewarm.INSTANCE)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Can't prewarm connections to invalid url '{}'", url);
+            return;
+        }
+
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                log.debug("Failed to prewarm connection to {}: {}", request.url().host(), e.getMessage());
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                response.close();
+                log.trace("Prewarmed connection to {} ({})", request.url().host(), response.protocol());
+            }
+        });
+    }
+
+    /**
+     * @return the metrics of each endpoint requested so far, by endpoint (e.g. {@code GET api-fxpractice.oanda.com/v3/accounts/{id}/trades})
+     */
+    public Map<String, EndpointMetrics> getMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
+    /**
+     * Closes pooled connections and stops the dispatcher's threads.
+     */
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private Response recordMetrics(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.tag(Prewarm.class) != null) {
+            return chain.proceed(request);
+        }
+
+        EndpointMetrics endpointMetrics = metrics.computeIfAbsent(endpoint(request), endpoint -> new EndpointMetrics());
+        long start = System.nanoTime();
+        try {
+            Response response = chain.proceed(request);
+            endpointMetrics.recordResponse(System.nanoTime() - start, response.isSuccessful());
+            return response;
+        } catch (IOException e) {
+            endpointMetrics.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Groups requests by endpoint rather than url. Id-like path segments are replaced by a placeholder, so they neither split
+     * an endpoint's metrics nor leak into logs. A segment is id-like if it:
+     * <ul>
+     *     <li>is all digits, or groups of digits separated by dashes (e.g. trade ids, Oanda account ids like {@code 101-004-123})</li>
+     *     <li>follows a collection whose members are addressed by id ({@link #ID_COLLECTIONS}, e.g. MT5 account ids after {@code trades})</li>
+     *     <li>contains a colon, like the bot token in Telegram urls</li>
+     * </ul>
+     * Everything else, including version segments like {@code v3} and instrument symbols, is kept as is.
+     *
+     * @param request the request
+     * @return the endpoint of the request
+     */
+    static String endpoint(Request request) {
+        StringBuilder endpoint = new StringBuilder(request.method()).append(' ').append(request.url().host());
+        String previous = null;
+        for (String segment : request.url().encodedPathSegments()) {
+            boolean isId = ID_SEGMENT.matcher(segment).matches()
+                    || segment.contains(":") || segment.contains("%3A")
+                    || (previous != null && ID_COLLECTIONS.contains(previous));
+            endpoint.append('/').append(isId ? "{id}" : segment);
+            previous = segment;
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * Settings of the shared transport.
+     *
+     * @param maxIdleConnections the maximum number of idle connections kept across all hosts
+     * @param keepAlive          how long an idle connection is kept for reuse
+     * @param maxRequests        the maximum number of concurrent async calls (including streams)
+     * @param maxRequestsPerHost the maximum number of concurrent async calls (including streams) to one host
+     * @param connectTimeout     the connect timeout of requests
+     * @param readTimeout        the read timeout of requests
+     */
+    public record Settings(int maxIdleConnections, Duration keepAlive, int maxRequests, int maxRequestsPerHost,
+                           Duration connectTimeout, Duration readTimeout) {
+
+        public static Settings defaults() {
+            return new Settings(20, Duration.ofMinutes(5), 128, 32, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        }
+    }
+
+    private enum Prewarm {
+        INSTANCE
+    }
+
+    private static class DefaultHolder {
+        private static final HttpTransport INSTANCE = new HttpTransport(Settings.defaults());
+    }
+}
@@ -0,0 +1,294 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Tick;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Shares a single upstream price stream between many subscribers (e.g. every live strategy on a broker account).
+ *
+ * <p>
+ * The upstream stream covers the union of all subscribed instruments. Each tick is parsed once and fanned out to the subscribers of its instrument.
+ * When the instrument set changes, a new upstream stream is opened for the new set, and the old one is only closed once
+ * the new one delivers its first tick, so existing subscribers don't miss ticks while the stream is replaced.
+ * While both streams are open the same tick can arrive twice, so ticks that aren't newer than the last tick delivered for the instrument are dropped.
+ * </p>
+ *
+ * <p>
+ * Subscribers get a {@link Stream} handle, so they use the shared stream exactly like a dedicated one:
+ * {@link Stream#start} subscribes and {@link Stream#close} unsubscribes.
+ * </p>
+ */
+@Slf4j
+public class MultiplexedPriceStream {
+    private final String name;
+    private final Function<List<Instrument>, Stream<Tick>> upstreamFactory;
+    private final Object lock = new Object();
+    // Guarded by lock. Dispatch reads the routes, which are replaced as a whole
+    private final Map<Instrument, List<Subscription>> subscriptions = new EnumMap<>(Instrument.class);
+    private volatile Map<Instrument, Route> routes = Map.of();
+    // The stream currently delivering ticks, and the replacement waiting for its first tick. Written under lock
+    private volatile Upstream active;
+    private volatile Upstream pending;
+
+    /**
+     * @param name            name of the shared stream, for logging
+     * @param upstreamFactory opens a dedicated upstream stream for a set of instruments
+     */
+    public MultiplexedPriceStream(String name, Function<List<Instrument>, Stream<Tick>> upstreamFactory) {
+        this.name = name;
+        this.upstreamFactory = upstreamFactory;
+    }
+
+    /**
+     * Creates a subscription to the given instruments. Ticks are delivered once the returned stream is started.
+     *
+     * @param instruments the instruments to receive ticks for
+     * @return the subscription
+     */
+    public Stream<Tick> subscribe(List<Instrument> instruments) {
+        return new Subscription(List.copyOf(instruments));
+    }
+
+    /**
+     * @return the instruments the upstream stream currently covers
+     */
+    public Set<Instrument> getInstruments() {
+        synchronized (lock) {
+            return Set.copyOf(subscriptions.keySet());
+        }
+    }
+
+    /**
+     * @return the number of started subscriptions
+     */
+    public int getSubscriberCount() {
+        synchronized (lock) {
+            return (int) subscriptions.values().stream().flatMap(List::stream).distinct().count();
+        }
+    }
+
+    private void add(Subscription subscription) {
+        synchronized (lock) {
+            boolean changed = false;
+            for (Instrument instrument : subscription.instruments) {
+                List<Subscription> subscribers = subscriptions.computeIfAbsent(instrument, i -> new ArrayList<>());
+                changed |= subscribers.isEmpty();
+                subscribers.add(subscription);
+            }
+            updateRoutes();
+            if (changed) {
+                reconnect();
+            }
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        synchronized (lock) {
+            boolean changed = false;
+            for (Instrument instrument : subscription.instruments) {
+                List<Subscription> subscribers = subscriptions.get(instrument);
+                if (subscribers != null && subscribers.remove(subscription) && subscribers.isEmpty()) {
+                    subscriptions.remove(instrument);
+                    changed = true;
+                }
+            }
+            updateRoutes();
+            if (subscriptions.isEmpty()) {
+                log.info("No subscribers left on shared price stream {}, closing upstream", name);
+                closeUpstream(pending);
+                closeUpstream(active);
+                pending = null;
+                active = null;
+            } else if (changed) {
+                reconnect();
+            }
+        }
+    }
+
+    private void updateRoutes() {
+        Map<Instrument, Route> current = routes;
+        Map<Instrument, Route> updated = new EnumMap<>(Instrument.class);
+        for (Map.Entry<Instrument, List<Subscription>> entry : subscriptions.entrySet()) {
+            // Reuse the route, so the last tick time survives subscription changes
+            Route route = current.getOrDefault(entry.getKey(), new Route());
+            route.subscribers = List.copyOf(entry.getValue());
+            updated.put(entry.getKey(), route);
+        }
+        routes = updated;
+    }
+
+    /**
+     * Opens an upstream stream for the current instrument set. The active stream keeps running until the new one delivers a tick.
+     */
+    private void reconnect() {
+        List<Instrument> instruments = List.copyOf(subscriptions.keySet());
+        log.info("Opening shared price stream {} for instruments: {}", name, instruments);
+        // A replacement that never delivered is superseded by this one
+        closeUpstream(pending);
+        Upstream upstream = new Upstream(upstreamFactory.apply(instruments), Set.copyOf(instruments));
+        if (active == null) {
+            active = upstream;
+            pending = null;
+        } else {
+            pending = upstream;
+        }
+        upstream.stream.start(upstream);
+    }
+
+    private void closeUpstream(Upstream upstream) {
+        if (upstream != null) {
+            upstream.closed = true;
+            upstream.stream.close();
+        }
+    }
+
+    private void onUpstreamTick(Upstream upstream, Tick tick) {
+        if (upstream.closed) {
+            return;
+        }
+        if (upstream != active) {
+            promote(upstream);
+        }
+
+        Route route = routes.get(tick.getInstrument());
+        if (route != null) {
+            route.deliver(tick);
+        }
+    }
+
+    private void promote(Upstream upstream) {
+        synchronized (lock) {
+            if (upstream == pending) {
+                log.info("Shared price stream {} switched to instruments: {}", name, upstream.instruments);
+                closeUpstream(active);
+                active = upstream;
+                pending = null;
+            }
+        }
+    }
+
+    private void onUpstreamError(Upstream upstream, Exception e) {
+        List<Subscription> affected;
+        synchronized (lock) {
+            if (upstream.closed) {
+                return;
+            }
+            if (upstream == pending) {
+                // The active stream is still delivering the existing instruments, only the new ones are affected
+                log.error("Replacement shared price stream {} failed: {}", name, e.getMessage(), e);
+                closeUpstream(pending);
+                pending = null;
+                affected = subscribersNotCoveredBy(active);
+            } else {
+                log.error("Shared price stream {} failed: {}", name, e.getMessage(), e);
+                affected = allSubscribers();
+            }
+        }
+        // Outside the lock, subscribers normally close (and so unsubscribe) on error
+        for (Subscription subscription : affected) {
+            subscription.callback.onError(e);
+        }
+    }
+
+    private void onUpstreamComplete(Upstream upstream) {
+        List<Subscription> affected;
+        synchronized (lock) {
+            if (upstream.closed || upstream != active) {
+                return;
+            }
+            affected = allSubscribers();
+        }
+        for (Subscription subscription : affected) {
+            subscription.callback.onComplete();
+        }
+    }
+
+    private List<Subscription> allSubscribers() {
+        return subscriptions.values().stream().flatMap(List::stream).distinct().toList();
+    }
+
+    private List<Subscription> subscribersNotCoveredBy(Upstream upstream) {
+        return allSubscribers().stream()
+                .filter(subscription -> !upstream.instruments.containsAll(subscription.instruments))
+                .toList();
+    }
+
+    /**
+     * The subscribers of one instrument, and the time of the last tick they were sent.
+     */
+    private static class Route {
+        private volatile List<Subscription> subscribers = List.of();
+        private ZonedDateTime lastTickTime;
+
+        // Synchronized so ticks from an old and new upstream are deduplicated and delivered in order
+        private synchronized void deliver(Tick tick) {
+            if (lastTickTime != null && !tick.getDateTime().isAfter(lastTickTime)) {
+                return;
+            }
+            lastTickTime = tick.getDateTime();
+            for (Subscription subscription : subscribers) {
+                try {
+                    subscription.callback.onData(tick);
+                } catch (Exception e) {
+                    log.error("Error delivering tick to subscriber: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private class Upstream implements Stream.StreamCallback<Tick> {
+        private final Stream<Tick> stream;
+        private final Set<Instrument> instruments;
+        private volatile boolean closed = false;
+
+        private Upstream(Stream<Tick> stream, Set<Instrument> instruments) {
+            this.stream = stream;
+            this.instruments = instruments;
+        }
+
+        @Override
+        public void onData(Tick tick) {
+            onUpstreamTick(this, tick);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            onUpstreamError(this, e);
+        }
+
+        @Override
+        public void onComplete() {
+            onUpstreamComplete(this);
+        }
+    }
+
+    private class Subscription implements Stream<Tick> {
+        private final List<Instrument> instruments;
+        private volatile StreamCallback<Tick> callback;
+
+        private Subscription(List<Instrument> instruments) {
+            this.instruments = instruments;
+        }
+
+        @Override
+        public void start(StreamCallback<Tick> callback) {
+            if (this.callback != null) {
+                throw new IllegalStateException("Subscription already started");
+            }
+            this.callback = callback;
+            add(this);
+        }
+
+        @Override
+        public void close() {
+            if (callback != null) {
+                remove(this);
+            }
+        }
+    }
+}
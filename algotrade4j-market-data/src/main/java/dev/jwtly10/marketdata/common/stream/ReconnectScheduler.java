@@ -0,0 +1,90 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules stream reconnects and stale stream checks, shared by all streams so each stream doesn't need its own timer thread.
+ *
+ * <p>
+ * Reconnect delays use exponential backoff with jitter: the delay for an attempt is half the capped exponential backoff,
+ * plus a random amount up to the other half. This stops every stream that dropped at the same time (e.g. a broker outage)
+ * from reconnecting in lockstep.
+ * </p>
+ *
+ * <p>
+ * Scheduled tasks run on a single thread, so they should only start work (e.g. enqueue a call), never block.
+ * </p>
+ */
+public class ReconnectScheduler {
+    private static final long DEFAULT_INITIAL_BACKOFF_MS = 1000;
+    private static final long DEFAULT_MAX_BACKOFF_MS = 30000;
+    private static final ReconnectScheduler SHARED = new ReconnectScheduler(DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS);
+
+    private final ScheduledExecutorService executor;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    /**
+     * @param initialBackoffMs the backoff before the first retry
+     * @param maxBackoffMs     the max backoff, however many retries have failed
+     */
+    public ReconnectScheduler(long initialBackoffMs, long maxBackoffMs) {
+        if (initialBackoffMs <= 0 || maxBackoffMs < initialBackoffMs) {
+            throw new IllegalArgumentException("Invalid backoff: initial " + initialBackoffMs + "ms, max " + maxBackoffMs + "ms");
+        }
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .daemon()
+                .name("stream-reconnect")
+                .unstarted(runnable));
+    }
+
+    /**
+     * @return the scheduler shared by all streams, with the default backoff
+     */
+    public static ReconnectScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * Calculates the jittered backoff before a retry.
+     *
+     * @param attempt the number of retries that have already failed, starting at 0
+     * @return the delay in milliseconds, between half and all of the capped exponential backoff
+     */
+    public long backoffMs(int attempt) {
+        long cap = maxBackoffMs;
+        // Checked against the max before shifting, so large attempts can't overflow
+        if (attempt < Long.SIZE - 1 && initialBackoffMs <= maxBackoffMs >> attempt) {
+            cap = initialBackoffMs << attempt;
+        }
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    /**
+     * Runs a task once after the given delay.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a task repeatedly at the given period until cancelled.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodMs) {
+        return executor.scheduleAtFixedRate(task, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduler. Only for schedulers owned by the caller, the shared scheduler lives as long as the application.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -4,34 +4,45 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
-import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract class representing a retryable stream of data.
  *
+ * <p>
+ * Lost connections are retried with jittered exponential backoff on a {@link ReconnectScheduler}, until {@link #MAX_RETRIES}
+ * consecutive attempts fail to deliver any data. Optionally, a watchdog forces a reconnect when no line (data or heartbeat)
+ * arrives within the stale timeout, so a connection that silently stops delivering is replaced rather than waited on.
+ * </p>
+ *
  * @param <T> The type of data being streamed.
  */
 @Slf4j
 public abstract class RetryableStream<T> implements Stream<T> {
     private static final int MAX_RETRIES = 10;
-    private static final long INITIAL_BACKOFF_MS = 1000;
-    private static final long MAX_BACKOFF_MS = 30000;
     protected final ObjectMapper objectMapper;
     protected final OkHttpClient client;
     protected final Request request;
-    protected final Timer timer;
-    protected Call call;
-    protected BufferedReader reader;
     protected volatile boolean isRunning = false;
-    private int retryCount = 0;
 
+    private final ReconnectScheduler scheduler;
+    // 0 disables the watchdog
+    private final long staleTimeoutMs;
+    private final StreamMetrics metrics = new StreamMetrics();
     private final String streamClassName;
 
+    private StreamCallback<T> callback;
+    private volatile Connection connection;
+    // Consecutive connections that failed before delivering any data
+    private volatile int retryCount = 0;
+    // When the last connection was lost, 0 while connected
+    private volatile long disconnectedAtNanos = 0;
+    private ScheduledFuture<?> pendingRetry;
+    private ScheduledFuture<?> watchdog;
 
     /**
      * Constructor for RetryableStream.
@@ -39,25 +50,27 @@ public abstract class RetryableStream<T> implements Stream<T> {
      * @param client       The OkHttpClient instance.
      * @param request      The HTTP request.
      * @param objectMapper The ObjectMapper instance for JSON processing.
-     * @param timer        The Timer instance for scheduling retries.
+     * @param scheduler    The scheduler for reconnects and the watchdog.
+     * @param staleTimeout How long the stream may go without receiving a line before it is reconnected, zero to disable.
      */
-    public RetryableStream(OkHttpClient client, Request request, ObjectMapper objectMapper, Timer timer) {
+    public RetryableStream(OkHttpClient client, Request request, ObjectMapper objectMapper, ReconnectScheduler scheduler, Duration staleTimeout) {
         this.client = client;
         this.request = request;
         this.objectMapper = objectMapper;
-        this.timer = timer;
+        this.scheduler = scheduler;
+        this.staleTimeoutMs = staleTimeout.toMillis();
         this.streamClassName = getClass().getSimpleName();
     }
 
     /**
-     * Constructor for RetryableStream. Uses default Timer instance.
+     * Constructor for RetryableStream. Uses the shared reconnect scheduler, without a watchdog.
      *
      * @param client       The OkHttpClient instance.
      * @param request      The HTTP request.
      * @param objectMapper The ObjectMapper instance for JSON processing.
      */
     public RetryableStream(OkHttpClient client, Request request, ObjectMapper objectMapper) {
-        this(client, request, objectMapper, new Timer(true));
+        this(client, request, objectMapper, ReconnectScheduler.shared(), Duration.ZERO);
     }
 
     /**
@@ -69,136 +82,174 @@ public abstract class RetryableStream<T> implements Stream<T> {
     public void start(StreamCallback<T> callback) {
         log.info("Starting stream for class: {}", streamClassName);
 
+        this.callback = callback;
         isRunning = true;
-        retryWithBackoff(callback, INITIAL_BACKOFF_MS);
+        if (staleTimeoutMs > 0) {
+            synchronized (this) {
+                // Checked a few times per timeout, so a stall is detected at most a quarter of the timeout late
+                watchdog = scheduler.scheduleAtFixedRate(this::checkStale, Math.max(staleTimeoutMs / 4, 1));
+            }
+        }
+        connect();
     }
 
     /**
-     * Retries the stream connection with exponential backoff.
-     *
-     * @param callback  The callback to handle stream events.
-     * @param backoffMs The current backoff time in milliseconds.
+     * Opens a new connection, and reads it on OkHttp's dispatcher thread until it ends.
      */
-    private void retryWithBackoff(StreamCallback<T> callback, long backoffMs) {
+    private void connect() {
         if (!isRunning) {
-            log.warn("Stream attempted to retry when not running for class: {}", streamClassName);
-            return;
-        }
-
-        if (retryCount >= MAX_RETRIES) {
-            log.error("Max retries reached for class: {}", streamClassName);
-            callback.onError(new Exception("Max retries reached"));
+            log.warn("Stream attempted to connect when not running for class: {}", streamClassName);
             return;
         }
 
         log.info("Connecting to stream for class: {} (attempt {}/{})", streamClassName, retryCount + 1, MAX_RETRIES);
+        metrics.recordConnectionAttempt();
 
-        call = client.newCall(request);
-        call.enqueue(new Callback() {
+        Connection current = new Connection(client.newCall(request));
+        connection = current;
+        current.call.enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
-                log.error("Stream connection failed for class: {}", streamClassName, e);
-                scheduleRetry(callback, retryCount, backoffMs);
+                if (isRunning) {
+                    log.error("Stream connection failed for class: {}", streamClassName, e);
+                }
+                connectionLost(current, "connection failed");
             }
 
             @Override
             public void onResponse(Call call, Response response) {
-                if (response.isSuccessful()) {
-                    log.info("Stream connection established successfully for class: {}", streamClassName);
-                    retryCount = 0;
-                } else {
-                    log.error("Stream connection failed with status code: {} for class: {}", response.code(), streamClassName);
-                    scheduleRetry(callback, retryCount, backoffMs);
-                    return;
-                }
-
-                try {
-                    reader = new BufferedReader(new InputStreamReader(response.body().byteStream()));
-                    String line = "";
-                    log.debug("Starting stream read loop for class: {}", streamClassName);
-                    while (isRunning && (line = reader.readLine()) != null) {
-                        processLine(line, callback);
-                    }
-
-                    // TODO: Remove this.
-                    // These log messages are to debug an issue we have in production with the stream ending unexpectedly
-                    // Its very hard to debug as it only happens after a number of hours running, so this is a temporary
-                    // measure to try and get more information.
-                    // 20/11 I believe the issue is because for some reason the stream is being closed by the server
-                    // and we still think its running so getting to this point in this try statement is unexpected
-                    // and we should retry
-                    if (!isRunning) {
-                        log.debug("Stream loop ended because isRunning=false for class: {}", streamClassName);
-                    } else if (line == null) {
-                        log.debug("Stream loop ended because readLine() returned null for class: {}", streamClassName);
-                    } else {
-                        log.debug("Stream loop ended for unknown reason. isRunning={}, line={} for class: {}", isRunning, line, streamClassName);
-                    }
-
-                    if (isRunning) {
-                        log.warn("Stream loop ended while isRunning=True - this indicates an unexpected disconnection for class: {}", streamClassName);
-                        // You might also want to add connection state info here
-                        log.debug("Connection state - call.isCanceled(): {}. For class: {}", call.isCanceled(), streamClassName);
-                        try {
-                            log.debug("Reader state - reader.ready(): {}. For class: {} ", reader.ready(), streamClassName);
-                        } catch (IOException e) {
-                            log.debug("Reader is in error state: {}. For class: {}", e.getMessage(), streamClassName);
-                        }
-
-                        // isRunning means we expect the stream to be running, so we should retry
-                        scheduleRetry(callback, retryCount, backoffMs);
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        log.error("Stream connection failed with status code: {} for class: {}", response.code(), streamClassName);
+                        connectionLost(current, "status " + response.code());
+                        return;
                     }
 
+                    log.info("Stream connection established successfully for class: {}", streamClassName);
+                    read(current, response.body());
                 } catch (Exception e) {
-                    if (e.getMessage().contains("stream was reset: CANCEL")) {
+                    if (!isRunning || current.lost.get()) {
                         log.debug("Stream was stopped internally, closing stream for class: {}", streamClassName);
                     } else {
                         log.error("Error processing stream for class: {}: '{}'", streamClassName, e.getMessage(), e);
                     }
-                    scheduleRetry(callback, retryCount, backoffMs);
-                } finally {
-                    if (isRunning) {
-                        closeQuietly(reader);
-                    }
+                    connectionLost(current, "read failed");
                 }
             }
         });
     }
 
+    private void read(Connection current, ResponseBody body) throws Exception {
+        try (StreamLineReader reader = new StreamLineReader(body.byteStream())) {
+            log.debug("Starting stream read loop for class: {}", streamClassName);
+            while (isRunning && !current.lost.get() && reader.readLine()) {
+                current.lastLineNanos = System.nanoTime();
+                if (!current.delivered) {
+                    current.delivered = true;
+                    onRecovered();
+                }
+                processLine(reader.buffer(), reader.lineOffset(), reader.lineLength(), callback);
+            }
+
+            if (isRunning) {
+                // The server closed the stream, we expect it to run until we close it, so reconnect
+                log.warn("Stream loop ended while isRunning=True - this indicates an unexpected disconnection for class: {}. Buffered bytes: {}",
+                        streamClassName, reader.buffered());
+                connectionLost(current, "stream ended");
+            } else {
+                log.debug("Stream loop ended because isRunning=false for class: {}", streamClassName);
+            }
+        }
+    }
+
     /**
-     * Processes a line of data from the stream.
-     *
-     * @param line     The line of data.
-     * @param callback The callback to handle stream events.
-     * @throws Exception If an error occurs while processing the line.
+     * Called on the first line of a connection. Data is flowing again, so the retries start over.
      */
-    protected abstract void processLine(String line, StreamCallback<T> callback) throws Exception;
+    private void onRecovered() {
+        retryCount = 0;
+        long disconnectedAt = disconnectedAtNanos;
+        if (disconnectedAt != 0) {
+            disconnectedAtNanos = 0;
+            long recoveryMs = (System.nanoTime() - disconnectedAt) / 1_000_000;
+            metrics.recordRecovery(recoveryMs);
+            log.info("Stream recovered in {}ms for class: {}", recoveryMs, streamClassName);
+        }
+    }
 
     /**
-     * Schedules a retry with exponential backoff.
-     *
-     * @param callback   The callback to handle stream events.
-     * @param retryCount The current retry count.
-     * @param backoffMs  The current backoff time in milliseconds.
+     * Handles a lost connection, scheduling a retry with backoff. Only the first report for a connection counts,
+     * as a failure can be reported more than once (e.g. a stall cancels the call, which then fails the read).
      */
-    private void scheduleRetry(StreamCallback<T> callback, int retryCount, long backoffMs) {
-        if (!isRunning) {
+    private void connectionLost(Connection lostConnection, String reason) {
+        if (!lostConnection.lost.compareAndSet(false, true) || !isRunning) {
+            return;
+        }
+        lostConnection.call.cancel();
+        metrics.recordDisconnect();
+        if (disconnectedAtNanos == 0) {
+            disconnectedAtNanos = System.nanoTime();
+        }
+
+        if (retryCount >= MAX_RETRIES) {
+            log.error("Max retries reached for class: {}", streamClassName);
+            stopWatchdog();
+            callback.onError(new Exception("Max retries reached"));
             return;
         }
 
+        long backoffMs = scheduler.backoffMs(retryCount);
         retryCount++;
-        long nextBackoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
-        log.info("Scheduling retry {} in {} ms for class: {}", retryCount + 1, backoffMs, streamClassName);
+        log.info("Stream lost ({}), scheduling retry {} in {} ms for class: {}", reason, retryCount, backoffMs, streamClassName);
+        synchronized (this) {
+            pendingRetry = scheduler.schedule(this::connect, backoffMs);
+        }
+    }
 
+    /**
+     * Reconnects if the current connection hasn't received a line within the stale timeout.
+     * Connection attempts count too, so a connection that never responds is also replaced.
+     */
+    private void checkStale() {
+        Connection current = connection;
+        if (!isRunning || current == null || current.lost.get()) {
+            return;
+        }
+        long silentMs = (System.nanoTime() - current.lastLineNanos) / 1_000_000;
+        if (silentMs > staleTimeoutMs) {
+            log.warn("No data or heartbeat for {}ms, reconnecting stale stream for class: {}", silentMs, streamClassName);
+            metrics.recordStall();
+            connectionLost(current, "stalled");
+        }
+    }
 
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                retryWithBackoff(callback, nextBackoffMs);
-            }
-        }, backoffMs);
+    /**
+     * Processes a line of data from the stream, as raw bytes.
+     * The bytes are only valid until this method returns, as the buffer is reused for the next line.
+     *
+     * <p>
+     * By default the line is decoded and passed to {@link #processLine(String, StreamCallback)}.
+     * Streams that can parse the bytes directly should override this to avoid decoding every line.
+     * </p>
+     *
+     * @param buffer   The buffer holding the line.
+     * @param offset   The start of the line in the buffer.
+     * @param length   The length of the line.
+     * @param callback The callback to handle stream events.
+     * @throws Exception If an error occurs while processing the line.
+     */
+    protected void processLine(byte[] buffer, int offset, int length, StreamCallback<T> callback) throws Exception {
+        processLine(new String(buffer, offset, length, StandardCharsets.UTF_8), callback);
     }
 
+    /**
+     * Processes a line of data from the stream.
+     *
+     * @param line     The line of data.
+     * @param callback The callback to handle stream events.
+     * @throws Exception If an error occurs while processing the line.
+     */
+    protected abstract void processLine(String line, StreamCallback<T> callback) throws Exception;
+
     /**
      * Closes the stream.
      */
@@ -206,29 +257,46 @@ public abstract class RetryableStream<T> implements Stream<T> {
     public void close() {
         log.info("Manually closing stream for class: {}", streamClassName);
         isRunning = false;
-        if (call != null) {
-            call.cancel();
+        stopWatchdog();
+        synchronized (this) {
+            if (pendingRetry != null) {
+                pendingRetry.cancel(false);
+            }
+        }
+        Connection current = connection;
+        if (current != null) {
+            current.call.cancel();
+        }
+    }
+
+    private synchronized void stopWatchdog() {
+        if (watchdog != null) {
+            watchdog.cancel(false);
         }
-        closeQuietly(reader);
     }
 
     /**
-     * Closes a Closeable resource quietly.
-     *
-     * @param closeable The Closeable resource.
+     * @return the connection health metrics of this stream
      */
-    private void closeQuietly(Closeable closeable) {
-        log.info("Closing resource quietly for class: {}", streamClassName);
-        if (closeable != null) {
-            try {
-                closeable.close();
-            } catch (IOException e) {
-                log.error("Error closing resource for class: {}", streamClassName, e);
-            }
-        }
+    public StreamMetrics getMetrics() {
+        return metrics;
     }
 
     protected int getRetryCount() {
         return retryCount;
     }
-}
\ No newline at end of file
+
+    /**
+     * A single connection attempt, and whether it has already been reported as lost.
+     */
+    private static class Connection {
+        private final Call call;
+        private final AtomicBoolean lost = new AtomicBoolean(false);
+        private volatile long lastLineNanos = System.nanoTime();
+        private boolean delivered = false;
+
+        private Connection(Call call) {
+            this.call = call;
+        }
+    }
+}
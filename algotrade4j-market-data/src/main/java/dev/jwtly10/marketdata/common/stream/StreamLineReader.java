@@ -0,0 +1,108 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a byte stream into lines without decoding them or allocating per line.
+ *
+ * <p>
+ * Each call to {@link #readLine()} exposes the next line as a slice of an internal buffer ({@link #buffer()}, {@link #lineOffset()}, {@link #lineLength()}),
+ * excluding the line terminator. The slice is only valid until the next call, as the buffer is reused.
+ * </p>
+ */
+public class StreamLineReader implements Closeable {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private final InputStream in;
+    private byte[] buffer;
+    // Unconsumed bytes are buffer[start, limit)
+    private int start = 0;
+    private int limit = 0;
+    private int lineOffset = 0;
+    private int lineLength = 0;
+
+    public StreamLineReader(InputStream in) {
+        this(in, DEFAULT_CAPACITY);
+    }
+
+    public StreamLineReader(InputStream in, int initialCapacity) {
+        this.in = in;
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Reads the next line, blocking until a full line (or the end of the stream) is available.
+     *
+     * @return true if a line was read, false at the end of the stream
+     * @throws IOException if reading fails
+     */
+    public boolean readLine() throws IOException {
+        int scanFrom = start;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    setLine(start, i);
+                    start = i + 1;
+                    return true;
+                }
+            }
+
+            // No full line buffered, make room and read more
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                limit -= start;
+                start = 0;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            scanFrom = limit;
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                if (limit > start) {
+                    // Last line without a terminator
+                    setLine(start, limit);
+                    start = limit;
+                    return true;
+                }
+                return false;
+            }
+            limit += read;
+        }
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int lineOffset() {
+        return lineOffset;
+    }
+
+    public int lineLength() {
+        return lineLength;
+    }
+
+    /**
+     * @return the number of bytes read from the stream but not yet returned as a line
+     */
+    public int buffered() {
+        return limit - start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void setLine(int from, int newline) {
+        int end = newline;
+        if (end > from && buffer[end - 1] == '\r') {
+            end--;
+        }
+        lineOffset = from;
+        lineLength = end - from;
+    }
+}
@@ -0,0 +1,90 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection health counters for a stream: how often it drops or stalls, and how long it takes to recover.
+ *
+ * <p>
+ * Time to recover is measured from when the connection was detected as lost (failed, ended or stalled)
+ * until the first line arrives on the replacement connection, so it includes the backoff and every failed attempt in between.
+ * </p>
+ */
+public class StreamMetrics {
+    private final AtomicLong connectionAttempts = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong recoveries = new AtomicLong();
+    private final AtomicLong totalRecoveryMs = new AtomicLong();
+    private final AtomicLong maxRecoveryMs = new AtomicLong();
+    private volatile long lastRecoveryMs = -1;
+
+    void recordConnectionAttempt() {
+        connectionAttempts.incrementAndGet();
+    }
+
+    void recordDisconnect() {
+        disconnects.incrementAndGet();
+    }
+
+    void recordStall() {
+        stalls.incrementAndGet();
+    }
+
+    void recordRecovery(long recoveryMs) {
+        recoveries.incrementAndGet();
+        totalRecoveryMs.addAndGet(recoveryMs);
+        maxRecoveryMs.accumulateAndGet(recoveryMs, Math::max);
+        lastRecoveryMs = recoveryMs;
+    }
+
+    /**
+     * @return the number of times a connection was opened, including the first
+     */
+    public long getConnectionAttempts() {
+        return connectionAttempts.get();
+    }
+
+    /**
+     * @return the number of times a connection was lost, including stalls
+     */
+    public long getDisconnects() {
+        return disconnects.get();
+    }
+
+    /**
+     * @return the number of connections dropped by the watchdog because no data or heartbeat arrived in time
+     */
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    /**
+     * @return the number of times data started flowing again after a lost connection
+     */
+    public long getRecoveries() {
+        return recoveries.get();
+    }
+
+    /**
+     * @return the time to recover from the most recent lost connection, or -1 if the stream hasn't recovered yet
+     */
+    public long getLastRecoveryMs() {
+        return lastRecoveryMs;
+    }
+
+    public long getMaxRecoveryMs() {
+        return maxRecoveryMs.get();
+    }
+
+    public double getAverageRecoveryMs() {
+        long count = recoveries.get();
+        return count == 0 ? 0 : (double) totalRecoveryMs.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StreamMetrics{connectionAttempts=%d, disconnects=%d, stalls=%d, recoveries=%d, lastRecoveryMs=%d, maxRecoveryMs=%d, averageRecoveryMs=%.1f}",
+                getConnectionAttempts(), getDisconnects(), getStalls(), getRecoveries(), getLastRecoveryMs(), getMaxRecoveryMs(), getAverageRecoveryMs());
+    }
+}
@@ -131,7 +131,7 @@ public class MT5BrokerClient implements BrokerClient {
         }
 
         log.info("Starting price stream for mt5 accountId: {} via Oanda", loginDetails.accountId());
-        return oandaClient.streamPrices(defaultOandaAccountId, instruments);
+        return oandaClient.streamSharedPrices(defaultOandaAccountId, instruments);
     }
 
     @Override
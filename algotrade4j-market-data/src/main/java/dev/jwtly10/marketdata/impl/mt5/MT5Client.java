@@ -1,6 +1,7 @@
 package dev.jwtly10.marketdata.impl.mt5;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jwtly10.marketdata.common.http.HttpTransport;
 import dev.jwtly10.marketdata.impl.mt5.models.MT5Login;
 import dev.jwtly10.marketdata.impl.mt5.models.MT5Trade;
 import dev.jwtly10.marketdata.impl.mt5.request.MT5TradeRequest;
@@ -30,10 +31,7 @@ public class MT5Client {
     }
 
     public MT5Client(String apiKey, String apiUrl, ObjectMapper objectMapper) {
-        this.apiKey = apiKey;
-        this.apiUrl = apiUrl + "/api/v1";
-        this.objectMapper = objectMapper;
-        this.client = new OkHttpClient();
+        this(apiKey, apiUrl, HttpTransport.getDefault().getClient(), objectMapper);
     }
 
     /**
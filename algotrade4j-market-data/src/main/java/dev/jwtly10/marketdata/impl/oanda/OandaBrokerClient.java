@@ -1,14 +1,17 @@
 package dev.jwtly10.marketdata.impl.oanda;
 
 import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.exception.DataProviderException;
 import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.model.*;
+import dev.jwtly10.marketdata.common.AccountChanges;
 import dev.jwtly10.marketdata.common.BrokerClient;
 import dev.jwtly10.marketdata.common.TradeDTO;
 import dev.jwtly10.marketdata.common.stream.Stream;
 import dev.jwtly10.marketdata.impl.oanda.models.OandaTrade;
 import dev.jwtly10.marketdata.impl.oanda.models.TradeStateFilter;
 import dev.jwtly10.marketdata.impl.oanda.request.MarketOrderRequest;
+import dev.jwtly10.marketdata.impl.oanda.response.OandaAccountChangesResponse;
 import dev.jwtly10.marketdata.impl.oanda.response.OandaAccountResponse;
 import dev.jwtly10.marketdata.impl.oanda.response.OandaOpenTradeResponse;
 import dev.jwtly10.marketdata.impl.oanda.response.OandaTradeResponse;
@@ -17,7 +20,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 public class OandaBrokerClient implements BrokerClient {
@@ -70,6 +73,44 @@ public class OandaBrokerClient implements BrokerClient {
         return res.trades().stream().map(OandaTrade::toTrade).toList();
     }
 
+    @Override
+    public AccountChanges getAccountChanges(String sinceTransactionId) throws Exception {
+        if (accountId == null) {
+            throw new RuntimeException("Account ID not set. Cannot fetch account changes.");
+        }
+        if (sinceTransactionId == null) {
+            // Trades first, so the cursor is no newer than the account state (overlapping changes are merged idempotently)
+            OandaTradeResponse trades = client.fetchTrades(accountId, null, TradeStateFilter.ALL, null, 500);
+            return new AccountChanges(getAccountInfo(), trades.trades().stream().map(OandaTrade::toTrade).toList(), Map.of(), trades.lastTransactionID());
+        }
+
+        OandaAccountChangesResponse res = client.fetchAccountChanges(accountId, sinceTransactionId);
+
+        // The changes only summarise each trade, so fetch the full details of the trades that changed
+        Set<String> changedIds = new LinkedHashSet<>();
+        OandaAccountChangesResponse.Changes changes = res.changes();
+        if (changes != null) {
+            for (List<OandaAccountChangesResponse.TradeSummary> summaries : Arrays.asList(changes.tradesOpened(), changes.tradesReduced(), changes.tradesClosed())) {
+                if (summaries != null) {
+                    summaries.forEach(summary -> changedIds.add(summary.id()));
+                }
+            }
+        }
+        List<Trade> trades = changedIds.isEmpty()
+                ? List.of()
+                : client.fetchTrades(accountId, new ArrayList<>(changedIds), TradeStateFilter.ALL, null, 500).trades().stream().map(OandaTrade::toTrade).toList();
+
+        Map<Integer, Double> openTradeProfits = new HashMap<>();
+        if (res.state().trades() != null) {
+            res.state().trades().forEach(t -> openTradeProfits.put(Integer.parseInt(t.id()), Double.parseDouble(t.unrealizedPL())));
+        }
+
+        // Balance isn't part of the state, but NAV is balance plus unrealised profit
+        double nav = Double.parseDouble(res.state().nAV());
+        double balance = nav - Double.parseDouble(res.state().unrealizedPL());
+        return new AccountChanges(new Account(-999999, balance, nav), trades, openTradeProfits, res.lastTransactionID());
+    }
+
     @Override
     public Trade openTrade(Trade trade) throws Exception {
         if (accountId == null) {
@@ -90,19 +131,49 @@ public class OandaBrokerClient implements BrokerClient {
                         .build())
                 .build();
         OandaOpenTradeResponse res = client.openTrade(accountId, req);
+        OandaOpenTradeResponse.TradeOpened opened = tradeOpened(res);
 
         return new Trade(
-                Integer.parseInt(res.orderFillTransaction().orderID()), // external id
+                Integer.parseInt(opened.tradeID()), // external id, the trade id rather than the order id
                 Instrument.fromBrokerSymbol(OANDA, res.orderCreateTransaction().instrument()), // instrument
                 trade.isLong() ? trade.getQuantity() : -trade.getQuantity(), // Quantity
                 ZonedDateTime.parse(res.orderFillTransaction().time()), // open time
-                new Number(res.orderFillTransaction().tradeOpened().price()), // entry price
+                new Number(opened.price()), // entry price
                 new Number(res.orderCreateTransaction().stopLossOnFill().price()), // stop loss
                 new Number(res.orderCreateTransaction().takeProfitOnFill().price()), // Take profit
                 trade.isLong() // is long
         );
     }
 
+    /**
+     * Gets the trade opened by a market order.
+     * A FOK order that can't be filled is cancelled, and on an account without hedging a fill against an open trade
+     * reduces or closes that trade instead of opening a new one. Neither leaves a trade to track, so both are errors.
+     *
+     * @param res the response from placing the order
+     * @return the opened trade
+     * @throws DataProviderException if the order didn't open a trade
+     */
+    private OandaOpenTradeResponse.TradeOpened tradeOpened(OandaOpenTradeResponse res) throws DataProviderException {
+        OandaOpenTradeResponse.OrderFillTransaction fill = res.orderFillTransaction();
+        if (fill == null) {
+            String reason = res.orderCancelTransaction() != null ? res.orderCancelTransaction().reason() : "no fill transaction";
+            throw new DataProviderException("Order " + res.orderCreateTransaction().id() + " was not filled: " + reason);
+        }
+        if (fill.tradeOpened() == null) {
+            List<String> affected = new ArrayList<>();
+            if (fill.tradeReduced() != null) {
+                affected.add(fill.tradeReduced().tradeID());
+            }
+            if (fill.tradesClosed() != null) {
+                fill.tradesClosed().forEach(t -> affected.add(t.tradeID()));
+            }
+            throw new DataProviderException("Order " + fill.orderID() + " was filled without opening a trade, it reduced or closed trades "
+                    + affected + ". Check the account allows hedging.");
+        }
+        return fill.tradeOpened();
+    }
+
     @Override
     public Trade openTrade(TradeParameters tradeParameters) throws Exception {
         return openTrade(tradeParameters.createTrade(OANDA));
@@ -124,7 +195,7 @@ public class OandaBrokerClient implements BrokerClient {
             throw new RuntimeException("Account ID not set. Cannot stream prices.");
         }
         log.info("Starting price stream for accountId: {}", accountId);
-        return client.streamPrices(accountId, instruments);
+        return client.streamSharedPrices(accountId, instruments);
     }
 
     @Override
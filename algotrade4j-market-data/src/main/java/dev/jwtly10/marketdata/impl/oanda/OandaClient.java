@@ -4,9 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.jwtly10.core.exception.DataProviderException;
 import dev.jwtly10.core.model.Broker;
 import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Tick;
+import dev.jwtly10.marketdata.common.http.HttpTransport;
+import dev.jwtly10.marketdata.common.stream.MultiplexedPriceStream;
+import dev.jwtly10.marketdata.common.stream.Stream;
 import dev.jwtly10.marketdata.impl.oanda.models.OandaOrder;
 import dev.jwtly10.marketdata.impl.oanda.models.TradeStateFilter;
 import dev.jwtly10.marketdata.impl.oanda.request.MarketOrderRequest;
+import dev.jwtly10.marketdata.impl.oanda.response.OandaAccountChangesResponse;
 import dev.jwtly10.marketdata.impl.oanda.response.OandaAccountResponse;
 import dev.jwtly10.marketdata.impl.oanda.response.OandaCandleResponse;
 import dev.jwtly10.marketdata.impl.oanda.response.OandaOpenTradeResponse;
@@ -23,6 +28,8 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Oanda API client
@@ -36,6 +43,10 @@ public class OandaClient {
     private final OkHttpClient client;
     private final String streamUrl;
     private final ObjectMapper objectMapper;
+    // One shared price stream per account, for every strategy streaming prices on it
+    private final Map<String, MultiplexedPriceStream> sharedPriceStreams = new ConcurrentHashMap<>();
+    // Oanda sends a heartbeat every 5 seconds on both streams, so a stream silent for longer than this has stalled
+    private volatile Duration streamStaleTimeout = Duration.ofSeconds(20);
 
     public OandaClient(String apiUrl, String apiKey, OkHttpClient client, ObjectMapper objectMapper) {
         this.apiKey = apiKey;
@@ -53,7 +64,7 @@ public class OandaClient {
     }
 
     public OandaClient(String apiUrl, String apiKey, ObjectMapper objectMapper) {
-        this(apiUrl, apiKey, new OkHttpClient(), objectMapper);
+        this(apiUrl, apiKey, HttpTransport.getDefault().getClient(), objectMapper);
     }
 
     /**
@@ -157,6 +168,36 @@ public class OandaClient {
         }
     }
 
+    /**
+     * Fetches the changes to the specified account since the given transaction,
+     * along with the account's current NAV and the unrealised profit of its open trades.
+     *
+     * @param accountId          the account id to fetch changes for
+     * @param sinceTransactionId the id of the last transaction already processed
+     * @return the OandaAccountChangesResponse containing the changes
+     * @throws Exception if an error occurs while fetching the data
+     */
+    public OandaAccountChangesResponse fetchAccountChanges(String accountId, String sinceTransactionId) throws Exception {
+        log.trace("Fetching account changes for account {} since transaction {}", accountId, sinceTransactionId);
+
+        String url = apiUrl + "/v3/accounts/" + accountId + "/changes?sinceTransactionID=" + sinceTransactionId;
+
+        Request req = new Request.Builder()
+                .url(url)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .build();
+
+        try (Response res = client.newCall(req).execute()) {
+            String response = res.body().string();
+            if (!res.isSuccessful()) {
+                throw new DataProviderException("Error response from Oanda API: " + response);
+            }
+
+            log.trace("Fetched account changes: {}", response);
+            return objectMapper.readValue(response, OandaAccountChangesResponse.class);
+        }
+    }
+
     /**
      * Opens a trade based on the specified order request.
      *
@@ -229,7 +270,20 @@ public class OandaClient {
      * @param instruments the list of instruments to stream prices for
      */
     public OandaPriceStream streamPrices(String accountId, List<Instrument> instruments) {
-        return new OandaPriceStream(client, apiKey, streamUrl, accountId, instruments, objectMapper);
+        return new OandaPriceStream(client, apiKey, streamUrl, accountId, instruments, objectMapper, streamStaleTimeout);
+    }
+
+    /**
+     * Returns a subscription to the account's shared price stream.
+     * All subscriptions on an account share a single upstream connection over the union of their instruments.
+     *
+     * @param accountId   the account id to stream prices with
+     * @param instruments the list of instruments to stream prices for
+     */
+    public Stream<Tick> streamSharedPrices(String accountId, List<Instrument> instruments) {
+        return sharedPriceStreams.computeIfAbsent(accountId, id ->
+                new MultiplexedPriceStream("oanda-" + id, streamInstruments -> streamPrices(id, streamInstruments))
+        ).subscribe(instruments);
     }
 
     /**
@@ -238,7 +292,17 @@ public class OandaClient {
      * @param accountId the account id to stream transactions for
      */
     public OandaTransactionStream streamTransactions(String accountId) {
-        return new OandaTransactionStream(client, apiKey, streamUrl, accountId, objectMapper);
+        return new OandaTransactionStream(client, apiKey, streamUrl, accountId, objectMapper, streamStaleTimeout);
+    }
+
+    /**
+     * Sets how long a price or transaction stream may go without data or a heartbeat before it is reconnected.
+     * Applies to streams opened afterwards.
+     *
+     * @param streamStaleTimeout the stale timeout, zero to disable the watchdog
+     */
+    public void setStreamStaleTimeout(Duration streamStaleTimeout) {
+        this.streamStaleTimeout = streamStaleTimeout;
     }
 
     // Utils
@@ -0,0 +1,47 @@
+package dev.jwtly10.marketdata.impl.oanda.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * https://developer.oanda.com/rest-live-v20/account-ep/#_collapse_endpoint_6
+ * Only the fields needed to reconcile trades and the account balance are mapped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record OandaAccountChangesResponse(
+        Changes changes,
+        State state,
+        String lastTransactionID
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Changes(
+            List<TradeSummary> tradesOpened,
+            List<TradeSummary> tradesReduced,
+            List<TradeSummary> tradesClosed
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TradeSummary(
+            String id
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record State(
+            String unrealizedPL,
+            @JsonProperty("NAV") String nAV,
+            List<CalculatedTradeState> trades
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CalculatedTradeState(
+            String id,
+            String unrealizedPL
+    ) {
+    }
+}
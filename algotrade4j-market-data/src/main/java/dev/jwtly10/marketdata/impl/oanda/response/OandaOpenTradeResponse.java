@@ -9,13 +9,15 @@ import java.util.List;
 public record OandaOpenTradeResponse(
         OrderCreateTransaction orderCreateTransaction,
         OrderFillTransaction orderFillTransaction,
+        OrderCancelTransaction orderCancelTransaction,
         List<String> relatedTransactionIDs,
         String lastTransactionId
 ) {
 
     public enum Type {
         MARKET_ORDER,
-        ORDER_FILL
+        ORDER_FILL,
+        ORDER_CANCEL
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -46,7 +48,19 @@ public record OandaOpenTradeResponse(
             Type type,
             double units,
             double requestedUnits,
-            TradeOpened tradeOpened
+            TradeOpened tradeOpened,
+            TradeReduced tradeReduced,
+            List<TradeReduced> tradesClosed
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record OrderCancelTransaction(
+            String id,
+            String time,
+            Type type,
+            String orderID,
+            String reason
     ) {
     }
 
@@ -60,4 +74,13 @@ public record OandaOpenTradeResponse(
 
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TradeReduced(
+            String tradeID,
+            double units,
+            String price,
+            String realizedPL
+    ) {
+    }
+
 }
\ No newline at end of file
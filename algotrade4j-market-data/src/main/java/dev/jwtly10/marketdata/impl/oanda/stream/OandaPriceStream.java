@@ -4,13 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.jwtly10.core.model.Broker;
 import dev.jwtly10.core.model.Instrument;
 import dev.jwtly10.core.model.Tick;
+import dev.jwtly10.marketdata.common.stream.ReconnectScheduler;
 import dev.jwtly10.marketdata.common.stream.RetryableStream;
-import dev.jwtly10.marketdata.impl.oanda.response.OandaPriceResponse;
-import dev.jwtly10.marketdata.impl.oanda.utils.OandaUtils;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,8 +20,8 @@ import java.util.stream.Collectors;
  * OandaPriceStream is a stream that listens to the Oanda prices stream and triggers a callback when a price/tick is received
  */
 public class OandaPriceStream extends RetryableStream<Tick> {
-    public OandaPriceStream(OkHttpClient client, String apiKey, String streamUrl, String accountId, List<Instrument> instruments, ObjectMapper objectMapper) {
-        super(client, buildRequest(apiKey, streamUrl, accountId, instruments), objectMapper);
+    public OandaPriceStream(OkHttpClient client, String apiKey, String streamUrl, String accountId, List<Instrument> instruments, ObjectMapper objectMapper, Duration staleTimeout) {
+        super(client, buildRequest(apiKey, streamUrl, accountId, instruments), objectMapper, ReconnectScheduler.shared(), staleTimeout);
     }
 
     private static Request buildRequest(String apiKey, String streamUrl, String accountId, List<Instrument> instruments) {
@@ -39,21 +40,35 @@ public class OandaPriceStream extends RetryableStream<Tick> {
     }
 
     /**
-     * Processes the line from the price stream into a Tick object
+     * Processes the raw line from the price stream into a Tick object, without decoding it or building intermediate objects
      *
-     * @param line     the line from the price stream
+     * @param buffer   the buffer holding the line
+     * @param offset   the start of the line in the buffer
+     * @param length   the length of the line
      * @param callback the callback to trigger when a price is received
      * @throws Exception if there is an error in the price stream
      */
     @Override
-    protected void processLine(String line, StreamCallback<Tick> callback) throws Exception {
-        if (line.contains("\"type\":\"PRICE\"")) {
-            OandaPriceResponse priceResponse = objectMapper.readValue(line, OandaPriceResponse.class);
-            Tick tick = OandaUtils.mapPriceToTick(priceResponse);
+    protected void processLine(byte[] buffer, int offset, int length, StreamCallback<Tick> callback) throws Exception {
+        Tick tick = OandaStreamParser.parsePrice(buffer, offset, length);
+        if (tick != null) {
             callback.onData(tick);
         }
-        if (line.contains("error")) {
-            throw new IOException("Error in price stream: " + line);
+        if (OandaStreamParser.containsError(buffer, offset, length)) {
+            throw new IOException("Error in price stream: " + new String(buffer, offset, length, StandardCharsets.UTF_8));
         }
     }
+
+    /**
+     * Processes the line from the price stream into a Tick object
+     *
+     * @param line     the line from the price stream
+     * @param callback the callback to trigger when a price is received
+     * @throws Exception if there is an error in the price stream
+     */
+    @Override
+    protected void processLine(String line, StreamCallback<Tick> callback) throws Exception {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        processLine(bytes, 0, bytes.length, callback);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,532 @@
+package dev.jwtly10.marketdata.impl.oanda.stream;
+
+import dev.jwtly10.core.model.DefaultTick;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.marketdata.common.TradeDTO;
+import dev.jwtly10.marketdata.impl.oanda.utils.OandaUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.jwtly10.core.model.Broker.OANDA;
+
+/**
+ * Parses Oanda price and transaction stream lines straight from the raw response bytes.
+ *
+ * <p>
+ * Rather than building a Jackson tree and response DTOs for every line, the parser walks the JSON tokens of the line in place,
+ * skipping the fields it doesn't need and reading the ones it does directly into the tick or trade fields.
+ * Heartbeats (and any other line types that aren't needed) are rejected as soon as the "type" field is read.
+ * </p>
+ *
+ * <p>
+ * The results are the same as {@link OandaUtils#mapPriceToTick} and the {@code OrderFillTransaction} mapping.
+ * Values the fast path doesn't handle (e.g. unusually long decimals or non UTC timestamps) fall back to the regular parsing.
+ * </p>
+ */
+public final class OandaStreamParser {
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] TIME = ascii("time");
+    private static final byte[] INSTRUMENT = ascii("instrument");
+    private static final byte[] BIDS = ascii("bids");
+    private static final byte[] ASKS = ascii("asks");
+    private static final byte[] PRICE = ascii("price");
+    private static final byte[] REASON = ascii("reason");
+    private static final byte[] TRADES_CLOSED = ascii("tradesClosed");
+    private static final byte[] TRADE_ID = ascii("tradeID");
+    private static final byte[] REALIZED_PL = ascii("realizedPL");
+    private static final byte[] ERROR = ascii("error");
+
+    private static final byte[] PRICE_TYPE = ascii("PRICE");
+    private static final byte[] ORDER_FILL_TYPE = ascii("ORDER_FILL");
+    // The order fill reasons that close trades
+    private static final byte[][] CLOSE_REASONS = {
+            ascii("MARKET_ORDER_TRADE_CLOSE"),
+            ascii("STOP_LOSS_ORDER"),
+            ascii("TAKE_PROFIT_ORDER")
+    };
+
+    private static final Instrument[] INSTRUMENTS;
+    private static final byte[][] SYMBOLS;
+
+    // Doubles up to 2^53 and powers of ten up to 10^22 are exact, so dividing them is correctly rounded, like Double.parseDouble
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final double[] DOUBLE_POWERS_OF_TEN = new double[23];
+    private static final int MAX_UNSCALED_DIGITS = 18;
+
+    static {
+        List<Instrument> instruments = new ArrayList<>();
+        for (Instrument instrument : Instrument.values()) {
+            try {
+                instrument.getBrokerConfig(OANDA);
+                instruments.add(instrument);
+            } catch (IllegalArgumentException e) {
+                // Not available on Oanda
+            }
+        }
+        INSTRUMENTS = instruments.toArray(new Instrument[0]);
+        SYMBOLS = new byte[INSTRUMENTS.length][];
+        for (int i = 0; i < INSTRUMENTS.length; i++) {
+            SYMBOLS[i] = ascii(INSTRUMENTS[i].getBrokerConfig(OANDA).getSymbol());
+        }
+
+        double power = 1;
+        for (int i = 0; i < DOUBLE_POWERS_OF_TEN.length; i++) {
+            DOUBLE_POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    private OandaStreamParser() {
+    }
+
+    /**
+     * Parses a line from the pricing stream.
+     *
+     * @param buffer the buffer holding the line
+     * @param offset the start of the line in the buffer
+     * @param length the length of the line
+     * @return the tick, or null if the line is not a price (e.g. a heartbeat)
+     * @throws IOException if the line is not valid JSON
+     */
+    public static DefaultTick parsePrice(byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length;
+        int i = skipWhitespace(buffer, offset, end);
+        if (i >= end || buffer[i] != '{') {
+            return null;
+        }
+
+        boolean isPrice = false;
+        int time = -1;
+        int instrument = -1;
+        int bid = -1;
+        int ask = -1;
+        i++;
+        while ((i = nextKey(buffer, i, end)) != -1) {
+            int value = valueStart(buffer, i, end);
+            if (keyEquals(buffer, i, end, TYPE)) {
+                if (!stringEquals(buffer, value, end, PRICE_TYPE)) {
+                    return null;
+                }
+                isPrice = true;
+            } else if (keyEquals(buffer, i, end, TIME)) {
+                time = value;
+            } else if (keyEquals(buffer, i, end, INSTRUMENT)) {
+                instrument = value;
+            } else if (keyEquals(buffer, i, end, BIDS)) {
+                bid = bestPrice(buffer, value, end);
+            } else if (keyEquals(buffer, i, end, ASKS)) {
+                ask = bestPrice(buffer, value, end);
+            }
+            i = skipValue(buffer, value, end);
+        }
+
+        if (!isPrice) {
+            return null;
+        }
+        if (time == -1 || instrument == -1) {
+            throw new IOException("Price missing time or instrument: " + decode(buffer, offset, end));
+        }
+
+        Number bidPrice = bid == -1 ? null : parseNumber(buffer, bid, end);
+        Number askPrice = ask == -1 ? null : parseNumber(buffer, ask, end);
+        Number midPrice = bidPrice == null || askPrice == null ? null : bidPrice.add(askPrice).divide(2);
+
+        // TODO: Calculate volume
+        return new DefaultTick(parseInstrument(buffer, instrument, end), bidPrice, midPrice, askPrice, Number.ZERO, parseTime(buffer, time, end));
+    }
+
+    /**
+     * Parses a line from the transaction stream into the trades it closed.
+     *
+     * @param buffer the buffer holding the line
+     * @param offset the start of the line in the buffer
+     * @param length the length of the line
+     * @return the closed trades, or null if the line is not an order fill that closes trades (e.g. a heartbeat)
+     * @throws IOException if the line is not valid JSON
+     */
+    public static List<TradeDTO> parseClosedTrades(byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length;
+        int i = skipWhitespace(buffer, offset, end);
+        if (i >= end || buffer[i] != '{') {
+            return null;
+        }
+
+        boolean isOrderFill = false;
+        int reason = -1;
+        int tradesClosed = -1;
+        i++;
+        while ((i = nextKey(buffer, i, end)) != -1) {
+            int value = valueStart(buffer, i, end);
+            if (keyEquals(buffer, i, end, TYPE)) {
+                if (!stringEquals(buffer, value, end, ORDER_FILL_TYPE)) {
+                    return null;
+                }
+                isOrderFill = true;
+            } else if (keyEquals(buffer, i, end, REASON)) {
+                reason = value;
+            } else if (keyEquals(buffer, i, end, TRADES_CLOSED)) {
+                tradesClosed = value;
+            }
+            i = skipValue(buffer, value, end);
+        }
+
+        if (!isOrderFill || reason == -1 || !isCloseReason(buffer, reason, end)) {
+            return null;
+        }
+
+        List<TradeDTO> trades = new ArrayList<>();
+        if (tradesClosed == -1 || buffer[tradesClosed] != '[') {
+            return trades;
+        }
+        i = tradesClosed + 1;
+        while (true) {
+            i = skipSeparators(buffer, i, end);
+            if (i >= end) {
+                throw malformed(i);
+            }
+            if (buffer[i] == ']') {
+                break;
+            }
+            if (buffer[i] == '{') {
+                trades.add(parseTradeClose(buffer, i, end));
+            }
+            i = skipValue(buffer, i, end);
+        }
+        return trades;
+    }
+
+    /**
+     * @return true if the line contains "error" anywhere, which is how the stream reports failures
+     */
+    public static boolean containsError(byte[] buffer, int offset, int length) {
+        int last = offset + length - ERROR.length;
+        outer:
+        for (int i = offset; i <= last; i++) {
+            for (int j = 0; j < ERROR.length; j++) {
+                if (buffer[i + j] != ERROR[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static TradeDTO parseTradeClose(byte[] buffer, int objectStart, int end) throws IOException {
+        int tradeId = -1;
+        int realizedPl = -1;
+        int price = -1;
+        int i = objectStart + 1;
+        while ((i = nextKey(buffer, i, end)) != -1) {
+            int value = valueStart(buffer, i, end);
+            if (keyEquals(buffer, i, end, TRADE_ID)) {
+                tradeId = value;
+            } else if (keyEquals(buffer, i, end, REALIZED_PL)) {
+                realizedPl = value;
+            } else if (keyEquals(buffer, i, end, PRICE)) {
+                price = value;
+            }
+            i = skipValue(buffer, value, end);
+        }
+        if (tradeId == -1 || realizedPl == -1 || price == -1) {
+            throw new IOException("Closed trade missing tradeID, realizedPL or price: " + decode(buffer, objectStart, skipValue(buffer, objectStart, end)));
+        }
+        return new TradeDTO(decodeString(buffer, tradeId, end), parseDouble(buffer, realizedPl, end), parseDouble(buffer, price, end));
+    }
+
+    /**
+     * @return the position of the price value of the first bucket in a list of price buckets, or -1 if there are none
+     */
+    private static int bestPrice(byte[] buffer, int arrayStart, int end) throws IOException {
+        if (buffer[arrayStart] != '[') {
+            return -1;
+        }
+        int i = skipWhitespace(buffer, arrayStart + 1, end);
+        if (i >= end || buffer[i] != '{') {
+            return -1;
+        }
+        i++;
+        while ((i = nextKey(buffer, i, end)) != -1) {
+            int value = valueStart(buffer, i, end);
+            if (keyEquals(buffer, i, end, PRICE)) {
+                return value;
+            }
+            i = skipValue(buffer, value, end);
+        }
+        return -1;
+    }
+
+    private static boolean isCloseReason(byte[] buffer, int value, int end) {
+        for (byte[] reason : CLOSE_REASONS) {
+            if (stringEquals(buffer, value, end, reason)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Instrument parseInstrument(byte[] buffer, int value, int end) throws IOException {
+        int from = value + 1;
+        int to = stringEnd(buffer, value, end) - 1;
+        int length = to - from;
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            byte[] symbol = SYMBOLS[i];
+            if (symbol.length == length && regionEquals(buffer, from, symbol)) {
+                return INSTRUMENTS[i];
+            }
+        }
+        // Throws the usual unknown symbol error
+        return Instrument.fromBrokerSymbol(OANDA, decode(buffer, from, to));
+    }
+
+    /**
+     * Parses an Oanda timestamp (e.g. 2024-01-02T10:15:30.123456789Z), falling back to the formatter for anything but UTC.
+     */
+    private static ZonedDateTime parseTime(byte[] buffer, int value, int end) throws IOException {
+        int from = value + 1;
+        int to = stringEnd(buffer, value, end) - 1;
+        int length = to - from;
+        if (length >= 20 && buffer[to - 1] == 'Z'
+                && buffer[from + 4] == '-' && buffer[from + 7] == '-' && buffer[from + 10] == 'T'
+                && buffer[from + 13] == ':' && buffer[from + 16] == ':') {
+            int year = digits(buffer, from, 4);
+            int month = digits(buffer, from + 5, 2);
+            int day = digits(buffer, from + 8, 2);
+            int hour = digits(buffer, from + 11, 2);
+            int minute = digits(buffer, from + 14, 2);
+            int second = digits(buffer, from + 17, 2);
+            int nanos = 0;
+            int fractionDigits = length - 20 - 1;
+            boolean valid = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0;
+            if (length == 20) {
+                fractionDigits = 0;
+            } else if (buffer[from + 19] != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                valid = false;
+            } else {
+                nanos = digits(buffer, from + 20, fractionDigits);
+                for (int i = fractionDigits; i < 9 && nanos >= 0; i++) {
+                    nanos *= 10;
+                }
+            }
+            if (valid && nanos >= 0) {
+                return ZonedDateTime.of(year, month, day, hour, minute, second, nanos, ZoneOffset.UTC);
+            }
+        }
+        return OandaUtils.parseTime(decode(buffer, from, to));
+    }
+
+    /**
+     * @return the value of the given number of decimal digits, or -1 if any of them isn't a digit
+     */
+    private static int digits(byte[] buffer, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static Number parseNumber(byte[] buffer, int value, int end) throws IOException {
+        int from = value + 1;
+        int to = stringEnd(buffer, value, end) - 1;
+        long unscaled = parseUnscaled(buffer, from, to);
+        if (unscaled == Long.MIN_VALUE) {
+            return new Number(decode(buffer, from, to));
+        }
+        return new Number(BigDecimal.valueOf(unscaled, scaleOf(buffer, from, to)));
+    }
+
+    private static double parseDouble(byte[] buffer, int value, int end) throws IOException {
+        int from = value + 1;
+        int to = stringEnd(buffer, value, end) - 1;
+        long unscaled = parseUnscaled(buffer, from, to);
+        int scale = scaleOf(buffer, from, to);
+        if (unscaled == Long.MIN_VALUE || Math.abs(unscaled) > MAX_EXACT_DOUBLE || scale >= DOUBLE_POWERS_OF_TEN.length) {
+            return Double.parseDouble(decode(buffer, from, to));
+        }
+        double result = Math.abs(unscaled) / DOUBLE_POWERS_OF_TEN[scale];
+        return buffer[from] == '-' ? -result : result;
+    }
+
+    /**
+     * Reads a plain decimal (optional minus sign, digits and at most one decimal point) as its unscaled value.
+     *
+     * @return the unscaled value, or Long.MIN_VALUE if the decimal isn't plain or is too long to fit
+     */
+    private static long parseUnscaled(byte[] buffer, int from, int to) {
+        int i = from;
+        boolean negative = i < to && buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long unscaled = 0;
+        int digitCount = 0;
+        boolean seenPoint = false;
+        for (; i < to; i++) {
+            byte b = buffer[i];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b >= '0' && b <= '9') {
+                if (++digitCount > MAX_UNSCALED_DIGITS) {
+                    return Long.MIN_VALUE;
+                }
+                unscaled = unscaled * 10 + (b - '0');
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+        if (digitCount == 0) {
+            return Long.MIN_VALUE;
+        }
+        return negative ? -unscaled : unscaled;
+    }
+
+    private static int scaleOf(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '.') {
+                return to - i - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Moves to the next key in an object.
+     *
+     * @return the position of the opening quote of the key, or -1 at the end of the object
+     */
+    private static int nextKey(byte[] buffer, int i, int end) throws IOException {
+        i = skipSeparators(buffer, i, end);
+        if (i >= end) {
+            throw malformed(i);
+        }
+        if (buffer[i] == '}') {
+            return -1;
+        }
+        if (buffer[i] != '"') {
+            throw malformed(i);
+        }
+        return i;
+    }
+
+    /**
+     * @return the position of the value of the key starting at the given position
+     */
+    private static int valueStart(byte[] buffer, int key, int end) throws IOException {
+        int i = skipWhitespace(buffer, stringEnd(buffer, key, end), end);
+        if (i >= end || buffer[i] != ':') {
+            throw malformed(i);
+        }
+        i = skipWhitespace(buffer, i + 1, end);
+        if (i >= end) {
+            throw malformed(i);
+        }
+        return i;
+    }
+
+    /**
+     * @return the position just after the value starting at the given position
+     */
+    private static int skipValue(byte[] buffer, int i, int end) throws IOException {
+        byte b = buffer[i];
+        if (b == '"') {
+            return stringEnd(buffer, i, end);
+        }
+        if (b == '{' || b == '[') {
+            int depth = 0;
+            while (i < end) {
+                b = buffer[i];
+                if (b == '"') {
+                    i = stringEnd(buffer, i, end);
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+                i++;
+            }
+            throw malformed(end);
+        }
+        // Number, boolean or null
+        while (i < end && (b = buffer[i]) != ',' && b != '}' && b != ']' && b > ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the position just after the closing quote of the string starting at the given position
+     */
+    private static int stringEnd(byte[] buffer, int quote, int end) throws IOException {
+        for (int i = quote + 1; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i + 1;
+            }
+        }
+        throw malformed(end);
+    }
+
+    private static int skipWhitespace(byte[] buffer, int i, int end) {
+        while (i < end && buffer[i] <= ' ' && buffer[i] >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipSeparators(byte[] buffer, int i, int end) {
+        while (i < end && ((buffer[i] <= ' ' && buffer[i] >= 0) || buffer[i] == ',')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean keyEquals(byte[] buffer, int quote, int end, byte[] key) {
+        return stringEquals(buffer, quote, end, key);
+    }
+
+    private static boolean stringEquals(byte[] buffer, int quote, int end, byte[] expected) {
+        int close = quote + 1 + expected.length;
+        return close < end && buffer[quote] == '"' && buffer[close] == '"' && regionEquals(buffer, quote + 1, expected);
+    }
+
+    private static boolean regionEquals(byte[] buffer, int from, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decodeString(byte[] buffer, int quote, int end) throws IOException {
+        return decode(buffer, quote + 1, stringEnd(buffer, quote, end) - 1);
+    }
+
+    private static String decode(byte[] buffer, int from, int to) {
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static IOException malformed(int position) {
+        return new IOException("Malformed JSON in stream line at buffer position " + position);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,15 +1,15 @@
 package dev.jwtly10.marketdata.impl.oanda.stream;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.jwtly10.marketdata.common.TradeDTO;
+import dev.jwtly10.marketdata.common.stream.ReconnectScheduler;
 import dev.jwtly10.marketdata.common.stream.RetryableStream;
-import dev.jwtly10.marketdata.impl.oanda.response.transaction.OrderFillTransaction;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -18,8 +18,8 @@ import java.util.List;
  */
 @Slf4j
 public class OandaTransactionStream extends RetryableStream<List<TradeDTO>> {
-    public OandaTransactionStream(OkHttpClient client, String apiKey, String streamUrl, String accountId, ObjectMapper objectMapper) {
-        super(client, buildRequest(apiKey, streamUrl, accountId), objectMapper);
+    public OandaTransactionStream(OkHttpClient client, String apiKey, String streamUrl, String accountId, ObjectMapper objectMapper, Duration staleTimeout) {
+        super(client, buildRequest(apiKey, streamUrl, accountId), objectMapper, ReconnectScheduler.shared(), staleTimeout);
     }
 
     private static Request buildRequest(String apiKey, String streamUrl, String accountId) {
@@ -32,70 +32,40 @@ public class OandaTransactionStream extends RetryableStream<List<TradeDTO>> {
     }
 
     /**
-     * Processes the line from the transaction stream into a list of closed trade IDs
+     * Processes the raw line from the transaction stream into a list of closed trade IDs, without decoding it or building intermediate objects.
+     * Only ORDER_FILL transactions closing trades (market close, stop loss and take profit) are passed on, everything else (e.g. heartbeats) is skipped.
      * Callers will then need to verify these trades exist and act accordingly
      *
-     * @param line     the line from the transaction stream
+     * @param buffer   the buffer holding the line
+     * @param offset   the start of the line in the buffer
+     * @param length   the length of the line
      * @param callback the callback to trigger when a trade is closed
      * @throws Exception if there is an error in the transaction stream
      */
     @Override
-    protected void processLine(String line, StreamCallback<List<TradeDTO>> callback) throws Exception {
-        JsonNode jsonNode = objectMapper.readTree(line);
-
-        if (jsonNode.has("type")) {
-            String type = jsonNode.get("type").asText();
-            String reason = jsonNode.has("reason") ? jsonNode.get("reason").asText() : "";
-
-            switch (type) {
-                case "ORDER_FILL":
-                    switch (reason) {
-                        case "MARKET_ORDER_TRADE_CLOSE" -> {
-                            log.debug("Received ORDER_FILL transaction with MARKET_ORDER_TRADE_CLOSE reason: {}", line);
-                            OrderFillTransaction transaction = objectMapper.treeToValue(jsonNode, OrderFillTransaction.class);
-                            List<TradeDTO> closedTrades = handleOrderFillTransaction(transaction);
-
-                            callback.onData(closedTrades);
-                        }
-                        case "STOP_LOSS_ORDER" -> {
-                            log.debug("Received ORDER_FILL transaction with STOP_LOSS_ORDER reason: {}", line);
-                            OrderFillTransaction transaction = objectMapper.treeToValue(jsonNode, OrderFillTransaction.class);
-                            List<TradeDTO> closedTrades = handleOrderFillTransaction(transaction);
-
-                            callback.onData(closedTrades);
-                        }
-                        case "TAKE_PROFIT_ORDER" -> {
-                            log.debug("Received ORDER_FILL transaction with TAKE_PROFIT_ORDER reason: {}", line);
-                            OrderFillTransaction transaction = objectMapper.treeToValue(jsonNode, OrderFillTransaction.class);
-                            List<TradeDTO> closedTrades = handleOrderFillTransaction(transaction);
-
-                            callback.onData(closedTrades);
-                        }
-                        case null, default -> log.debug("Received ORDER_FILL transaction with reason: {}", reason);
-                    }
-                    break;
-                case "HEARTBEAT":
-                    log.trace("Received HEARTBEAT: {}", line);
-                    break;
-                default:
-                    // We don't really need to handle these, its just for debugging, we will accept those we care about
-                    log.trace("Unhandled transaction type: {}", type);
-            }
+    protected void processLine(byte[] buffer, int offset, int length, StreamCallback<List<TradeDTO>> callback) throws Exception {
+        List<TradeDTO> closedTrades = OandaStreamParser.parseClosedTrades(buffer, offset, length);
+        if (closedTrades != null) {
+            log.debug("Trades closed: {}", closedTrades);
+            callback.onData(closedTrades);
         }
 
-        if (line.contains("error")) {
-            throw new Exception("Error in transaction stream: " + line);
+        if (OandaStreamParser.containsError(buffer, offset, length)) {
+            throw new Exception("Error in transaction stream: " + new String(buffer, offset, length, StandardCharsets.UTF_8));
         }
     }
 
-    private List<TradeDTO> handleOrderFillTransaction(OrderFillTransaction transaction) {
-        List<TradeDTO> closedTrades = new ArrayList<>();
-
-        transaction.tradesClosed().forEach(tradeClose -> {
-            log.debug("Trade closed: {}", tradeClose);
-            closedTrades.add(new TradeDTO(tradeClose.tradeID(), Double.parseDouble(tradeClose.realizedPL()), Double.parseDouble(tradeClose.price())));
-        });
-
-        return closedTrades;
+    /**
+     * Processes the line from the transaction stream into a list of closed trade IDs
+     * Callers will then need to verify these trades exist and act accordingly
+     *
+     * @param line     the line from the transaction stream
+     * @param callback the callback to trigger when a trade is closed
+     * @throws Exception if there is an error in the transaction stream
+     */
+    @Override
+    protected void processLine(String line, StreamCallback<List<TradeDTO>> callback) throws Exception {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        processLine(bytes, 0, bytes.length, callback);
     }
 }
\ No newline at end of file
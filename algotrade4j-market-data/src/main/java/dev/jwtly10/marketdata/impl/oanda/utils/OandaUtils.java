@@ -32,7 +32,7 @@ public class OandaUtils {
      */
     public static DefaultTick mapPriceToTick(OandaPriceResponse oandaPrice) {
         Instrument instrument = Instrument.fromBrokerSymbol(OANDA, oandaPrice.instrument());
-        ZonedDateTime timestamp = ZonedDateTime.parse(oandaPrice.time(), OANDA_DT_FORMATTER);
+        ZonedDateTime timestamp = parseTime(oandaPrice.time());
 
         Number bidPrice = getBestPrice(oandaPrice.bids());
         Number askPrice = getBestPrice(oandaPrice.asks());
@@ -42,6 +42,16 @@ public class OandaUtils {
         return new DefaultTick(instrument, bidPrice, midPrice, askPrice, Number.ZERO, timestamp);
     }
 
+    /**
+     * Parses a timestamp in the format Oanda uses for prices and transactions (RFC 3339, up to nanosecond precision).
+     *
+     * @param time the Oanda timestamp
+     * @return the parsed time
+     */
+    public static ZonedDateTime parseTime(String time) {
+        return ZonedDateTime.parse(time, OANDA_DT_FORMATTER);
+    }
+
     /**
      * Gets the best price from a list of price buckets.
      *
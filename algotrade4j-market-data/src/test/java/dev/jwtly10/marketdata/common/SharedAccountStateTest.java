@@ -0,0 +1,320 @@
+package dev.jwtly10.marketdata.common;
+
+import dev.jwtly10.core.account.Account;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.*;
+import dev.jwtly10.marketdata.common.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedAccountStateTest {
+
+    private FakeBrokerClient broker;
+    private ScheduledExecutorService scheduler;
+    private SharedAccountState state;
+
+    @BeforeEach
+    void setUp() {
+        broker = new FakeBrokerClient();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        // Long enough that the loop only runs its initial sync during a test
+        state = new SharedAccountState("test", broker, scheduler, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testViewsShareUpstreamCalls() throws Exception {
+        broker.respond(List.of(trade(1, Instrument.EURUSD, 0)), Map.of(), "10");
+        List<BrokerClient> views = List.of(state.view(Instrument.EURUSD), state.view(Instrument.EURUSD), state.view(Instrument.NAS100USD));
+
+        for (BrokerClient view : views) {
+            view.getAccountChanges(null);
+            view.getAccountInfo();
+            view.getAllTrades();
+        }
+        assertEquals(1, broker.changeRequests.size());
+
+        broker.respond(List.of(), Map.of(1, 5.0), "11");
+        state.sync();
+        for (BrokerClient view : views) {
+            view.getAccountChanges("1");
+        }
+
+        assertEquals(2, broker.changeRequests.size());
+        // The broker's cursor is used upstream, whatever the views pass
+        assertEquals(Arrays.asList(null, "10"), broker.changeRequests);
+    }
+
+    @Test
+    void testViewsOnlySeeChangedTradesOnTheirInstrument() throws Exception {
+        broker.respond(List.of(trade(1, Instrument.EURUSD, 0), trade(2, Instrument.NAS100USD, 0)), Map.of(), "10");
+        BrokerClient eur = state.view(Instrument.EURUSD);
+        BrokerClient nas = state.view(Instrument.NAS100USD);
+
+        AccountChanges eurChanges = eur.getAccountChanges(null);
+        AccountChanges nasChanges = nas.getAccountChanges(null);
+        assertEquals(List.of(1), ids(eurChanges.trades()));
+        assertEquals(List.of(2), ids(nasChanges.trades()));
+
+        broker.respond(List.of(), Map.of(1, 5.0), "11");
+        state.sync();
+
+        AccountChanges eurUpdate = eur.getAccountChanges(eurChanges.lastTransactionId());
+        assertEquals(List.of(1), ids(eurUpdate.trades()));
+        assertEquals(5.0, eurUpdate.trades().getFirst().getProfit());
+        assertTrue(nas.getAccountChanges(nasChanges.lastTransactionId()).trades().isEmpty());
+        assertTrue(eur.getAccountChanges(eurUpdate.lastTransactionId()).trades().isEmpty());
+    }
+
+    @Test
+    void testTransactionStreamIsSharedAndRoutedByInstrument() throws Exception {
+        broker.respond(List.of(trade(1, Instrument.EURUSD, 0), trade(2, Instrument.NAS100USD, 0)), Map.of(), "10");
+        BrokerClient eur = state.view(Instrument.EURUSD);
+        BrokerClient nas = state.view(Instrument.NAS100USD);
+        eur.getAllTrades();
+        List<List<TradeDTO>> eurClosed = new ArrayList<>();
+        List<List<TradeDTO>> nasClosed = new ArrayList<>();
+        Stream<List<TradeDTO>> eurStream = subscribe(eur, eurClosed);
+        Stream<List<TradeDTO>> nasStream = subscribe(nas, nasClosed);
+
+        assertEquals(1, broker.transactionStreams.size());
+        assertEquals(2, state.getSubscriberCount());
+
+        broker.transactionStreams.getFirst().emit(List.of(new TradeDTO("1", 12.5, 1.2)));
+
+        assertEquals(1, eurClosed.size());
+        assertTrue(nasClosed.isEmpty());
+        Trade closed = eur.getAllTrades().getFirst();
+        assertEquals(12.5, closed.getProfit());
+        assertTrue(eur.getOpenTrades().isEmpty());
+
+        eurStream.close();
+        assertFalse(broker.transactionStreams.getFirst().closed);
+        nasStream.close();
+        assertTrue(broker.transactionStreams.getFirst().closed);
+        assertEquals(0, state.getSubscriberCount());
+        assertTrue(state.isClosed());
+    }
+
+    @Test
+    void testClosedTradeLeavesBalanceToTheSync() throws Exception {
+        broker.respond(List.of(trade(1, Instrument.EURUSD, 0)), Map.of(), "10");
+        BrokerClient eur = state.view(Instrument.EURUSD);
+        subscribe(eur, new ArrayList<>());
+        eur.getAllTrades();
+
+        broker.transactionStreams.getFirst().emit(List.of(new TradeDTO("1", 12.5, 1.2)));
+
+        // The broker's balance may already include the close, so it isn't adjusted locally
+        assertEquals(1000, eur.getAccountInfo().getBalance());
+        assertEquals(12.5, eur.getAllTrades().getFirst().getProfit());
+    }
+
+    @Test
+    void testViewsHoldTheStateOpenBeforeSubscribing() {
+        BrokerClient first = state.view(Instrument.EURUSD);
+        BrokerClient second = state.view(Instrument.NAS100USD);
+
+        // Neither has started its transaction stream, but the state is in use
+        assertEquals(0, state.getSubscriberCount());
+        assertFalse(state.isClosed());
+
+        Stream<List<TradeDTO>> stream = subscribe(first, new ArrayList<>());
+        SharedAccountState.release(second);
+        SharedAccountState.release(second);
+        assertFalse(state.isClosed());
+
+        stream.close();
+        assertTrue(state.isClosed());
+        assertThrows(IllegalStateException.class, () -> state.view(Instrument.EURUSD));
+    }
+
+    @Test
+    void testReleasingAViewClosesItsTransactionStream() {
+        BrokerClient eur = state.view(Instrument.EURUSD);
+        subscribe(eur, new ArrayList<>());
+
+        SharedAccountState.release(eur);
+
+        assertEquals(0, state.getSubscriberCount());
+        assertTrue(broker.transactionStreams.getFirst().closed);
+        assertTrue(state.isClosed());
+    }
+
+    @Test
+    void testOpenedTradesAreVisibleBeforeNextSync() throws Exception {
+        broker.respond(List.of(), Map.of(), "10");
+        BrokerClient eur = state.view(Instrument.EURUSD);
+        AccountChanges initial = eur.getAccountChanges(null);
+
+        Trade opened = eur.openTrade(trade(3, Instrument.EURUSD, 0));
+
+        AccountChanges changes = eur.getAccountChanges(initial.lastTransactionId());
+        assertEquals(List.of(3), ids(changes.trades()));
+        assertNotSame(opened, changes.trades().getFirst());
+        assertEquals(1, broker.changeRequests.size());
+    }
+
+    @Test
+    void testViewsReturnCopies() throws Exception {
+        broker.respond(List.of(trade(1, Instrument.EURUSD, 0)), Map.of(), "10");
+        BrokerClient eur = state.view(Instrument.EURUSD);
+
+        eur.getAllTrades().getFirst().setProfit(100);
+
+        assertEquals(0, eur.getAllTrades().getFirst().getProfit());
+    }
+
+    @Test
+    void testFailedSyncIsReportedToViews() throws Exception {
+        broker.respond(List.of(trade(1, Instrument.EURUSD, 0)), Map.of(), "10");
+        BrokerClient eur = state.view(Instrument.EURUSD);
+        AccountChanges initial = eur.getAccountChanges(null);
+
+        broker.failure = new RuntimeException("Broker down");
+        assertThrows(RuntimeException.class, state::sync);
+        Exception e = assertThrows(Exception.class, () -> eur.getAccountChanges(initial.lastTransactionId()));
+        assertTrue(e.getMessage().contains("Broker down"));
+
+        broker.failure = null;
+        state.sync();
+        assertTrue(eur.getAccountChanges(initial.lastTransactionId()).trades().isEmpty());
+    }
+
+    private Stream<List<TradeDTO>> subscribe(BrokerClient view, List<List<TradeDTO>> received) {
+        @SuppressWarnings("unchecked")
+        Stream<List<TradeDTO>> stream = (Stream<List<TradeDTO>>) view.streamTransactions();
+        stream.start(new Stream.StreamCallback<>() {
+            @Override
+            public void onData(List<TradeDTO> data) {
+                received.add(data);
+            }
+
+            @Override
+            public void onError(Exception e) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return stream;
+    }
+
+    private List<Integer> ids(List<Trade> trades) {
+        return trades.stream().map(Trade::getId).toList();
+    }
+
+    private Trade trade(int id, Instrument instrument, double profit) {
+        Trade trade = new Trade(id, instrument, 1000, ZonedDateTime.now(), new Number("1.1000"), new Number("1.0900"), new Number("1.1200"), true);
+        trade.setProfit(profit);
+        return trade;
+    }
+
+    private static class FakeBrokerClient implements BrokerClient {
+        private final List<String> changeRequests = new ArrayList<>();
+        private final LinkedList<AccountChanges> responses = new LinkedList<>();
+        private AccountChanges lastResponse;
+        private final List<FakeTransactionStream> transactionStreams = new ArrayList<>();
+        private volatile RuntimeException failure;
+
+        // The last response is repeated once the queue is empty, so background syncs can't run out
+        synchronized void respond(List<Trade> trades, Map<Integer, Double> openTradeProfits, String lastTransactionId) {
+            responses.add(new AccountChanges(new Account(-999999, 1000, 1000), trades, openTradeProfits, lastTransactionId));
+        }
+
+        @Override
+        public synchronized AccountChanges getAccountChanges(String sinceTransactionId) {
+            if (failure != null) {
+                throw failure;
+            }
+            changeRequests.add(sinceTransactionId);
+            if (!responses.isEmpty()) {
+                lastResponse = responses.removeFirst();
+            }
+            return lastResponse;
+        }
+
+        @Override
+        public Broker getBroker() {
+            return Broker.OANDA;
+        }
+
+        @Override
+        public Account getAccountInfo() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Trade> getOpenTrades() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Trade> getAllTrades() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Trade openTrade(Trade trade) {
+            return trade;
+        }
+
+        @Override
+        public Trade openTrade(TradeParameters tradeParameters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void closeTrade(Integer tradeId) {
+        }
+
+        @Override
+        public Stream<?> streamPrices(List<Instrument> instruments) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<List<TradeDTO>> streamTransactions() {
+            FakeTransactionStream stream = new FakeTransactionStream();
+            transactionStreams.add(stream);
+            return stream;
+        }
+    }
+
+    private static class FakeTransactionStream implements Stream<List<TradeDTO>> {
+        private StreamCallback<List<TradeDTO>> callback;
+        private boolean closed = false;
+
+        @Override
+        public void start(StreamCallback<List<TradeDTO>> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        void emit(List<TradeDTO> closedTrades) {
+            callback.onData(closedTrades);
+        }
+    }
+}
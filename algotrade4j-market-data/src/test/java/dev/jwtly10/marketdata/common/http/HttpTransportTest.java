@@ -0,0 +1,152 @@
+package dev.jwtly10.marketdata.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link HttpTransport} against a local server.
+ */
+class HttpTransportTest {
+
+    private HttpServer server;
+    private HttpTransport transport;
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+    private final List<String> methods = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            methods.add(exchange.getRequestMethod());
+            int status = exchange.getRequestURI().getPath().startsWith("/fail") ? 500 : 200;
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(status, -1);
+            } else {
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        transport = new HttpTransport(new HttpTransport.Settings(5, Duration.ofMinutes(1), 16, 4,
+                Duration.ofSeconds(2), Duration.ofSeconds(2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testRecordsMetricsPerEndpoint() throws Exception {
+        get("/v3/accounts/101-004-123/trades");
+        get("/v3/accounts/101-004-456/trades");
+        get("/fail/orders/12");
+
+        Map<String, EndpointMetrics> metrics = transport.getMetrics();
+        assertEquals(Set.of("GET localhost/v3/accounts/{id}/trades", "GET localhost/fail/orders/{id}"), metrics.keySet());
+
+        EndpointMetrics trades = metrics.get("GET localhost/v3/accounts/{id}/trades");
+        assertEquals(2, trades.getRequests());
+        assertEquals(0, trades.getErrorResponses());
+        assertTrue(trades.getMaxLatencyMs() >= trades.getAverageLatencyMs());
+
+        EndpointMetrics failing = metrics.get("GET localhost/fail/orders/{id}");
+        assertEquals(1, failing.getRequests());
+        assertEquals(1, failing.getErrorResponses());
+        assertEquals(0, failing.getFailures());
+    }
+
+    @Test
+    void testEndpointsKeepVersionsAndHideIds() {
+        assertEquals("GET api-fxpractice.oanda.com/v3/accounts/{id}/trades/{id}/close",
+                endpoint("GET", "https://api-fxpractice.oanda.com/v3/accounts/101-004-123-001/trades/42/close"));
+        assertEquals("GET api-fxpractice.oanda.com/v3/instruments/NAS100_USD/candles",
+                endpoint("GET", "https://api-fxpractice.oanda.com/v3/instruments/NAS100_USD/candles"));
+        assertEquals("POST mt5.local/api/v1/trades/{id}/close/{id}",
+                endpoint("POST", "https://mt5.local/api/v1/trades/A1B2/close/77"));
+        assertEquals("POST api.telegram.org/{id}/sendMessage",
+                endpoint("POST", "https://api.telegram.org/bot123456:AAH-secret/sendMessage"));
+    }
+
+    @Test
+    void testRecordsRequestsThatGetNoResponse() throws Exception {
+        String url = url("/v3/instruments");
+        server.stop(0);
+
+        Request request = new Request.Builder().url(url).build();
+        assertThrows(IOException.class, () -> transport.getClient().newCall(request).execute());
+
+        EndpointMetrics metrics = transport.getMetrics().get("GET localhost/v3/instruments");
+        assertEquals(1, metrics.getRequests());
+        assertEquals(1, metrics.getFailures());
+    }
+
+    @Test
+    void testPrewarmedConnectionIsReusedAndNotRecorded() throws Exception {
+        transport.prewarm(url("/"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (transport.getClient().connectionPool().idleConnectionCount() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Prewarm connection was never pooled");
+            Thread.sleep(10);
+        }
+
+        get("/v3/accounts/101-004-123/summary");
+        get("/v3/accounts/101-004-123/summary");
+
+        assertEquals(List.of("HEAD", "GET", "GET"), methods);
+        // Every request came from the prewarmed connection
+        assertEquals(1, Set.copyOf(clientPorts).size());
+        assertEquals(1, transport.getClient().connectionPool().connectionCount());
+        assertEquals(Set.of("GET localhost/v3/accounts/{id}/summary"), transport.getMetrics().keySet());
+        assertEquals(2, transport.getMetrics().get("GET localhost/v3/accounts/{id}/summary").getRequests());
+    }
+
+    @Test
+    void testInvalidPrewarmUrlIsIgnored() {
+        assertDoesNotThrow(() -> transport.prewarm("${MT5_API_URL}"));
+        assertTrue(transport.getMetrics().isEmpty());
+    }
+
+    private void get(String path) throws IOException {
+        Request request = new Request.Builder().url(url(path)).build();
+        try (Response response = transport.getClient().newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+
+    private static String endpoint(String method, String url) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (method.equals("POST")) {
+            builder.post(okhttp3.RequestBody.create(new byte[0]));
+        }
+        return HttpTransport.endpoint(builder.build());
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
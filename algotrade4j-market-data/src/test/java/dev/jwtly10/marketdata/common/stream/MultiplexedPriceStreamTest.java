@@ -0,0 +1,205 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import dev.jwtly10.core.model.DefaultTick;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.core.model.Tick;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiplexedPriceStreamTest {
+
+    private final ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    private List<FakeUpstream> upstreams;
+    private MultiplexedPriceStream shared;
+
+    @BeforeEach
+    void setUp() {
+        upstreams = new ArrayList<>();
+        shared = new MultiplexedPriceStream("test", instruments -> {
+            FakeUpstream upstream = new FakeUpstream(instruments);
+            upstreams.add(upstream);
+            return upstream;
+        });
+    }
+
+    @Test
+    void testSubscribersOnSameInstrumentShareOneUpstream() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(first);
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(second);
+
+        upstreams.getFirst().emit(tick(Instrument.NAS100USD, 1));
+
+        assertEquals(1, upstreams.size());
+        assertEquals(1, first.ticks.size());
+        assertSame(first.ticks.getFirst(), second.ticks.getFirst());
+        assertEquals(2, shared.getSubscriberCount());
+    }
+
+    @Test
+    void testTicksRoutedByInstrument() {
+        RecordingCallback nas = new RecordingCallback();
+        RecordingCallback eur = new RecordingCallback();
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(nas);
+        shared.subscribe(List.of(Instrument.EURUSD)).start(eur);
+        FakeUpstream union = upstreams.getLast();
+        union.emit(tick(Instrument.NAS100USD, 1));
+        union.emit(tick(Instrument.EURUSD, 2));
+
+        assertEquals(List.of(Instrument.NAS100USD, Instrument.EURUSD), instrumentsOf(nas.ticks, eur.ticks));
+        assertEquals(Set.of(Instrument.NAS100USD, Instrument.EURUSD), Set.copyOf(union.instruments));
+    }
+
+    @Test
+    void testOldUpstreamKeptUntilReplacementDelivers() {
+        RecordingCallback nas = new RecordingCallback();
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(nas);
+        FakeUpstream old = upstreams.getFirst();
+        old.emit(tick(Instrument.NAS100USD, 1));
+
+        shared.subscribe(List.of(Instrument.EURUSD)).start(new RecordingCallback());
+        FakeUpstream replacement = upstreams.getLast();
+        assertNotSame(old, replacement);
+        assertFalse(old.closed);
+
+        // Still streaming from the old connection while the new one connects
+        old.emit(tick(Instrument.NAS100USD, 2));
+        // Both streams deliver the same tick during the overlap, it is only sent once
+        replacement.emit(tick(Instrument.NAS100USD, 2));
+        assertTrue(old.closed);
+        replacement.emit(tick(Instrument.NAS100USD, 3));
+        old.emit(tick(Instrument.NAS100USD, 4));
+
+        assertEquals(List.of(1L, 2L, 3L), secondsOf(nas.ticks));
+    }
+
+    @Test
+    void testUnsubscribeShrinksUpstreamAndLastUnsubscribeClosesIt() {
+        RecordingCallback nas = new RecordingCallback();
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(nas);
+        Stream<Tick> eur = shared.subscribe(List.of(Instrument.EURUSD));
+        eur.start(new RecordingCallback());
+
+        eur.close();
+
+        FakeUpstream shrunk = upstreams.getLast();
+        assertEquals(List.of(Instrument.NAS100USD), shrunk.instruments);
+        assertEquals(Set.of(Instrument.NAS100USD), shared.getInstruments());
+        shrunk.emit(tick(Instrument.NAS100USD, 1));
+        assertEquals(1, nas.ticks.size());
+
+        shared.subscribe(List.of(Instrument.NAS100USD)).close(); // Never started, no effect
+        assertEquals(1, shared.getSubscriberCount());
+    }
+
+    @Test
+    void testLastUnsubscribeClosesUpstream() {
+        Stream<Tick> subscription = shared.subscribe(List.of(Instrument.NAS100USD));
+        subscription.start(new RecordingCallback());
+
+        subscription.close();
+
+        assertTrue(upstreams.getFirst().closed);
+        assertTrue(shared.getInstruments().isEmpty());
+    }
+
+    @Test
+    void testUpstreamErrorFannedOutToSubscribers() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(first);
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(second);
+
+        upstreams.getFirst().callback.onError(new Exception("Max retries reached"));
+
+        assertEquals(1, first.errors.size());
+        assertEquals(1, second.errors.size());
+    }
+
+    @Test
+    void testFailedReplacementOnlyAffectsNewInstruments() {
+        RecordingCallback nas = new RecordingCallback();
+        RecordingCallback eur = new RecordingCallback();
+        shared.subscribe(List.of(Instrument.NAS100USD)).start(nas);
+        shared.subscribe(List.of(Instrument.EURUSD)).start(eur);
+
+        upstreams.getLast().callback.onError(new Exception("Failed to connect"));
+
+        assertTrue(nas.errors.isEmpty());
+        assertEquals(1, eur.errors.size());
+        assertFalse(upstreams.getFirst().closed);
+        upstreams.getFirst().emit(tick(Instrument.NAS100USD, 1));
+        assertEquals(1, nas.ticks.size());
+    }
+
+    private Tick tick(Instrument instrument, long seconds) {
+        return new DefaultTick(instrument, new Number(1), new Number(1), new Number(1), new Number(1), start.plusSeconds(seconds));
+    }
+
+    private List<Long> secondsOf(List<Tick> ticks) {
+        return ticks.stream().map(t -> t.getDateTime().toEpochSecond() - start.toEpochSecond()).toList();
+    }
+
+    @SafeVarargs
+    private List<Instrument> instrumentsOf(List<Tick>... ticks) {
+        List<Instrument> instruments = new ArrayList<>();
+        for (List<Tick> list : ticks) {
+            list.forEach(t -> instruments.add(t.getInstrument()));
+        }
+        return instruments;
+    }
+
+    private static class FakeUpstream implements Stream<Tick> {
+        private final List<Instrument> instruments;
+        private StreamCallback<Tick> callback;
+        private boolean closed = false;
+
+        FakeUpstream(List<Instrument> instruments) {
+            this.instruments = instruments;
+        }
+
+        @Override
+        public void start(StreamCallback<Tick> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        void emit(Tick tick) {
+            callback.onData(tick);
+        }
+    }
+
+    private static class RecordingCallback implements Stream.StreamCallback<Tick> {
+        private final List<Tick> ticks = new ArrayList<>();
+        private final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onData(Tick data) {
+            ticks.add(data);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
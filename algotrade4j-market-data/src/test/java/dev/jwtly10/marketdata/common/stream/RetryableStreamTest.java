@@ -0,0 +1,299 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link RetryableStream} against a local server that fails, drops and stalls connections on demand.
+ */
+class RetryableStreamTest {
+
+    private FaultInjectingServer server;
+    private ReconnectScheduler scheduler;
+    private OkHttpClient client;
+    private TestStream stream;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FaultInjectingServer();
+        scheduler = new ReconnectScheduler(10, 50);
+        // No read timeout, so only the watchdog can detect a stalled connection
+        client = new OkHttpClient.Builder().readTimeout(Duration.ZERO).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stream != null) {
+            stream.close();
+        }
+        server.close();
+        scheduler.shutdown();
+        client.dispatcher().executorService().shutdownNow();
+        client.connectionPool().evictAll();
+    }
+
+    @Test
+    void testRetriesFailedConnectionsThenRecovers() throws Exception {
+        server.enqueue(Fault.SERVER_ERROR, Fault.SERVER_ERROR);
+        stream = start(Duration.ZERO);
+
+        await(() -> stream.lines.size() >= 3);
+
+        StreamMetrics metrics = stream.getMetrics();
+        assertEquals(3, metrics.getConnectionAttempts());
+        assertEquals(2, metrics.getDisconnects());
+        assertEquals(1, metrics.getRecoveries());
+        assertTrue(metrics.getLastRecoveryMs() >= 0);
+        assertEquals(0, stream.getRetryCount());
+        assertTrue(stream.errors.isEmpty());
+    }
+
+    @Test
+    void testWatchdogReconnectsStalledStream() throws Exception {
+        server.enqueue(Fault.STALL);
+        stream = start(Duration.ofMillis(300));
+
+        await(() -> stream.lines.stream().anyMatch(line -> line.startsWith("2:")));
+
+        StreamMetrics metrics = stream.getMetrics();
+        assertEquals(1, metrics.getStalls());
+        assertEquals(1, metrics.getDisconnects());
+        assertEquals(1, metrics.getRecoveries());
+        // Only the lines sent before the stall, then the new connection
+        assertEquals(List.of("1:0", "1:1"), stream.lines.subList(0, 2));
+    }
+
+    @Test
+    void testHeartbeatsKeepStreamAlive() throws Exception {
+        stream = start(Duration.ofMillis(300));
+
+        Thread.sleep(1000);
+
+        assertEquals(0, stream.getMetrics().getStalls());
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    void testReconnectsWhenServerEndsStream() throws Exception {
+        server.enqueue(Fault.END_STREAM);
+        stream = start(Duration.ZERO);
+
+        await(() -> stream.lines.stream().anyMatch(line -> line.startsWith("2:")));
+
+        assertEquals(1, stream.getMetrics().getDisconnects());
+        assertEquals(1, stream.getMetrics().getRecoveries());
+    }
+
+    @Test
+    void testGivesUpAfterMaxRetries() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            server.enqueue(Fault.SERVER_ERROR);
+        }
+        stream = start(Duration.ZERO);
+
+        await(() -> !stream.errors.isEmpty());
+
+        assertEquals("Max retries reached", stream.errors.getFirst().getMessage());
+        // The first connection and 10 retries
+        assertEquals(11, stream.getMetrics().getConnectionAttempts());
+        assertEquals(0, stream.getMetrics().getRecoveries());
+    }
+
+    @Test
+    void testCloseStopsRetrying() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            server.enqueue(Fault.SERVER_ERROR);
+        }
+        stream = start(Duration.ofMillis(100));
+        await(() -> server.connections.get() >= 2);
+
+        stream.close();
+        int connections = server.connections.get();
+        Thread.sleep(300);
+
+        assertTrue(server.connections.get() <= connections + 1);
+        assertTrue(stream.errors.isEmpty());
+    }
+
+    @Test
+    void testBackoffIsJitteredAndCapped() {
+        ReconnectScheduler backoff = new ReconnectScheduler(1000, 30000);
+        try {
+            for (int i = 0; i < 100; i++) {
+                long first = backoff.backoffMs(0);
+                assertTrue(first >= 500 && first <= 1000, "first retry " + first);
+                long third = backoff.backoffMs(2);
+                assertTrue(third >= 2000 && third <= 4000, "third retry " + third);
+                long capped = backoff.backoffMs(200);
+                assertTrue(capped >= 15000 && capped <= 30000, "capped retry " + capped);
+            }
+        } finally {
+            backoff.shutdown();
+        }
+    }
+
+    private TestStream start(Duration staleTimeout) {
+        TestStream testStream = new TestStream(client, new Request.Builder().url("http://localhost:" + server.port() + "/stream").build(),
+                scheduler, staleTimeout);
+        testStream.start(testStream.callback);
+        return testStream;
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private enum Fault {
+        // Responds with a 500
+        SERVER_ERROR,
+        // Sends two lines then goes silent, keeping the connection open
+        STALL,
+        // Sends two lines then closes the connection
+        END_STREAM
+    }
+
+    private static class TestStream extends RetryableStream<String> {
+        private final List<String> lines = new CopyOnWriteArrayList<>();
+        private final List<Exception> errors = new CopyOnWriteArrayList<>();
+        private final StreamCallback<String> callback = new StreamCallback<>() {
+            @Override
+            public void onData(String data) {
+                lines.add(data);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                errors.add(e);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+
+        TestStream(OkHttpClient client, Request request, ReconnectScheduler scheduler, Duration staleTimeout) {
+            super(client, request, new ObjectMapper(), scheduler, staleTimeout);
+        }
+
+        @Override
+        protected void processLine(String line, StreamCallback<String> callback) {
+            if (!line.equals("HEARTBEAT")) {
+                callback.onData(line);
+            }
+        }
+    }
+
+    /**
+     * A minimal HTTP server streaming numbered lines ("connection:line") with heartbeats, applying the queued faults to connections in order.
+     * Connections without a fault stream until the client disconnects.
+     */
+    private static class FaultInjectingServer implements Closeable {
+        private final ServerSocket serverSocket;
+        private final ConcurrentLinkedQueue<Fault> faults = new ConcurrentLinkedQueue<>();
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+
+        FaultInjectingServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread.ofVirtual().start(this::acceptLoop);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void enqueue(Fault... toInject) {
+            faults.addAll(List.of(toInject));
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    sockets.add(socket);
+                    int connection = connections.incrementAndGet();
+                    Fault fault = faults.poll();
+                    Thread.ofVirtual().start(() -> handle(socket, connection, fault));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket, int connection, Fault fault) {
+            try (socket) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                String header;
+                while ((header = in.readLine()) != null && !header.isEmpty()) {
+                    // Skip the request headers
+                }
+                OutputStream out = socket.getOutputStream();
+                if (fault == Fault.SERVER_ERROR) {
+                    write(out, "HTTP/1.1 500 Internal Server Error\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+                    return;
+                }
+
+                write(out, "HTTP/1.1 200 OK\r\nContent-Type: application/octet-stream\r\nConnection: close\r\n\r\n");
+                for (int line = 0; fault == null || line < 2; line++) {
+                    write(out, connection + ":" + line + "\n");
+                    Thread.sleep(20);
+                    write(out, "HEARTBEAT\n");
+                    Thread.sleep(20);
+                }
+                if (fault == Fault.STALL) {
+                    // Hold the connection open without sending anything, until the client gives up on it
+                    while (in.read() != -1) {
+                        // Discard
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Client disconnected
+            }
+        }
+
+        private void write(OutputStream out, String content) throws IOException {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                // Ignored
+            }
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ignored
+                }
+            }
+        }
+    }
+}
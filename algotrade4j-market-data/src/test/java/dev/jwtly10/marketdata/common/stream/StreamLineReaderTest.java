@@ -0,0 +1,54 @@
+package dev.jwtly10.marketdata.common.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamLineReaderTest {
+
+    @Test
+    void testSplitsLinesAndStripsTerminators() throws Exception {
+        assertEquals(List.of("first", "", "second", "last"), readAll(stream("first\n\r\nsecond\r\nlast"), 16));
+    }
+
+    @Test
+    void testGrowsForLinesLongerThanBuffer() throws Exception {
+        String longLine = "x".repeat(1000);
+
+        assertEquals(List.of("a", longLine, "b"), readAll(stream("a\n" + longLine + "\nb\n"), 16));
+    }
+
+    @Test
+    void testLinesSplitAcrossReads() throws Exception {
+        // Returns at most 3 bytes per read, like a slow network stream
+        InputStream in = new ByteArrayInputStream("{\"a\":1}\n{\"b\":2}\n".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        assertEquals(List.of("{\"a\":1}", "{\"b\":2}"), readAll(in, 16));
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> readAll(InputStream in, int capacity) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (StreamLineReader reader = new StreamLineReader(in, capacity)) {
+            while (reader.readLine()) {
+                lines.add(new String(reader.buffer(), reader.lineOffset(), reader.lineLength(), StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.jwtly10.marketdata.impl.oanda.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Loads the Oanda stream fixtures, lines in the v20 pricing and transaction stream format (including heartbeats).
+ */
+final class OandaStreamFixtures {
+    static final String PRICE_STREAM = "/oanda/price-stream.jsonl";
+    static final String TRANSACTION_STREAM = "/oanda/transaction-stream.jsonl";
+
+    private OandaStreamFixtures() {
+    }
+
+    static byte[] bytes(String resource) throws IOException {
+        try (InputStream in = OandaStreamFixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Missing fixture: " + resource);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    static List<String> lines(String resource) throws IOException {
+        return new String(bytes(resource), StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,97 @@
+package dev.jwtly10.marketdata.impl.oanda.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jwtly10.marketdata.common.stream.StreamLineReader;
+import dev.jwtly10.marketdata.impl.oanda.response.OandaPriceResponse;
+import dev.jwtly10.marketdata.impl.oanda.response.transaction.OrderFillTransaction;
+import dev.jwtly10.marketdata.impl.oanda.utils.OandaUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the previous line handling (BufferedReader lines, Jackson DTOs and {@link OandaUtils#mapPriceToTick})
+ * against {@link StreamLineReader} and {@link OandaStreamParser}, reading the recorded price and transaction stream fixtures end to end.
+ *
+ * <p>
+ * Not run as part of the test suite. Run with:
+ * {@code mvn -pl algotrade4j-market-data test-compile exec:java -Dexec.mainClass=dev.jwtly10.marketdata.impl.oanda.stream.OandaStreamParserBenchmark -Dexec.classpathScope=test}
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OandaStreamParserBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] prices;
+    private byte[] transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        prices = OandaStreamFixtures.bytes(OandaStreamFixtures.PRICE_STREAM);
+        transactions = OandaStreamFixtures.bytes(OandaStreamFixtures.TRANSACTION_STREAM);
+    }
+
+    @Benchmark
+    public void pricesJackson(Blackhole blackhole) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(prices)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains("\"type\":\"PRICE\"")) {
+                blackhole.consume(OandaUtils.mapPriceToTick(objectMapper.readValue(line, OandaPriceResponse.class)));
+            }
+            blackhole.consume(line.contains("error"));
+        }
+    }
+
+    @Benchmark
+    public void pricesStreaming(Blackhole blackhole) throws Exception {
+        StreamLineReader reader = new StreamLineReader(new ByteArrayInputStream(prices));
+        while (reader.readLine()) {
+            blackhole.consume(OandaStreamParser.parsePrice(reader.buffer(), reader.lineOffset(), reader.lineLength()));
+            blackhole.consume(OandaStreamParser.containsError(reader.buffer(), reader.lineOffset(), reader.lineLength()));
+        }
+    }
+
+    @Benchmark
+    public void transactionsJackson(Blackhole blackhole) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(transactions)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JsonNode node = objectMapper.readTree(line);
+            if ("ORDER_FILL".equals(node.path("type").asText())) {
+                blackhole.consume(objectMapper.treeToValue(node, OrderFillTransaction.class));
+            }
+            blackhole.consume(line.contains("error"));
+        }
+    }
+
+    @Benchmark
+    public void transactionsStreaming(Blackhole blackhole) throws Exception {
+        StreamLineReader reader = new StreamLineReader(new ByteArrayInputStream(transactions));
+        while (reader.readLine()) {
+            blackhole.consume(OandaStreamParser.parseClosedTrades(reader.buffer(), reader.lineOffset(), reader.lineLength()));
+            blackhole.consume(OandaStreamParser.containsError(reader.buffer(), reader.lineOffset(), reader.lineLength()));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OandaStreamParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,144 @@
+package dev.jwtly10.marketdata.impl.oanda.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jwtly10.core.model.DefaultTick;
+import dev.jwtly10.core.model.Instrument;
+import dev.jwtly10.core.model.Number;
+import dev.jwtly10.marketdata.common.TradeDTO;
+import dev.jwtly10.marketdata.impl.oanda.response.OandaPriceResponse;
+import dev.jwtly10.marketdata.impl.oanda.response.transaction.OrderFillTransaction;
+import dev.jwtly10.marketdata.impl.oanda.utils.OandaUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OandaStreamParserTest {
+
+    private static final Set<String> CLOSE_REASONS = Set.of("MARKET_ORDER_TRADE_CLOSE", "STOP_LOSS_ORDER", "TAKE_PROFIT_ORDER");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testPricesMatchJacksonMapping() throws Exception {
+        int prices = 0;
+        for (String line : OandaStreamFixtures.lines(OandaStreamFixtures.PRICE_STREAM)) {
+            DefaultTick expected = line.contains("\"type\":\"PRICE\"")
+                    ? OandaUtils.mapPriceToTick(objectMapper.readValue(line, OandaPriceResponse.class))
+                    : null;
+
+            assertEquals(expected, parsePrice(line), line);
+            if (expected != null) {
+                prices++;
+            }
+        }
+        assertTrue(prices > 0);
+    }
+
+    @Test
+    void testClosedTradesMatchJacksonMapping() throws Exception {
+        int closes = 0;
+        for (String line : OandaStreamFixtures.lines(OandaStreamFixtures.TRANSACTION_STREAM)) {
+            JsonNode node = objectMapper.readTree(line);
+            List<TradeDTO> expected = null;
+            if ("ORDER_FILL".equals(node.path("type").asText()) && CLOSE_REASONS.contains(node.path("reason").asText())) {
+                expected = objectMapper.treeToValue(node, OrderFillTransaction.class).tradesClosed().stream()
+                        .map(close -> new TradeDTO(close.tradeID(), Double.parseDouble(close.realizedPL()), Double.parseDouble(close.price())))
+                        .toList();
+            }
+
+            assertEquals(expected, parseClosedTrades(line), line);
+            if (expected != null) {
+                closes++;
+            }
+        }
+        assertTrue(closes > 0);
+    }
+
+    @Test
+    void testHeartbeatsSkipped() throws Exception {
+        assertNull(parsePrice("{\"type\":\"HEARTBEAT\",\"time\":\"2024-08-01T13:30:05.000000000Z\"}"));
+        assertNull(parseClosedTrades("{\"type\":\"HEARTBEAT\",\"lastTransactionID\":\"7001\",\"time\":\"2024-08-01T13:30:05.000000000Z\"}"));
+    }
+
+    @Test
+    void testFieldOrderWhitespaceAndEscapes() throws Exception {
+        DefaultTick tick = parsePrice("""
+                 { "instrument" : "EUR_USD", "note": "a \\"quoted\\" {value} [1]", "nested": {"type": "HEARTBEAT"},
+                   "bids" : [ { "liquidity": 10, "price" : "1.10000" } ], "asks": [{"price": "1.10010"}],
+                   "time" : "2024-08-01T13:30:05Z", "type" : "PRICE" }\r""".replace("\n", ""));
+
+        assertEquals(Instrument.EURUSD, tick.getInstrument());
+        assertEquals(new Number("1.10000"), tick.getBid());
+        assertEquals(new Number("1.10010"), tick.getAsk());
+        assertEquals(new Number("1.10005"), tick.getMid());
+        assertEquals(ZonedDateTime.of(2024, 8, 1, 13, 30, 5, 0, ZoneOffset.UTC), tick.getDateTime());
+    }
+
+    @Test
+    void testTimeFractionsAndOffsets() throws Exception {
+        assertEquals(ZonedDateTime.of(2024, 8, 1, 13, 30, 5, 120_000_000, ZoneOffset.UTC),
+                parsePrice(price("2024-08-01T13:30:05.12Z")).getDateTime());
+        assertEquals(OandaUtils.parseTime("2024-08-01T13:30:05.123+01:00"), parsePrice(price("2024-08-01T13:30:05.123+01:00")).getDateTime());
+    }
+
+    @Test
+    void testMissingBidsGivesNullPrices() throws Exception {
+        DefaultTick tick = parsePrice("{\"type\":\"PRICE\",\"time\":\"2024-08-01T13:30:05Z\",\"bids\":[],\"asks\":[{\"price\":\"1.1\"}],\"instrument\":\"EUR_USD\"}");
+
+        assertNull(tick.getBid());
+        assertNull(tick.getMid());
+        assertEquals(new Number("1.1"), tick.getAsk());
+    }
+
+    @Test
+    void testUnknownInstrumentRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> parsePrice("{\"type\":\"PRICE\",\"time\":\"2024-08-01T13:30:05Z\",\"instrument\":\"XAU_USD\"}"));
+    }
+
+    @Test
+    void testMalformedLineRejected() {
+        assertThrows(IOException.class, () -> parsePrice("{\"type\":\"PRICE\",\"time\":\"2024-08-01T13:30:05Z\",\"bids\":[{\"price\":\"1.1\""));
+        assertThrows(IOException.class, () -> parseClosedTrades("{\"type\" \"ORDER_FILL\"}"));
+    }
+
+    @Test
+    void testDetectsErrors() {
+        byte[] error = "{\"errorMessage\":\"Invalid value specified for 'accountID'\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] heartbeat = "{\"type\":\"HEARTBEAT\",\"time\":\"2024-08-01T13:30:05Z\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(OandaStreamParser.containsError(error, 0, error.length));
+        assertFalse(OandaStreamParser.containsError(heartbeat, 0, heartbeat.length));
+        assertFalse(OandaStreamParser.containsError(error, 2, 3));
+    }
+
+    @Test
+    void testParsesLineWithinLargerBuffer() throws Exception {
+        String line = price("2024-08-01T13:30:05Z");
+        byte[] bytes = ("garbage\n" + line + "\nmore").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(parsePrice(line), OandaStreamParser.parsePrice(bytes, 8, line.length()));
+    }
+
+    private String price(String time) {
+        return "{\"type\":\"PRICE\",\"time\":\"" + time + "\",\"bids\":[{\"price\":\"1.1\"}],\"asks\":[{\"price\":\"1.2\"}],\"instrument\":\"EUR_USD\"}";
+    }
+
+    private DefaultTick parsePrice(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return OandaStreamParser.parsePrice(bytes, 0, bytes.length);
+    }
+
+    private List<TradeDTO> parseClosedTrades(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return OandaStreamParser.parseClosedTrades(bytes, 0, bytes.length);
+    }
+}
@@ -11,6 +11,7 @@ import dev.jwtly10.core.external.news.forexfactory.ForexFactoryClient;
 import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.strategy.DefaultStrategyFactory;
 import dev.jwtly10.core.strategy.StrategyFactory;
+import dev.jwtly10.marketdata.common.http.HttpTransport;
 import dev.jwtly10.marketdata.impl.mt5.MT5Client;
 import dev.jwtly10.marketdata.impl.oanda.OandaClient;
 import dev.jwtly10.shared.service.external.telegram.TelegramNotifier;
@@ -19,6 +20,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class SharedCoreBeanConfig {
 
@@ -28,15 +31,42 @@ public class SharedCoreBeanConfig {
     @Value("${oanda.api.url}")
     private String oandaApiUrl;
 
+    @Value("${oanda.stream.stale.timeout.seconds:20}")
+    private long oandaStreamStaleTimeoutSeconds;
+
     @Value("${telegram.bot.token}")
     private String telegramBotToken;
 
+    @Value("${telegram.queue.capacity:500}")
+    private int telegramQueueCapacity;
+
+    @Value("${telegram.chat.interval.millis:1000}")
+    private long telegramChatIntervalMillis;
+
     @Value("${mt5.api.url}")
     private String mt5ApiUrl;
 
     @Value("${mt5.api.key}")
     private String mt5ApiKey;
 
+    @Value("${http.max.idle.connections:20}")
+    private int httpMaxIdleConnections;
+
+    @Value("${http.keep.alive.seconds:300}")
+    private long httpKeepAliveSeconds;
+
+    @Value("${http.max.requests:128}")
+    private int httpMaxRequests;
+
+    @Value("${http.max.requests.per.host:32}")
+    private int httpMaxRequestsPerHost;
+
+    @Value("${http.connect.timeout.seconds:10}")
+    private long httpConnectTimeoutSeconds;
+
+    @Value("${http.read.timeout.seconds:10}")
+    private long httpReadTimeoutSeconds;
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -50,12 +80,14 @@ public class SharedCoreBeanConfig {
 
     @Bean
     public OandaClient oandaClient() {
-        return new OandaClient(oandaApiUrl, oandaApiKey, objectMapper());
+        OandaClient client = new OandaClient(oandaApiUrl, oandaApiKey, okHttpClient(), objectMapper());
+        client.setStreamStaleTimeout(Duration.ofSeconds(oandaStreamStaleTimeoutSeconds));
+        return client;
     }
 
     @Bean
     public MT5Client mt5Client() {
-        return new MT5Client(mt5ApiKey, mt5ApiUrl, objectMapper());
+        return new MT5Client(mt5ApiKey, mt5ApiUrl, okHttpClient(), objectMapper());
     }
 
     @Bean
@@ -73,14 +105,30 @@ public class SharedCoreBeanConfig {
         return new DefaultDataManagerFactory();
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public HttpTransport httpTransport() {
+        return new HttpTransport(new HttpTransport.Settings(
+                httpMaxIdleConnections,
+                Duration.ofSeconds(httpKeepAliveSeconds),
+                httpMaxRequests,
+                httpMaxRequestsPerHost,
+                Duration.ofSeconds(httpConnectTimeoutSeconds),
+                Duration.ofSeconds(httpReadTimeoutSeconds)
+        ));
+    }
+
+    /**
+     * The client every broker, data and notification client is built from, so they share one connection pool and dispatcher.
+     */
     @Bean
     public OkHttpClient okHttpClient() {
-        return new OkHttpClient();
+        return httpTransport().getClient();
     }
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public TelegramNotifier telegramNotifier() {
-        return new TelegramNotifier(okHttpClient(), telegramBotToken);
+        return new TelegramNotifier(okHttpClient(), "https://api.telegram.org", telegramBotToken, telegramQueueCapacity,
+                Duration.ofMillis(telegramChatIntervalMillis));
     }
 
     @Bean
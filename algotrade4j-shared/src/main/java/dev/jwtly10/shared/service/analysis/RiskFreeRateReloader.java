@@ -0,0 +1,46 @@
+package dev.jwtly10.shared.service.analysis;
+
+import dev.jwtly10.core.analysis.RiskFreeRateTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the shared risk-free rate table up to date with an external copy of the FRED DTB3 file, if one is configured.
+ * The file is checked periodically and only reloaded when it changes, so it can be updated without restarting.
+ * Without a file, the rates bundled with algotrade4j-core are used.
+ */
+@Service
+@Slf4j
+public class RiskFreeRateReloader {
+
+    @Value("${analysis.risk.free.rate.file:}")
+    private String riskFreeRateFile;
+
+    private FileTime lastLoaded = null;
+
+    @Scheduled(fixedDelayString = "${analysis.risk.free.rate.reload.interval.seconds:3600}", timeUnit = TimeUnit.SECONDS)
+    public void reloadIfChanged() {
+        if (riskFreeRateFile == null || riskFreeRateFile.isBlank()) {
+            return;
+        }
+
+        Path file = Path.of(riskFreeRateFile);
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(lastLoaded)) {
+                return;
+            }
+            RiskFreeRateTable.getDefault().reload(file);
+            lastLoaded = modified;
+        } catch (Exception e) {
+            log.error("Failed to reload risk-free rates from {}, keeping the current rates: {}", file, e.getMessage(), e);
+        }
+    }
+}
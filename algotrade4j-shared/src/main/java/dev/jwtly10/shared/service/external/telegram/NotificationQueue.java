@@ -0,0 +1,315 @@
+package dev.jwtly10.shared.service.external.telegram;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers notifications in the background, so callers (e.g. a strategy opening a trade) never wait on the Telegram API.
+ *
+ * <p>
+ * Notifications are queued per chat and delivered by a single virtual thread:
+ * <ul>
+ *     <li>Each chat gets at most one message per interval, which keeps a burst (e.g. the same error on every tick) within Telegram's rate limits</li>
+ *     <li>An identical notification already waiting for the same chat isn't queued again, it's counted and sent once with the count</li>
+ *     <li>Everything waiting for a chat when its turn comes is sent together as one digest (up to Telegram's message length)</li>
+ *     <li>When Telegram rate limits a chat anyway, its messages are put back and retried after the delay Telegram asks for</li>
+ * </ul>
+ * The number of distinct waiting notifications is bounded. Notifications arriving when the queue is full are dropped,
+ * and the number dropped is included in the chat's next message.
+ * </p>
+ */
+@Slf4j
+class NotificationQueue {
+    static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private final Sender sender;
+    private final int capacity;
+    private final long chatIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Chat> chats = new HashMap<>();
+    private final Thread deliveryThread;
+    private int pending = 0;
+    private long dropped = 0;
+    private boolean closed = false;
+
+    /**
+     * @param sender       sends a message to a chat, called from the delivery thread
+     * @param capacity     the maximum number of distinct notifications waiting across all chats
+     * @param chatInterval the minimum time between two messages to the same chat
+     */
+    NotificationQueue(Sender sender, int capacity, Duration chatInterval) {
+        this.sender = sender;
+        this.capacity = capacity;
+        this.chatIntervalNanos = chatInterval.toNanos();
+        this.deliveryThread = Thread.ofVirtual().name("telegram-notifications").start(this::deliverUntilClosed);
+    }
+
+    /**
+     * Queues a notification without waiting for it to be delivered.
+     *
+     * @param chatId the chat to send the notification to
+     * @param text   the text of the notification
+     * @param isHtml whether the text is HTML
+     * @return false if the notification was dropped because the queue is full or closed
+     */
+    boolean offer(String chatId, String text, boolean isHtml) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            Chat chat = chats.computeIfAbsent(chatId, Chat::new);
+            Key key = new Key(text, isHtml);
+            Message existing = chat.messages.get(key);
+            if (existing != null) {
+                existing.count++;
+                return true;
+            }
+            if (pending >= capacity) {
+                chat.dropped++;
+                dropped++;
+                return false;
+            }
+            chat.messages.put(key, new Message(text, isHtml, 1));
+            pending++;
+            changed.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of distinct notifications waiting to be sent
+     */
+    int getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of notifications dropped because the queue was full
+     */
+    long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting notifications and waits for the waiting ones to be delivered.
+     *
+     * @param timeout how long to wait, after which undelivered notifications are discarded
+     */
+    void close(Duration timeout) {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (!deliveryThread.join(timeout)) {
+                log.warn("Discarding {} undelivered notifications after waiting {}", getPending(), timeout);
+                deliveryThread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            deliveryThread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverUntilClosed() {
+        try {
+            Batch batch;
+            while ((batch = take()) != null) {
+                deliver(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a chat that has notifications waiting and is allowed to send again, preferring the one that has waited longest.
+     *
+     * @return the next batch, or null once closed and everything has been delivered
+     */
+    private Batch take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                Chat next = null;
+                long waitNanos = Long.MAX_VALUE;
+                for (Chat chat : chats.values()) {
+                    if (chat.messages.isEmpty()) {
+                        continue;
+                    }
+                    long untilDue = chat.nextSendNanos - now;
+                    if (untilDue > 0) {
+                        waitNanos = Math.min(waitNanos, untilDue);
+                    } else if (next == null || chat.nextSendNanos - next.nextSendNanos < 0) {
+                        next = chat;
+                    }
+                }
+
+                if (next != null) {
+                    return next.takeBatch(now);
+                }
+                if (closed && pending == 0) {
+                    return null;
+                }
+                if (waitNanos == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitNanos);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deliver(Batch batch) {
+        try {
+            sender.send(batch.chatId(), batch.text(), batch.isHtml());
+            log.trace("Notification sent to chat {}: {}", batch.chatId(), batch.text());
+        } catch (TelegramRateLimitException e) {
+            log.warn("Telegram rate limited chat {}, retrying {} notifications in {}s", batch.chatId(), batch.messages().size(),
+                    e.getRetryAfter().toSeconds());
+            requeue(batch, e.getRetryAfter());
+        } catch (Exception e) {
+            log.error("Failed to send notification to chat {}: {}", batch.chatId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Puts a rate limited batch back in front of anything queued for the chat since, merging identical notifications.
+     */
+    private void requeue(Batch batch, Duration retryAfter) {
+        lock.lock();
+        try {
+            Chat chat = chats.computeIfAbsent(batch.chatId(), Chat::new);
+            LinkedHashMap<Key, Message> messages = new LinkedHashMap<>();
+            for (Message message : batch.messages()) {
+                messages.put(message.key(), message);
+            }
+            for (Message message : chat.messages.values()) {
+                Message earlier = messages.get(message.key());
+                if (earlier != null) {
+                    earlier.count += message.count;
+                    pending--;
+                } else {
+                    messages.put(message.key(), message);
+                }
+            }
+            chat.messages = messages;
+            chat.dropped += batch.dropped();
+            chat.nextSendNanos = System.nanoTime() + retryAfter.toNanos();
+            pending += batch.messages().size();
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends a message to a chat.
+     */
+    @FunctionalInterface
+    interface Sender {
+        /**
+         * @throws TelegramRateLimitException if the chat is rate limited, so the message should be retried later
+         * @throws IOException                if the message couldn't be sent
+         */
+        void send(String chatId, String text, boolean isHtml) throws IOException;
+    }
+
+    private record Key(String text, boolean isHtml) {
+    }
+
+    private record Batch(String chatId, String text, boolean isHtml, List<Message> messages, int dropped) {
+    }
+
+    private static class Message {
+        private final String text;
+        private final boolean isHtml;
+        private int count;
+
+        private Message(String text, boolean isHtml, int count) {
+            this.text = text;
+            this.isHtml = isHtml;
+            this.count = count;
+        }
+
+        private Key key() {
+            return new Key(text, isHtml);
+        }
+
+        private String render() {
+            return count == 1 ? text : text + "\n(repeated " + count + " times)";
+        }
+    }
+
+    private class Chat {
+        private final String chatId;
+        private LinkedHashMap<Key, Message> messages = new LinkedHashMap<>();
+        private long nextSendNanos = System.nanoTime();
+        private int dropped = 0;
+
+        private Chat(String chatId) {
+            this.chatId = chatId;
+        }
+
+        /**
+         * Takes the oldest message and as many of the following messages in the same format as fit in one Telegram message.
+         */
+        private Batch takeBatch(long now) {
+            Iterator<Message> iterator = messages.values().iterator();
+            Message first = iterator.next();
+            iterator.remove();
+            List<Message> taken = new ArrayList<>(List.of(first));
+            StringBuilder text = new StringBuilder(first.render());
+
+            while (iterator.hasNext()) {
+                Message message = iterator.next();
+                String rendered = message.render();
+                if (message.isHtml != first.isHtml || text.length() + 2 + rendered.length() > MAX_MESSAGE_LENGTH) {
+                    break;
+                }
+                iterator.remove();
+                taken.add(message);
+                text.append("\n\n").append(rendered);
+            }
+
+            int droppedSinceLast = dropped;
+            if (droppedSinceLast > 0) {
+                text.append("\n\n(").append(droppedSinceLast).append(droppedSinceLast == 1 ? " notification" : " notifications")
+                        .append(" dropped, the notification queue was full)");
+                dropped = 0;
+            }
+
+            pending -= taken.size();
+            nextSendNanos = now + chatIntervalNanos;
+            return new Batch(chatId, text.toString(), first.isHtml, taken, droppedSinceLast);
+        }
+    }
+}
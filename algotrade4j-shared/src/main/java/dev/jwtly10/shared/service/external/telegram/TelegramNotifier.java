@@ -10,15 +10,28 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Sends notifications to Telegram chats.
+ *
+ * <p>
+ * Notifications are queued and delivered in the background (see {@link NotificationQueue}), so the send methods return immediately.
+ * Delivery is rate limited per chat, and repeated notifications are coalesced into digests.
+ * </p>
+ */
 @Service
 @Slf4j
 public class TelegramNotifier implements Notifier {
+    private static final String TELEGRAM_API_URL = "https://api.telegram.org";
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
 
     private final OkHttpClient client;
     private final ObjectMapper objectMapper;
+    private final String apiUrl;
+    private final NotificationQueue queue;
     @Value("${telegram.system.chat.id}")
     private String systemChatId;
     @Value("${telegram.disable.notifications:false}")
@@ -26,9 +39,22 @@ public class TelegramNotifier implements Notifier {
     private String botToken;
 
     public TelegramNotifier(OkHttpClient client, String botToken) {
+        this(client, TELEGRAM_API_URL, botToken, 500, Duration.ofSeconds(1));
+    }
+
+    /**
+     * @param client        the http client
+     * @param apiUrl        the url of the Telegram bot API
+     * @param botToken      the bot token
+     * @param queueCapacity the maximum number of distinct notifications waiting to be sent, further notifications are dropped
+     * @param chatInterval  the minimum time between two messages to the same chat
+     */
+    public TelegramNotifier(OkHttpClient client, String apiUrl, String botToken, int queueCapacity, Duration chatInterval) {
         this.client = client;
+        this.apiUrl = apiUrl;
         this.botToken = botToken;
         this.objectMapper = new ObjectMapper();
+        this.queue = new NotificationQueue(this::send, queueCapacity, chatInterval);
     }
 
     /**
@@ -45,7 +71,7 @@ public class TelegramNotifier implements Notifier {
     @Override
     public void sendNotification(String chatId, String message, boolean isHtml) {
         log.info("Sending notification to chat: {}", chatId);
-        send(chatId, message, isHtml);
+        enqueue(chatId, message, isHtml);
     }
 
     /**
@@ -60,7 +86,7 @@ public class TelegramNotifier implements Notifier {
     public void sendErrorNotification(String chatId, String message, Exception e, boolean isHtml) {
         log.info("Sending error notification to chat: {}", chatId);
         String errorDetails = NotifierUtils.formatError(e);
-        send(chatId, String.format("""
+        enqueue(chatId, String.format("""
                 <b>Error:</b> %s
                 <pre>%s</pre>""", message, sanitize(errorDetails)
         ), isHtml);
@@ -77,7 +103,7 @@ public class TelegramNotifier implements Notifier {
     @Override
     public void sendSysNotification(String message, boolean isHtml) {
         log.info("Sending system notification to chat: {}", systemChatId);
-        send(systemChatId, String.format("""
+        enqueue(systemChatId, String.format("""
                 [SYSTEM] 🚨
                 %s""", message
         ), isHtml);
@@ -96,7 +122,7 @@ public class TelegramNotifier implements Notifier {
         log.info("Sending system error notification to chat: {}", systemChatId);
         String errorDetails = NotifierUtils.formatError(e);
 
-        send(systemChatId, String.format("""
+        enqueue(systemChatId, String.format("""
                 [SYSTEM] ERROR ⚠️
                 <b>Error:</b> %s
                 <pre>%s</pre>""", message, sanitize(errorDetails)
@@ -104,14 +130,26 @@ public class TelegramNotifier implements Notifier {
     }
 
 
-    private void send(String chatId, String message, boolean isHtml) {
+    /**
+     * Delivers the queued notifications, waiting up to a few seconds for them to be sent.
+     */
+    public void close() {
+        queue.close(CLOSE_TIMEOUT);
+    }
 
+    private void enqueue(String chatId, String message, boolean isHtml) {
         if (disableNotifications) {
             log.warn("Notifications are disabled via application.properties. Skipping notification.");
             return;
         }
 
-        String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+        if (!queue.offer(chatId, message, isHtml)) {
+            log.warn("Notification queue is full, dropping notification to chat: {}", chatId);
+        }
+    }
+
+    private void send(String chatId, String message, boolean isHtml) throws IOException {
+        String url = apiUrl + "/bot" + botToken + "/sendMessage";
 
         Map<String, Object> bodyMap = new HashMap<>();
         bodyMap.put("chat_id", chatId);
@@ -123,24 +161,23 @@ public class TelegramNotifier implements Notifier {
             bodyMap.put("text", escapeMarkdown(message));
         }
 
-        try {
-            String jsonBody = objectMapper.writeValueAsString(bodyMap);
-            RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
-            log.debug("Telegram Req Body: {}", jsonBody);
-            Request request = new Request.Builder()
-                    .url(url)
-                    .post(body)
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new IOException("Unexpected response code: " + response);
-                }
-
-                log.trace("Notification sent successfully: {}", message);
+        String jsonBody = objectMapper.writeValueAsString(bodyMap);
+        RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
+        log.debug("Telegram Req Body: {}", jsonBody);
+        Request request = new Request.Builder()
+                .url(url)
+                .post(body)
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() == 429) {
+                // https://core.telegram.org/bots/api#responseparameters
+                long retryAfter = objectMapper.readTree(response.body().string()).path("parameters").path("retry_after").asLong(1);
+                throw new TelegramRateLimitException("Too many requests to chat " + chatId, Duration.ofSeconds(Math.max(1, retryAfter)));
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected response code: " + response.code());
             }
-        } catch (IOException e) {
-            log.error("Failed to send notification: {}", e.getMessage());
         }
     }
 
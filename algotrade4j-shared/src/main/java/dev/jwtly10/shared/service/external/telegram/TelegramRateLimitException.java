@@ -0,0 +1,22 @@
+package dev.jwtly10.shared.service.external.telegram;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Thrown when Telegram rejects a message with 429 Too Many Requests.
+ */
+@Getter
+public class TelegramRateLimitException extends IOException {
+    /**
+     * How long Telegram asked us to wait before sending to the chat again
+     */
+    private final Duration retryAfter;
+
+    public TelegramRateLimitException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,50 @@
+package dev.jwtly10.shared.service.http;
+
+import dev.jwtly10.marketdata.common.http.HttpTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the shared HTTP transport ready for trading and reports on it.
+ * Connections to the trading endpoints are prewarmed more often than the pool's keep alive, so an order is sent on an open connection
+ * even after a quiet period, and the per-endpoint latency and error metrics are logged periodically.
+ */
+@Service
+@Slf4j
+public class HttpTransportMaintainer {
+    private final HttpTransport httpTransport;
+
+    @Value("${http.prewarm.enabled:true}")
+    private boolean prewarmEnabled;
+
+    @Value("${oanda.api.url}")
+    private String oandaApiUrl;
+
+    @Value("${mt5.api.url}")
+    private String mt5ApiUrl;
+
+    public HttpTransportMaintainer(HttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+    }
+
+    @Scheduled(fixedDelayString = "${http.prewarm.interval.seconds:240}", timeUnit = TimeUnit.SECONDS)
+    public void prewarmTradingEndpoints() {
+        if (!prewarmEnabled) {
+            return;
+        }
+        for (String url : new String[]{oandaApiUrl, mt5ApiUrl}) {
+            if (url != null && !url.isBlank()) {
+                httpTransport.prewarm(url);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${http.metrics.log.interval.seconds:300}", initialDelayString = "${http.metrics.log.interval.seconds:300}", timeUnit = TimeUnit.SECONDS)
+    public void logMetrics() {
+        httpTransport.getMetrics().forEach((endpoint, metrics) -> log.info("{}: {}", endpoint, metrics));
+    }
+}
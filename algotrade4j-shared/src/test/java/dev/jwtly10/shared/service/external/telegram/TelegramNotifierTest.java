@@ -0,0 +1,182 @@
+package dev.jwtly10.shared.service.external.telegram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link TelegramNotifier} against a local stub of the Telegram bot API.
+ */
+class TelegramNotifierTest {
+
+    private static final String BOT_TOKEN = "123:test-token";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Delivery> deliveries = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Integer> statuses = new LinkedBlockingQueue<>();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private HttpServer server;
+    private OkHttpClient client;
+    private TelegramNotifier notifier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/bot" + BOT_TOKEN + "/sendMessage", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = new OkHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (notifier != null) {
+            notifier.close();
+        }
+        server.stop(0);
+        client.dispatcher().executorService().shutdownNow();
+        client.connectionPool().evictAll();
+    }
+
+    @Test
+    void testSendingDoesNotWaitForTelegram() throws Exception {
+        notifier = notifier(10, Duration.ZERO);
+        release = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        notifier.sendNotification("1", "<b>Trade opened</b>", true);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500, "Sending waited for the response");
+
+        release.countDown();
+        await(() -> deliveries.size() == 1);
+        assertEquals("1", deliveries.getFirst().chatId());
+        assertEquals("<b>Trade opened</b>", deliveries.getFirst().text());
+        assertEquals("HTML", deliveries.getFirst().parseMode());
+    }
+
+    @Test
+    void testRepeatedNotificationsAreCoalescedIntoADigest() throws Exception {
+        notifier = notifier(10, Duration.ZERO);
+        release = new CountDownLatch(1);
+
+        notifier.sendNotification("1", "first", true);
+        await(() -> deliveries.size() == 1);
+        // While the first message is in flight, the same error arrives on every tick
+        for (int i = 0; i < 5; i++) {
+            notifier.sendNotification("1", "Price stream disconnected", true);
+        }
+        notifier.sendNotification("1", "Trade closed", true);
+        release.countDown();
+
+        await(() -> deliveries.size() == 2);
+        assertEquals("Price stream disconnected\n(repeated 5 times)\n\nTrade closed", deliveries.get(1).text());
+    }
+
+    @Test
+    void testMessagesToAChatAreRateLimited() throws Exception {
+        Duration interval = Duration.ofMillis(300);
+        notifier = notifier(10, interval);
+
+        notifier.sendNotification("1", "first", true);
+        await(() -> deliveries.size() == 1);
+        notifier.sendNotification("1", "second", true);
+        notifier.sendNotification("2", "other chat", true);
+
+        await(() -> deliveries.size() == 3);
+        // The other chat isn't held back by the first chat's limit
+        assertEquals("other chat", deliveries.get(1).text());
+        assertEquals("second", deliveries.get(2).text());
+        // The interval starts when the first message is sent, which is before it arrives (e.g. while the connection is opened)
+        long gapNanos = deliveries.get(2).receivedNanos() - deliveries.getFirst().receivedNanos();
+        long toleranceNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        assertTrue(gapNanos >= interval.toNanos() - toleranceNanos, "Second message to the chat was sent after " + gapNanos + "ns");
+    }
+
+    @Test
+    void testNotificationsAreDroppedWhenTheQueueIsFull() throws Exception {
+        notifier = notifier(2, Duration.ZERO);
+        release = new CountDownLatch(1);
+
+        notifier.sendNotification("1", "in flight", true);
+        await(() -> deliveries.size() == 1);
+        notifier.sendNotification("1", "a", true);
+        notifier.sendNotification("1", "b", true);
+        notifier.sendNotification("1", "c", true);
+        // Repeats of a waiting notification still fit
+        notifier.sendNotification("1", "a", true);
+        release.countDown();
+
+        await(() -> deliveries.size() == 2);
+        assertEquals("a\n(repeated 2 times)\n\nb\n\n(1 notification dropped, the notification queue was full)",
+                deliveries.get(1).text());
+    }
+
+    @Test
+    void testRateLimitedMessagesAreRetried() throws Exception {
+        notifier = notifier(10, Duration.ZERO);
+        statuses.add(429);
+
+        notifier.sendNotification("1", "Trade opened", false);
+
+        await(() -> deliveries.size() == 2);
+        assertEquals(deliveries.get(0).text(), deliveries.get(1).text());
+        assertEquals("MarkdownV2", deliveries.get(1).parseMode());
+        long gapNanos = deliveries.get(1).receivedNanos() - deliveries.get(0).receivedNanos();
+        assertTrue(gapNanos >= TimeUnit.SECONDS.toNanos(1), "Retried before the requested delay");
+    }
+
+    private TelegramNotifier notifier(int capacity, Duration chatInterval) {
+        String apiUrl = "http://localhost:" + server.getAddress().getPort();
+        return new TelegramNotifier(client, apiUrl, BOT_TOKEN, capacity, chatInterval);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        deliveries.add(new Delivery(body.path("chat_id").asText(), body.path("text").asText(), body.path("parse_mode").asText(),
+                System.nanoTime()));
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Integer status = statuses.poll();
+        byte[] response = (status != null && status == 429
+                ? "{\"ok\":false,\"error_code\":429,\"parameters\":{\"retry_after\":1}}"
+                : "{\"ok\":true}").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status != null ? status : 200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for deliveries: " + deliveries);
+            Thread.sleep(10);
+        }
+    }
+
+    private record Delivery(String chatId, String text, String parseMode, long receivedNanos) {
+    }
+}
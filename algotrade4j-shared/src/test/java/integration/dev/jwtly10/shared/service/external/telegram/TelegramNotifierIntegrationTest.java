@@ -5,6 +5,7 @@ import dev.jwtly10.core.model.Number;
 import dev.jwtly10.core.model.Trade;
 import dev.jwtly10.shared.service.external.telegram.TelegramNotifier;
 import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
@@ -31,6 +32,12 @@ public class TelegramNotifierIntegrationTest {
         telegramNotifier = new TelegramNotifier(new OkHttpClient(), botToken);
     }
 
+    @AfterEach
+    void tearDown() {
+        // Notifications are sent in the background, wait for them before the test ends
+        telegramNotifier.close();
+    }
+
     @Test
     void testSendNotificationMarkdown() {
         telegramNotifier.sendNotification(testChatId, """